@@ -321,7 +321,7 @@ public abstract class AbstractConnectionPool extends ContainerLifeCycle implemen
             LOG.debug("Released ({}) {} {}", reusable, entry, pool);
         if (reusable)
             return true;
-        remove(connection);
+        remove(connection, entry, false);
         return false;
     }
 
@@ -340,8 +340,21 @@ public abstract class AbstractConnectionPool extends ContainerLifeCycle implemen
         Pool<Connection>.Entry entry = (Pool<Connection>.Entry)attachable.getAttachment();
         if (entry == null)
             return false;
-        attachable.setAttachment(null);
+        // A multiplexed connection may be removed while still in use, for example
+        // when the server sends a GOAWAY; the release of the remaining requests
+        // completes the removal, so removing it again must be a no-op.
+        if (entry.isClosed() && !force)
+            return false;
+        return remove(connection, entry, force);
+    }
+
+    private boolean remove(Connection connection, Pool<Connection>.Entry entry, boolean force)
+    {
         boolean removed = pool.remove(entry);
+        // Keep the attachment of a connection still in use, so that
+        // the release of the remaining requests completes the removal.
+        if (entry.getMultiplexCount() == 0)
+            ((Attachable)connection).setAttachment(null);
         if (LOG.isDebugEnabled())
             LOG.debug("Removed ({}) {} {}", removed, entry, pool);
         if (removed || force)
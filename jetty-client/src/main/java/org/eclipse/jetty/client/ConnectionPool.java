@@ -125,4 +125,19 @@ public interface ConnectionPool extends Closeable
          */
         void setMaxMultiplex(int maxMultiplex);
     }
+
+    /**
+     * <p>Marks a connection as having its own max multiplex, for example
+     * negotiated with the server, that may change over the connection lifetime.</p>
+     * <p>Multiplexed connection pools use this value in place of their own
+     * {@link Multiplexable#getMaxMultiplex() max multiplex}, when it is known.</p>
+     */
+    interface MaxMultiplexable
+    {
+        /**
+         * @return the max number of requests multiplexable on this connection,
+         * or a negative value if it is not known
+         */
+        int getMaxMultiplex();
+    }
 }
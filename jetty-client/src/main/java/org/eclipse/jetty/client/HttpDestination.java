@@ -460,9 +460,10 @@ public abstract class HttpDestination extends ContainerLifeCycle implements Dest
         {
             tryRemoveIdleDestination();
         }
-        else if (removed)
+        else if (removed || connection.isClosed())
         {
-            // Process queued requests that may be waiting.
+            // Process queued requests that may be waiting,
+            // also when a closed connection is still in use.
             // We may create a connection that is not
             // needed, but it will eventually idle timeout.
             process(true);
@@ -0,0 +1,108 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.client;
+
+import org.eclipse.jetty.client.api.Connection;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.Pool;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+
+/**
+ * <p>A multiplexed {@link ConnectionPool} that provides the connection
+ * with the least number of active requests, so that requests are spread
+ * evenly across connections rather than saturating the first connection.</p>
+ * <p>The max multiplex of {@link ConnectionPool.MaxMultiplexable} connections
+ * is honored, so that for example the {@code SETTINGS_MAX_CONCURRENT_STREAMS}
+ * sent by each HTTP/2 server is respected even when it changes.</p>
+ * <p>When the ratio of active requests over the total request capacity of
+ * the open connections exceeds the {@link #getSaturationThreshold() saturation
+ * threshold}, a new connection is opened in advance, so that requests do not
+ * need to wait for a connection to be opened when all connections are busy.</p>
+ */
+@ManagedObject
+public class LeastActiveConnectionPool extends MultiplexConnectionPool
+{
+    private final MultiplexPool pool;
+    private double saturationThreshold = 0.75;
+
+    public LeastActiveConnectionPool(HttpDestination destination, int maxConnections, Callback requester, int maxMultiplex)
+    {
+        this(destination, new MultiplexPool(Pool.StrategyType.LEAST_MULTIPLEXED, maxConnections, false), requester, maxMultiplex);
+    }
+
+    private LeastActiveConnectionPool(HttpDestination destination, MultiplexPool pool, Callback requester, int maxMultiplex)
+    {
+        super(destination, pool, requester, maxMultiplex);
+        this.pool = pool;
+    }
+
+    @ManagedAttribute("The ratio of active requests over capacity above which a new connection is opened in advance")
+    public double getSaturationThreshold()
+    {
+        return saturationThreshold;
+    }
+
+    /**
+     * @param saturationThreshold the ratio of active requests over the request capacity
+     * of the open connections above which a new connection is opened in advance,
+     * or a value greater than 1 to only open connections on demand
+     */
+    public void setSaturationThreshold(double saturationThreshold)
+    {
+        this.saturationThreshold = saturationThreshold;
+    }
+
+    @ManagedAttribute(value = "The number of active requests", readonly = true)
+    public int getActiveRequestCount()
+    {
+        int active = 0;
+        for (Pool<Connection>.Entry entry : pool.values())
+        {
+            if (!entry.isClosed())
+                active += entry.getMultiplexCount();
+        }
+        return active;
+    }
+
+    @Override
+    protected void acquired(Connection connection)
+    {
+        super.acquired(connection);
+        if (isSaturated())
+        {
+            // Allow at most one connection to be opened in advance.
+            tryCreate(getMaxMultiplex());
+        }
+    }
+
+    private boolean isSaturated()
+    {
+        long active = 0;
+        long capacity = 0;
+        for (Pool<Connection>.Entry entry : pool.values())
+        {
+            if (entry.isClosed())
+                continue;
+            active += entry.getMultiplexCount();
+            capacity += pool.getMaxMultiplex(entry.getPooled());
+        }
+        return capacity > 0 && active >= saturationThreshold * capacity;
+    }
+}
@@ -34,7 +34,7 @@ public class MultiplexConnectionPool extends AbstractConnectionPool implements C
 
     public MultiplexConnectionPool(HttpDestination destination, int maxConnections, boolean cache, Callback requester, int maxMultiplex)
     {
-        this(destination, new Pool<>(Pool.StrategyType.FIRST, maxConnections, cache), requester, maxMultiplex);
+        this(destination, new MultiplexPool(Pool.StrategyType.FIRST, maxConnections, cache), requester, maxMultiplex);
     }
 
     public MultiplexConnectionPool(HttpDestination destination, Pool<Connection> pool, Callback requester, int maxMultiplex)
@@ -68,4 +68,28 @@ public class MultiplexConnectionPool extends AbstractConnectionPool implements C
     {
         super.setMaxUsageCount(maxUsageCount);
     }
+
+    /**
+     * <p>A {@link Pool} that honors the max multiplex of
+     * {@link ConnectionPool.MaxMultiplexable} connections.</p>
+     */
+    static class MultiplexPool extends Pool<Connection>
+    {
+        MultiplexPool(StrategyType strategyType, int maxEntries, boolean cache)
+        {
+            super(strategyType, maxEntries, cache);
+        }
+
+        @Override
+        protected int getMaxMultiplex(Connection connection)
+        {
+            if (connection instanceof ConnectionPool.MaxMultiplexable)
+            {
+                int maxMultiplex = ((ConnectionPool.MaxMultiplexable)connection).getMaxMultiplex();
+                if (maxMultiplex >= 0)
+                    return maxMultiplex;
+            }
+            return super.getMaxMultiplex(connection);
+        }
+    }
 }
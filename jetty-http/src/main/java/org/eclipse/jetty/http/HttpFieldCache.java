@@ -0,0 +1,265 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.ArrayTernaryTrie;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+
+/**
+ * <p>A header field cache shared by the {@link HttpParser}s of many connections.</p>
+ * <p>Each {@link HttpParser} caches the header fields of a persistent connection,
+ * so that repeated header lines are not parsed again on the same connection.
+ * This class records the header fields that are added to those per-connection
+ * caches and periodically publishes the most frequently observed ones in a
+ * read-only shared trie, so that new connections find them without allocating
+ * new {@link HttpField} and {@link String} instances.</p>
+ * <p>The shared trie is only used when {@link #getCapacity()} is positive, but
+ * the hit and miss statistics of the per-connection caches are always recorded.</p>
+ * <p>The capacities of the tries are expressed in trie nodes, that is roughly the
+ * number of characters of the cached header lines, excluding the prefixes they share.</p>
+ * <p>The values of {@link HttpHeader#AUTHORIZATION} and {@link HttpHeader#COOKIE}
+ * are never shared, as they are specific to a client.</p>
+ */
+@ManagedObject("HTTP header field cache")
+public class HttpFieldCache
+{
+    private final LongAdder _connectionHits = new LongAdder();
+    private final LongAdder _sharedHits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _overflows = new LongAdder();
+    private final LongAdder _grows = new LongAdder();
+    private final Map<String, Candidate> _candidates = new ConcurrentHashMap<>();
+    private final AtomicInteger _observations = new AtomicInteger();
+    private final AtomicBoolean _updating = new AtomicBoolean();
+    private final int _capacity;
+    private final int _maxCandidates;
+    private volatile ArrayTernaryTrie<HttpField> _trie;
+
+    /**
+     * Creates a cache that only records statistics.
+     */
+    public HttpFieldCache()
+    {
+        this(0);
+    }
+
+    /**
+     * @param capacity the capacity in trie nodes of the shared trie, or 0 to disable sharing
+     */
+    public HttpFieldCache(int capacity)
+    {
+        // The ArrayTernaryTrie rows are indexed by chars.
+        _capacity = Math.min(Math.max(0, capacity), Character.MAX_VALUE);
+        _maxCandidates = Math.max(16, _capacity / 16);
+    }
+
+    /**
+     * @return the capacity in trie nodes of the shared trie
+     */
+    @ManagedAttribute("The capacity in trie nodes of the header fields shared across connections")
+    public int getCapacity()
+    {
+        return _capacity;
+    }
+
+    /**
+     * @return the number of header fields currently in the shared trie
+     */
+    @ManagedAttribute("The number of header fields shared across connections")
+    public int getSharedFields()
+    {
+        ArrayTernaryTrie<HttpField> trie = _trie;
+        return trie == null ? 0 : trie.size();
+    }
+
+    @ManagedAttribute("The number of header lines matched by the per-connection caches")
+    public long getConnectionHits()
+    {
+        return _connectionHits.longValue();
+    }
+
+    @ManagedAttribute("The number of header lines matched by the shared cache")
+    public long getSharedHits()
+    {
+        return _sharedHits.longValue();
+    }
+
+    @ManagedAttribute("The number of header fields parsed and added to the per-connection caches")
+    public long getMisses()
+    {
+        return _misses.longValue();
+    }
+
+    @ManagedAttribute("The number of cacheable header fields parsed but not cached because a per-connection cache was full")
+    public long getOverflows()
+    {
+        return _overflows.longValue();
+    }
+
+    @ManagedAttribute("The number of times a per-connection cache has grown")
+    public long getGrows()
+    {
+        return _grows.longValue();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        _connectionHits.reset();
+        _sharedHits.reset();
+        _misses.reset();
+        _overflows.reset();
+        _grows.reset();
+    }
+
+    /**
+     * Looks up the shared trie for a header field at the position of the given buffer.
+     *
+     * @param buffer the buffer containing the header line
+     * @param offset the offset of the header line relative to the buffer position
+     * @param length the max length of the header line
+     * @return the shared header field, or null if none matches
+     */
+    HttpField getBest(ByteBuffer buffer, int offset, int length)
+    {
+        ArrayTernaryTrie<HttpField> trie = _trie;
+        return trie == null ? null : trie.getBest(buffer, offset, length);
+    }
+
+    void onConnectionHit()
+    {
+        _connectionHits.increment();
+    }
+
+    void onSharedHit()
+    {
+        _sharedHits.increment();
+    }
+
+    void onGrow()
+    {
+        _grows.increment();
+    }
+
+    void onOverflow()
+    {
+        _overflows.increment();
+    }
+
+    /**
+     * Records a header field that was not found in any cache
+     * and that has been added to a per-connection cache.
+     *
+     * @param field the header field
+     */
+    void onMiss(HttpField field)
+    {
+        _misses.increment();
+        if (_capacity == 0)
+            return;
+
+        HttpHeader header = field.getHeader();
+        if (header == HttpHeader.AUTHORIZATION || header == HttpHeader.COOKIE)
+            return;
+
+        String key = field.toString();
+        Candidate candidate = _candidates.get(key);
+        if (candidate == null)
+        {
+            // Bound the memory used by the candidates.
+            if (_candidates.size() >= _maxCandidates)
+                return;
+            candidate = _candidates.computeIfAbsent(key, k -> new Candidate(field));
+        }
+        candidate._count.increment();
+
+        if (_observations.incrementAndGet() % _maxCandidates == 0)
+            update();
+    }
+
+    private void update()
+    {
+        if (!_updating.compareAndSet(false, true))
+            return;
+        try
+        {
+            List<Candidate> candidates = new ArrayList<>(_candidates.size());
+            for (Candidate candidate : _candidates.values())
+            {
+                // Each candidate is counted once per connection, so a
+                // count of 2 means that it has been seen on 2 connections.
+                candidate._snapshot = candidate._count.sumThenReset() + candidate._snapshot / 2;
+                if (candidate._snapshot < 2)
+                    _candidates.remove(candidate._field.toString());
+                else
+                    candidates.add(candidate);
+            }
+            candidates.sort((c1, c2) -> Long.compare(c2._snapshot, c1._snapshot));
+
+            ArrayTernaryTrie<HttpField> trie = new ArrayTernaryTrie<>(_capacity);
+            for (Candidate candidate : candidates)
+            {
+                if (trie.isFull() || !trie.put(candidate._field))
+                    break;
+            }
+            _trie = trie.isEmpty() ? null : trie;
+        }
+        finally
+        {
+            _updating.set(false);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{fields=%d,capacity=%d,hits=%d/%d,misses=%d,overflows=%d}",
+            getClass().getSimpleName(),
+            hashCode(),
+            getSharedFields(),
+            getCapacity(),
+            getConnectionHits(),
+            getSharedHits(),
+            getMisses(),
+            getOverflows());
+    }
+
+    private static class Candidate
+    {
+        private final LongAdder _count = new LongAdder();
+        private final HttpField _field;
+        private long _snapshot;
+
+        private Candidate(HttpField field)
+        {
+            _field = field;
+        }
+    }
+}
@@ -180,11 +180,14 @@ public class HttpParser
     private boolean _headResponse;
     private boolean _cr;
     private ByteBuffer _contentChunk;
-    private Trie<HttpField> _fieldCache;
+    private ArrayTernaryTrie<HttpField> _fieldCache;
+    private int _fieldCacheCapacity;
     private int _length;
     private final StringBuilder _string = new StringBuilder();
     private int _headerCacheSize = 1024;
+    private int _headerCacheMaxSize;
     private boolean _headerCacheCaseSensitive;
+    private HttpFieldCache _sharedFieldCache;
 
     static
     {
@@ -304,6 +307,49 @@ public class HttpParser
         _headerCacheSize = headerCacheSize;
     }
 
+    /**
+     * @return the max size in trie nodes the header field cache of a persistent connection
+     * may grow to, or a value not greater than {@link #getHeaderCacheSize()} if the cache does not grow
+     */
+    public int getHeaderCacheMaxSize()
+    {
+        return _headerCacheMaxSize;
+    }
+
+    /**
+     * <p>Sets the max size the header field cache of a persistent connection may grow to.</p>
+     * <p>The size is a number of trie nodes, that is roughly the number of characters
+     * of the cached header lines, excluding the prefixes they share.</p>
+     * <p>The header field cache is created with {@link #getHeaderCacheSize()} and its
+     * size is doubled when a header field does not fit, up to this max size, so that
+     * connections with many repeated large header fields (for example cookies or
+     * authorization tokens) do not parse them again for every request.</p>
+     *
+     * @param headerCacheMaxSize the max size in trie nodes of the header field cache
+     */
+    public void setHeaderCacheMaxSize(int headerCacheMaxSize)
+    {
+        // The ArrayTernaryTrie rows are indexed by chars.
+        _headerCacheMaxSize = Math.min(headerCacheMaxSize, Character.MAX_VALUE);
+    }
+
+    /**
+     * @return the header field cache shared with other parsers, or null
+     */
+    public HttpFieldCache getSharedFieldCache()
+    {
+        return _sharedFieldCache;
+    }
+
+    /**
+     * @param sharedFieldCache the header field cache shared with other parsers,
+     * that is also used to record the header field cache statistics
+     */
+    public void setSharedFieldCache(HttpFieldCache sharedFieldCache)
+    {
+        _sharedFieldCache = sharedFieldCache;
+    }
+
     public boolean isHeaderCacheCaseSensitive()
     {
         return _headerCacheCaseSensitive;
@@ -877,7 +923,10 @@ public class HttpParser
                             // Should we try to cache header fields?
                             int headerCache = getHeaderCacheSize();
                             if (_fieldCache == null && _version.getVersion() >= HttpVersion.HTTP_1_1.getVersion() && headerCache > 0)
+                            {
+                                _fieldCacheCapacity = headerCache;
                                 _fieldCache = new ArrayTernaryTrie<>(headerCache);
+                            }
 
                             setState(State.HEADER);
 
@@ -1048,11 +1097,11 @@ public class HttpParser
                         break;
                 }
 
-                if (addToConnectionTrie && !_fieldCache.isFull() && _header != null && _valueString != null)
+                if (addToConnectionTrie && _header != null && _valueString != null)
                 {
                     if (_field == null)
                         _field = new HttpField(_header, caseInsensitiveHeader(_headerString, _header.asString()), _valueString);
-                    _fieldCache.put(_field);
+                    cacheField(_field);
                 }
             }
             _handler.parsedHeader(_field != null ? _field : new HttpField(_header, _headerString, _valueString));
@@ -1063,6 +1112,36 @@ public class HttpParser
         _field = null;
     }
 
+    private void cacheField(HttpField field)
+    {
+        boolean cached = putField(field);
+        if (_sharedFieldCache != null)
+        {
+            if (cached)
+                _sharedFieldCache.onMiss(field);
+            else
+                _sharedFieldCache.onOverflow();
+        }
+    }
+
+    private boolean putField(HttpField field)
+    {
+        if (!_fieldCache.isFull() && _fieldCache.put(field))
+            return true;
+
+        // Grow the cache if allowed, as this connection repeats large header fields.
+        while (_fieldCacheCapacity * 2 <= getHeaderCacheMaxSize())
+        {
+            _fieldCache = new ArrayTernaryTrie<>(_fieldCache, 2.0);
+            _fieldCacheCapacity *= 2;
+            if (_sharedFieldCache != null)
+                _sharedFieldCache.onGrow();
+            if (_fieldCache.put(field))
+                return true;
+        }
+        return false;
+    }
+
     private void parsedTrailer()
     {
         // handler last header if any.  Delayed to here just in case there was a continuation line (above)
@@ -1232,6 +1311,13 @@ public class HttpParser
                             {
                                 // Try a look ahead for the known header name and value.
                                 HttpField cachedField = _fieldCache == null ? null : _fieldCache.getBest(buffer, -1, buffer.remaining());
+                                boolean connectionHit = cachedField != null;
+                                boolean sharedHit = false;
+                                if (cachedField == null && _sharedFieldCache != null)
+                                {
+                                    cachedField = _sharedFieldCache.getBest(buffer, -1, buffer.remaining());
+                                    sharedHit = cachedField != null;
+                                }
                                 if (cachedField == null)
                                     cachedField = CACHE.getBest(buffer, -1, buffer.remaining());
 
@@ -1280,6 +1366,15 @@ public class HttpParser
                                     byte peek = buffer.get(pos);
                                     if (peek == HttpTokens.CARRIAGE_RETURN || peek == HttpTokens.LINE_FEED)
                                     {
+                                        // Only count the hits of the look ahead
+                                        // matches of the whole header line.
+                                        if (_sharedFieldCache != null)
+                                        {
+                                            if (connectionHit)
+                                                _sharedFieldCache.onConnectionHit();
+                                            else if (sharedHit)
+                                                _sharedFieldCache.onSharedHit();
+                                        }
                                         _field = cachedField;
                                         _valueString = v;
                                         setState(FieldState.IN_VALUE);
@@ -0,0 +1,251 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.thread.AutoLock;
+
+/**
+ * <p>A bounded cache of {@link PreEncodedHttpField}s for frequently emitted response fields.</p>
+ * <p>{@link #preEncode(HttpFields.Mutable)} replaces the fields that have been seen
+ * at least {@link #getThreshold()} times with an equal {@link PreEncodedHttpField},
+ * so that the HTTP/1 generator and the HPACK encoder copy their pre-encoded bytes
+ * rather than encoding them again for every response.</p>
+ * <p>Only the fields of the {@link #getHeaders() configured headers} are cached,
+ * as the values of other headers are typically specific to a response.
+ * Headers whose values change over time, such as {@code Date} and {@code Expires},
+ * are not cached by default, as their fields would evict the stable ones.</p>
+ * <p>When the cache is full, a field that has not been used since the previous
+ * eviction round is evicted, as chosen by a CLOCK (second chance) sweep.</p>
+ */
+@ManagedObject("Pre-encoded HTTP field cache")
+public class PreEncodedHttpFieldCache
+{
+    private static final EnumSet<HttpHeader> DEFAULT_HEADERS = EnumSet.of(
+        HttpHeader.SERVER,
+        HttpHeader.X_POWERED_BY,
+        HttpHeader.CONTENT_TYPE,
+        HttpHeader.CONTENT_ENCODING,
+        HttpHeader.CONTENT_LANGUAGE,
+        HttpHeader.CACHE_CONTROL,
+        HttpHeader.PRAGMA,
+        HttpHeader.VARY,
+        HttpHeader.ACCEPT_RANGES,
+        HttpHeader.CONNECTION,
+        HttpHeader.STRICT_TRANSPORT_SECURITY);
+
+    private final AutoLock _lock = new AutoLock();
+    private final Map<HttpField, Entry> _entries = new ConcurrentHashMap<>();
+    private final Entry[] _clock;
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+    private final int _maxSize;
+    private final int _threshold;
+    private final EnumSet<HttpHeader> _headers;
+    private int _hand;
+
+    /**
+     * @param maxSize the max number of fields in the cache
+     */
+    public PreEncodedHttpFieldCache(int maxSize)
+    {
+        this(maxSize, 2, DEFAULT_HEADERS);
+    }
+
+    /**
+     * @param maxSize the max number of fields in the cache
+     * @param threshold the number of times a field is seen before it is pre-encoded
+     * @param headers the headers whose fields may be cached
+     */
+    public PreEncodedHttpFieldCache(int maxSize, int threshold, EnumSet<HttpHeader> headers)
+    {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        _maxSize = maxSize;
+        _clock = new Entry[maxSize];
+        _threshold = Math.max(1, threshold);
+        _headers = EnumSet.copyOf(headers);
+    }
+
+    @ManagedAttribute("The max number of fields in the cache")
+    public int getMaxSize()
+    {
+        return _maxSize;
+    }
+
+    @ManagedAttribute("The number of times a field is seen before it is pre-encoded")
+    public int getThreshold()
+    {
+        return _threshold;
+    }
+
+    /**
+     * @return the headers whose fields may be cached
+     */
+    public EnumSet<HttpHeader> getHeaders()
+    {
+        return EnumSet.copyOf(_headers);
+    }
+
+    @ManagedAttribute("The number of fields in the cache")
+    public int getSize()
+    {
+        return _entries.size();
+    }
+
+    @ManagedAttribute("The number of fields replaced by a pre-encoded field")
+    public long getHits()
+    {
+        return _hits.longValue();
+    }
+
+    @ManagedAttribute("The number of fields evicted from the cache")
+    public long getEvictions()
+    {
+        return _evictions.longValue();
+    }
+
+    @ManagedOperation(value = "Clears the cache", impact = "ACTION")
+    public void clear()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            _entries.clear();
+            Arrays.fill(_clock, null);
+            _hand = 0;
+        }
+        _hits.reset();
+        _evictions.reset();
+    }
+
+    /**
+     * <p>Replaces the cacheable fields of the given fields with their pre-encoded form.</p>
+     *
+     * @param fields the fields to pre-encode
+     */
+    public void preEncode(HttpFields.Mutable fields)
+    {
+        ListIterator<HttpField> iterator = fields.listIterator();
+        while (iterator.hasNext())
+        {
+            HttpField field = iterator.next();
+            PreEncodedHttpField preEncoded = getPreEncodedField(field);
+            if (preEncoded != null)
+                iterator.set(preEncoded);
+        }
+    }
+
+    /**
+     * @param field the field to pre-encode
+     * @return the pre-encoded form of the field, or null if the field is not (yet) cached
+     */
+    public PreEncodedHttpField getPreEncodedField(HttpField field)
+    {
+        if (field == null || field instanceof PreEncodedHttpField || field.getValue() == null)
+            return null;
+        HttpHeader header = field.getHeader();
+        if (header == null || !_headers.contains(header))
+            return null;
+
+        Entry entry = _entries.get(field);
+        if (entry == null)
+            entry = insert(field);
+        else
+            entry._referenced = true;
+
+        PreEncodedHttpField preEncoded = entry._preEncoded;
+        if (preEncoded == null)
+        {
+            if (entry._count.incrementAndGet() < _threshold)
+                return null;
+            preEncoded = new PreEncodedHttpField(header, header.asString(), field.getValue());
+            entry._preEncoded = preEncoded;
+        }
+        _hits.increment();
+        return preEncoded;
+    }
+
+    private Entry insert(HttpField field)
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            Entry entry = _entries.get(field);
+            if (entry != null)
+                return entry;
+
+            // Advance the hand to a free slot, or to an entry that has not been
+            // used since the hand last passed, giving used entries a second chance.
+            while (true)
+            {
+                Entry victim = _clock[_hand];
+                if (victim == null)
+                    break;
+                if (!victim._referenced)
+                {
+                    _entries.remove(victim._field);
+                    _evictions.increment();
+                    break;
+                }
+                victim._referenced = false;
+                _hand = (_hand + 1) % _clock.length;
+            }
+
+            entry = new Entry(field);
+            _clock[_hand] = entry;
+            _hand = (_hand + 1) % _clock.length;
+            _entries.put(field, entry);
+            return entry;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{size=%d/%d,hits=%d,evictions=%d}",
+            getClass().getSimpleName(),
+            hashCode(),
+            getSize(),
+            getMaxSize(),
+            getHits(),
+            getEvictions());
+    }
+
+    private static class Entry
+    {
+        private final AtomicLong _count = new AtomicLong();
+        private final HttpField _field;
+        private volatile boolean _referenced;
+        private volatile PreEncodedHttpField _preEncoded;
+
+        private Entry(HttpField field)
+        {
+            _field = field;
+        }
+    }
+}
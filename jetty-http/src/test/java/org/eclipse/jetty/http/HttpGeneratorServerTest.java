@@ -789,6 +789,33 @@ public class HttpGeneratorServerTest
         assertThat(out, containsString("\r\n\r\nHello World! The quick brown fox jumped over the lazy dog. "));
     }
 
+    @Test
+    public void test103EarlyHintsWithFields() throws Exception
+    {
+        ByteBuffer header = BufferUtil.allocate(4096);
+        HttpGenerator gen = new HttpGenerator();
+
+        HttpFields.Mutable fields = HttpFields.build();
+        fields.add("Link", "</style.css>; rel=preload");
+        fields.add("Link", "</script.js>; rel=preload");
+        MetaData.Response info = new MetaData.Response(HttpVersion.HTTP_1_1, HttpStatus.EARLY_HINTS_103, null, fields, -1);
+
+        HttpGenerator.Result result = gen.generateResponse(info, false, header, null, null, true);
+        assertEquals(HttpGenerator.Result.FLUSH, result);
+        assertEquals(HttpGenerator.State.COMPLETING_1XX, gen.getState());
+        String out = BufferUtil.toString(header);
+
+        result = gen.generateResponse(null, false, null, null, null, false);
+        assertEquals(HttpGenerator.Result.DONE, result);
+        assertEquals(HttpGenerator.State.START, gen.getState());
+
+        assertThat(out, startsWith("HTTP/1.1 103 Early Hints\r\n"));
+        assertThat(out, containsString("Link: </style.css>; rel=preload\r\n"));
+        assertThat(out, containsString("Link: </script.js>; rel=preload\r\n"));
+        assertThat(out, endsWith("\r\n\r\n"));
+        assertThat(out, not(containsString("Content-Length")));
+    }
+
     @Test
     public void test100ThenResponseWithContent() throws Exception
     {
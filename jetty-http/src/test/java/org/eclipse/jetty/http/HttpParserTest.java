@@ -39,6 +39,7 @@ import static org.eclipse.jetty.http.HttpCompliance.Violation.TRANSFER_ENCODING_
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -2108,6 +2109,124 @@ public class HttpParserTest
         assertSame(field, _fields.get(0));
     }
 
+    @Test
+    @SuppressWarnings("ReferenceEquality")
+    public void testCachedFieldGrows()
+    {
+        String cookie = "Cookie: " + "x".repeat(256) + "\r\n";
+        ByteBuffer buffer = BufferUtil.toBuffer(
+            "GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                cookie +
+                "\r\n");
+
+        HttpFieldCache fieldCache = new HttpFieldCache();
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler);
+        parser.setHeaderCacheSize(64);
+        parser.setHeaderCacheMaxSize(1024);
+        parser.setSharedFieldCache(fieldCache);
+        parseAll(parser, buffer);
+        assertEquals(2, fieldCache.getMisses());
+        assertThat(fieldCache.getGrows(), greaterThan(0L));
+        HttpField field = _fields.get(1);
+
+        buffer.position(0);
+        parseAll(parser, buffer);
+        assertSame(field, _fields.get(1));
+        assertEquals(2, fieldCache.getConnectionHits());
+        assertEquals(2, fieldCache.getMisses());
+    }
+
+    @Test
+    public void testCachedFieldDoesNotGrow()
+    {
+        String cookie = "Cookie: " + "x".repeat(256) + "\r\n";
+        ByteBuffer buffer = BufferUtil.toBuffer(
+            "GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                cookie +
+                "\r\n");
+
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler);
+        parser.setHeaderCacheSize(64);
+        parseAll(parser, buffer);
+        assertNull(parser.getFieldCache().get(cookie.trim()));
+    }
+
+    @Test
+    public void testFieldCacheStatistics()
+    {
+        HttpFieldCache fieldCache = new HttpFieldCache();
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler);
+        parser.setHeaderCacheSize(128);
+        parser.setSharedFieldCache(fieldCache);
+
+        parseAll(parser, BufferUtil.toBuffer(
+            "GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Accept: text/html\r\n" +
+                "\r\n"));
+        assertEquals(0, fieldCache.getConnectionHits());
+        assertEquals(2, fieldCache.getMisses());
+
+        parseAll(parser, BufferUtil.toBuffer(
+            "GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Accept: text/html,text/plain\r\n" +
+                "\r\n"));
+        // The cached Accept field matches only a prefix of the header line, so it is not a hit.
+        assertEquals(1, fieldCache.getConnectionHits());
+        assertEquals(3, fieldCache.getMisses());
+        assertEquals(0, fieldCache.getOverflows());
+
+        String cookie = "Cookie: " + "x".repeat(256) + "\r\n";
+        for (int i = 1; i <= 2; ++i)
+        {
+            parseAll(parser, BufferUtil.toBuffer(
+                "GET / HTTP/1.1\r\n" +
+                    "Host: localhost\r\n" +
+                    cookie +
+                    "\r\n"));
+            // The cookie does not fit in the cache, so it is not a miss on every request.
+            assertEquals(3, fieldCache.getMisses());
+            assertEquals(i, fieldCache.getOverflows());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("ReferenceEquality")
+    public void testSharedFieldCache()
+    {
+        HttpFieldCache fieldCache = new HttpFieldCache(1024);
+        HttpField shared = null;
+        for (int i = 0; i < 64; ++i)
+        {
+            // Each parser is a different connection.
+            ByteBuffer buffer = BufferUtil.toBuffer(
+                "GET / HTTP/1.1\r\n" +
+                    "Host: localhost\r\n" +
+                    "User-Agent: Jetty/Test\r\n" +
+                    "Cookie: id=" + i + "\r\n" +
+                    "\r\n");
+            HttpParser.RequestHandler handler = new Handler();
+            HttpParser parser = new HttpParser(handler);
+            parser.setSharedFieldCache(fieldCache);
+            parseAll(parser, buffer);
+            if (fieldCache.getSharedHits() > 0)
+            {
+                if (shared == null)
+                    shared = _fields.get(1);
+                assertSame(shared, _fields.get(1));
+            }
+        }
+        assertThat(fieldCache.getSharedHits(), greaterThan(0L));
+        // Host and User-Agent are shared, but not the cookies.
+        assertEquals(2, fieldCache.getSharedFields());
+    }
+
     @Test
     public void testParseRequest()
     {
@@ -0,0 +1,149 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class PreEncodedHttpFieldCacheTest
+{
+    @Test
+    public void testPreEncodedAfterThreshold()
+    {
+        PreEncodedHttpFieldCache cache = new PreEncodedHttpFieldCache(16);
+        HttpField field = new HttpField(HttpHeader.CONTENT_TYPE, "text/html;charset=utf-8");
+
+        assertNull(cache.getPreEncodedField(field));
+        PreEncodedHttpField preEncoded = cache.getPreEncodedField(new HttpField(HttpHeader.CONTENT_TYPE, "text/html;charset=utf-8"));
+        assertNotNull(preEncoded);
+        assertEquals(field, preEncoded);
+        assertSame(preEncoded, cache.getPreEncodedField(field));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getSize());
+
+        // Already pre-encoded fields are not cached.
+        assertNull(cache.getPreEncodedField(preEncoded));
+    }
+
+    @Test
+    public void testOnlyConfiguredHeaders()
+    {
+        PreEncodedHttpFieldCache cache = new PreEncodedHttpFieldCache(16, 1, EnumSet.of(HttpHeader.CACHE_CONTROL));
+        assertNotNull(cache.getPreEncodedField(new HttpField(HttpHeader.CACHE_CONTROL, "no-cache")));
+        assertNull(cache.getPreEncodedField(new HttpField(HttpHeader.CONTENT_TYPE, "text/plain")));
+        assertNull(cache.getPreEncodedField(new HttpField("X-Custom", "value")));
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    public void testTimeVaryingHeadersNotCachedByDefault()
+    {
+        PreEncodedHttpFieldCache cache = new PreEncodedHttpFieldCache(16);
+        for (int i = 0; i < 2; ++i)
+        {
+            assertNull(cache.getPreEncodedField(new HttpField(HttpHeader.DATE, "Sat, 17 Oct 2026 10:00:00 GMT")));
+            assertNull(cache.getPreEncodedField(new HttpField(HttpHeader.EXPIRES, "Sat, 17 Oct 2026 11:00:00 GMT")));
+        }
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testUnusedEvictedBeforeUsed()
+    {
+        PreEncodedHttpFieldCache cache = new PreEncodedHttpFieldCache(4, 1, EnumSet.of(HttpHeader.CACHE_CONTROL));
+        PreEncodedHttpField[] preEncoded = new PreEncodedHttpField[4];
+        for (int i = 0; i < 4; ++i)
+        {
+            preEncoded[i] = cache.getPreEncodedField(new HttpField(HttpHeader.CACHE_CONTROL, "max-age=" + i));
+        }
+        // Use all but the third field again.
+        for (int i : new int[]{0, 1, 3})
+        {
+            assertSame(preEncoded[i], cache.getPreEncodedField(new HttpField(HttpHeader.CACHE_CONTROL, "max-age=" + i)));
+        }
+
+        // The new field evicts the unused field.
+        assertNotNull(cache.getPreEncodedField(new HttpField(HttpHeader.CACHE_CONTROL, "max-age=4")));
+
+        assertEquals(4, cache.getSize());
+        assertEquals(1, cache.getEvictions());
+        for (int i : new int[]{0, 1, 3})
+        {
+            assertSame(preEncoded[i], cache.getPreEncodedField(new HttpField(HttpHeader.CACHE_CONTROL, "max-age=" + i)));
+        }
+        assertThat(cache.getPreEncodedField(new HttpField(HttpHeader.CACHE_CONTROL, "max-age=2")), not(sameInstance(preEncoded[2])));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted()
+    {
+        PreEncodedHttpFieldCache cache = new PreEncodedHttpFieldCache(2, 1, EnumSet.of(HttpHeader.CACHE_CONTROL));
+        HttpField one = new HttpField(HttpHeader.CACHE_CONTROL, "max-age=1");
+        HttpField two = new HttpField(HttpHeader.CACHE_CONTROL, "max-age=2");
+        HttpField three = new HttpField(HttpHeader.CACHE_CONTROL, "max-age=3");
+
+        PreEncodedHttpField preEncodedOne = cache.getPreEncodedField(one);
+        PreEncodedHttpField preEncodedTwo = cache.getPreEncodedField(two);
+        // Use the first field again, so that the second is the least recently used.
+        assertSame(preEncodedOne, cache.getPreEncodedField(one));
+        cache.getPreEncodedField(three);
+
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getEvictions());
+        assertSame(preEncodedOne, cache.getPreEncodedField(one));
+        // The second field was evicted, so it is pre-encoded again.
+        assertThat(cache.getPreEncodedField(two), not(sameInstance(preEncodedTwo)));
+    }
+
+    @Test
+    public void testPreEncodeFields()
+    {
+        PreEncodedHttpFieldCache cache = new PreEncodedHttpFieldCache(16, 1, EnumSet.of(HttpHeader.CONTENT_TYPE, HttpHeader.CACHE_CONTROL));
+        HttpFields.Mutable fields = HttpFields.build()
+            .add(HttpHeader.CONTENT_TYPE, "text/plain")
+            .add("X-Custom", "value")
+            .add(HttpHeader.CACHE_CONTROL, "no-cache");
+        String expected = fields.toString();
+
+        cache.preEncode(fields);
+
+        assertThat(fields.getField(0), instanceOf(PreEncodedHttpField.class));
+        assertThat(fields.getField(1), not(instanceOf(PreEncodedHttpField.class)));
+        assertThat(fields.getField(2), instanceOf(PreEncodedHttpField.class));
+        assertEquals(expected, fields.toString());
+
+        ByteBuffer buffer = BufferUtil.allocate(1024);
+        int pos = BufferUtil.flipToFill(buffer);
+        HttpGenerator.putTo(fields, buffer);
+        BufferUtil.flipToFlush(buffer, pos);
+        assertEquals("Content-Type: text/plain\r\nX-Custom: value\r\nCache-Control: no-cache\r\n\r\n", BufferUtil.toString(buffer));
+    }
+}
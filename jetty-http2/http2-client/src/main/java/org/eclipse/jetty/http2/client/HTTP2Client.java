@@ -29,10 +29,14 @@ import java.util.concurrent.Executor;
 
 import org.eclipse.jetty.alpn.client.ALPNClientConnectionFactory;
 import org.eclipse.jetty.http2.BufferingFlowControlStrategy;
+import org.eclipse.jetty.http2.FIFOFrameScheduler;
 import org.eclipse.jetty.http2.FlowControlStrategy;
+import org.eclipse.jetty.http2.FrameScheduler;
 import org.eclipse.jetty.http2.api.Session;
 import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.SettingsFrame;
+import org.eclipse.jetty.http2.hpack.HpackIndexingPolicy;
+import org.eclipse.jetty.http2.hpack.ReuseHpackIndexingPolicy;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.ClientConnectionFactory;
 import org.eclipse.jetty.io.ClientConnector;
@@ -115,6 +119,8 @@ public class HTTP2Client extends ContainerLifeCycle
     private int maxConcurrentPushedStreams = 32;
     private int maxSettingsKeys = SettingsFrame.DEFAULT_MAX_KEYS;
     private FlowControlStrategy.Factory flowControlStrategyFactory = () -> new BufferingFlowControlStrategy(0.5F);
+    private FrameScheduler.Factory frameSchedulerFactory = FIFOFrameScheduler::new;
+    private HpackIndexingPolicy.Factory hpackIndexingPolicyFactory;
     private long streamIdleTimeout;
     private boolean useInputDirectByteBuffers = true;
     private boolean useOutputDirectByteBuffers = true;
@@ -175,6 +181,31 @@ public class HTTP2Client extends ContainerLifeCycle
         this.flowControlStrategyFactory = flowControlStrategyFactory;
     }
 
+    public FrameScheduler.Factory getFrameSchedulerFactory()
+    {
+        return frameSchedulerFactory;
+    }
+
+    public void setFrameSchedulerFactory(FrameScheduler.Factory frameSchedulerFactory)
+    {
+        this.frameSchedulerFactory = frameSchedulerFactory;
+    }
+
+    public HpackIndexingPolicy.Factory getHpackIndexingPolicyFactory()
+    {
+        return hpackIndexingPolicyFactory;
+    }
+
+    /**
+     * @param hpackIndexingPolicyFactory the factory of the policy that decides which header
+     * fields are added to the HPACK dynamic table, for example {@link ReuseHpackIndexingPolicy},
+     * or null to index all the fields that fit the dynamic table
+     */
+    public void setHpackIndexingPolicyFactory(HpackIndexingPolicy.Factory hpackIndexingPolicyFactory)
+    {
+        this.hpackIndexingPolicyFactory = hpackIndexingPolicyFactory;
+    }
+
     @ManagedAttribute("The number of selectors")
     public int getSelectors()
     {
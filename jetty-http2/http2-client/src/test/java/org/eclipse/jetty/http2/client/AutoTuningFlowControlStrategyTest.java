@@ -0,0 +1,201 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.client;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.AutoTuningFlowControlStrategy;
+import org.eclipse.jetty.http2.ErrorCode;
+import org.eclipse.jetty.http2.FlowControlStrategy;
+import org.eclipse.jetty.http2.HTTP2Session;
+import org.eclipse.jetty.http2.ISession;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.api.server.ServerSessionListener;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.PingFrame;
+import org.eclipse.jetty.http2.frames.ResetFrame;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.Promise;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AutoTuningFlowControlStrategyTest extends FlowControlStrategyTest
+{
+    @Override
+    protected FlowControlStrategy newFlowControlStrategy()
+    {
+        AutoTuningFlowControlStrategy strategy = new AutoTuningFlowControlStrategy(FlowControlStrategy.DEFAULT_WINDOW_SIZE, 1024 * 1024);
+        // Stay below the server PING rate control limit.
+        strategy.setPingInterval(100);
+        return strategy;
+    }
+
+    @Test
+    public void testRecvWindowTuned() throws Exception
+    {
+        int length = 8 * 1024 * 1024;
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame requestFrame)
+            {
+                MetaData.Response metaData = new MetaData.Response(HttpVersion.HTTP_2, 200, HttpFields.EMPTY);
+                HeadersFrame responseFrame = new HeadersFrame(stream.getId(), metaData, null, false);
+                Callback.Completable completable = new Callback.Completable();
+                stream.headers(responseFrame, completable);
+                completable.thenRun(() -> stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(length), true), Callback.NOOP));
+                return null;
+            }
+        });
+
+        AtomicInteger pings = new AtomicInteger();
+        Session session = newClient(new Session.Listener.Adapter()
+        {
+            @Override
+            public void onPing(Session session, PingFrame frame)
+            {
+                pings.incrementAndGet();
+            }
+        });
+        AutoTuningFlowControlStrategy strategy = (AutoTuningFlowControlStrategy)((HTTP2Session)session).getFlowControlStrategy();
+
+        MetaData.Request metaData = newRequest("GET", HttpFields.EMPTY);
+        HeadersFrame requestFrame = new HeadersFrame(metaData, null, true);
+        AtomicInteger received = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+        session.newStream(requestFrame, new Promise.Adapter<>(), new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                received.addAndGet(frame.remaining());
+                callback.succeeded();
+                if (frame.isEndStream())
+                    latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(15, TimeUnit.SECONDS));
+        assertEquals(length, received.get());
+        // The last PING reply may arrive after the last DATA frame.
+        long timeout = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (strategy.getRoundTripTime() == 0 && System.nanoTime() < timeout)
+        {
+            Thread.sleep(10);
+        }
+        assertThat(strategy.getRoundTripTime(), greaterThan(0L));
+        assertThat(strategy.getRecvWindow(), greaterThan(0));
+        assertThat(strategy.getRecvWindow(), lessThanOrEqualTo(strategy.getMaxRecvWindow()));
+        // PING replies for the strategy PINGs are not notified to the application.
+        assertEquals(0, pings.get());
+    }
+
+    @Test
+    public void testLostPingReplyDoesNotStopTuning() throws Exception
+    {
+        int chunks = 20;
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame requestFrame)
+            {
+                MetaData.Response metaData = new MetaData.Response(HttpVersion.HTTP_2, 200, HttpFields.EMPTY);
+                HeadersFrame responseFrame = new HeadersFrame(stream.getId(), metaData, null, false);
+                stream.headers(responseFrame, Callback.NOOP);
+                new Thread(() ->
+                {
+                    try
+                    {
+                        // Send the content slowly, so that the lost PING reply times out.
+                        for (int i = 0; i < chunks; ++i)
+                        {
+                            Thread.sleep(50);
+                            Callback.Completable completable = new Callback.Completable();
+                            stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(1024), i == chunks - 1), completable);
+                            completable.get();
+                        }
+                    }
+                    catch (Throwable x)
+                    {
+                        stream.reset(new ResetFrame(stream.getId(), ErrorCode.INTERNAL_ERROR.code), Callback.NOOP);
+                    }
+                }).start();
+                return null;
+            }
+        });
+
+        AtomicBoolean dropped = new AtomicBoolean();
+        client.setFlowControlStrategyFactory(() ->
+        {
+            AutoTuningFlowControlStrategy strategy = new AutoTuningFlowControlStrategy(FlowControlStrategy.DEFAULT_WINDOW_SIZE, 1024 * 1024)
+            {
+                @Override
+                public boolean onPingReply(ISession session, PingFrame frame)
+                {
+                    // Lose the first PING reply.
+                    if (dropped.compareAndSet(false, true))
+                        return true;
+                    return super.onPingReply(session, frame);
+                }
+            };
+            strategy.setPingInterval(100);
+            strategy.setPingTimeout(200);
+            return strategy;
+        });
+        Session session = newClient(new Session.Listener.Adapter());
+        AutoTuningFlowControlStrategy strategy = (AutoTuningFlowControlStrategy)((HTTP2Session)session).getFlowControlStrategy();
+
+        MetaData.Request metaData = newRequest("GET", HttpFields.EMPTY);
+        HeadersFrame requestFrame = new HeadersFrame(metaData, null, true);
+        CountDownLatch latch = new CountDownLatch(1);
+        session.newStream(requestFrame, new Promise.Adapter<>(), new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                callback.succeeded();
+                if (frame.isEndStream())
+                    latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(15, TimeUnit.SECONDS));
+        assertTrue(dropped.get());
+        long timeout = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (strategy.getRoundTripTime() == 0 && System.nanoTime() < timeout)
+        {
+            Thread.sleep(10);
+        }
+        assertThat(strategy.getRoundTripTime(), greaterThan(0L));
+    }
+}
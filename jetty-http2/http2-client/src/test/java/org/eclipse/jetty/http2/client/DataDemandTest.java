@@ -41,6 +41,7 @@ import org.eclipse.jetty.http2.generator.Generator;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.MappedByteBufferPool;
 import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.FutureCallback;
 import org.eclipse.jetty.util.FuturePromise;
 import org.eclipse.jetty.util.Promise;
 import org.junit.jupiter.api.Test;
@@ -383,4 +384,72 @@ public class DataDemandTest extends AbstractTest
 
         assertTrue(latch.await(15, TimeUnit.SECONDS));
     }
+
+    @Test
+    public void testDemandAfterDataQueueDrained() throws Exception
+    {
+        AtomicReference<Stream> serverStreamRef = new AtomicReference<>();
+        Queue<DataFrame> serverQueue = new ConcurrentLinkedQueue<>();
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                serverStreamRef.set(stream);
+                return new Stream.Listener.Adapter()
+                {
+                    @Override
+                    public void onDataDemanded(Stream stream, DataFrame frame, Callback callback)
+                    {
+                        // Complete the callbacks but don't demand.
+                        serverQueue.offer(frame);
+                        callback.succeeded();
+                    }
+                };
+            }
+        });
+
+        Session client = newClient(new Session.Listener.Adapter());
+        MetaData.Request post = newRequest("POST", HttpFields.EMPTY);
+        FuturePromise<Stream> promise = new FuturePromise<>();
+        client.newStream(new HeadersFrame(post, null, false), promise, new Stream.Listener.Adapter());
+        Stream clientStream = promise.get(5, TimeUnit.SECONDS);
+
+        // Send a burst of DATA frames, and drain them with explicit demand.
+        sendData(clientStream, 2, false);
+        Thread.sleep(500);
+        assertEquals(1, serverQueue.size());
+        Stream serverStream = serverStreamRef.get();
+        assertNotNull(serverStream);
+        serverStream.demand(1);
+        Thread.sleep(500);
+        assertEquals(2, serverQueue.size());
+
+        // Send another burst after the stream data queue has drained.
+        sendData(clientStream, 2, true);
+        Thread.sleep(500);
+        // No demand, so no DATA frames must be delivered.
+        assertEquals(2, serverQueue.size());
+        serverStream.demand(2);
+        int loops = 0;
+        while (serverQueue.size() < 4)
+        {
+            if (++loops > 50)
+                fail();
+            Thread.sleep(100);
+        }
+        assertEquals(4, serverQueue.size());
+        assertTrue(serverQueue.stream().skip(3).findFirst().orElseThrow().isEndStream());
+    }
+
+    private void sendData(Stream stream, int frames, boolean last) throws Exception
+    {
+        for (int i = 0; i < frames; ++i)
+        {
+            FutureCallback callback = new FutureCallback();
+            boolean endStream = last && i == frames - 1;
+            stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(16), endStream), callback);
+            callback.get(5, TimeUnit.SECONDS);
+        }
+    }
 }
@@ -0,0 +1,146 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.client;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.HTTP2Statistics;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.api.server.ServerSessionListener;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.FrameType;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.FuturePromise;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HTTP2StatisticsTest extends AbstractTest
+{
+    private final HTTP2Statistics serverStatistics = new HTTP2Statistics();
+    private final HTTP2Statistics clientStatistics = new HTTP2Statistics();
+
+    @Override
+    protected void prepareClient()
+    {
+        super.prepareClient();
+        client.addBean(clientStatistics);
+    }
+
+    private void start(int contentLength, CountDownLatch serverLatch) throws Exception
+    {
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                MetaData.Response response = new MetaData.Response(HttpVersion.HTTP_2, HttpStatus.OK_200, HttpFields.EMPTY);
+                stream.headers(new HeadersFrame(stream.getId(), response, null, false), Callback.from(() ->
+                    stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(contentLength), true), Callback.from(serverLatch::countDown))));
+                return null;
+            }
+        }, factory -> factory.addBean(serverStatistics));
+    }
+
+    @Test
+    public void testFramesAndStreams() throws Exception
+    {
+        CountDownLatch serverLatch = new CountDownLatch(1);
+        start(1024, serverLatch);
+
+        Session session = newClient(new Session.Listener.Adapter());
+        CountDownLatch clientLatch = new CountDownLatch(1);
+        MetaData.Request request = newRequest("GET", HttpFields.EMPTY);
+        FuturePromise<Stream> promise = new FuturePromise<>();
+        session.newStream(new HeadersFrame(request, null, true), promise, new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                callback.succeeded();
+                if (frame.isEndStream())
+                    clientLatch.countDown();
+            }
+        });
+
+        assertTrue(serverLatch.await(5, TimeUnit.SECONDS));
+        assertTrue(clientLatch.await(5, TimeUnit.SECONDS));
+
+        assertThat(serverStatistics.getFramesReceived(FrameType.SETTINGS), greaterThanOrEqualTo(1L));
+        assertEquals(1, serverStatistics.getFramesReceived(FrameType.HEADERS));
+        assertEquals(1, serverStatistics.getFramesSent(FrameType.HEADERS));
+        assertEquals(1, serverStatistics.getFramesSent(FrameType.DATA));
+        assertThat(serverStatistics.getBytesSent().get(FrameType.DATA.name()), greaterThanOrEqualTo(1024L));
+        assertEquals(1, serverStatistics.getStreamsTotal());
+        assertEquals(0, serverStatistics.getStreams());
+        assertFalse(serverStatistics.getStreamDurationHistogram().isEmpty());
+
+        assertEquals(1, clientStatistics.getFramesSent(FrameType.HEADERS));
+        assertEquals(1, clientStatistics.getFramesReceived(FrameType.HEADERS));
+        assertEquals(1, clientStatistics.getFramesReceived(FrameType.DATA));
+        assertEquals(1, clientStatistics.getStreamsTotal());
+    }
+
+    @Test
+    public void testStreamStall() throws Exception
+    {
+        CountDownLatch serverLatch = new CountDownLatch(1);
+        start(4 * 1024, serverLatch);
+
+        // Stall the stream on the server, so that it
+        // waits for the client to open the window.
+        client.setInitialStreamRecvWindow(1024);
+
+        Session session = newClient(new Session.Listener.Adapter());
+        CountDownLatch clientLatch = new CountDownLatch(1);
+        MetaData.Request request = newRequest("GET", HttpFields.EMPTY);
+        FuturePromise<Stream> promise = new FuturePromise<>();
+        session.newStream(new HeadersFrame(request, null, true), promise, new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                callback.succeeded();
+                if (frame.isEndStream())
+                    clientLatch.countDown();
+            }
+        });
+
+        assertTrue(serverLatch.await(5, TimeUnit.SECONDS));
+        assertTrue(clientLatch.await(5, TimeUnit.SECONDS));
+
+        assertThat(serverStatistics.getStreamStalls(), greaterThan(0L));
+        assertThat(serverStatistics.getFramesSent(FrameType.DATA), greaterThan(1L));
+        assertThat(serverStatistics.getFramesReceived(FrameType.WINDOW_UPDATE), greaterThan(0L));
+        assertEquals(0, serverStatistics.getSessionStalls());
+    }
+}
@@ -18,21 +18,40 @@
 
 package org.eclipse.jetty.http2.client;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.FrameScheduler;
+import org.eclipse.jetty.http2.HTTP2Flusher;
+import org.eclipse.jetty.http2.IStream;
+import org.eclipse.jetty.http2.UrgencyFrameScheduler;
+import org.eclipse.jetty.http2.WeightedFrameScheduler;
 import org.eclipse.jetty.http2.api.Session;
 import org.eclipse.jetty.http2.api.Stream;
 import org.eclipse.jetty.http2.api.server.ServerSessionListener;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.FrameType;
 import org.eclipse.jetty.http2.frames.HeadersFrame;
 import org.eclipse.jetty.http2.frames.PriorityFrame;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.FuturePromise;
 import org.eclipse.jetty.util.Promise;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -184,4 +203,178 @@ public class PriorityTest extends AbstractTest
 
         assertTrue(latch.await(5, TimeUnit.SECONDS));
     }
+
+    @Test
+    public void testStreamWeightAndUrgency() throws Exception
+    {
+        AtomicInteger weight = new AtomicInteger();
+        AtomicInteger urgency = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(2);
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                IStream serverStream = (IStream)stream;
+                weight.set(serverStream.getWeight());
+                urgency.set(serverStream.getUrgency());
+                latch.countDown();
+
+                MetaData.Response metaData = new MetaData.Response(HttpVersion.HTTP_2, 200, HttpFields.EMPTY);
+                HeadersFrame responseFrame = new HeadersFrame(stream.getId(), metaData, null, true);
+                stream.headers(responseFrame, Callback.NOOP);
+                return null;
+            }
+        });
+
+        Session session = newClient(new Session.Listener.Adapter());
+        MetaData metaData = newRequest("GET", "/one", HttpFields.build().put("Priority", "u=1, i"));
+        HeadersFrame headersFrame = new HeadersFrame(metaData, new PriorityFrame(0, 200, false), true);
+        session.newStream(headersFrame, new Promise.Adapter<>(), new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onHeaders(Stream stream, HeadersFrame frame)
+            {
+                if (frame.isEndStream())
+                    latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(200, weight.get());
+        assertEquals(1, urgency.get());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"weighted", "urgency"})
+    public void testFrameScheduler(String mode) throws Exception
+    {
+        int streams = 4;
+        int length = 256 * 1024;
+        boolean weighted = "weighted".equals(mode);
+        // The ids of the streams of the DATA entries, in the order they are generated by the flusher.
+        Queue<Integer> generated = new ConcurrentLinkedQueue<>();
+        List<Stream> serverStreams = new ArrayList<>();
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                serverStreams.add(stream);
+                if (serverStreams.size() < streams)
+                    return null;
+
+                // Respond to all the streams, and queue all the DATA frames
+                // at once, from the callback of the last HEADERS frame, so
+                // that the flusher schedules them together.
+                // The DATA frames are queued from the least to the most
+                // important stream, so that the scheduler must reorder them.
+                for (int i = 0; i < streams; ++i)
+                {
+                    Stream serverStream = serverStreams.get(i);
+                    MetaData.Response metaData = new MetaData.Response(HttpVersion.HTTP_2, 200, HttpFields.EMPTY);
+                    HeadersFrame responseFrame = new HeadersFrame(serverStream.getId(), metaData, null, false);
+                    Callback callback = i < streams - 1 ? Callback.NOOP : new Callback()
+                    {
+                        @Override
+                        public void succeeded()
+                        {
+                            for (int j = streams - 1; j >= 0; --j)
+                            {
+                                Stream dataStream = serverStreams.get(j);
+                                dataStream.data(new DataFrame(dataStream.getId(), ByteBuffer.allocate(length), true), Callback.NOOP);
+                            }
+                        }
+                    };
+                    serverStream.headers(responseFrame, callback);
+                }
+                return null;
+            }
+        }, factory -> factory.setFrameSchedulerFactory(() ->
+        {
+            FrameScheduler scheduler = weighted ? new WeightedFrameScheduler() : new UrgencyFrameScheduler();
+            return new FrameScheduler()
+            {
+                @Override
+                public void schedule(List<HTTP2Flusher.Entry> entries)
+                {
+                    scheduler.schedule(entries);
+                }
+
+                @Override
+                public int getQuantum(HTTP2Flusher.Entry entry)
+                {
+                    if (entry.getFrame().getType() == FrameType.DATA)
+                        generated.offer(entry.getStream().getId());
+                    return scheduler.getQuantum(entry);
+                }
+            };
+        }));
+        // Flow control windows large enough that the flusher never stalls.
+        client.setInitialSessionRecvWindow(streams * length);
+        client.setInitialStreamRecvWindow(length);
+
+        Session session = newClient(new Session.Listener.Adapter());
+        CountDownLatch latch = new CountDownLatch(streams);
+        List<AtomicInteger> received = new ArrayList<>();
+        // The bytes received by each stream when the first stream completes.
+        AtomicReference<int[]> receivedAtFirstEnd = new AtomicReference<>();
+        List<Integer> streamIds = new ArrayList<>();
+        for (int i = 0; i < streams; ++i)
+        {
+            AtomicInteger bytes = new AtomicInteger();
+            received.add(bytes);
+            MetaData metaData = newRequest("GET", "/" + i, HttpFields.build().put("Priority", "u=" + (i + 2)));
+            HeadersFrame headersFrame = new HeadersFrame(metaData, new PriorityFrame(0, 64 * (i + 1), false), true);
+            FuturePromise<Stream> promise = new FuturePromise<>();
+            session.newStream(headersFrame, promise, new Stream.Listener.Adapter()
+            {
+                @Override
+                public void onData(Stream stream, DataFrame frame, Callback callback)
+                {
+                    bytes.addAndGet(frame.remaining());
+                    callback.succeeded();
+                    if (frame.isEndStream())
+                    {
+                        receivedAtFirstEnd.compareAndSet(null, received.stream().mapToInt(AtomicInteger::get).toArray());
+                        latch.countDown();
+                    }
+                }
+            });
+            streamIds.add(promise.get(5, TimeUnit.SECONDS).getId());
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (AtomicInteger bytes : received)
+        {
+            assertEquals(length, bytes.get());
+        }
+
+        // The first pass of the flusher generates one entry per stream.
+        List<Integer> firstPass = generated.stream().limit(streams).collect(Collectors.toList());
+        int[] atFirstEnd = receivedAtFirstEnd.get();
+        if (weighted)
+        {
+            // The entries are generated in queue order, but the heaviest stream,
+            // the last one, generates all its frames before the lightest starts.
+            List<Integer> expected = new ArrayList<>(streamIds);
+            Collections.reverse(expected);
+            assertEquals(expected, firstPass);
+            assertEquals(length, atFirstEnd[streams - 1]);
+            assertTrue(atFirstEnd[0] <= length / 4, Arrays.toString(atFirstEnd));
+        }
+        else
+        {
+            // The most urgent stream, the first one, is generated first
+            // although it was queued last, and completes first.
+            assertEquals(streamIds, firstPass);
+            assertEquals(length, atFirstEnd[0]);
+            // Less urgent streams still make progress, in proportion to their urgency.
+            for (int i = 1; i < streams; ++i)
+            {
+                assertTrue(atFirstEnd[i] > 0, Arrays.toString(atFirstEnd));
+                assertTrue(atFirstEnd[i] < atFirstEnd[i - 1], Arrays.toString(atFirstEnd));
+            }
+        }
+    }
 }
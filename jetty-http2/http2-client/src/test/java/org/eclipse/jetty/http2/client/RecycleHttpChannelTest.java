@@ -0,0 +1,166 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.client;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.server.AbstractHTTP2ServerConnectionFactory;
+import org.eclipse.jetty.http2.server.HTTP2ServerConnection;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.FuturePromise;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class RecycleHttpChannelTest extends AbstractTest
+{
+    private Integer maxRecycledHttpChannels;
+
+    @Override
+    protected void prepareServer(ConnectionFactory... connectionFactories)
+    {
+        for (ConnectionFactory factory : connectionFactories)
+        {
+            if (maxRecycledHttpChannels != null && factory instanceof AbstractHTTP2ServerConnectionFactory)
+                ((AbstractHTTP2ServerConnectionFactory)factory).setMaxRecycledHttpChannels(maxRecycledHttpChannels);
+        }
+        super.prepareServer(connectionFactories);
+    }
+
+    @Test
+    public void testHttpChannelIsRecycled() throws Exception
+    {
+        start(new HttpServlet()
+        {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response)
+            {
+            }
+        });
+
+        Session session = newClient(new Session.Listener.Adapter());
+        assertTrue(newStream(session).await(5, TimeUnit.SECONDS));
+        HTTP2ServerConnection connection = getServerConnection();
+        awaitRecycledHttpChannels(connection, 1);
+
+        // The second request reuses the recycled channel.
+        assertTrue(newStream(session).await(5, TimeUnit.SECONDS));
+        awaitRecycledHttpChannels(connection, 1);
+    }
+
+    @Test
+    public void testMaxRecycledHttpChannels() throws Exception
+    {
+        maxRecycledHttpChannels = 2;
+        int requests = 4;
+        CountDownLatch serverLatch = new CountDownLatch(requests);
+        CountDownLatch releaseLatch = new CountDownLatch(1);
+        start(new HttpServlet()
+        {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException
+            {
+                try
+                {
+                    // Force the requests to be concurrent.
+                    serverLatch.countDown();
+                    releaseLatch.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException x)
+                {
+                    throw new ServletException(x);
+                }
+            }
+        });
+
+        Session session = newClient(new Session.Listener.Adapter());
+        CountDownLatch[] latches = new CountDownLatch[requests];
+        for (int i = 0; i < requests; ++i)
+        {
+            latches[i] = newStream(session);
+        }
+        assertTrue(serverLatch.await(5, TimeUnit.SECONDS));
+        releaseLatch.countDown();
+        for (CountDownLatch latch : latches)
+        {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+
+        HTTP2ServerConnection connection = getServerConnection();
+        awaitRecycledHttpChannels(connection, maxRecycledHttpChannels);
+        // Wait a bit more to be sure no more channels are retained.
+        Thread.sleep(500);
+        assertEquals(maxRecycledHttpChannels, connection.getRecycledHttpChannels());
+    }
+
+    private CountDownLatch newStream(Session session)
+    {
+        CountDownLatch latch = new CountDownLatch(1);
+        MetaData.Request request = newRequest("GET", HttpFields.EMPTY);
+        session.newStream(new HeadersFrame(request, null, true), new FuturePromise<>(), new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onHeaders(Stream stream, HeadersFrame frame)
+            {
+                if (frame.isEndStream())
+                    latch.countDown();
+            }
+
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                callback.succeeded();
+                if (frame.isEndStream())
+                    latch.countDown();
+            }
+        });
+        return latch;
+    }
+
+    private HTTP2ServerConnection getServerConnection()
+    {
+        return (HTTP2ServerConnection)connector.getConnectedEndPoints().iterator().next().getConnection();
+    }
+
+    private void awaitRecycledHttpChannels(HTTP2ServerConnection connection, int expected) throws InterruptedException
+    {
+        int loops = 0;
+        while (connection.getRecycledHttpChannels() != expected)
+        {
+            if (++loops > 50)
+                fail("Expected " + expected + " recycled channels, was " + connection.getRecycledHttpChannels());
+            Thread.sleep(100);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.http2.frames.PingFrame;
+import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+
+/**
+ * <p>A flow control strategy that sizes the receive windows after the
+ * bandwidth-delay product of the connection.</p>
+ * <p>While data is being received, a PING frame is periodically sent to the
+ * other peer, and the bytes received until the PING reply arrives are counted.
+ * Those bytes are an estimate of the bandwidth-delay product, and the session
+ * and stream receive windows are tuned to twice that amount, within the
+ * {@link #getMinRecvWindow() min} and {@link #getMaxRecvWindow() max} bounds
+ * so that the sender is not stalled on long fat networks, and receivers do not
+ * buffer more than necessary on low latency networks.</p>
+ * <p>Windows are enlarged by sending window updates larger than the consumed
+ * bytes, and reduced by sending window updates smaller than the consumed bytes.
+ * The min bound only applies to the session receive window, while stream receive
+ * windows are never reduced below the initial stream receive window advertised
+ * in the SETTINGS frame.</p>
+ * <p>Like {@link BufferingFlowControlStrategy}, window updates are sent when the
+ * consumed bytes exceed a fraction of the current window, defined by the
+ * {@code bufferRatio}.</p>
+ * <p>A PING frame that cannot be sent, or whose reply does not arrive within the
+ * {@link #getPingTimeout() ping timeout}, does not stop the measurements: the
+ * next received data triggers a new PING frame.</p>
+ */
+@ManagedObject
+public class AutoTuningFlowControlStrategy extends AbstractFlowControlStrategy
+{
+    private final AtomicInteger sessionLevel = new AtomicInteger();
+    private final AtomicLong sessionOutstanding = new AtomicLong();
+    private final Map<IStream, StreamLevel> streamLevels = new ConcurrentHashMap<>();
+    private final AtomicBoolean pinging = new AtomicBoolean();
+    private final AtomicLong sampleBytes = new AtomicLong();
+    private final float bufferRatio;
+    private final int minRecvWindow;
+    private final int maxRecvWindow;
+    private long pingInterval = TimeUnit.SECONDS.toNanos(1);
+    private long pingTimeout = TimeUnit.SECONDS.toNanos(10);
+    private volatile long pingPayload;
+    private volatile long lostPingPayload;
+    private volatile long pingTime;
+    private volatile long lastPingTime = System.nanoTime() - pingInterval;
+    private volatile long roundTripTime;
+    private volatile long bandwidthDelayProduct;
+    private volatile int recvWindow;
+
+    public AutoTuningFlowControlStrategy()
+    {
+        this(DEFAULT_WINDOW_SIZE, 16 * 1024 * 1024);
+    }
+
+    /**
+     * @param minRecvWindow the min size of the receive windows
+     * @param maxRecvWindow the max size of the receive windows
+     */
+    public AutoTuningFlowControlStrategy(int minRecvWindow, int maxRecvWindow)
+    {
+        this(DEFAULT_WINDOW_SIZE, minRecvWindow, maxRecvWindow, 0.5F);
+    }
+
+    public AutoTuningFlowControlStrategy(int initialStreamSendWindow, int minRecvWindow, int maxRecvWindow, float bufferRatio)
+    {
+        super(initialStreamSendWindow);
+        if (minRecvWindow <= 0 || maxRecvWindow < minRecvWindow)
+            throw new IllegalArgumentException("Invalid receive window bounds: [" + minRecvWindow + ", " + maxRecvWindow + "]");
+        this.minRecvWindow = minRecvWindow;
+        this.maxRecvWindow = maxRecvWindow;
+        this.bufferRatio = bufferRatio;
+    }
+
+    @ManagedAttribute(value = "The min size of the receive windows", readonly = true)
+    public int getMinRecvWindow()
+    {
+        return minRecvWindow;
+    }
+
+    @ManagedAttribute(value = "The max size of the receive windows", readonly = true)
+    public int getMaxRecvWindow()
+    {
+        return maxRecvWindow;
+    }
+
+    @ManagedAttribute(value = "The ratio between the receive window and the consumed bytes that trigger a window update", readonly = true)
+    public float getBufferRatio()
+    {
+        return bufferRatio;
+    }
+
+    @ManagedAttribute("The min interval, in milliseconds, between PING frames sent to measure the round-trip time")
+    public long getPingInterval()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(pingInterval);
+    }
+
+    public void setPingInterval(long pingInterval)
+    {
+        this.pingInterval = TimeUnit.MILLISECONDS.toNanos(pingInterval);
+    }
+
+    @ManagedAttribute("The time, in milliseconds, after which an unanswered PING frame is considered lost")
+    public long getPingTimeout()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(pingTimeout);
+    }
+
+    public void setPingTimeout(long pingTimeout)
+    {
+        this.pingTimeout = TimeUnit.MILLISECONDS.toNanos(pingTimeout);
+    }
+
+    @ManagedAttribute(value = "The last measured round-trip time, in microseconds", readonly = true)
+    public long getRoundTripTime()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(roundTripTime);
+    }
+
+    @ManagedAttribute(value = "The last measured bandwidth-delay product, in bytes", readonly = true)
+    public long getBandwidthDelayProduct()
+    {
+        return bandwidthDelayProduct;
+    }
+
+    @ManagedAttribute(value = "The last measured receive bandwidth, in bytes per second", readonly = true)
+    public long getBandwidth()
+    {
+        long rtt = roundTripTime;
+        return rtt == 0 ? 0 : bandwidthDelayProduct * TimeUnit.SECONDS.toNanos(1) / rtt;
+    }
+
+    @ManagedAttribute(value = "The tuned size of the receive windows before applying the min bound, or 0 if not yet tuned", readonly = true)
+    public int getRecvWindow()
+    {
+        return recvWindow;
+    }
+
+    @Override
+    public void onStreamCreated(IStream stream)
+    {
+        super.onStreamCreated(stream);
+        streamLevels.put(stream, new StreamLevel());
+    }
+
+    @Override
+    public void onStreamDestroyed(IStream stream)
+    {
+        streamLevels.remove(stream);
+        super.onStreamDestroyed(stream);
+    }
+
+    @Override
+    public void onDataReceived(ISession session, IStream stream, int length)
+    {
+        super.onDataReceived(session, stream, length);
+        sessionOutstanding.addAndGet(length);
+        // Do not measure if the sender exceeded a window, as the session will fail.
+        boolean exceeded = session.updateRecvWindow(0) < 0;
+        if (stream != null)
+        {
+            StreamLevel streamLevel = streamLevels.get(stream);
+            if (streamLevel != null)
+                streamLevel.outstanding.addAndGet(length);
+            exceeded |= stream.updateRecvWindow(0) < 0;
+        }
+        sampleBytes.addAndGet(length);
+        if (length > 0 && !exceeded)
+            ping(session);
+    }
+
+    private void ping(ISession session)
+    {
+        long now = System.nanoTime();
+        if (now - lastPingTime < pingInterval)
+            return;
+        if (!pinging.compareAndSet(false, true))
+        {
+            // Measure again if the PING reply did not arrive in time.
+            if (now - pingTime < pingTimeout)
+                return;
+            if (LOG.isDebugEnabled())
+                LOG.debug("PING reply not received in {} ms for {}", getPingTimeout(), session);
+            lostPingPayload = pingPayload;
+        }
+        sampleBytes.set(0);
+        pingPayload = now;
+        pingTime = now;
+        lastPingTime = now;
+        if (LOG.isDebugEnabled())
+            LOG.debug("Measuring round-trip time for {}", session);
+        session.frames(null, List.of(new PingFrame(now, false)), Callback.from(() -> {}, x -> onPingFailed(session, now, x)));
+    }
+
+    private void onPingFailed(ISession session, long payload, Throwable failure)
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("Could not send PING for {}", session, failure);
+        if (pingPayload == payload)
+            pinging.set(false);
+    }
+
+    @Override
+    public boolean onPingReply(ISession session, PingFrame frame)
+    {
+        long payload = frame.getPayloadAsLong();
+        // A late reply to a PING considered lost is not a valid measurement.
+        long lost = lostPingPayload;
+        if (lost != 0 && payload == lost)
+            return true;
+        if (!pinging.get() || payload != pingPayload)
+            return false;
+        long now = System.nanoTime();
+        roundTripTime = Math.max(1, now - pingTime);
+        long bytes = sampleBytes.get();
+        bandwidthDelayProduct = bytes;
+        recvWindow = (int)Math.min(maxRecvWindow, Math.max(1, 2 * bytes));
+        lastPingTime = now;
+        pinging.set(false);
+        if (LOG.isDebugEnabled())
+            LOG.debug("Measured rtt={}us bdp={} recvWindow={} for {}", getRoundTripTime(), bytes, recvWindow, session);
+        return true;
+    }
+
+    @Override
+    public void onDataConsumed(ISession session, IStream stream, int length)
+    {
+        if (length <= 0)
+            return;
+
+        int level = sessionLevel.addAndGet(length);
+        int window = (int)Math.min(Integer.MAX_VALUE, session.updateRecvWindow(0) + sessionOutstanding.get());
+        if (level > (int)(window * bufferRatio) && sessionLevel.compareAndSet(level, 0))
+        {
+            int delta = tune(level, window, minRecvWindow);
+            sessionOutstanding.addAndGet(-level);
+            session.updateRecvWindow(delta);
+            if (LOG.isDebugEnabled())
+                LOG.debug("Data consumed, {} bytes, updated session recv window by {} (window {} -> {}) for {}", length, delta, window, window + delta - level, session);
+            sendWindowUpdate(null, session, new WindowUpdateFrame(0, delta));
+        }
+
+        if (stream == null || stream.isRemotelyClosed())
+            return;
+
+        StreamLevel streamLevel = streamLevels.get(stream);
+        if (streamLevel == null)
+            return;
+        level = streamLevel.level.addAndGet(length);
+        window = stream.updateRecvWindow(0) + streamLevel.outstanding.intValue();
+        if (level > (int)(window * bufferRatio) && streamLevel.level.compareAndSet(level, 0))
+        {
+            int delta = tune(level, window, getInitialStreamRecvWindow());
+            streamLevel.outstanding.addAndGet(-level);
+            stream.updateRecvWindow(delta);
+            if (LOG.isDebugEnabled())
+                LOG.debug("Data consumed, {} bytes, updated stream recv window by {} (window {} -> {}) for {}", length, delta, window, window + delta - level, stream);
+            sendWindowUpdate(stream, session, new WindowUpdateFrame(stream.getId(), delta));
+        }
+    }
+
+    /**
+     * @param level the consumed bytes to give back to the sender
+     * @param window the current window size
+     * @param min the min window size
+     * @return the window update delta
+     */
+    private int tune(int level, int window, int min)
+    {
+        int target = recvWindow;
+        if (target == 0)
+            return level;
+        target = Math.max(min, target);
+        if (target > window)
+            return level + Math.min(target - window, Integer.MAX_VALUE - level);
+        // Shrink gradually, always giving back at least half of the consumed bytes,
+        // so that the window stays larger than the window update threshold.
+        int shrink = Math.min(window - target, level / 2);
+        return level - shrink;
+    }
+
+    protected void sendWindowUpdate(IStream stream, ISession session, WindowUpdateFrame frame)
+    {
+        session.frames(stream, List.of(frame), Callback.NOOP);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[ratio=%.2f,window=%d,bounds=[%d,%d],rtt=%dus,bdp=%d,sessionLevel=%s,sessionStallTime=%dms,streamsStallTime=%dms]",
+            getClass().getSimpleName(),
+            hashCode(),
+            bufferRatio,
+            recvWindow,
+            minRecvWindow,
+            maxRecvWindow,
+            getRoundTripTime(),
+            bandwidthDelayProduct,
+            sessionLevel,
+            getSessionStallTime(),
+            getStreamsStallTime());
+    }
+
+    private static class StreamLevel
+    {
+        private final AtomicInteger level = new AtomicInteger();
+        private final AtomicInteger outstanding = new AtomicInteger();
+    }
+}
@@ -0,0 +1,39 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.List;
+
+/**
+ * <p>A {@link FrameScheduler} that generates one frame per entry in each pass,
+ * in the order the entries have been queued.</p>
+ */
+public class FIFOFrameScheduler implements FrameScheduler
+{
+    @Override
+    public void schedule(List<HTTP2Flusher.Entry> entries)
+    {
+    }
+
+    @Override
+    public int getQuantum(HTTP2Flusher.Entry entry)
+    {
+        return 1;
+    }
+}
@@ -0,0 +1,51 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.List;
+
+/**
+ * <p>Decides the order in which {@link HTTP2Flusher} generates the frames of the pending entries.</p>
+ * <p>{@link HTTP2Flusher} processes the pending entries in passes: in each pass every
+ * entry generates up to {@link #getQuantum(HTTP2Flusher.Entry)} frames, in the order
+ * established by {@link #schedule(List)} when new entries are queued.</p>
+ */
+public interface FrameScheduler
+{
+    /**
+     * <p>Reorders the pending entries.</p>
+     * <p>Implementations must not change the relative order of the entries of the same
+     * stream, nor move an entry across an entry that is not a DATA frame, so that
+     * streams are opened and closed in the order they have been queued.</p>
+     *
+     * @param entries the pending entries
+     */
+    public void schedule(List<HTTP2Flusher.Entry> entries);
+
+    /**
+     * @param entry the entry to generate
+     * @return the max number of frames the entry may generate in a single pass
+     */
+    public int getQuantum(HTTP2Flusher.Entry entry);
+
+    public interface Factory
+    {
+        public FrameScheduler newFrameScheduler();
+    }
+}
@@ -23,14 +23,18 @@ import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.http2.frames.Frame;
+import org.eclipse.jetty.http2.frames.FrameType;
 import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
 import org.eclipse.jetty.http2.hpack.HpackException;
 import org.eclipse.jetty.io.ByteBufferPool;
@@ -50,12 +54,17 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
     private final AutoLock lock = new AutoLock();
     private final Queue<WindowEntry> windows = new ArrayDeque<>();
     private final Deque<Entry> entries = new ArrayDeque<>();
-    private final Queue<Entry> pendingEntries = new ArrayDeque<>();
+    private final List<Entry> pendingEntries = new ArrayList<>();
     private final Collection<Entry> processedEntries = new ArrayList<>();
     private final HTTP2Session session;
     private final ByteBufferPool.Lease lease;
     private Throwable terminated;
     private Entry stalledEntry;
+    private long coalescingDeadline;
+    private long sessionStalledTime;
+    // Always counted, as they are reported by toString() and dump().
+    private final LongAdder sessionStalls = new LongAdder();
+    private final LongAdder streamStalls = new LongAdder();
 
     public HTTP2Flusher(HTTP2Session session)
     {
@@ -156,6 +165,7 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         if (LOG.isDebugEnabled())
             LOG.debug("Flushing {}", session);
 
+        boolean newEntries;
         try (AutoLock l = lock.lock())
         {
             if (terminated != null)
@@ -167,20 +177,39 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
                 windowEntry.perform();
             }
 
-            Entry entry;
-            while ((entry = entries.poll()) != null)
+            if (entries.isEmpty())
             {
-                pendingEntries.offer(entry);
+                newEntries = false;
+            }
+            else
+            {
+                pendingEntries.addAll(entries);
+                entries.clear();
+                newEntries = true;
             }
         }
 
-        if (pendingEntries.isEmpty())
+        // Frames may have been generated by a previous
+        // iteration that delayed the write to coalesce them.
+        if (pendingEntries.isEmpty() && lease.getSize() == 0)
         {
             if (LOG.isDebugEnabled())
                 LOG.debug("Flushed {}", session);
             return Action.IDLE;
         }
 
+        FrameScheduler scheduler = session.getFrameScheduler();
+        if (newEntries)
+            scheduler.schedule(pendingEntries);
+
+        HTTP2Statistics statistics = session.getStatistics();
+        if (sessionStalledTime != 0 && session.getSendWindow() > 0)
+        {
+            if (statistics != null)
+                statistics.onSessionStalled(System.nanoTime() - sessionStalledTime);
+            sessionStalledTime = 0;
+        }
+
         while (true)
         {
             boolean progress = false;
@@ -208,29 +237,41 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
 
                 try
                 {
-                    if (entry.generate(lease))
+                    int quantum = Math.max(1, scheduler.getQuantum(entry));
+                    for (int frames = 0; frames < quantum; ++frames)
                     {
-                        if (LOG.isDebugEnabled())
-                            LOG.debug("Generated {} frame bytes for {}", entry.getFrameBytesGenerated(), entry);
+                        int frameBytes = entry.getFrameBytesGenerated();
+                        if (entry.generate(lease))
+                        {
+                            if (LOG.isDebugEnabled())
+                                LOG.debug("Generated {} frame bytes for {}", entry.getFrameBytesGenerated(), entry);
 
-                        progress = true;
+                            onGenerated(statistics, entry, entry.getFrameBytesGenerated() - frameBytes);
 
-                        // We use ArrayList contains() + add() instead of HashSet add()
-                        // because that is faster for collections of size up to 250 entries.
-                        if (!processedEntries.contains(entry))
-                            processedEntries.add(entry);
+                            progress = true;
 
-                        if (entry.getDataBytesRemaining() == 0)
-                            pending.remove();
-                    }
-                    else
-                    {
-                        if (session.getSendWindow() <= 0 && stalledEntry == null)
+                            // We use ArrayList contains() + add() instead of HashSet add()
+                            // because that is faster for collections of size up to 250 entries.
+                            if (!processedEntries.contains(entry))
+                                processedEntries.add(entry);
+
+                            if (entry.getDataBytesRemaining() == 0)
+                            {
+                                pending.remove();
+                                break;
+                            }
+                        }
+                        else
                         {
-                            stalledEntry = entry;
-                            if (LOG.isDebugEnabled())
-                                LOG.debug("Flow control stalled at {}", entry);
-                            // Continue to process control frames.
+                            if (session.getSendWindow() <= 0 && stalledEntry == null)
+                            {
+                                stalledEntry = entry;
+                                if (LOG.isDebugEnabled())
+                                    LOG.debug("Flow control stalled at {}", entry);
+                                // Continue to process control frames.
+                            }
+                            onStalled(entry);
+                            break;
                         }
                     }
                 }
@@ -266,13 +307,22 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             }
         }
 
-        List<ByteBuffer> byteBuffers = lease.getByteBuffers();
-        if (byteBuffers.isEmpty())
+        if (lease.getSize() == 0)
         {
             finish();
             return Action.IDLE;
         }
 
+        int coalescingSize = session.getWriteCoalescingSize();
+        if (coalescingSize > 0)
+        {
+            if (delayForCoalescing(coalescingSize))
+                return Action.IDLE;
+            lease.coalesce(coalescingSize);
+        }
+
+        List<ByteBuffer> byteBuffers = lease.getByteBuffers();
+
         if (LOG.isDebugEnabled())
             LOG.debug("Writing {} buffers ({} bytes) - entries processed/pending {}/{}: {}/{}",
                 byteBuffers.size(),
@@ -286,6 +336,73 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         return Action.SCHEDULED;
     }
 
+    /**
+     * <p>Delays the write of small DATA frames, so that they can be coalesced
+     * with the frames of other streams that arrive before the deadline.</p>
+     *
+     * @param coalescingSize the max size of the coalesced buffers
+     * @return whether the write has been delayed
+     */
+    private boolean delayForCoalescing(int coalescingSize)
+    {
+        long delay = session.getWriteCoalescingDelay();
+        boolean delayable = delay > 0 &&
+            stalledEntry == null &&
+            lease.getTotalLength() < coalescingSize &&
+            processedEntries.stream().allMatch(entry -> entry.getFrame().getType() == FrameType.DATA);
+        if (delayable)
+        {
+            long now = System.nanoTime();
+            if (coalescingDeadline == 0)
+            {
+                coalescingDeadline = now + TimeUnit.MILLISECONDS.toNanos(delay);
+                session.getScheduler().schedule(this::iterate, delay, TimeUnit.MILLISECONDS);
+            }
+            if (now - coalescingDeadline < 0)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Delaying write of {} bytes for coalescing", lease.getTotalLength());
+                return true;
+            }
+        }
+        coalescingDeadline = 0;
+        return false;
+    }
+
+    private void onGenerated(HTTP2Statistics statistics, Entry entry, int frameBytes)
+    {
+        if (statistics != null)
+        {
+            FrameType type = entry.getFrame().getType();
+            // Do not track synthetic frames.
+            if (type.getType() <= FrameType.CONTINUATION.getType())
+                statistics.onFrameSent(type, frameBytes);
+        }
+        if (entry.stalledTime != 0)
+        {
+            if (statistics != null)
+                statistics.onStreamStalled(System.nanoTime() - entry.stalledTime);
+            entry.stalledTime = 0;
+        }
+    }
+
+    private void onStalled(Entry entry)
+    {
+        if (session.getSendWindow() <= 0)
+        {
+            if (sessionStalledTime == 0)
+            {
+                sessionStalledTime = System.nanoTime();
+                sessionStalls.increment();
+            }
+        }
+        else if (entry.stalledTime == 0)
+        {
+            entry.stalledTime = System.nanoTime();
+            streamStalls.increment();
+        }
+    }
+
     void onFlushed(long bytes) throws IOException
     {
         // A single EndPoint write may be flushed multiple times (for example with SSL).
@@ -318,15 +435,9 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
 
         if (stalledEntry != null)
         {
-            int size = pendingEntries.size();
-            for (int i = 0; i < size; ++i)
-            {
-                Entry entry = pendingEntries.peek();
-                if (entry == stalledEntry)
-                    break;
-                pendingEntries.poll();
-                pendingEntries.offer(entry);
-            }
+            int index = pendingEntries.indexOf(stalledEntry);
+            if (index > 0)
+                Collections.rotate(pendingEntries, -index);
             stalledEntry = null;
         }
     }
@@ -404,18 +515,21 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
     @Override
     public String toString()
     {
-        return String.format("%s[window_queue=%d,frame_queue=%d,processed/pending=%d/%d]",
+        return String.format("%s[window_queue=%d,frame_queue=%d,processed/pending=%d/%d,stalls session/stream=%d/%d]",
             super.toString(),
             getWindowQueueSize(),
             getFrameQueueSize(),
             processedEntries.size(),
-            pendingEntries.size());
+            pendingEntries.size(),
+            sessionStalls.sum(),
+            streamStalls.sum());
     }
 
     public abstract static class Entry extends Callback.Nested
     {
         protected final Frame frame;
         protected final IStream stream;
+        private long stalledTime;
 
         protected Entry(Frame frame, IStream stream, Callback callback)
         {
@@ -424,6 +538,16 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             this.stream = stream;
         }
 
+        public Frame getFrame()
+        {
+            return frame;
+        }
+
+        public IStream getStream()
+        {
+            return stream;
+        }
+
         public abstract int getFrameBytesGenerated();
 
         public int getDataBytesRemaining()
@@ -28,6 +28,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
@@ -100,11 +101,15 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
     private final Session.Listener listener;
     private final FlowControlStrategy flowControl;
     private final HTTP2Flusher flusher;
+    private FrameScheduler frameScheduler = new FIFOFrameScheduler();
+    private HTTP2Statistics statistics;
     private int maxLocalStreams;
     private int maxRemoteStreams;
     private long streamIdleTimeout;
     private int initialSessionRecvWindow;
     private int writeThreshold;
+    private int writeCoalescingSize;
+    private long writeCoalescingDelay;
     private boolean pushEnabled;
     private boolean connectProtocolEnabled;
     private long idleTime;
@@ -217,6 +222,88 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
         this.writeThreshold = writeThreshold;
     }
 
+    /**
+     * @return the max size of the buffers into which small frames are coalesced, or 0 if frames are not coalesced
+     * @see #setWriteCoalescingSize(int)
+     */
+    @ManagedAttribute("The max size of the buffers into which small frames are coalesced")
+    public int getWriteCoalescingSize()
+    {
+        return writeCoalescingSize;
+    }
+
+    /**
+     * <p>Sets the max size of the buffers into which small frames, possibly
+     * of different streams, are coalesced before being written.</p>
+     * <p>Coalescing reduces the number of writes and, with TLS, the number
+     * of TLS records; a value of 16 KiB matches the max TLS record size.</p>
+     *
+     * @param writeCoalescingSize the max size of the coalesced buffers, or 0 to disable coalescing
+     */
+    public void setWriteCoalescingSize(int writeCoalescingSize)
+    {
+        this.writeCoalescingSize = writeCoalescingSize;
+    }
+
+    /**
+     * @return the max time in milliseconds that DATA frames are delayed to be coalesced with other frames
+     * @see #setWriteCoalescingDelay(long)
+     */
+    @ManagedAttribute("The max time in milliseconds that DATA frames are delayed to be coalesced")
+    public long getWriteCoalescingDelay()
+    {
+        return writeCoalescingDelay;
+    }
+
+    /**
+     * <p>Sets the max time that a write of only DATA frames, smaller than the
+     * {@link #getWriteCoalescingSize() write coalescing size}, is delayed to be
+     * coalesced with the frames of other streams.</p>
+     * <p>Writes that contain other frames, for example HEADERS or PING, are not delayed.</p>
+     *
+     * @param writeCoalescingDelay the max delay in milliseconds, or 0 to never delay writes
+     */
+    public void setWriteCoalescingDelay(long writeCoalescingDelay)
+    {
+        this.writeCoalescingDelay = writeCoalescingDelay;
+    }
+
+    /**
+     * @return the statistics of this session, or null if statistics are not tracked
+     * @see #setStatistics(HTTP2Statistics)
+     */
+    public HTTP2Statistics getStatistics()
+    {
+        return statistics;
+    }
+
+    /**
+     * <p>Sets the statistics that track the frames, the flow control
+     * stalls and the streams of this session.</p>
+     * <p>The statistics must be set before the session is used.</p>
+     *
+     * @param statistics the statistics, or null to not track statistics
+     */
+    public void setStatistics(HTTP2Statistics statistics)
+    {
+        this.statistics = statistics;
+    }
+
+    public FrameScheduler getFrameScheduler()
+    {
+        return frameScheduler;
+    }
+
+    public void setFrameScheduler(FrameScheduler frameScheduler)
+    {
+        this.frameScheduler = Objects.requireNonNull(frameScheduler);
+    }
+
+    public Scheduler getScheduler()
+    {
+        return scheduler;
+    }
+
     public EndPoint getEndPoint()
     {
         return endPoint;
@@ -302,6 +389,10 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
     {
         if (LOG.isDebugEnabled())
             LOG.debug("Received {} on {}", frame, this);
+
+        IStream stream = getStream(frame.getStreamId());
+        if (stream != null)
+            stream.setWeight(frame.getWeight());
     }
 
     @Override
@@ -428,7 +519,8 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
 
         if (frame.isReply())
         {
-            notifyPing(this, frame);
+            if (!flowControl.onPingReply(this, frame))
+                notifyPing(this, frame);
         }
         else
         {
@@ -954,6 +1046,18 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
         return recvWindow.getAndAdd(delta);
     }
 
+    @ManagedAttribute(value = "The ratio of HPACK dynamic table entries reused by the encoder", readonly = true)
+    public double getHpackDynamicTableHitRatio()
+    {
+        return generator.getHpackEncoder().getDynamicTableHitRatio();
+    }
+
+    @ManagedAttribute(value = "The number of bytes of the HPACK encoded header blocks", readonly = true)
+    public long getHpackEncodedBytes()
+    {
+        return generator.getHpackEncoder().getEncodedBytes();
+    }
+
     @Override
     @ManagedAttribute(value = "Whether HTTP/2 push is enabled", readonly = true)
     public boolean isPushEnabled()
@@ -1088,10 +1192,14 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
     protected void onStreamOpened(IStream stream)
     {
         streamCount.addAndGetLo(1);
+        if (statistics != null)
+            statistics.onStreamOpened();
     }
 
     protected void onStreamClosed(IStream stream)
     {
+        if (statistics != null)
+            statistics.onStreamClosed(System.nanoTime() - stream.getCreationNanoTime());
         Callback callback = null;
         while (true)
         {
@@ -0,0 +1,323 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.http2.frames.FrameType;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.component.Dumpable;
+import org.eclipse.jetty.util.statistic.CounterStatistic;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
+
+/**
+ * <p>Tracks statistics of HTTP/2 sessions: the number of frames and bytes
+ * received and sent by frame type, the number and duration of the stalls
+ * due to exhausted flow control windows, and the lifetime of streams.</p>
+ * <p>Adding an instance of this class as a bean to a server Connector or to
+ * its HTTP/2 ConnectionFactory (for the server) or to HTTP2Client (for the client)
+ * will trigger the tracking of the statistics for all the HTTP/2 sessions
+ * created after the instance has been started.
+ * Sessions without statistics only pay a {@code null} check.</p>
+ */
+@ManagedObject("Tracks statistics on HTTP/2 sessions")
+public class HTTP2Statistics extends AbstractLifeCycle implements Dumpable
+{
+    private static final FrameType[] FRAME_TYPES = FrameType.values();
+    // Stream lifetime histogram buckets, in milliseconds: <1, <2, <4, ... <2^16, >=2^16.
+    private static final int BUCKETS = 18;
+
+    private final LongAdder[] framesReceived = newAdders(FRAME_TYPES.length);
+    private final LongAdder[] bytesReceived = newAdders(FRAME_TYPES.length);
+    private final LongAdder[] framesSent = newAdders(FRAME_TYPES.length);
+    private final LongAdder[] bytesSent = newAdders(FRAME_TYPES.length);
+    private final CounterStatistic streams = new CounterStatistic();
+    private final SampleStatistic streamDurations = new SampleStatistic();
+    private final LongAdder[] streamDurationBuckets = newAdders(BUCKETS);
+    private final SampleStatistic sessionStalls = new SampleStatistic();
+    private final SampleStatistic streamStalls = new SampleStatistic();
+
+    private static LongAdder[] newAdders(int length)
+    {
+        LongAdder[] result = new LongAdder[length];
+        for (int i = 0; i < length; ++i)
+        {
+            result[i] = new LongAdder();
+        }
+        return result;
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        for (int i = 0; i < FRAME_TYPES.length; ++i)
+        {
+            framesReceived[i].reset();
+            bytesReceived[i].reset();
+            framesSent[i].reset();
+            bytesSent[i].reset();
+        }
+        streams.reset();
+        streamDurations.reset();
+        for (LongAdder bucket : streamDurationBuckets)
+        {
+            bucket.reset();
+        }
+        sessionStalls.reset();
+        streamStalls.reset();
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        reset();
+    }
+
+    /**
+     * @param type the type of the frame received
+     * @param bytes the number of bytes of the frame, including the frame header
+     */
+    public void onFrameReceived(FrameType type, int bytes)
+    {
+        int index = type.ordinal();
+        framesReceived[index].increment();
+        bytesReceived[index].add(bytes);
+    }
+
+    /**
+     * @param type the type of the frame sent
+     * @param bytes the number of bytes of the frame, including the frame header
+     */
+    public void onFrameSent(FrameType type, int bytes)
+    {
+        int index = type.ordinal();
+        framesSent[index].increment();
+        bytesSent[index].add(bytes);
+    }
+
+    public void onStreamOpened()
+    {
+        streams.increment();
+    }
+
+    /**
+     * @param lifeTime the lifetime of the stream in nanoseconds
+     */
+    public void onStreamClosed(long lifeTime)
+    {
+        streams.decrement();
+        long millis = TimeUnit.NANOSECONDS.toMillis(lifeTime);
+        streamDurations.record(millis);
+        int bucket = millis <= 0 ? 0 : Math.min(BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(millis));
+        streamDurationBuckets[bucket].increment();
+    }
+
+    /**
+     * @param stallTime the time in nanoseconds that a session
+     * waited for its flow control send window to open
+     */
+    public void onSessionStalled(long stallTime)
+    {
+        sessionStalls.record(TimeUnit.NANOSECONDS.toMicros(stallTime));
+    }
+
+    /**
+     * @param stallTime the time in nanoseconds that a stream
+     * waited for its flow control send window to open
+     */
+    public void onStreamStalled(long stallTime)
+    {
+        streamStalls.record(TimeUnit.NANOSECONDS.toMicros(stallTime));
+    }
+
+    @ManagedAttribute("The number of frames received by frame type")
+    public Map<String, Long> getFramesReceived()
+    {
+        return toMap(framesReceived);
+    }
+
+    @ManagedAttribute("The number of bytes received by frame type")
+    public Map<String, Long> getBytesReceived()
+    {
+        return toMap(bytesReceived);
+    }
+
+    @ManagedAttribute("The number of frames sent by frame type")
+    public Map<String, Long> getFramesSent()
+    {
+        return toMap(framesSent);
+    }
+
+    @ManagedAttribute("The number of bytes sent by frame type")
+    public Map<String, Long> getBytesSent()
+    {
+        return toMap(bytesSent);
+    }
+
+    /**
+     * @param type the frame type
+     * @return the number of frames of the given type received
+     */
+    public long getFramesReceived(FrameType type)
+    {
+        return framesReceived[type.ordinal()].sum();
+    }
+
+    /**
+     * @param type the frame type
+     * @return the number of frames of the given type sent
+     */
+    public long getFramesSent(FrameType type)
+    {
+        return framesSent[type.ordinal()].sum();
+    }
+
+    private static Map<String, Long> toMap(LongAdder[] adders)
+    {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (FrameType type : FRAME_TYPES)
+        {
+            long value = adders[type.ordinal()].sum();
+            if (value > 0)
+                result.put(type.name(), value);
+        }
+        return result;
+    }
+
+    @ManagedAttribute("The current number of open streams")
+    public long getStreams()
+    {
+        return streams.getCurrent();
+    }
+
+    @ManagedAttribute("The max number of open streams")
+    public long getStreamsMax()
+    {
+        return streams.getMax();
+    }
+
+    @ManagedAttribute("The total number of streams opened")
+    public long getStreamsTotal()
+    {
+        return streams.getTotal();
+    }
+
+    @ManagedAttribute("The max lifetime of a stream in ms")
+    public long getStreamDurationMax()
+    {
+        return streamDurations.getMax();
+    }
+
+    @ManagedAttribute("The mean lifetime of a stream in ms")
+    public double getStreamDurationMean()
+    {
+        return streamDurations.getMean();
+    }
+
+    @ManagedAttribute("The standard deviation of the lifetime of a stream")
+    public double getStreamDurationStdDev()
+    {
+        return streamDurations.getStdDev();
+    }
+
+    @ManagedAttribute("The histogram of the lifetime of streams, with buckets in ms")
+    public Map<String, Long> getStreamDurationHistogram()
+    {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKETS; ++i)
+        {
+            long count = streamDurationBuckets[i].sum();
+            if (count == 0)
+                continue;
+            String key = i == BUCKETS - 1 ? ">=" + (1L << (i - 1)) : "<" + (1L << i);
+            result.put(key, count);
+        }
+        return result;
+    }
+
+    @ManagedAttribute("The number of times a session stalled on its flow control send window")
+    public long getSessionStalls()
+    {
+        return sessionStalls.getCount();
+    }
+
+    @ManagedAttribute("The total time sessions stalled on their flow control send window in microseconds")
+    public long getSessionStallTimeTotal()
+    {
+        return sessionStalls.getTotal();
+    }
+
+    @ManagedAttribute("The max time a session stalled on its flow control send window in microseconds")
+    public long getSessionStallTimeMax()
+    {
+        return sessionStalls.getMax();
+    }
+
+    @ManagedAttribute("The number of times a stream stalled on its flow control send window")
+    public long getStreamStalls()
+    {
+        return streamStalls.getCount();
+    }
+
+    @ManagedAttribute("The total time streams stalled on their flow control send window in microseconds")
+    public long getStreamStallTimeTotal()
+    {
+        return streamStalls.getTotal();
+    }
+
+    @ManagedAttribute("The max time a stream stalled on its flow control send window in microseconds")
+    public long getStreamStallTimeMax()
+    {
+        return streamStalls.getMax();
+    }
+
+    @Override
+    public String dump()
+    {
+        return Dumpable.dump(this);
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        Dumpable.dumpObjects(out, indent, this,
+            String.format("frames in=%s", getFramesReceived()),
+            String.format("frames out=%s", getFramesSent()),
+            String.format("bytes in=%s", getBytesReceived()),
+            String.format("bytes out=%s", getBytesSent()),
+            String.format("streams=%s", streams),
+            String.format("stream durations=%s", streamDurations),
+            String.format("stream durations histogram=%s", getStreamDurationHistogram()),
+            String.format("session stalls=%s", sessionStalls),
+            String.format("stream stalls=%s", streamStalls));
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x", getClass().getSimpleName(), hashCode());
+    }
+}
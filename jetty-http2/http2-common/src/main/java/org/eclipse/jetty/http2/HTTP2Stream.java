@@ -40,6 +40,7 @@ import org.eclipse.jetty.http2.frames.DataFrame;
 import org.eclipse.jetty.http2.frames.FailureFrame;
 import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.PriorityFrame;
 import org.eclipse.jetty.http2.frames.PushPromiseFrame;
 import org.eclipse.jetty.http2.frames.ResetFrame;
 import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
@@ -59,7 +60,6 @@ public class HTTP2Stream extends IdleTimeout implements IStream, Callback, Dumpa
     private static final Logger LOG = LoggerFactory.getLogger(HTTP2Stream.class);
 
     private final AutoLock lock = new AutoLock();
-    private final Queue<DataEntry> dataQueue = new ArrayDeque<>();
     private final AtomicReference<Object> attachment = new AtomicReference<>();
     private final AtomicReference<ConcurrentMap<String, Object>> attributes = new AtomicReference<>();
     private final AtomicReference<CloseState> closeState = new AtomicReference<>(CloseState.NOT_CLOSED);
@@ -75,10 +75,15 @@ public class HTTP2Stream extends IdleTimeout implements IStream, Callback, Dumpa
     private boolean localReset;
     private boolean remoteReset;
     private Listener listener;
+    // Allocated lazily on the first DATA frame, so that
+    // streams without DATA frames do not allocate it.
+    private Queue<DataEntry> dataQueue;
     private long dataLength;
     private long dataDemand;
     private boolean dataInitial;
     private boolean dataProcess;
+    private volatile int weight = PriorityFrame.DEFAULT_WEIGHT;
+    private volatile int urgency;
 
     public HTTP2Stream(Scheduler scheduler, ISession session, int streamId, MetaData.Request request, boolean local)
     {
@@ -89,6 +94,7 @@ public class HTTP2Stream extends IdleTimeout implements IStream, Callback, Dumpa
         this.local = local;
         this.dataLength = Long.MIN_VALUE;
         this.dataInitial = true;
+        this.urgency = parseUrgency(request);
     }
 
     @Override
@@ -121,6 +127,12 @@ public class HTTP2Stream extends IdleTimeout implements IStream, Callback, Dumpa
         return session;
     }
 
+    @Override
+    public long getCreationNanoTime()
+    {
+        return timeStamp;
+    }
+
     @Override
     public void headers(HeadersFrame frame, Callback callback)
     {
@@ -205,6 +217,51 @@ public class HTTP2Stream extends IdleTimeout implements IStream, Callback, Dumpa
         }
     }
 
+    @Override
+    public int getWeight()
+    {
+        return weight;
+    }
+
+    @Override
+    public void setWeight(int weight)
+    {
+        this.weight = Math.max(1, Math.min(256, weight));
+    }
+
+    @Override
+    public int getUrgency()
+    {
+        return urgency;
+    }
+
+    @Override
+    public void setUrgency(int urgency)
+    {
+        this.urgency = Math.max(0, Math.min(7, urgency));
+    }
+
+    private static int parseUrgency(MetaData.Request request)
+    {
+        // The priority header is a structured field dictionary, for example "u=1, i".
+        HttpFields fields = request == null ? null : request.getFields();
+        String priority = fields == null ? null : fields.get("priority");
+        if (priority != null)
+        {
+            for (String member : priority.split(","))
+            {
+                member = member.trim();
+                if (member.length() == 3 && member.startsWith("u="))
+                {
+                    int urgency = member.charAt(2) - '0';
+                    if (urgency >= 0 && urgency <= 7)
+                        return urgency;
+                }
+            }
+        }
+        return 3;
+    }
+
     private boolean isFailed()
     {
         try (AutoLock l = lock.lock())
@@ -400,6 +457,8 @@ public class HTTP2Stream extends IdleTimeout implements IStream, Callback, Dumpa
         DataEntry entry = new DataEntry(frame, callback);
         try (AutoLock l = lock.lock())
         {
+            if (dataQueue == null)
+                dataQueue = new ArrayDeque<>();
             dataQueue.offer(entry);
             initial = dataInitial;
             if (initial)
@@ -441,7 +500,7 @@ public class HTTP2Stream extends IdleTimeout implements IStream, Callback, Dumpa
         {
             demand = dataDemand = MathUtils.cappedAdd(dataDemand, n);
             if (!dataProcess)
-                dataProcess = proceed = !dataQueue.isEmpty();
+                dataProcess = proceed = dataQueue != null && !dataQueue.isEmpty();
         }
         if (LOG.isDebugEnabled())
             LOG.debug("Demand {}/{}, {} data processing for {}", n, demand, proceed ? "proceeding" : "stalling", this);
@@ -456,7 +515,7 @@ public class HTTP2Stream extends IdleTimeout implements IStream, Callback, Dumpa
             DataEntry dataEntry;
             try (AutoLock l = lock.lock())
             {
-                if (dataQueue.isEmpty() || dataDemand == 0)
+                if (dataQueue == null || dataQueue.isEmpty() || dataDemand == 0)
                 {
                     if (LOG.isDebugEnabled())
                         LOG.debug("Stalling data processing for {}", this);
@@ -47,6 +47,11 @@ public interface IStream extends Stream, Attachable, Closeable
     @Override
     public ISession getSession();
 
+    /**
+     * @return the {@link System#nanoTime()} at which this stream was created
+     */
+    public long getCreationNanoTime();
+
     /**
      * @return the {@link org.eclipse.jetty.http2.api.Stream.Listener} associated with this stream
      * @see #setListener(Stream.Listener)
@@ -126,6 +131,29 @@ public interface IStream extends Stream, Attachable, Closeable
      */
     boolean isResetOrFailed();
 
+    /**
+     * @return the weight of this stream, between 1 and 256, as set by PRIORITY frames
+     * @see #setWeight(int)
+     */
+    int getWeight();
+
+    /**
+     * @param weight the weight of this stream, between 1 and 256
+     */
+    void setWeight(int weight);
+
+    /**
+     * @return the urgency of this stream, between 0 (highest) and 7 (lowest),
+     * as specified by the {@code priority} request header
+     * @see #setUrgency(int)
+     */
+    int getUrgency();
+
+    /**
+     * @param urgency the urgency of this stream, between 0 (highest) and 7 (lowest)
+     */
+    void setUrgency(int urgency);
+
     /**
      * <p>An ordered list of frames belonging to the same stream.</p>
      */
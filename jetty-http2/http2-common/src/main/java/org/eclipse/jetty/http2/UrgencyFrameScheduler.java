@@ -0,0 +1,72 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.Comparator;
+import java.util.List;
+
+import org.eclipse.jetty.http2.frames.FrameType;
+
+/**
+ * <p>A {@link FrameScheduler} that favors the streams with the highest
+ * {@link IStream#getUrgency() urgency}, as specified by the {@code priority}
+ * request header of the Extensible Prioritization Scheme for HTTP.</p>
+ * <p>The DATA frames of more urgent streams are generated first and, in each pass,
+ * a stream generates {@code 8 - urgency} frames, so that less urgent streams
+ * still make progress.</p>
+ */
+public class UrgencyFrameScheduler implements FrameScheduler
+{
+    private static final Comparator<HTTP2Flusher.Entry> URGENCY = Comparator.comparingInt(entry -> entry.getStream().getUrgency());
+
+    @Override
+    public void schedule(List<HTTP2Flusher.Entry> entries)
+    {
+        // Only sort runs of DATA frames, so that entries are
+        // never moved across HEADERS and control frames.
+        int size = entries.size();
+        int start = 0;
+        while (start < size)
+        {
+            int end = start;
+            while (end < size && isData(entries.get(end)))
+            {
+                ++end;
+            }
+            // List.sort() is stable, so the frames of the same stream keep their order.
+            if (end - start > 1)
+                entries.subList(start, end).sort(URGENCY);
+            start = end + 1;
+        }
+    }
+
+    private boolean isData(HTTP2Flusher.Entry entry)
+    {
+        return entry.getStream() != null && entry.getFrame().getType() == FrameType.DATA;
+    }
+
+    @Override
+    public int getQuantum(HTTP2Flusher.Entry entry)
+    {
+        IStream stream = entry.getStream();
+        if (stream == null)
+            return 1;
+        return 8 - stream.getUrgency();
+    }
+}
@@ -0,0 +1,50 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.List;
+
+import org.eclipse.jetty.http2.frames.PriorityFrame;
+
+/**
+ * <p>A weighted round-robin {@link FrameScheduler}.</p>
+ * <p>In each pass, the entries of a stream generate a number of frames proportional
+ * to the stream {@link IStream#getWeight() weight}, as set by the PRIORITY frames or
+ * by the priority of the HEADERS frame that opened the stream: a stream with the
+ * default weight of {@value PriorityFrame#DEFAULT_WEIGHT} generates one frame per pass,
+ * while a stream with the max weight of 256 generates 16 frames per pass.</p>
+ * <p>The stream dependencies are not taken into account.</p>
+ */
+public class WeightedFrameScheduler implements FrameScheduler
+{
+    @Override
+    public void schedule(List<HTTP2Flusher.Entry> entries)
+    {
+    }
+
+    @Override
+    public int getQuantum(HTTP2Flusher.Entry entry)
+    {
+        IStream stream = entry.getStream();
+        if (stream == null)
+            return 1;
+        int weight = stream.getWeight();
+        return (weight + PriorityFrame.DEFAULT_WEIGHT - 1) / PriorityFrame.DEFAULT_WEIGHT;
+    }
+}
@@ -21,6 +21,7 @@ package org.eclipse.jetty.http2.frames;
 public class PriorityFrame extends StreamFrame
 {
     public static final int PRIORITY_LENGTH = 5;
+    public static final int DEFAULT_WEIGHT = 16;
 
     private final int parentStreamId;
     private final int weight;
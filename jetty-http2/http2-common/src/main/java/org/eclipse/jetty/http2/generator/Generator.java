@@ -23,6 +23,7 @@ import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.FrameType;
 import org.eclipse.jetty.http2.hpack.HpackEncoder;
 import org.eclipse.jetty.http2.hpack.HpackException;
+import org.eclipse.jetty.http2.hpack.HpackIndexingPolicy;
 import org.eclipse.jetty.io.ByteBufferPool;
 
 public class Generator
@@ -76,6 +77,16 @@ public class Generator
         hpackEncoder.setValidateEncoding(validateEncoding);
     }
 
+    public HpackEncoder getHpackEncoder()
+    {
+        return hpackEncoder;
+    }
+
+    public void setHpackIndexingPolicy(HpackIndexingPolicy indexingPolicy)
+    {
+        hpackEncoder.setIndexingPolicy(indexingPolicy);
+    }
+
     public void setHeaderTableSize(int headerTableSize)
     {
         hpackEncoder.setRemoteMaxDynamicTableSize(headerTableSize);
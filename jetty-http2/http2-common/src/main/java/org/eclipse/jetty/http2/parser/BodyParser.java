@@ -23,6 +23,7 @@ import java.nio.ByteBuffer;
 import org.eclipse.jetty.http2.ErrorCode;
 import org.eclipse.jetty.http2.Flags;
 import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.GoAwayFrame;
 import org.eclipse.jetty.http2.frames.HeadersFrame;
 import org.eclipse.jetty.http2.frames.PingFrame;
@@ -250,4 +251,9 @@ public abstract class BodyParser
     {
         return headerParser.getRateControl().onEvent(o);
     }
+
+    protected boolean rateControlOnFrame(Frame frame, int length)
+    {
+        return headerParser.getRateControl().onFrame(frame, length);
+    }
 }
@@ -106,7 +106,8 @@ public class ContinuationBodyParser extends BodyParser
     private boolean onHeaders(ByteBuffer buffer)
     {
         ByteBuffer headerBlock = headerBlockFragments.complete();
-        MetaData metaData = headerBlockParser.parse(headerBlock, headerBlock.remaining());
+        int blockLength = headerBlock.remaining();
+        MetaData metaData = headerBlockParser.parse(headerBlock, blockLength);
         headerBlockFragments.getByteBufferPool().release(headerBlock);
         if (metaData == null)
             return true;
@@ -118,6 +119,11 @@ public class ContinuationBodyParser extends BodyParser
             if (!rateControlOnEvent(frame))
                 return connectionFailure(buffer, ErrorCode.ENHANCE_YOUR_CALM_ERROR.code, "invalid_continuation_frame_rate");
         }
+        else
+        {
+            if (!rateControlOnFrame(frame, blockLength))
+                return connectionFailure(buffer, ErrorCode.ENHANCE_YOUR_CALM_ERROR.code, "invalid_continuation_frame_rate");
+        }
         notifyHeaders(frame);
         return true;
     }
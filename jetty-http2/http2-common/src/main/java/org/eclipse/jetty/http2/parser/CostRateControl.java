@@ -0,0 +1,318 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.parser;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.http2.frames.Frame;
+import org.eclipse.jetty.http2.frames.FrameType;
+import org.eclipse.jetty.io.EndPoint;
+
+/**
+ * <p>An implementation of {@link RateControl} that charges a cost for each
+ * frame, depending on the frame type, against token buckets that refill
+ * at a constant rate.</p>
+ * <p>Frames that are cheap for the receiver, such as HEADERS frames that
+ * open streams, have a low cost, so that legitimate clients with many
+ * concurrent streams are not penalized, while frames that are typically
+ * used in floods, such as RST_STREAM (the "rapid reset" attack), SETTINGS
+ * or PING, have a higher cost. HEADERS frames are charged an additional
+ * cost proportional to the length of their HPACK block.</p>
+ * <p>Each session has its own token bucket; sessions from the same remote
+ * IP address also share a per-address token bucket, so that an attacker
+ * cannot bypass the limits by opening many connections.</p>
+ * <p>The token buckets are implemented with the generic cell rate algorithm,
+ * so that charging a cost is a single compare-and-set, without locks.</p>
+ */
+public class CostRateControl implements RateControl
+{
+    private final Bucket bucket = new Bucket();
+    private final Factory factory;
+    private final InetAddress address;
+
+    public CostRateControl(Factory factory, InetAddress address)
+    {
+        this.factory = factory;
+        this.address = address;
+    }
+
+    @Override
+    public boolean onEvent(Object event)
+    {
+        // Events are frames that are invalid or that have no effect,
+        // for example empty DATA frames or HEADERS frames with errors.
+        int cost;
+        if (event instanceof Frame && ((Frame)event).getType() != null)
+        {
+            FrameType type = ((Frame)event).getType();
+            if (type == FrameType.HEADERS || type == FrameType.CONTINUATION)
+                cost = factory.getInvalidFrameCost();
+            else
+                cost = factory.getCost(type);
+        }
+        else
+        {
+            cost = factory.getInvalidFrameCost();
+        }
+        return charge(cost);
+    }
+
+    @Override
+    public boolean onFrame(Frame frame, int length)
+    {
+        FrameType type = frame.getType();
+        int cost = factory.getCost(type);
+        if (type == FrameType.HEADERS)
+            cost += length / factory.getHeaderBytesPerCost();
+        return charge(cost);
+    }
+
+    private boolean charge(int cost)
+    {
+        if (cost <= 0)
+            return true;
+        long now = System.nanoTime();
+        if (!bucket.charge(cost, factory.getMaxCostPerSecond(), factory.getMaxCostBurst(), now))
+            return false;
+        if (address == null || factory.getMaxCostPerSecondPerAddress() <= 0)
+            return true;
+        return factory.charge(address, cost, now);
+    }
+
+    /**
+     * <p>A token bucket implemented with the generic cell rate algorithm:
+     * rather than the number of tokens, it stores the theoretical time at
+     * which the bucket will be full again.</p>
+     */
+    private static class Bucket
+    {
+        private final AtomicLong fullTime = new AtomicLong(System.nanoTime());
+
+        private boolean charge(int cost, int maxCostPerSecond, int maxCostBurst, long now)
+        {
+            long nanosPerCost = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxCostPerSecond);
+            long maxDebt = maxCostBurst * nanosPerCost;
+            while (true)
+            {
+                long current = fullTime.get();
+                long start = current - now > 0 ? current : now;
+                long next = start + cost * nanosPerCost;
+                if (next - now > maxDebt)
+                    return false;
+                if (fullTime.compareAndSet(current, next))
+                    return true;
+            }
+        }
+
+        private boolean isFull(long now)
+        {
+            return fullTime.get() - now <= 0;
+        }
+    }
+
+    /**
+     * <p>A {@link RateControl.Factory} that creates {@link CostRateControl}
+     * instances, holds their configuration and the per-address token buckets.</p>
+     */
+    public static class Factory implements RateControl.Factory
+    {
+        private static final int SWEEP_THRESHOLD = 1024;
+
+        private final Map<FrameType, Integer> costs = new EnumMap<>(FrameType.class);
+        private final Map<InetAddress, Bucket> addresses = new ConcurrentHashMap<>();
+        private volatile int sweepSize = SWEEP_THRESHOLD;
+        private int maxCostPerSecond;
+        private int maxCostBurst;
+        private int maxCostPerSecondPerAddress;
+        private int maxCostBurstPerAddress;
+        private int headerBytesPerCost = 4096;
+        private int invalidFrameCost = 20;
+
+        public Factory()
+        {
+            this(10_000, 50_000);
+        }
+
+        /**
+         * @param maxCostPerSecond the max cost per second of a session
+         * @param maxCostPerSecondPerAddress the max cost per second of all the
+         * sessions from the same remote address, or 0 to not limit per address
+         */
+        public Factory(int maxCostPerSecond, int maxCostPerSecondPerAddress)
+        {
+            this.maxCostPerSecond = maxCostPerSecond;
+            this.maxCostBurst = maxCostPerSecond;
+            this.maxCostPerSecondPerAddress = maxCostPerSecondPerAddress;
+            this.maxCostBurstPerAddress = maxCostPerSecondPerAddress;
+            costs.put(FrameType.DATA, 10);
+            costs.put(FrameType.HEADERS, 1);
+            costs.put(FrameType.PRIORITY, 5);
+            costs.put(FrameType.RST_STREAM, 10);
+            costs.put(FrameType.SETTINGS, 20);
+            costs.put(FrameType.PUSH_PROMISE, 1);
+            costs.put(FrameType.PING, 20);
+            costs.put(FrameType.GO_AWAY, 1);
+            costs.put(FrameType.WINDOW_UPDATE, 1);
+            costs.put(FrameType.CONTINUATION, 1);
+        }
+
+        /**
+         * @param type the frame type
+         * @return the cost of a frame of the given type
+         */
+        public int getCost(FrameType type)
+        {
+            return costs.getOrDefault(type, invalidFrameCost);
+        }
+
+        /**
+         * <p>Sets the cost of the frames of the given type.</p>
+         * <p>DATA frames are only charged when they are empty and do not end the stream.</p>
+         *
+         * @param type the frame type
+         * @param cost the cost of a frame of the given type
+         */
+        public void setCost(FrameType type, int cost)
+        {
+            costs.put(type, cost);
+        }
+
+        public int getHeaderBytesPerCost()
+        {
+            return headerBytesPerCost;
+        }
+
+        /**
+         * @param headerBytesPerCost the number of HPACK bytes of a HEADERS frame
+         * that are charged one additional cost
+         */
+        public void setHeaderBytesPerCost(int headerBytesPerCost)
+        {
+            if (headerBytesPerCost <= 0)
+                throw new IllegalArgumentException("Invalid header bytes per cost " + headerBytesPerCost);
+            this.headerBytesPerCost = headerBytesPerCost;
+        }
+
+        public int getInvalidFrameCost()
+        {
+            return invalidFrameCost;
+        }
+
+        /**
+         * @param invalidFrameCost the cost of the frames that are invalid, for example
+         * HEADERS frames with an empty or malformed HPACK block, or of an unknown type
+         */
+        public void setInvalidFrameCost(int invalidFrameCost)
+        {
+            this.invalidFrameCost = invalidFrameCost;
+        }
+
+        public int getMaxCostPerSecond()
+        {
+            return maxCostPerSecond;
+        }
+
+        public void setMaxCostPerSecond(int maxCostPerSecond)
+        {
+            this.maxCostPerSecond = maxCostPerSecond;
+        }
+
+        public int getMaxCostBurst()
+        {
+            return maxCostBurst;
+        }
+
+        /**
+         * @param maxCostBurst the max cost that a session may be charged in a burst
+         */
+        public void setMaxCostBurst(int maxCostBurst)
+        {
+            this.maxCostBurst = maxCostBurst;
+        }
+
+        public int getMaxCostPerSecondPerAddress()
+        {
+            return maxCostPerSecondPerAddress;
+        }
+
+        /**
+         * @param maxCostPerSecondPerAddress the max cost per second of all the sessions
+         * from the same remote address, or 0 to not limit per address
+         */
+        public void setMaxCostPerSecondPerAddress(int maxCostPerSecondPerAddress)
+        {
+            this.maxCostPerSecondPerAddress = maxCostPerSecondPerAddress;
+        }
+
+        public int getMaxCostBurstPerAddress()
+        {
+            return maxCostBurstPerAddress;
+        }
+
+        /**
+         * @param maxCostBurstPerAddress the max cost that all the sessions from
+         * the same remote address may be charged in a burst
+         */
+        public void setMaxCostBurstPerAddress(int maxCostBurstPerAddress)
+        {
+            this.maxCostBurstPerAddress = maxCostBurstPerAddress;
+        }
+
+        /**
+         * @return the number of remote addresses currently tracked
+         */
+        public int getAddressCount()
+        {
+            return addresses.size();
+        }
+
+        @Override
+        public RateControl newRateControl(EndPoint endPoint)
+        {
+            InetSocketAddress remote = endPoint.getRemoteAddress();
+            return new CostRateControl(this, remote == null ? null : remote.getAddress());
+        }
+
+        private boolean charge(InetAddress address, int cost, long now)
+        {
+            Bucket bucket = addresses.get(address);
+            if (bucket == null)
+            {
+                bucket = addresses.computeIfAbsent(address, key -> new Bucket());
+                if (addresses.size() > sweepSize)
+                    sweep(now);
+            }
+            return bucket.charge(cost, getMaxCostPerSecondPerAddress(), getMaxCostBurstPerAddress(), now);
+        }
+
+        private void sweep(long now)
+        {
+            // A full bucket is equivalent to a new one, so it can be
+            // removed without losing track of the address cost.
+            addresses.values().removeIf(bucket -> bucket.isFull(now));
+            sweepSize = Math.max(SWEEP_THRESHOLD, 2 * addresses.size());
+        }
+    }
+}
@@ -186,7 +186,7 @@ public class HeadersBodyParser extends BodyParser
                             loop = paddingLength == 0;
                             if (metaData != HeaderBlockParser.STREAM_FAILURE)
                             {
-                                onHeaders(parentStreamId, weight, exclusive, metaData);
+                                onHeaders(buffer, parentStreamId, weight, exclusive, metaData);
                             }
                             else
                             {
@@ -238,13 +238,16 @@ public class HeadersBodyParser extends BodyParser
         return false;
     }
 
-    private void onHeaders(int parentStreamId, int weight, boolean exclusive, MetaData metaData)
+    private void onHeaders(ByteBuffer buffer, int parentStreamId, int weight, boolean exclusive, MetaData metaData)
     {
         PriorityFrame priorityFrame = null;
         if (hasFlag(Flags.PRIORITY))
             priorityFrame = new PriorityFrame(getStreamId(), parentStreamId, weight, exclusive);
         HeadersFrame frame = new HeadersFrame(getStreamId(), metaData, priorityFrame, isEndStream());
-        onHeaders(frame);
+        if (!rateControlOnFrame(frame, length))
+            connectionFailure(buffer, ErrorCode.ENHANCE_YOUR_CALM_ERROR.code, "invalid_headers_frame_rate");
+        else
+            onHeaders(frame);
     }
 
     private void onHeaders(HeadersFrame frame)
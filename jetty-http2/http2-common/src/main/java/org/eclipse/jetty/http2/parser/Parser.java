@@ -23,6 +23,7 @@ import java.util.function.UnaryOperator;
 
 import org.eclipse.jetty.http2.ErrorCode;
 import org.eclipse.jetty.http2.Flags;
+import org.eclipse.jetty.http2.HTTP2Statistics;
 import org.eclipse.jetty.http2.frames.DataFrame;
 import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.FrameType;
@@ -57,6 +58,7 @@ public class Parser
     private int maxFrameLength = Frame.DEFAULT_MAX_LENGTH;
     private int maxSettingsKeys = SettingsFrame.DEFAULT_MAX_KEYS;
     private boolean continuation;
+    private HTTP2Statistics statistics;
     private State state = State.HEADER;
 
     public Parser(ByteBufferPool byteBufferPool, Listener listener, int maxDynamicTableSize, int maxHeaderSize)
@@ -200,6 +202,8 @@ public class Parser
         }
         if (LOG.isDebugEnabled())
             LOG.debug("Parsed {} frame body from {}@{}", FrameType.from(type), buffer, Integer.toHexString(buffer.hashCode()));
+        if (statistics != null)
+            statistics.onFrameReceived(FrameType.from(type), Frame.HEADER_LENGTH + headerParser.getLength());
         reset();
         return true;
     }
@@ -219,6 +223,19 @@ public class Parser
         return headerParser.hasFlag(bit);
     }
 
+    public HTTP2Statistics getStatistics()
+    {
+        return statistics;
+    }
+
+    /**
+     * @param statistics the statistics that track the frames received, or null to not track statistics
+     */
+    public void setStatistics(HTTP2Statistics statistics)
+    {
+        this.statistics = statistics;
+    }
+
     public int getMaxFrameLength()
     {
         return maxFrameLength;
@@ -18,6 +18,7 @@
 
 package org.eclipse.jetty.http2.parser;
 
+import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.io.EndPoint;
 
 /**
@@ -39,6 +40,23 @@ public interface RateControl
      */
     public boolean onEvent(Object event);
 
+    /**
+     * <p>Applications should call this method when they receive a legitimate
+     * frame that nonetheless has a cost for the receiver, for example a HEADERS
+     * frame that opens a stream, or a RST_STREAM frame that cancels it.</p>
+     * <p>Implementations that account for the cost of frames should return
+     * false to signal that the frame exceeded the desired rate.</p>
+     * <p>The default implementation does not account for frames and returns true.</p>
+     *
+     * @param frame the frame subject to rate control
+     * @param length the length in bytes of the frame payload
+     * @return true IFF the rate is within limits
+     */
+    public default boolean onFrame(Frame frame, int length)
+    {
+        return true;
+    }
+
     /**
      * Factory to create RateControl instances.
      */
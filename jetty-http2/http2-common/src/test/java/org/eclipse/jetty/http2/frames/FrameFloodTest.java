@@ -18,6 +18,7 @@
 
 package org.eclipse.jetty.http2.frames;
 
+import java.net.InetAddress;
 import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -27,7 +28,9 @@ import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.http2.Flags;
 import org.eclipse.jetty.http2.hpack.HpackEncoder;
+import org.eclipse.jetty.http2.parser.CostRateControl;
 import org.eclipse.jetty.http2.parser.Parser;
+import org.eclipse.jetty.http2.parser.RateControl;
 import org.eclipse.jetty.http2.parser.WindowRateControl;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.MappedByteBufferPool;
@@ -35,6 +38,8 @@ import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class FrameFloodTest
 {
@@ -125,7 +130,60 @@ public class FrameFloodTest
         testFrameFlood(null, frameFrom(payload.length, 64, 0, 0, payload));
     }
 
+    @Test
+    public void testResetFrameFlood()
+    {
+        byte[] payload = {0, 0, 0, 8};
+        CostRateControl.Factory factory = new CostRateControl.Factory(100, 0);
+        testFrameFlood(new CostRateControl(factory, null), null, frameFrom(payload.length, FrameType.RST_STREAM.getType(), 0, 13, payload));
+    }
+
+    @Test
+    public void testCostRateControlPerAddress() throws Exception
+    {
+        CostRateControl.Factory factory = new CostRateControl.Factory(100, 150);
+        InetAddress address = InetAddress.getLoopbackAddress();
+        RateControl rateControl1 = new CostRateControl(factory, address);
+        RateControl rateControl2 = new CostRateControl(factory, address);
+        ResetFrame frame = new ResetFrame(13, 0);
+        int cost = factory.getCost(FrameType.RST_STREAM);
+
+        // Each session stays within its own limit,
+        // but together they exceed the address limit.
+        for (int i = 0; i < 70 / cost; ++i)
+        {
+            assertTrue(rateControl1.onFrame(frame, 4));
+            assertTrue(rateControl2.onFrame(frame, 4));
+        }
+        assertTrue(rateControl1.onFrame(frame, 4));
+        assertFalse(rateControl2.onFrame(frame, 4));
+        assertTrue(new CostRateControl(factory, InetAddress.getByName("127.0.0.2")).onFrame(frame, 4));
+        assertThat(factory.getAddressCount(), lessThan(3));
+    }
+
+    @Test
+    public void testCostRateControlHeadersCost()
+    {
+        CostRateControl.Factory factory = new CostRateControl.Factory(100, 0);
+        factory.setHeaderBytesPerCost(1024);
+        RateControl rateControl = new CostRateControl(factory, null);
+        HeadersFrame frame = new HeadersFrame(13, null, null, true);
+
+        // Small HEADERS frames are cheap.
+        for (int i = 0; i < 50; ++i)
+        {
+            assertTrue(rateControl.onFrame(frame, 100));
+        }
+        // Large HEADERS frames are charged by their length.
+        assertFalse(rateControl.onFrame(frame, 100 * 1024));
+    }
+
     private void testFrameFlood(byte[] preamble, byte[] bytes)
+    {
+        testFrameFlood(new WindowRateControl(8, Duration.ofSeconds(1)), preamble, bytes);
+    }
+
+    private void testFrameFlood(RateControl rateControl, byte[] preamble, byte[] bytes)
     {
         AtomicBoolean failed = new AtomicBoolean();
         Parser parser = new Parser(byteBufferPool, new Parser.Listener.Adapter()
@@ -135,7 +193,7 @@ public class FrameFloodTest
             {
                 failed.set(true);
             }
-        }, 4096, 8192, new WindowRateControl(8, Duration.ofSeconds(1)));
+        }, 4096, 8192, rateControl);
         parser.init(UnaryOperator.identity());
 
         if (preamble != null)
@@ -102,6 +102,12 @@ public class HpackEncoder
     private int _maxHeaderListSize;
     private int _headerListSize;
     private boolean _validateEncoding = true;
+    private HpackIndexingPolicy _indexingPolicy = HpackIndexingPolicy.ALWAYS;
+    private long _staticHits;
+    private long _dynamicHits;
+    private long _indexedLiterals;
+    private long _literals;
+    private long _encodedBytes;
 
     public HpackEncoder()
     {
@@ -162,6 +168,79 @@ public class HpackEncoder
         _validateEncoding = validateEncoding;
     }
 
+    public HpackIndexingPolicy getIndexingPolicy()
+    {
+        return _indexingPolicy;
+    }
+
+    /**
+     * @param indexingPolicy the policy that decides whether fields are added to the dynamic table
+     */
+    public void setIndexingPolicy(HpackIndexingPolicy indexingPolicy)
+    {
+        _indexingPolicy = indexingPolicy == null ? HpackIndexingPolicy.ALWAYS : indexingPolicy;
+    }
+
+    /**
+     * @return the number of fields encoded as a static table index
+     */
+    public long getStaticTableHits()
+    {
+        return _staticHits;
+    }
+
+    /**
+     * @return the number of fields encoded as a dynamic table index
+     */
+    public long getDynamicTableHits()
+    {
+        return _dynamicHits;
+    }
+
+    /**
+     * @return the number of fields encoded as literals and added to the dynamic table
+     */
+    public long getIndexedLiterals()
+    {
+        return _indexedLiterals;
+    }
+
+    /**
+     * @return the number of fields encoded as literals and not added to the dynamic table
+     */
+    public long getLiterals()
+    {
+        return _literals;
+    }
+
+    /**
+     * @return the ratio of the fields added to the dynamic table that have been
+     * encoded as a dynamic table index, or 0 if no field has been added
+     */
+    public double getDynamicTableHitRatio()
+    {
+        long hits = _dynamicHits;
+        long total = hits + _indexedLiterals;
+        return total == 0 ? 0 : (double)hits / total;
+    }
+
+    /**
+     * @return the number of bytes of the encoded header blocks
+     */
+    public long getEncodedBytes()
+    {
+        return _encodedBytes;
+    }
+
+    public void resetStatistics()
+    {
+        _staticHits = 0;
+        _dynamicHits = 0;
+        _indexedLiterals = 0;
+        _literals = 0;
+        _encodedBytes = 0;
+    }
+
     public void encode(ByteBuffer buffer, MetaData metadata) throws HpackException
     {
         try
@@ -271,6 +350,7 @@ public class HpackEncoder
                    LOG.warn("Header list size too large {} > {}", _headerListSize, _maxHeaderListSize);
             }
 
+            _encodedBytes += buffer.position() - pos;
             if (LOG.isDebugEnabled())
                 LOG.debug(String.format("CtxTbl[%x] encoded %d octets", _context.hashCode(), buffer.position() - pos));
         }
@@ -312,12 +392,14 @@ public class HpackEncoder
             // This is a known indexed field, send as static or dynamic indexed.
             if (entry.isStatic())
             {
+                ++_staticHits;
                 buffer.put(((StaticEntry)entry).getEncodedField());
                 if (_debug)
                     encoding = "IdxFieldS1";
             }
             else
             {
+                ++_dynamicHits;
                 int index = _context.index(entry);
                 buffer.put((byte)0x80);
                 NBitInteger.encode(buffer, 7, index);
@@ -348,7 +430,7 @@ public class HpackEncoder
                     if (_debug)
                         encoding = indexed ? "PreEncodedIdx" : "PreEncoded";
                 }
-                else if (name == null && fieldSize < _context.getMaxDynamicTableSize())
+                else if (name == null && fieldSize < _context.getMaxDynamicTableSize() && _indexingPolicy.isIndexable(field))
                 {
                     // unknown name and value that will fit in dynamic table, so let's index
                     // this just in case it is the first time we have seen a custom name or a
@@ -361,8 +443,9 @@ public class HpackEncoder
                 }
                 else
                 {
-                    // Known name, but different value.
-                    // This is probably a custom field with changing value, so don't index.
+                    // Known name, but different value, or a field that the indexing policy
+                    // does not expect to be reused: this is probably a custom field with
+                    // changing value, so don't index.
                     indexed = false;
                     encodeName(buffer, (byte)0x00, 4, field.getName(), null);
                     encodeValue(buffer, true, field.getValue());
@@ -411,6 +494,19 @@ public class HpackEncoder
                             ((name == null) ? "HuffN" : "IdxNS" + (1 + NBitInteger.octectsNeeded(4, _context.index(name)))) +
                             "HuffV!Idx";
                 }
+                else if (!_indexingPolicy.isIndexable(field))
+                {
+                    // The indexing policy does not expect this field to be reused, so do not index.
+                    indexed = false;
+                    boolean huffman = !DO_NOT_HUFFMAN.contains(header);
+                    encodeName(buffer, (byte)0x00, 4, header.asString(), name);
+                    encodeValue(buffer, huffman, field.getValue());
+                    if (_debug)
+                        encoding = "Lit" +
+                            ((name == null) ? "HuffN" : ("IdxN" + (name.isStatic() ? "S" : "") + (1 + NBitInteger.octectsNeeded(4, _context.index(name))))) +
+                            (huffman ? "HuffV" : "LitV") +
+                            "!Idx";
+                }
                 else
                 {
                     // indexed
@@ -426,7 +522,14 @@ public class HpackEncoder
 
             // If we want the field referenced, then we add it to our table and reference set.
             if (indexed)
+            {
+                ++_indexedLiterals;
                 _context.add(field);
+            }
+            else
+            {
+                ++_literals;
+            }
         }
 
         if (_debug)
@@ -0,0 +1,49 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack;
+
+import org.eclipse.jetty.http.HttpField;
+
+/**
+ * <p>Decides whether a header field is added to the HPACK dynamic table by {@link HpackEncoder}.</p>
+ * <p>The policy is only consulted for the fields that the encoder would otherwise index,
+ * so it can only prevent fields from being indexed: fields that are never indexed,
+ * such as {@link org.eclipse.jetty.http.HttpHeader#AUTHORIZATION}, or that are too
+ * large for the dynamic table, are never added regardless of the policy.</p>
+ * <p>Implementations are used by a single encoder, which is not used concurrently,
+ * so they may keep per-connection state without synchronization.</p>
+ */
+public interface HpackIndexingPolicy
+{
+    /**
+     * <p>A policy that indexes all the fields that the encoder would index.</p>
+     */
+    public static final HpackIndexingPolicy ALWAYS = field -> true;
+
+    /**
+     * @param field the field to encode, not present in the dynamic table
+     * @return whether the field should be added to the dynamic table
+     */
+    public boolean isIndexable(HttpField field);
+
+    public interface Factory
+    {
+        public HpackIndexingPolicy newHpackIndexingPolicy();
+    }
+}
@@ -297,6 +297,19 @@ public class Huffman
     static final char[] rowsym;
     static final byte[] rowbits;
 
+    // Huffman decode lookup table indexed by the next LOOKUP_BITS bits of input.
+    // Each entry encodes up to 2 decoded symbols in bits 0-7 and 8-15, the
+    // number of decoded symbols in bits 16-17 (0 if the first code is longer
+    // than LOOKUP_BITS) and the total length of the decoded codes from bit 18.
+    private static final int LOOKUP_BITS = 12;
+    private static final int LOOKUP_MASK = (1 << LOOKUP_BITS) - 1;
+    private static final int[] LOOKUP = new int[1 << LOOKUP_BITS];
+
+    // Huffman encode tables with the code in the high bits
+    // and the code length in the low 8 bits of each entry.
+    private static final long[] ENCODING = new long[256];
+    private static final long[] LC_ENCODING = new long[256];
+
     // Build the Huffman lookup tree and LC TABLE
     static
     {
@@ -351,6 +364,40 @@ public class Huffman
                 tree[i] = (char)terminal;
             }
         }
+
+        for (int sym = 0; sym < ENCODING.length; sym++)
+        {
+            ENCODING[sym] = ((long)CODES[sym][0] << 8) | CODES[sym][1];
+            LC_ENCODING[sym] = ((long)LCCODES[sym][0] << 8) | LCCODES[sym][1];
+        }
+
+        // Fill the entries of the codes that fit in LOOKUP_BITS with one symbol.
+        for (int sym = 0; sym < EOS; sym++)
+        {
+            int len = CODES[sym][1];
+            if (len > LOOKUP_BITS)
+                continue;
+            int shift = LOOKUP_BITS - len;
+            int start = CODES[sym][0] << shift;
+            for (int i = start; i < start + (1 << shift); i++)
+            {
+                LOOKUP[i] = (len << 18) | (1 << 16) | sym;
+            }
+        }
+
+        // Add a second symbol if its code fits in the remaining bits.
+        int[] single = LOOKUP.clone();
+        for (int i = 0; i < LOOKUP.length; i++)
+        {
+            int entry = single[i];
+            if (entry == 0)
+                continue;
+            int len = entry >>> 18;
+            int next = single[(i << len) & LOOKUP_MASK];
+            int nextLen = next >>> 18;
+            if (next != 0 && len + nextLen <= LOOKUP_BITS)
+                LOOKUP[i] = ((len + nextLen) << 18) | (2 << 16) | ((next & 0xFF) << 8) | (entry & 0xFF);
+        }
     }
 
     public static String decode(ByteBuffer buffer) throws HpackException.CompressionException
@@ -361,69 +408,99 @@ public class Huffman
     public static String decode(ByteBuffer buffer, int length) throws HpackException.CompressionException
     {
         Utf8StringBuilder utf8 = new Utf8StringBuilder(length * 2);
-        int node = 0;
-        int current = 0;
-        int bits = 0;
+        // Up to 64 bits of the input, of which the low accBits are not decoded yet.
+        long acc = 0;
+        int accBits = 0;
+        int read = 0;
 
-        for (int i = 0; i < length; i++)
+        while (true)
         {
-            int b = buffer.get() & 0xFF;
-            current = (current << 8) | b;
-            bits += 8;
-            while (bits >= 8)
+            while (accBits <= 56 && read < length)
             {
-                int c = (current >>> (bits - 8)) & 0xFF;
-                node = tree[node * 256 + c];
-                if (rowbits[node] != 0)
-                {
-                    if (rowsym[node] == EOS)
-                        throw new HpackException.CompressionException("EOS in content");
+                acc = (acc << 8) | (buffer.get() & 0xFF);
+                accBits += 8;
+                ++read;
+            }
 
-                    // terminal node
-                    utf8.append((byte)(0xFF & rowsym[node]));
-                    bits -= rowbits[node];
-                    node = 0;
-                }
-                else
-                {
-                    // non-terminal node
-                    bits -= 8;
-                }
+            if (accBits < LOOKUP_BITS)
+                break;
+
+            int entry = LOOKUP[(int)(acc >>> (accBits - LOOKUP_BITS)) & LOOKUP_MASK];
+            int count = (entry >>> 16) & 0x03;
+            if (count == 0)
+            {
+                // The code is longer than LOOKUP_BITS.
+                accBits = decodeLongCode(acc, accBits, utf8);
+            }
+            else
+            {
+                utf8.append((byte)entry);
+                if (count == 2)
+                    utf8.append((byte)(entry >>> 8));
+                accBits -= entry >>> 18;
             }
         }
 
-        while (bits > 0)
+        // Decode the last symbols one at a time, padding the lookup index with ones.
+        while (accBits > 0)
         {
-            int c = (current << (8 - bits)) & 0xFF;
-            int lastNode = node;
-            node = tree[node * 256 + c];
-
-            if (rowbits[node] == 0 || rowbits[node] > bits)
+            int padBits = LOOKUP_BITS - accBits;
+            int index = (int)((acc << padBits) | ((1 << padBits) - 1)) & LOOKUP_MASK;
+            int entry = LOOKUP[index];
+            int bits = ((entry >>> 16) & 0x03) == 0 ? Integer.MAX_VALUE : CODES[entry & 0xFF][1];
+            if (bits > accBits)
             {
-                int requiredPadding = 0;
-                for (int i = 0; i < bits; i++)
-                {
-                    requiredPadding = (requiredPadding << 1) | 1;
-                }
-
-                if ((c >> (8 - bits)) != requiredPadding)
+                // What remains must be the padding, i.e. the most significant bits of EOS.
+                if (accBits > 7)
+                    throw new HpackException.CompressionException("Bad termination");
+                int padding = (1 << accBits) - 1;
+                if ((acc & padding) != padding)
                     throw new HpackException.CompressionException("Incorrect padding");
-
-                node = lastNode;
                 break;
             }
-
-            utf8.append((byte)(0xFF & rowsym[node]));
-            bits -= rowbits[node];
-            node = 0;
+            utf8.append((byte)entry);
+            accBits -= bits;
         }
 
-        if (node != 0)
-            throw new HpackException.CompressionException("Bad termination");
-
         return utf8.toString();
     }
 
+    /**
+     * <p>Decodes a code longer than {@link #LOOKUP_BITS} by walking the decode tree.</p>
+     *
+     * @param acc the accumulated input bits
+     * @param accBits the number of input bits not decoded yet
+     * @param utf8 the builder to append the decoded symbol to
+     * @return the number of input bits not decoded yet after the symbol has been decoded
+     * @throws HpackException.CompressionException if the code is EOS or is truncated
+     */
+    private static int decodeLongCode(long acc, int accBits, Utf8StringBuilder utf8) throws HpackException.CompressionException
+    {
+        int node = 0;
+        while (true)
+        {
+            int c;
+            if (accBits >= 8)
+                c = (int)(acc >>> (accBits - 8)) & 0xFF;
+            else
+                c = (int)((acc << (8 - accBits)) | (0xFF >>> accBits)) & 0xFF;
+            node = tree[node * 256 + c];
+            int bits = rowbits[node];
+            if (bits != 0)
+            {
+                if (bits > accBits)
+                    throw new HpackException.CompressionException("Bad termination");
+                if (rowsym[node] == EOS)
+                    throw new HpackException.CompressionException("EOS in content");
+                utf8.append((byte)(0xFF & rowsym[node]));
+                return accBits - bits;
+            }
+            if (accBits < 8)
+                throw new HpackException.CompressionException("Bad termination");
+            accBits -= 8;
+        }
+    }
+
     public static int octetsNeeded(String s)
     {
         return octetsNeeded(CODES, s);
@@ -436,12 +513,12 @@ public class Huffman
 
     public static void encode(ByteBuffer buffer, String s)
     {
-        encode(CODES, buffer, s);
+        encode(ENCODING, buffer, s);
     }
 
     public static void encode(ByteBuffer buffer, byte[] b)
     {
-        encode(CODES, buffer, b);
+        encode(ENCODING, buffer, b);
     }
 
     public static int octetsNeededLC(String s)
@@ -451,7 +528,7 @@ public class Huffman
 
     public static void encodeLC(ByteBuffer buffer, String s)
     {
-        encode(LCCODES, buffer, s);
+        encode(LC_ENCODING, buffer, s);
     }
 
     private static int octetsNeeded(final int[][] table, String s)
@@ -486,30 +563,83 @@ public class Huffman
      * @param buffer The buffer to encode to
      * @param s The string to encode
      */
-    private static void encode(final int[][] table, ByteBuffer buffer, String s)
+    private static void encode(final long[] table, ByteBuffer buffer, String s)
     {
+        int len = s.length();
+        // Each symbol is at most 30 bits, so when the buffer is known to be
+        // large enough, encode without checking the remaining space.
+        if (buffer.remaining() < len * 4 + 8)
+        {
+            encodeBytes(table, buffer, s);
+            return;
+        }
+
         long current = 0;
         int n = 0;
-        int len = s.length();
         for (int i = 0; i < len; i++)
         {
             char c = s.charAt(i);
             if (c >= 128 || c < ' ')
                 throw new IllegalArgumentException();
-            int code = table[c][0];
-            int bits = table[c][1];
+            long entry = table[c];
+            int bits = (int)entry & 0xFF;
+            long code = entry >>> 8;
+            if (n + bits > 64)
+            {
+                int fit = 64 - n;
+                buffer.putLong((current << fit) | (code >>> (bits - fit)));
+                n = bits - fit;
+                current = code;
+            }
+            else
+            {
+                current = (current << bits) | code;
+                n += bits;
+            }
+        }
+        flush(buffer, current, n);
+    }
 
-            current <<= bits;
-            current |= code;
-            n += bits;
+    private static void encode(final long[] table, ByteBuffer buffer, byte[] b)
+    {
+        int len = b.length;
+        if (buffer.remaining() < len * 4 + 8)
+        {
+            encodeBytes(table, buffer, b);
+            return;
+        }
 
-            while (n >= 8)
+        long current = 0;
+        int n = 0;
+        for (int i = 0; i < len; i++)
+        {
+            long entry = table[0xFF & b[i]];
+            int bits = (int)entry & 0xFF;
+            long code = entry >>> 8;
+            if (n + bits > 64)
             {
-                n -= 8;
-                buffer.put((byte)(current >> n));
+                int fit = 64 - n;
+                buffer.putLong((current << fit) | (code >>> (bits - fit)));
+                n = bits - fit;
+                current = code;
+            }
+            else
+            {
+                current = (current << bits) | code;
+                n += bits;
             }
         }
+        flush(buffer, current, n);
+    }
 
+    private static void flush(ByteBuffer buffer, long current, int n)
+    {
+        // Only the low n bits of current are significant.
+        while (n >= 8)
+        {
+            n -= 8;
+            buffer.put((byte)(current >> n));
+        }
         if (n > 0)
         {
             current <<= (8 - n);
@@ -518,20 +648,21 @@ public class Huffman
         }
     }
 
-    private static void encode(final int[][] table, ByteBuffer buffer, byte[] b)
+    private static void encodeBytes(final long[] table, ByteBuffer buffer, String s)
     {
         long current = 0;
         int n = 0;
-
-        int len = b.length;
+        int len = s.length();
         for (int i = 0; i < len; i++)
         {
-            int c = 0xFF & b[i];
-            int code = table[c][0];
-            int bits = table[c][1];
+            char c = s.charAt(i);
+            if (c >= 128 || c < ' ')
+                throw new IllegalArgumentException();
+            long entry = table[c];
+            int bits = (int)entry & 0xFF;
 
             current <<= bits;
-            current |= code;
+            current |= entry >>> 8;
             n += bits;
 
             while (n >= 8)
@@ -540,12 +671,29 @@ public class Huffman
                 buffer.put((byte)(current >> n));
             }
         }
+        flush(buffer, current, n);
+    }
 
-        if (n > 0)
+    private static void encodeBytes(final long[] table, ByteBuffer buffer, byte[] b)
+    {
+        long current = 0;
+        int n = 0;
+        int len = b.length;
+        for (int i = 0; i < len; i++)
         {
-            current <<= (8 - n);
-            current |= (0xFF >>> n);
-            buffer.put((byte)(current));
+            long entry = table[0xFF & b[i]];
+            int bits = (int)entry & 0xFF;
+
+            current <<= bits;
+            current |= entry >>> 8;
+            n += bits;
+
+            while (n >= 8)
+            {
+                n -= 8;
+                buffer.put((byte)(current >> n));
+            }
         }
+        flush(buffer, current, n);
     }
 }
@@ -0,0 +1,93 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jetty.http.HttpField;
+
+/**
+ * <p>A {@link HpackIndexingPolicy} that only indexes the fields that are reused.</p>
+ * <p>A field is added to the dynamic table only after it has been encoded at least
+ * {@link #getThreshold() threshold} times, so that fields with one-shot values,
+ * such as request ids, timestamps or paths, do not evict the fields that are
+ * actually reused from the dynamic table.</p>
+ * <p>The fields seen but not yet indexed are tracked in a history bounded to
+ * {@link #getCapacity() capacity} entries, that evicts the least recently seen.</p>
+ */
+public class ReuseHpackIndexingPolicy implements HpackIndexingPolicy
+{
+    private final Map<HttpField, Integer> _history;
+    private final int _threshold;
+    private final int _capacity;
+
+    public ReuseHpackIndexingPolicy()
+    {
+        this(2, 128);
+    }
+
+    /**
+     * @param threshold the number of times a field is encoded before it is indexed
+     * @param capacity the max number of fields tracked while not yet indexed
+     */
+    public ReuseHpackIndexingPolicy(int threshold, int capacity)
+    {
+        _threshold = Math.max(1, threshold);
+        _capacity = Math.max(1, capacity);
+        _history = new LinkedHashMap<>(16, 0.75F, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<HttpField, Integer> eldest)
+            {
+                return size() > _capacity;
+            }
+        };
+    }
+
+    public int getThreshold()
+    {
+        return _threshold;
+    }
+
+    public int getCapacity()
+    {
+        return _capacity;
+    }
+
+    @Override
+    public boolean isIndexable(HttpField field)
+    {
+        if (_threshold == 1)
+            return true;
+        int count = _history.merge(field, 1, Integer::sum);
+        if (count < _threshold)
+            return false;
+        // Once indexed, the field is found in the dynamic table,
+        // and if it is evicted from there it must be seen again.
+        _history.remove(field);
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{threshold=%d,history=%d/%d}", getClass().getSimpleName(), hashCode(), _threshold, _history.size(), _capacity);
+    }
+}
@@ -32,6 +32,8 @@ import org.junit.jupiter.api.Test;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 public class HpackEncoderTest
 {
@@ -311,4 +313,36 @@ public class HpackEncoderTest
         assertThat(context.getMaxDynamicTableSize(), Matchers.is(50));
         assertThat(context.size(), Matchers.is(1));
     }
+
+    @Test
+    public void testReuseIndexingPolicy() throws Exception
+    {
+        HpackEncoder encoder = new HpackEncoder();
+        encoder.setIndexingPolicy(new ReuseHpackIndexingPolicy(2, 16));
+
+        for (int i = 0; i < 3; ++i)
+        {
+            HttpFields fields = HttpFields.build()
+                .add("X-Api-Version", "v1")
+                .add("X-Request-Id", "id-" + i)
+                .add(HttpHeader.CACHE_CONTROL, "no-cache");
+            ByteBuffer buffer = BufferUtil.allocate(4096);
+            int pos = BufferUtil.flipToFill(buffer);
+            encoder.encode(buffer, new MetaData(HttpVersion.HTTP_2, fields));
+            BufferUtil.flipToFlush(buffer, pos);
+        }
+
+        // Only the reused fields have been indexed, on their second occurrence.
+        HpackContext context = encoder.getHpackContext();
+        assertEquals(2, context.size());
+        assertNotNull(context.get(new HttpField("X-Api-Version", "v1")));
+        assertNotNull(context.get(new HttpField(HttpHeader.CACHE_CONTROL, "no-cache")));
+        assertNull(context.get("x-request-id"));
+
+        assertEquals(2, encoder.getIndexedLiterals());
+        assertEquals(2, encoder.getDynamicTableHits());
+        assertEquals(5, encoder.getLiterals());
+        assertEquals(0.5D, encoder.getDynamicTableHitRatio());
+        assertThat(encoder.getEncodedBytes(), Matchers.greaterThan(0L));
+    }
 }
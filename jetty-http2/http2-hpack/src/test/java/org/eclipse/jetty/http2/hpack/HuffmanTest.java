@@ -26,6 +26,7 @@ import java.util.stream.Stream;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.TypeUtil;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -84,4 +85,38 @@ public class HuffmanTest
         assertThrows(BufferOverflowException.class,
             () -> Huffman.encode(BufferUtil.allocate(32), s));
     }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ff", "ffff", "fffffffc", "00", "f1e3c2e5f23a6ba0ab90f4fe"})
+    public void testDecodeInvalid(String hex)
+    {
+        byte[] encoded = TypeUtil.fromHexString(hex);
+        assertThrows(HpackException.CompressionException.class, () -> Huffman.decode(ByteBuffer.wrap(encoded)));
+    }
+
+    @Test
+    public void testEncodeDecodeAllLengths() throws Exception
+    {
+        // Cover codes that span the encoder and decoder accumulators,
+        // with buffers both larger and exactly as large as needed.
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 512; i++)
+        {
+            builder.append((char)(' ' + (i * 31) % 95));
+            String value = builder.toString();
+
+            ByteBuffer large = BufferUtil.allocate(4096);
+            BufferUtil.clearToFill(large);
+            Huffman.encode(large, value);
+            BufferUtil.flipToFlush(large, 0);
+
+            ByteBuffer exact = BufferUtil.allocate(Huffman.octetsNeeded(value));
+            BufferUtil.clearToFill(exact);
+            Huffman.encode(exact, value);
+            BufferUtil.flipToFlush(exact, 0);
+
+            assertEquals(exact, large);
+            assertEquals(value, Huffman.decode(large));
+        }
+    }
 }
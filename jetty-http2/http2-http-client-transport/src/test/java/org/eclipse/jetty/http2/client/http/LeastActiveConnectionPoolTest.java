@@ -0,0 +1,192 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.client.http;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.client.HttpDestination;
+import org.eclipse.jetty.client.LeastActiveConnectionPool;
+import org.eclipse.jetty.client.api.Connection;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.Request;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class LeastActiveConnectionPoolTest extends AbstractTest
+{
+    private final CountDownLatch requestLatch = new CountDownLatch(1);
+    private CountDownLatch serverLatch;
+
+    private void start(int maxConcurrentStreams, int maxConnections, double saturationThreshold) throws Exception
+    {
+        HTTP2ServerConnectionFactory http2 = new HTTP2ServerConnectionFactory(new HttpConfiguration());
+        http2.setMaxConcurrentStreams(maxConcurrentStreams);
+        prepareServer(http2);
+        server.setHandler(new EmptyServerHandler()
+        {
+            @Override
+            protected void service(String target, Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws ServletException
+            {
+                if (target.equals("/prime"))
+                    return;
+                try
+                {
+                    // Hold the request, so that it remains active on the client.
+                    serverLatch.countDown();
+                    requestLatch.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException x)
+                {
+                    throw new ServletException(x);
+                }
+            }
+        });
+        server.start();
+
+        prepareClient();
+        client.setMaxConnectionsPerDestination(maxConnections);
+        client.getTransport().setConnectionPoolFactory(destination ->
+        {
+            LeastActiveConnectionPool connectionPool = new LeastActiveConnectionPool(destination, client.getMaxConnectionsPerDestination(), destination, 1);
+            connectionPool.setSaturationThreshold(saturationThreshold);
+            return connectionPool;
+        });
+        client.start();
+    }
+
+    private LeastActiveConnectionPool primeConnectionPool() throws Exception
+    {
+        // Prime the connection so that the maxConcurrentStream setting arrives to the client.
+        ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+            .path("/prime")
+            .timeout(5, TimeUnit.SECONDS)
+            .send();
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+        HttpDestination destination = (HttpDestination)client.getDestinations().get(0);
+        return (LeastActiveConnectionPool)destination.getConnectionPool();
+    }
+
+    private CountDownLatch sendHeldRequests(int count) throws Exception
+    {
+        serverLatch = new CountDownLatch(count);
+        CountDownLatch clientLatch = new CountDownLatch(count);
+        for (int i = 0; i < count; ++i)
+        {
+            client.newRequest("localhost", connector.getLocalPort())
+                .path("/" + i)
+                .timeout(5, TimeUnit.SECONDS)
+                .send(result ->
+                {
+                    if (result.isSucceeded() && result.getResponse().getStatus() == HttpStatus.OK_200)
+                        clientLatch.countDown();
+                });
+        }
+        assertTrue(serverLatch.await(5, TimeUnit.SECONDS));
+        return clientLatch;
+    }
+
+    private static void await(IntSupplier actual, int expected) throws Exception
+    {
+        int loops = 0;
+        while (actual.getAsInt() != expected)
+        {
+            if (++loops > 50)
+                fail("Expected " + expected + ", was " + actual.getAsInt());
+            Thread.sleep(100);
+        }
+    }
+
+    @Test
+    public void testRequestsSpreadAcrossConnections() throws Exception
+    {
+        // Disable the saturation threshold.
+        start(8, 2, 2);
+        LeastActiveConnectionPool connectionPool = primeConnectionPool();
+        connectionPool.preCreateConnections(2).get(5, TimeUnit.SECONDS);
+        assertEquals(2, connectionPool.getConnectionCount());
+
+        CountDownLatch clientLatch = sendHeldRequests(4);
+
+        // A pool that saturates the first connection would have only one active connection.
+        assertEquals(2, connectionPool.getActiveConnectionCount());
+        assertEquals(4, connectionPool.getActiveRequestCount());
+
+        requestLatch.countDown();
+        assertTrue(clientLatch.await(5, TimeUnit.SECONDS));
+        await(connectionPool::getActiveRequestCount, 0);
+        assertEquals(2, connectionPool.getConnectionCount());
+    }
+
+    @Test
+    public void testSaturatedConnectionOpensConnectionInAdvance() throws Exception
+    {
+        start(4, 4, 0.5);
+        LeastActiveConnectionPool connectionPool = primeConnectionPool();
+        assertEquals(1, connectionPool.getConnectionCount());
+
+        // Half of the capacity of the only connection is in use,
+        // which triggers the opening of one connection in advance,
+        // although no request is queued.
+        CountDownLatch clientLatch = sendHeldRequests(2);
+        await(connectionPool::getConnectionCount, 2);
+        assertEquals(1, connectionPool.getActiveConnectionCount());
+
+        requestLatch.countDown();
+        assertTrue(clientLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(2, connectionPool.getConnectionCount());
+    }
+
+    @Test
+    public void testRemoveInUseConnectionIsIdempotent() throws Exception
+    {
+        start(8, 1, 2);
+        LeastActiveConnectionPool connectionPool = primeConnectionPool();
+
+        Connection connection1 = connectionPool.acquire(false);
+        Connection connection2 = connectionPool.acquire(false);
+        assertSame(connection1, connection2);
+        assertEquals(2, connectionPool.getActiveRequestCount());
+
+        // Remove the connection while it is still in use, twice.
+        assertFalse(connectionPool.remove(connection1));
+        assertFalse(connectionPool.remove(connection1));
+        // The connection cannot be acquired anymore, but it
+        // is still in the pool until the requests release it.
+        assertNull(connectionPool.acquire(false));
+        assertEquals(1, connectionPool.getConnectionCount());
+
+        assertFalse(connectionPool.release(connection1));
+        assertEquals(0, connectionPool.getConnectionCount());
+        connection1.close();
+    }
+}
@@ -31,6 +31,10 @@ etc/jetty-http2.xml
 ## Specifies the maximum number of keys in all SETTINGS frames received by a session.
 # jetty.http2.maxSettingsKeys=64
 
+## Specifies the maximum number of idle request channels retained per session
+## for reuse by later requests, or -1 for no limit.
+# jetty.http2.maxRecycledHttpChannels=8
+
 ## Specifies the maximum number of bad frames and pings per second,
 ## after which a session is closed to avoid denial of service attacks.
 # jetty.http2.rateControl.maxEventsPerSecond=20
@@ -29,14 +29,23 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.jetty.http2.BufferingFlowControlStrategy;
+import org.eclipse.jetty.http2.FIFOFrameScheduler;
 import org.eclipse.jetty.http2.FlowControlStrategy;
+import org.eclipse.jetty.http2.FrameScheduler;
 import org.eclipse.jetty.http2.HTTP2Connection;
+import org.eclipse.jetty.http2.HTTP2Session;
+import org.eclipse.jetty.http2.HTTP2Statistics;
 import org.eclipse.jetty.http2.ISession;
+import org.eclipse.jetty.http2.UrgencyFrameScheduler;
+import org.eclipse.jetty.http2.WeightedFrameScheduler;
 import org.eclipse.jetty.http2.api.Session;
 import org.eclipse.jetty.http2.api.server.ServerSessionListener;
 import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.SettingsFrame;
 import org.eclipse.jetty.http2.generator.Generator;
+import org.eclipse.jetty.http2.hpack.HpackIndexingPolicy;
+import org.eclipse.jetty.http2.hpack.ReuseHpackIndexingPolicy;
+import org.eclipse.jetty.http2.parser.CostRateControl;
 import org.eclipse.jetty.http2.parser.RateControl;
 import org.eclipse.jetty.http2.parser.ServerParser;
 import org.eclipse.jetty.http2.parser.WindowRateControl;
@@ -67,9 +76,14 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
     private boolean connectProtocolEnabled = true;
     private RateControl.Factory rateControlFactory = new WindowRateControl.Factory(20);
     private FlowControlStrategy.Factory flowControlStrategyFactory = () -> new BufferingFlowControlStrategy(0.5F);
+    private FrameScheduler.Factory frameSchedulerFactory = FIFOFrameScheduler::new;
+    private HpackIndexingPolicy.Factory hpackIndexingPolicyFactory;
     private long streamIdleTimeout;
+    private int writeCoalescingSize;
+    private long writeCoalescingDelay;
     private boolean useInputDirectByteBuffers;
     private boolean useOutputDirectByteBuffers;
+    private int maxRecycledHttpChannels = 8;
 
     public AbstractHTTP2ServerConnectionFactory(@Name("config") HttpConfiguration httpConfiguration)
     {
@@ -157,6 +171,36 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         this.flowControlStrategyFactory = flowControlStrategyFactory;
     }
 
+    public FrameScheduler.Factory getFrameSchedulerFactory()
+    {
+        return frameSchedulerFactory;
+    }
+
+    /**
+     * @param frameSchedulerFactory the factory of the {@link FrameScheduler} that orders
+     * the frames of concurrent streams, for example {@link WeightedFrameScheduler} or
+     * {@link UrgencyFrameScheduler}
+     */
+    public void setFrameSchedulerFactory(FrameScheduler.Factory frameSchedulerFactory)
+    {
+        this.frameSchedulerFactory = frameSchedulerFactory;
+    }
+
+    public HpackIndexingPolicy.Factory getHpackIndexingPolicyFactory()
+    {
+        return hpackIndexingPolicyFactory;
+    }
+
+    /**
+     * @param hpackIndexingPolicyFactory the factory of the policy that decides which header
+     * fields are added to the HPACK dynamic table, for example {@link ReuseHpackIndexingPolicy},
+     * or null to index all the fields that fit the dynamic table
+     */
+    public void setHpackIndexingPolicyFactory(HpackIndexingPolicy.Factory hpackIndexingPolicyFactory)
+    {
+        this.hpackIndexingPolicyFactory = hpackIndexingPolicyFactory;
+    }
+
     @ManagedAttribute("The stream idle timeout in milliseconds")
     public long getStreamIdleTimeout()
     {
@@ -168,6 +212,38 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         this.streamIdleTimeout = streamIdleTimeout;
     }
 
+    @ManagedAttribute("The max size of the buffers into which small frames are coalesced")
+    public int getWriteCoalescingSize()
+    {
+        return writeCoalescingSize;
+    }
+
+    /**
+     * @param writeCoalescingSize the max size of the buffers into which small frames
+     * are coalesced before being written, or 0 to disable coalescing
+     * @see HTTP2Session#setWriteCoalescingSize(int)
+     */
+    public void setWriteCoalescingSize(int writeCoalescingSize)
+    {
+        this.writeCoalescingSize = writeCoalescingSize;
+    }
+
+    @ManagedAttribute("The max time in milliseconds that DATA frames are delayed to be coalesced")
+    public long getWriteCoalescingDelay()
+    {
+        return writeCoalescingDelay;
+    }
+
+    /**
+     * @param writeCoalescingDelay the max time in milliseconds that small DATA frames
+     * are delayed to be coalesced with the frames of other streams
+     * @see HTTP2Session#setWriteCoalescingDelay(long)
+     */
+    public void setWriteCoalescingDelay(long writeCoalescingDelay)
+    {
+        this.writeCoalescingDelay = writeCoalescingDelay;
+    }
+
     @ManagedAttribute("The max frame length in bytes")
     public int getMaxFrameLength()
     {
@@ -211,6 +287,9 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
 
     /**
      * <p>Sets the factory that creates a per-connection RateControl object.</p>
+     * <p>{@link WindowRateControl} limits the rate of invalid or empty frames, while
+     * {@link CostRateControl} also charges legitimate frames such as RST_STREAM,
+     * per connection and per remote address.</p>
      *
      * @param rateControlFactory the factory that creates RateControl objects
      */
@@ -241,6 +320,22 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         this.useOutputDirectByteBuffers = useOutputDirectByteBuffers;
     }
 
+    @ManagedAttribute("The max number of idle HttpChannels retained for recycling by each connection")
+    public int getMaxRecycledHttpChannels()
+    {
+        return maxRecycledHttpChannels;
+    }
+
+    /**
+     * @param maxRecycledHttpChannels the max number of idle HttpChannels retained
+     * for recycling by each connection, or a negative value for no limit; defaults to 8
+     * @see HTTP2ServerConnection#setMaxRecycledHttpChannels(int)
+     */
+    public void setMaxRecycledHttpChannels(int maxRecycledHttpChannels)
+    {
+        this.maxRecycledHttpChannels = maxRecycledHttpChannels;
+    }
+
     public HttpConfiguration getHttpConfiguration()
     {
         return httpConfiguration;
@@ -265,6 +360,9 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         ServerSessionListener listener = newSessionListener(connector, endPoint);
 
         Generator generator = new Generator(connector.getByteBufferPool(), isUseOutputDirectByteBuffers(), getMaxDynamicTableSize(), getMaxHeaderBlockFragment());
+        HpackIndexingPolicy.Factory hpackIndexingPolicyFactory = getHpackIndexingPolicyFactory();
+        if (hpackIndexingPolicyFactory != null)
+            generator.setHpackIndexingPolicy(hpackIndexingPolicyFactory.newHpackIndexingPolicy());
         FlowControlStrategy flowControl = getFlowControlStrategyFactory().newFlowControlStrategy();
         HTTP2ServerSession session = new HTTP2ServerSession(connector.getScheduler(), endPoint, generator, listener, flowControl);
         session.setMaxLocalStreams(getMaxConcurrentStreams());
@@ -278,14 +376,27 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
             session.setStreamIdleTimeout(streamIdleTimeout);
         session.setInitialSessionRecvWindow(getInitialSessionRecvWindow());
         session.setWriteThreshold(getHttpConfiguration().getOutputBufferSize());
+        session.setWriteCoalescingSize(getWriteCoalescingSize());
+        session.setWriteCoalescingDelay(getWriteCoalescingDelay());
         session.setConnectProtocolEnabled(isConnectProtocolEnabled());
+        session.setFrameScheduler(getFrameSchedulerFactory().newFrameScheduler());
 
         ServerParser parser = newServerParser(connector, session, getRateControlFactory().newRateControl(endPoint));
         parser.setMaxFrameLength(getMaxFrameLength());
         parser.setMaxSettingsKeys(getMaxSettingsKeys());
 
-        HTTP2Connection connection = new HTTP2ServerConnection(connector.getByteBufferPool(), connector.getExecutor(),
+        HTTP2Statistics statistics = getBean(HTTP2Statistics.class);
+        if (statistics == null)
+            statistics = connector.getBean(HTTP2Statistics.class);
+        if (statistics != null && statistics.isStarted())
+        {
+            session.setStatistics(statistics);
+            parser.setStatistics(statistics);
+        }
+
+        HTTP2ServerConnection connection = new HTTP2ServerConnection(connector.getByteBufferPool(), connector.getExecutor(),
             endPoint, httpConfiguration, parser, session, getInputBufferSize(), listener);
+        connection.setMaxRecycledHttpChannels(getMaxRecycledHttpChannels());
         connection.setUseInputDirectByteBuffers(isUseInputDirectByteBuffers());
         connection.setUseOutputDirectByteBuffers(isUseOutputDirectByteBuffers());
         connection.addEventListener(sessionContainer);
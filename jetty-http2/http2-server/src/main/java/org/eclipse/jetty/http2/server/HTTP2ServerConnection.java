@@ -94,6 +94,7 @@ public class HTTP2ServerConnection extends HTTP2Connection
     private final ServerSessionListener listener;
     private final HttpConfiguration httpConfig;
     private boolean recycleHttpChannels = true;
+    private int maxRecycledHttpChannels = 8;
 
     public HTTP2ServerConnection(ByteBufferPool byteBufferPool, Executor executor, EndPoint endPoint, HttpConfiguration httpConfig, ServerParser parser, ISession session, int inputBufferSize, ServerSessionListener listener)
     {
@@ -130,6 +131,38 @@ public class HTTP2ServerConnection extends HTTP2Connection
         this.recycleHttpChannels = recycleHttpChannels;
     }
 
+    /**
+     * @return the max number of idle HttpChannels retained for recycling, or a negative value for no limit
+     */
+    public int getMaxRecycledHttpChannels()
+    {
+        return maxRecycledHttpChannels;
+    }
+
+    /**
+     * <p>Sets the max number of idle HttpChannels retained for recycling.</p>
+     * <p>Each HttpChannel retains its Request, Response, HttpInput and HttpOutput,
+     * so after a burst of concurrent requests an unbounded pool would keep the
+     * memory of the peak concurrency for the whole lifetime of the connection.
+     * The output buffer of a channel is returned to the buffer pool when the
+     * channel is recycled, so the retained channels do not hold buffers.</p>
+     * <p>The default is 8 channels.</p>
+     *
+     * @param maxRecycledHttpChannels the max number of idle HttpChannels, or a negative value for no limit
+     */
+    public void setMaxRecycledHttpChannels(int maxRecycledHttpChannels)
+    {
+        this.maxRecycledHttpChannels = maxRecycledHttpChannels;
+    }
+
+    public int getRecycledHttpChannels()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            return channels.size();
+        }
+    }
+
     @Override
     public void onOpen()
     {
@@ -289,9 +322,11 @@ public class HTTP2ServerConnection extends HTTP2Connection
     {
         if (isRecycleHttpChannels())
         {
+            int maxChannels = getMaxRecycledHttpChannels();
             try (AutoLock l = lock.lock())
             {
-                channels.offer(channel);
+                if (maxChannels < 0 || channels.size() < maxChannels)
+                    channels.offer(channel);
             }
         }
     }
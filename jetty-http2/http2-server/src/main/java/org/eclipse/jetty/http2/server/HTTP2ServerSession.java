@@ -32,6 +32,7 @@ import org.eclipse.jetty.http2.api.Stream;
 import org.eclipse.jetty.http2.api.server.ServerSessionListener;
 import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.PriorityFrame;
 import org.eclipse.jetty.http2.frames.PushPromiseFrame;
 import org.eclipse.jetty.http2.frames.ResetFrame;
 import org.eclipse.jetty.http2.frames.SettingsFrame;
@@ -115,6 +116,9 @@ public class HTTP2ServerSession extends HTTP2Session implements ServerParser.Lis
                         stream = createRemoteStream(streamId, (MetaData.Request)metaData);
                         if (stream != null)
                         {
+                            PriorityFrame priority = frame.getPriority();
+                            if (priority != null)
+                                stream.setWeight(priority.getWeight());
                             onStreamOpened(stream);
 
                             if (metaData instanceof MetaData.ConnectRequest)
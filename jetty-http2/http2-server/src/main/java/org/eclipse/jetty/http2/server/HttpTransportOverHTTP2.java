@@ -103,7 +103,7 @@ public class HttpTransportOverHTTP2 implements HttpTransport
         boolean isHeadRequest = HttpMethod.HEAD.is(request.getMethod());
         boolean hasContent = BufferUtil.hasContent(content) && !isHeadRequest;
         int status = response.getStatus();
-        boolean interimResponse = status == HttpStatus.CONTINUE_100 || status == HttpStatus.PROCESSING_102;
+        boolean interimResponse = status == HttpStatus.CONTINUE_100 || status == HttpStatus.PROCESSING_102 || status == HttpStatus.EARLY_HINTS_103;
         if (interimResponse)
         {
             // Must not commit interim responses.
@@ -23,4 +23,5 @@ module org.eclipse.jetty.io
 
     requires transitive org.eclipse.jetty.util;
     requires org.slf4j;
+    requires static java.management;
 }
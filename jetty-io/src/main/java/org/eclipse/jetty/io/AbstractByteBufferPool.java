@@ -35,6 +35,7 @@ abstract class AbstractByteBufferPool implements ByteBufferPool
     private final AtomicLong _heapMemory = new AtomicLong();
     private final long _maxDirectMemory;
     private final AtomicLong _directMemory = new AtomicLong();
+    private volatile int _lowWatermarkPercent = 100;
 
     protected AbstractByteBufferPool(int factor, int maxQueueLength, long maxHeapMemory, long maxDirectMemory)
     {
@@ -74,15 +75,60 @@ abstract class AbstractByteBufferPool implements ByteBufferPool
     protected void releaseExcessMemory(boolean direct, Consumer<Boolean> clearFn)
     {
         long maxMemory = direct ? _maxDirectMemory : _maxHeapMemory;
-        if (maxMemory > 0)
+        if (maxMemory > 0 && getMemory(direct) > maxMemory)
         {
-            while (getMemory(direct) > maxMemory)
+            // Release down to the low watermark, so that the
+            // following releases do not exceed the max memory again.
+            long lowWatermark = maxMemory / 100 * _lowWatermarkPercent;
+            long memory = getMemory(direct);
+            while (memory > lowWatermark)
             {
                 clearFn.accept(direct);
+                long newMemory = getMemory(direct);
+                // Stop if nothing was released, for example if the memory
+                // accounting drifted; the next release will try again.
+                if (newMemory >= memory)
+                    break;
+                memory = newMemory;
             }
         }
     }
 
+    @ManagedAttribute("The max bytes retained by heap ByteBuffers, or -1 for unlimited")
+    public long getMaxHeapMemory()
+    {
+        return _maxHeapMemory;
+    }
+
+    @ManagedAttribute("The max bytes retained by direct ByteBuffers, or -1 for unlimited")
+    public long getMaxDirectMemory()
+    {
+        return _maxDirectMemory;
+    }
+
+    /**
+     * @return the percentage of the max memory to release down to when the max memory is exceeded
+     */
+    @ManagedAttribute("The percentage of the max memory to release down to when the max memory is exceeded")
+    public int getLowWatermarkPercent()
+    {
+        return _lowWatermarkPercent;
+    }
+
+    /**
+     * <p>Sets the low watermark, as a percentage of the max heap and direct memory.</p>
+     * <p>When the retained memory exceeds the max memory (the high watermark), ByteBuffers
+     * are released until the retained memory falls below the low watermark.</p>
+     *
+     * @param lowWatermarkPercent the percentage of the max memory to release down to
+     */
+    public void setLowWatermarkPercent(int lowWatermarkPercent)
+    {
+        if (lowWatermarkPercent < 0 || lowWatermarkPercent > 100)
+            throw new IllegalArgumentException("Invalid low watermark percent " + lowWatermarkPercent);
+        _lowWatermarkPercent = lowWatermarkPercent;
+    }
+
     @ManagedAttribute("The bytes retained by direct ByteBuffers")
     public long getDirectMemory()
     {
@@ -18,14 +18,21 @@
 
 package org.eclipse.jetty.io;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.IntFunction;
+import java.util.stream.Collectors;
 
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.component.Dumpable;
+import org.eclipse.jetty.util.component.DumpableCollection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,15 +41,36 @@ import org.slf4j.LoggerFactory;
  * <p>Given a capacity {@code factor} of 1024, the first array element holds a queue of ByteBuffers
  * each of capacity 1024, the second array element holds a queue of ByteBuffers each of capacity
  * 2048, and so on.</p>
+ * <p>Optionally, each thread may keep a small cache of released ByteBuffers in front of the
+ * shared queues, so that a ByteBuffer acquired and released by the same thread does not touch
+ * the shared queues. Each thread cache holds at most {@code threadCacheSize} ByteBuffers per
+ * array element; when it is full, half of it is returned to the shared queues.
+ * ByteBuffers held by thread caches are not accounted in the retained heap and direct memory.</p>
+ * <p>The memory retained by the shared queues may be further bounded by:</p>
+ * <ul>
+ * <li>a {@link #setBucketIdleTimeout(long) bucket idle timeout}, after which the queues that
+ * had no ByteBuffers released to them are halved at every sweep, until empty</li>
+ * <li>a {@link #setMemoryPressureThreshold(int) memory pressure threshold} of the JVM heap
+ * and direct memory, above which the queues of the corresponding memory type are cleared</li>
+ * </ul>
+ * <p>Sweeps are performed when ByteBuffers are released, at most once per second or once per
+ * half bucket idle timeout, whichever is shorter.</p>
  */
 @ManagedObject
-public class ArrayByteBufferPool extends AbstractByteBufferPool
+public class ArrayByteBufferPool extends AbstractByteBufferPool implements Dumpable
 {
     private static final Logger LOG = LoggerFactory.getLogger(MappedByteBufferPool.class);
 
     private final int _minCapacity;
     private final ByteBufferPool.Bucket[] _direct;
     private final ByteBufferPool.Bucket[] _indirect;
+    private final int _threadCacheSize;
+    private final LongAdder _threadCacheHits = new LongAdder();
+    private final LongAdder _threadCacheMisses = new LongAdder();
+    private volatile ThreadLocal<ThreadCache> _threadCache;
+    private final AtomicLong _nextSweep = new AtomicLong(System.nanoTime());
+    private volatile long _bucketIdleTimeout;
+    private volatile MemoryPressureMonitor _memoryPressureMonitor;
 
     /**
      * Creates a new ArrayByteBufferPool with a default configuration.
@@ -88,6 +116,25 @@ public class ArrayByteBufferPool extends AbstractByteBufferPool
      * @param maxDirectMemory the max direct memory in bytes
      */
     public ArrayByteBufferPool(int minCapacity, int factor, int maxCapacity, int maxQueueLength, long maxHeapMemory, long maxDirectMemory)
+    {
+        this(minCapacity, factor, maxCapacity, maxQueueLength, maxHeapMemory, maxDirectMemory, 0);
+    }
+
+    /**
+     * Creates a new ArrayByteBufferPool with the given configuration.
+     *
+     * @param minCapacity the minimum ByteBuffer capacity
+     * @param factor the capacity factor
+     * @param maxCapacity the maximum ByteBuffer capacity
+     * @param maxQueueLength the maximum ByteBuffer queue length
+     * @param maxHeapMemory the max heap memory in bytes
+     * @param maxDirectMemory the max direct memory in bytes
+     * @param threadCacheSize the max number of ByteBuffers of each capacity cached per thread, or 0 to disable thread caches;
+     * the ByteBuffers held by thread caches are not bounded by {@code maxHeapMemory} and {@code maxDirectMemory},
+     * nor released under memory pressure, so each thread may retain up to {@code threadCacheSize} ByteBuffers
+     * of each capacity in addition to these bounds
+     */
+    public ArrayByteBufferPool(int minCapacity, int factor, int maxCapacity, int maxQueueLength, long maxHeapMemory, long maxDirectMemory, int threadCacheSize)
     {
         super(factor, maxQueueLength, maxHeapMemory, maxDirectMemory);
 
@@ -103,12 +150,37 @@ public class ArrayByteBufferPool extends AbstractByteBufferPool
         int length = maxCapacity / factor;
         _direct = new ByteBufferPool.Bucket[length];
         _indirect = new ByteBufferPool.Bucket[length];
+        _threadCacheSize = Math.max(0, threadCacheSize);
+        _threadCache = newThreadCache();
+    }
+
+    private ThreadLocal<ThreadCache> newThreadCache()
+    {
+        if (_threadCacheSize == 0)
+            return null;
+        int length = _direct.length;
+        return ThreadLocal.withInitial(() -> new ThreadCache(length, _threadCacheSize));
     }
 
     @Override
     public ByteBuffer acquire(int size, boolean direct)
     {
         int capacity = size < _minCapacity ? size : (bucketFor(size) + 1) * getCapacityFactor();
+        ThreadLocal<ThreadCache> threadCache = _threadCache;
+        if (threadCache != null)
+        {
+            int index = indexFor(size);
+            if (index >= 0)
+            {
+                ByteBuffer buffer = threadCache.get().acquire(index, direct);
+                if (buffer != null)
+                {
+                    _threadCacheHits.increment();
+                    return buffer;
+                }
+                _threadCacheMisses.increment();
+            }
+        }
         ByteBufferPool.Bucket bucket = bucketFor(size, direct, null);
         if (bucket == null)
             return newByteBuffer(capacity, direct);
@@ -135,12 +207,97 @@ public class ArrayByteBufferPool extends AbstractByteBufferPool
         }
 
         boolean direct = buffer.isDirect();
+        ThreadLocal<ThreadCache> threadCache = _threadCache;
+        if (threadCache != null)
+        {
+            int index = indexFor(capacity);
+            if (index >= 0)
+            {
+                BufferUtil.clear(buffer);
+                ThreadCache cache = threadCache.get();
+                if (cache.release(index, direct, buffer))
+                    return;
+                // The thread cache is full, return half of it to the shared bucket.
+                ByteBufferPool.Bucket bucket = bucketFor(capacity, direct, this::newBucket);
+                for (int i = Math.max(1, _threadCacheSize / 2); i > 0; --i)
+                {
+                    ByteBuffer spilled = cache.acquire(index, direct);
+                    bucket.release(spilled);
+                    incrementMemory(spilled);
+                }
+                cache.release(index, direct, buffer);
+                releaseExcessMemory(direct, this::clearOldestBucket);
+                sweep();
+                return;
+            }
+        }
+
         ByteBufferPool.Bucket bucket = bucketFor(capacity, direct, this::newBucket);
         if (bucket != null)
         {
             bucket.release(buffer);
             incrementMemory(buffer);
             releaseExcessMemory(direct, this::clearOldestBucket);
+            sweep();
+        }
+    }
+
+    private void sweep()
+    {
+        long idleTimeout = _bucketIdleTimeout;
+        MemoryPressureMonitor monitor = _memoryPressureMonitor;
+        if (idleTimeout <= 0 && monitor == null)
+            return;
+
+        long now = System.nanoTime();
+        long nextSweep = _nextSweep.get();
+        if (now - nextSweep < 0)
+            return;
+        long period = TimeUnit.SECONDS.toNanos(1);
+        if (idleTimeout > 0)
+            period = Math.min(period, TimeUnit.MILLISECONDS.toNanos(idleTimeout) / 2);
+        // Only one thread performs the sweep.
+        if (!_nextSweep.compareAndSet(nextSweep, now + period))
+            return;
+
+        if (monitor != null && monitor.isDirectMemoryPressure())
+            releaseMemory(true);
+
+        if (idleTimeout > 0)
+        {
+            long idleNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+            decayIdleBuckets(true, now, idleNanos);
+            decayIdleBuckets(false, now, idleNanos);
+        }
+    }
+
+    private void decayIdleBuckets(boolean direct, long now, long idleNanos)
+    {
+        for (Bucket bucket : bucketsFor(direct))
+        {
+            if (bucket == null || now - bucket.getLastUpdate() < idleNanos)
+                continue;
+            for (int i = (bucket.size() + 1) / 2; i > 0; --i)
+            {
+                ByteBuffer buffer = bucket.acquire();
+                if (buffer == null)
+                    break;
+                decrementMemory(buffer);
+            }
+        }
+    }
+
+    void releaseMemory(boolean direct)
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("Releasing pooled {} memory {}b under memory pressure", direct ? "direct" : "heap", getMemory(direct));
+        Bucket[] buckets = bucketsFor(direct);
+        for (int i = 0; i < buckets.length; ++i)
+        {
+            Bucket bucket = buckets[i];
+            buckets[i] = null;
+            if (bucket != null)
+                bucket.clear(this::decrementMemory);
         }
     }
 
@@ -153,6 +310,9 @@ public class ArrayByteBufferPool extends AbstractByteBufferPool
     public void clear()
     {
         super.clear();
+        // Thread caches cannot be cleared from other threads,
+        // so they are discarded and replaced with new ones.
+        _threadCache = newThreadCache();
         for (int i = 0; i < _direct.length; ++i)
         {
             Bucket bucket = _direct[i];
@@ -199,12 +359,20 @@ public class ArrayByteBufferPool extends AbstractByteBufferPool
         return (capacity - 1) / getCapacityFactor();
     }
 
-    private ByteBufferPool.Bucket bucketFor(int capacity, boolean direct, IntFunction<Bucket> newBucket)
+    private int indexFor(int capacity)
     {
         if (capacity < _minCapacity)
-            return null;
+            return -1;
         int b = bucketFor(capacity);
         if (b >= _direct.length)
+            return -1;
+        return b;
+    }
+
+    private ByteBufferPool.Bucket bucketFor(int capacity, boolean direct, IntFunction<Bucket> newBucket)
+    {
+        int b = indexFor(capacity);
+        if (b < 0)
             return null;
         Bucket[] buckets = bucketsFor(direct);
         Bucket bucket = buckets[b];
@@ -233,9 +401,160 @@ public class ArrayByteBufferPool extends AbstractByteBufferPool
             .sum();
     }
 
+    @ManagedAttribute("The max number of ByteBuffers of each capacity cached per thread")
+    public int getThreadCacheSize()
+    {
+        return _threadCacheSize;
+    }
+
+    @ManagedAttribute("The number of acquires satisfied by a thread cache")
+    public long getThreadCacheHits()
+    {
+        return _threadCacheHits.longValue();
+    }
+
+    @ManagedAttribute("The number of acquires not satisfied by a thread cache")
+    public long getThreadCacheMisses()
+    {
+        return _threadCacheMisses.longValue();
+    }
+
+    /**
+     * @return the time in milliseconds after which the queues that had no ByteBuffers released to them start to decay
+     */
+    @ManagedAttribute("The time in ms after which idle buckets start to decay, or 0 to disable")
+    public long getBucketIdleTimeout()
+    {
+        return _bucketIdleTimeout;
+    }
+
+    /**
+     * @param bucketIdleTimeout the time in milliseconds after which the queues that had no ByteBuffers
+     * released to them start to decay, or 0 to disable decay
+     */
+    public void setBucketIdleTimeout(long bucketIdleTimeout)
+    {
+        _bucketIdleTimeout = bucketIdleTimeout;
+    }
+
+    /**
+     * @return the percentage of the JVM max heap and max direct memory above which pooled ByteBuffers are released
+     */
+    @ManagedAttribute("The JVM memory usage percentage above which pooled ByteBuffers are released, or 0 to disable")
+    public int getMemoryPressureThreshold()
+    {
+        MemoryPressureMonitor monitor = _memoryPressureMonitor;
+        return monitor == null ? 0 : monitor.getThresholdPercent();
+    }
+
+    /**
+     * <p>Sets the percentage of the JVM max heap and max direct memory above which pooled ByteBuffers are released.</p>
+     * <p>The heap usage is checked after garbage collections via the JVM memory pool notifications,
+     * while the direct memory usage is checked at every sweep, against {@code -XX:MaxDirectMemorySize}.</p>
+     *
+     * @param thresholdPercent the memory usage percentage, or 0 to disable
+     */
+    public void setMemoryPressureThreshold(int thresholdPercent)
+    {
+        if (thresholdPercent < 0 || thresholdPercent > 100)
+            throw new IllegalArgumentException("Invalid memory pressure threshold " + thresholdPercent);
+        MemoryPressureMonitor monitor = _memoryPressureMonitor;
+        if (monitor != null)
+            monitor.stop();
+        if (thresholdPercent > 0 && !ModuleLayer.boot().findModule("java.management").isPresent())
+        {
+            LOG.warn("Memory pressure threshold ignored, module java.management is not available");
+            thresholdPercent = 0;
+        }
+        if (thresholdPercent > 0)
+        {
+            monitor = new MemoryPressureMonitor(thresholdPercent, this);
+            monitor.start();
+            _memoryPressureMonitor = monitor;
+        }
+        else
+        {
+            _memoryPressureMonitor = null;
+        }
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        Dumpable.dumpObjects(out, indent, this,
+            "threadCacheSize=" + _threadCacheSize,
+            "threadCacheHits=" + getThreadCacheHits(),
+            "threadCacheMisses=" + getThreadCacheMisses(),
+            new DumpableCollection("direct", Arrays.stream(_direct).filter(Objects::nonNull).collect(Collectors.toList())),
+            new DumpableCollection("indirect", Arrays.stream(_indirect).filter(Objects::nonNull).collect(Collectors.toList())));
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{heap=%d/%d,direct=%d/%d,threadCache=%d/%d}",
+            getClass().getSimpleName(),
+            hashCode(),
+            getHeapMemory(),
+            getMaxHeapMemory(),
+            getDirectMemory(),
+            getMaxDirectMemory(),
+            getThreadCacheHits(),
+            getThreadCacheHits() + getThreadCacheMisses());
+    }
+
     // Package local for testing
     ByteBufferPool.Bucket[] bucketsFor(boolean direct)
     {
         return direct ? _direct : _indirect;
     }
+
+    /**
+     * <p>A per-thread stack of ByteBuffers for each capacity, accessed only by its owner thread.</p>
+     */
+    private static class ThreadCache
+    {
+        private final ByteBuffer[][] _direct;
+        private final ByteBuffer[][] _indirect;
+        private final int[] _directSizes;
+        private final int[] _indirectSizes;
+        private final int _maxSize;
+
+        private ThreadCache(int length, int maxSize)
+        {
+            _direct = new ByteBuffer[length][];
+            _indirect = new ByteBuffer[length][];
+            _directSizes = new int[length];
+            _indirectSizes = new int[length];
+            _maxSize = maxSize;
+        }
+
+        private ByteBuffer acquire(int index, boolean direct)
+        {
+            int[] sizes = direct ? _directSizes : _indirectSizes;
+            int size = sizes[index];
+            if (size == 0)
+                return null;
+            ByteBuffer[] buffers = (direct ? _direct : _indirect)[index];
+            sizes[index] = --size;
+            ByteBuffer buffer = buffers[size];
+            buffers[size] = null;
+            return buffer;
+        }
+
+        private boolean release(int index, boolean direct, ByteBuffer buffer)
+        {
+            int[] sizes = direct ? _directSizes : _indirectSizes;
+            int size = sizes[index];
+            if (size == _maxSize)
+                return false;
+            ByteBuffer[][] stacks = direct ? _direct : _indirect;
+            ByteBuffer[] buffers = stacks[index];
+            if (buffers == null)
+                stacks[index] = buffers = new ByteBuffer[_maxSize];
+            buffers[size] = buffer;
+            sizes[index] = size + 1;
+            return true;
+        }
+    }
 }
@@ -133,6 +133,81 @@ public interface ByteBufferPool
             return buffers.size();
         }
 
+        /**
+         * <p>Copies runs of consecutive small buffers into pooled buffers
+         * of at most {@code maxLength} bytes, so that they can be written
+         * with fewer, larger, writes.</p>
+         * <p>Buffers larger than half {@code maxLength} are not copied,
+         * and neither are runs made of a single buffer.</p>
+         *
+         * @param maxLength the max length of the coalesced buffers
+         */
+        public void coalesce(int maxLength)
+        {
+            if (buffers.size() < 2)
+                return;
+
+            List<ByteBuffer> coalescedBuffers = new ArrayList<>(buffers.size());
+            List<Boolean> coalescedRecycles = new ArrayList<>(recycles.size());
+            int runStart = 0;
+            int runLength = 0;
+            for (int i = 0; i <= buffers.size(); ++i)
+            {
+                int remaining = i < buffers.size() ? buffers.get(i).remaining() : Integer.MAX_VALUE;
+                boolean small = remaining <= maxLength / 2;
+                if (small && runLength + remaining <= maxLength)
+                {
+                    runLength += remaining;
+                    continue;
+                }
+
+                coalesce(runStart, i, runLength, coalescedBuffers, coalescedRecycles);
+                if (small)
+                {
+                    runStart = i;
+                    runLength = remaining;
+                }
+                else
+                {
+                    if (i < buffers.size())
+                    {
+                        coalescedBuffers.add(buffers.get(i));
+                        coalescedRecycles.add(recycles.get(i));
+                    }
+                    runStart = i + 1;
+                    runLength = 0;
+                }
+            }
+
+            buffers.clear();
+            buffers.addAll(coalescedBuffers);
+            recycles.clear();
+            recycles.addAll(coalescedRecycles);
+        }
+
+        private void coalesce(int from, int to, int length, List<ByteBuffer> coalescedBuffers, List<Boolean> coalescedRecycles)
+        {
+            if (to - from == 1)
+            {
+                coalescedBuffers.add(buffers.get(from));
+                coalescedRecycles.add(recycles.get(from));
+            }
+            else if (to - from > 1)
+            {
+                ByteBuffer coalesced = acquire(length, buffers.get(from).isDirect());
+                for (int i = from; i < to; ++i)
+                {
+                    ByteBuffer buffer = buffers.get(i);
+                    coalesced.put(buffer.slice());
+                    if (recycles.get(i))
+                        release(buffer);
+                }
+                coalesced.flip();
+                coalescedBuffers.add(coalesced);
+                coalescedRecycles.add(true);
+            }
+        }
+
         public void recycle()
         {
             for (int i = 0; i < buffers.size(); ++i)
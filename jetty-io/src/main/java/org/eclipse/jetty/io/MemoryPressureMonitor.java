@@ -0,0 +1,266 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Monitors the JVM heap and direct memory usage against a threshold,
+ * expressed as a percentage of the max heap and max direct memory.</p>
+ * <p>Heap memory pressure is detected via the {@link MemoryPoolMXBean} collection
+ * usage threshold notifications, so that it is only reported when the heap usage
+ * is still above the threshold after a garbage collection; the pool is then
+ * asked to release its heap memory from the JVM notification thread.</p>
+ * <p>The collection usage thresholds and the notification listener are JVM-wide,
+ * so they are shared by all the started monitors: the thresholds are set to the
+ * lowest threshold of the started monitors, and only the thresholds that were
+ * unset, or set by this class, are modified. They are reset when the last monitor
+ * is stopped. Monitors only weakly reference their pool, so that a pool that is
+ * not stopped can still be garbage collected.</p>
+ * <p>Direct memory has no notification support, so direct memory pressure must be
+ * polled via {@link #isDirectMemoryPressure()}.</p>
+ */
+class MemoryPressureMonitor
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MemoryPressureMonitor.class);
+    private static final AutoLock __lock = new AutoLock();
+    private static final Set<MemoryPressureMonitor> __monitors = new CopyOnWriteArraySet<>();
+    // The collection usage thresholds set by this class, by memory pool name.
+    private static final Map<String, Long> __thresholds = new HashMap<>();
+    private static final NotificationListener __listener = MemoryPressureMonitor::onNotification;
+
+    private final int _thresholdPercent;
+    private final WeakReference<ArrayByteBufferPool> _pool;
+    private final BufferPoolMXBean _directPool;
+    private final long _maxDirectMemory;
+
+    MemoryPressureMonitor(int thresholdPercent, ArrayByteBufferPool pool)
+    {
+        _thresholdPercent = thresholdPercent;
+        _pool = new WeakReference<>(pool);
+        _directPool = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+            .filter(p -> "direct".equals(p.getName()))
+            .findFirst()
+            .orElse(null);
+        _maxDirectMemory = maxDirectMemory();
+    }
+
+    int getThresholdPercent()
+    {
+        return _thresholdPercent;
+    }
+
+    void start()
+    {
+        try (AutoLock l = __lock.lock())
+        {
+            purge();
+            if (__monitors.isEmpty())
+                ((NotificationEmitter)ManagementFactory.getMemoryMXBean()).addNotificationListener(__listener, null, null);
+            __monitors.add(this);
+            updateThresholds();
+        }
+        if (LOG.isDebugEnabled())
+            LOG.debug("Started {}", this);
+    }
+
+    void stop()
+    {
+        try (AutoLock l = __lock.lock())
+        {
+            boolean removed = __monitors.remove(this);
+            boolean purged = purge();
+            if (!removed && !purged)
+                return;
+            if (__monitors.isEmpty())
+            {
+                try
+                {
+                    ((NotificationEmitter)ManagementFactory.getMemoryMXBean()).removeNotificationListener(__listener);
+                }
+                catch (Throwable x)
+                {
+                    LOG.trace("IGNORED", x);
+                }
+            }
+            updateThresholds();
+        }
+        if (LOG.isDebugEnabled())
+            LOG.debug("Stopped {}", this);
+    }
+
+    /**
+     * Removes the monitors whose pool has been garbage collected.
+     *
+     * @return whether any monitor was removed
+     */
+    private static boolean purge()
+    {
+        return __monitors.removeIf(monitor -> monitor._pool.get() == null);
+    }
+
+    private static void updateThresholds()
+    {
+        int percent = __monitors.stream().mapToInt(MemoryPressureMonitor::getThresholdPercent).min().orElse(0);
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if (pool.getType() != MemoryType.HEAP || !pool.isCollectionUsageThresholdSupported())
+                continue;
+            long max = pool.getUsage().getMax();
+            if (max <= 0)
+                continue;
+            String name = pool.getName();
+            Long threshold = __thresholds.get(name);
+            // Do not override a threshold configured by someone else.
+            if (pool.getCollectionUsageThreshold() != (threshold == null ? 0 : threshold))
+            {
+                __thresholds.remove(name);
+                continue;
+            }
+            if (percent == 0)
+            {
+                pool.setCollectionUsageThreshold(0);
+                __thresholds.remove(name);
+            }
+            else
+            {
+                threshold = max / 100 * percent;
+                pool.setCollectionUsageThreshold(threshold);
+                __thresholds.put(name, threshold);
+            }
+        }
+        if (LOG.isDebugEnabled())
+            LOG.debug("Collection usage thresholds {}", __thresholds);
+    }
+
+    private static void onNotification(Notification notification, Object handback)
+    {
+        if (!MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType()))
+            return;
+        MemoryUsage usage = MemoryNotificationInfo.from((CompositeData)notification.getUserData()).getUsage();
+        long max = usage.getMax();
+        if (max <= 0)
+            return;
+        if (LOG.isDebugEnabled())
+            LOG.debug("Heap memory pressure {}", notification.getMessage());
+        onHeapMemoryPressure((int)(usage.getUsed() * 100 / max));
+    }
+
+    /**
+     * <p>Releases the heap memory of the pools whose threshold
+     * is lower than or equal to the given heap usage.</p>
+     *
+     * @param usagePercent the heap usage after a garbage collection, as a percentage of the max heap
+     */
+    // Package local for testing
+    static void onHeapMemoryPressure(int usagePercent)
+    {
+        for (MemoryPressureMonitor monitor : __monitors)
+        {
+            ArrayByteBufferPool pool = monitor._pool.get();
+            if (pool == null)
+                monitor.stop();
+            else if (usagePercent >= monitor._thresholdPercent)
+                pool.releaseMemory(false);
+        }
+    }
+
+    /**
+     * @return whether the direct memory usage is above the threshold
+     */
+    boolean isDirectMemoryPressure()
+    {
+        if (_directPool == null)
+            return false;
+        return _directPool.getMemoryUsed() > _maxDirectMemory / 100 * _thresholdPercent;
+    }
+
+    private static long maxDirectMemory()
+    {
+        // The JVM defaults the max direct memory to the max heap memory.
+        long result = Runtime.getRuntime().maxMemory();
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments())
+        {
+            String prefix = "-XX:MaxDirectMemorySize=";
+            if (argument.startsWith(prefix))
+            {
+                try
+                {
+                    long size = parseSize(argument.substring(prefix.length()));
+                    if (size > 0)
+                        result = size;
+                }
+                catch (NumberFormatException x)
+                {
+                    LOG.trace("IGNORED", x);
+                }
+            }
+        }
+        return result;
+    }
+
+    static long parseSize(String value)
+    {
+        String size = value.trim().toLowerCase(Locale.ENGLISH);
+        long unit = 1;
+        switch (size.charAt(size.length() - 1))
+        {
+            case 'k':
+                unit = 1024L;
+                break;
+            case 'm':
+                unit = 1024L * 1024;
+                break;
+            case 'g':
+                unit = 1024L * 1024 * 1024;
+                break;
+            case 't':
+                unit = 1024L * 1024 * 1024 * 1024;
+                break;
+            default:
+                return Long.parseLong(size);
+        }
+        return Long.parseLong(size.substring(0, size.length() - 1)) * unit;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{threshold=%d%%,maxDirect=%d}", getClass().getSimpleName(), hashCode(), _thresholdPercent, _maxDirectMemory);
+    }
+}
@@ -72,6 +72,15 @@ public class NetworkTrafficSocketChannelEndPoint extends SocketChannelEndPoint
         return flushed;
     }
 
+    /**
+     * @return false, since the bytes of file transfers cannot be notified to listeners
+     */
+    @Override
+    public boolean isFileTransferSupported()
+    {
+        return false;
+    }
+
     @Override
     public void onOpen()
     {
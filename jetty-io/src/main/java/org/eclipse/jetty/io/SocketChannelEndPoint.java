@@ -24,11 +24,16 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.ByteBuffer;
 import java.nio.channels.CancelledKeyException;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
+import java.nio.channels.WritePendingException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.thread.AutoLock;
 import org.eclipse.jetty.util.thread.Invocable;
 import org.eclipse.jetty.util.thread.Scheduler;
@@ -44,6 +49,7 @@ public class SocketChannelEndPoint extends AbstractEndPoint implements ManagedSe
     private static final Logger LOG = LoggerFactory.getLogger(SocketChannelEndPoint.class);
 
     private final AutoLock _lock = new AutoLock();
+    private final AtomicReference<FileTransfer> _transfer = new AtomicReference<>();
     private final SocketChannel _channel;
     private final ManagedSelector _selector;
     private SelectionKey _key;
@@ -112,13 +118,13 @@ public class SocketChannelEndPoint extends AbstractEndPoint implements ManagedSe
         @Override
         public InvocationType getInvocationType()
         {
-            return getWriteFlusher().getCallbackInvocationType();
+            return getCompleteWriteInvocationType();
         }
 
         @Override
         public void run()
         {
-            getWriteFlusher().completeWrite();
+            completeWrite();
         }
 
         @Override
@@ -134,7 +140,7 @@ public class SocketChannelEndPoint extends AbstractEndPoint implements ManagedSe
         public InvocationType getInvocationType()
         {
             InvocationType fillT = getFillInterest().getCallbackInvocationType();
-            InvocationType flushT = getWriteFlusher().getCallbackInvocationType();
+            InvocationType flushT = getCompleteWriteInvocationType();
             if (fillT == flushT)
                 return fillT;
 
@@ -150,7 +156,7 @@ public class SocketChannelEndPoint extends AbstractEndPoint implements ManagedSe
         @Override
         public void run()
         {
-            getWriteFlusher().completeWrite();
+            completeWrite();
             getFillInterest().fillable();
         }
     };
@@ -220,6 +226,9 @@ public class SocketChannelEndPoint extends AbstractEndPoint implements ManagedSe
     {
         try
         {
+            FileTransfer transfer = _transfer.get();
+            if (transfer != null)
+                transfer.fail(cause == null ? new EofException("Closed") : cause);
             super.onClose(cause);
         }
         finally
@@ -287,6 +296,81 @@ public class SocketChannelEndPoint extends AbstractEndPoint implements ManagedSe
         return true;
     }
 
+    /**
+     * @return whether {@link #transferFrom(FileChannel, long, long, Callback)} is supported
+     */
+    public boolean isFileTransferSupported()
+    {
+        return true;
+    }
+
+    /**
+     * <p>Asynchronously writes a region of a file to this endpoint using
+     * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+     * so that the file bytes may be sent by the operating system without being copied
+     * to user space.</p>
+     * <p>The transfer is a write operation: like {@link #write(Callback, ByteBuffer...)},
+     * only one write or transfer may be pending at any time, and the transfer fails if
+     * the endpoint is closed or idle times out before it completes.</p>
+     * <p>The file channel is not closed by this method.</p>
+     *
+     * @param file the file channel to transfer bytes from
+     * @param position the position in the file of the first byte to transfer
+     * @param length the number of bytes to transfer
+     * @param callback the callback notified when the bytes have been transferred
+     */
+    public void transferFrom(FileChannel file, long position, long length, Callback callback)
+    {
+        if (!isFileTransferSupported())
+        {
+            callback.failed(new UnsupportedOperationException());
+            return;
+        }
+        FileTransfer transfer = new FileTransfer(file, position, length, callback);
+        if (getWriteFlusher().isPending() || !_transfer.compareAndSet(null, transfer))
+        {
+            callback.failed(new WritePendingException());
+            return;
+        }
+        if (LOG.isDebugEnabled())
+            LOG.debug("transfer {} {}", transfer, this);
+        transfer.transfer();
+    }
+
+    private void completeWrite()
+    {
+        FileTransfer transfer = _transfer.get();
+        if (transfer != null)
+            transfer.transfer();
+        else
+            getWriteFlusher().completeWrite();
+    }
+
+    private Invocable.InvocationType getCompleteWriteInvocationType()
+    {
+        FileTransfer transfer = _transfer.get();
+        if (transfer != null)
+            return Invocable.getInvocationType(transfer._callback);
+        return getWriteFlusher().getCallbackInvocationType();
+    }
+
+    @Override
+    protected void onIdleExpired(TimeoutException timeout)
+    {
+        FileTransfer transfer = _transfer.get();
+        if (transfer == null)
+        {
+            super.onIdleExpired(timeout);
+            return;
+        }
+
+        Connection connection = getConnection();
+        if (connection != null && !connection.onIdleExpired())
+            return;
+        transfer.fail(timeout);
+        getFillInterest().onFail(timeout);
+    }
+
     public SocketChannel getChannel()
     {
         return _channel;
@@ -432,4 +516,69 @@ public class SocketChannelEndPoint extends AbstractEndPoint implements ManagedSe
             ManagedSelector.safeInterestOps(_key),
             ManagedSelector.safeReadyOps(_key));
     }
+
+    private class FileTransfer
+    {
+        private final FileChannel _file;
+        private final Callback _callback;
+        private long _position;
+        private long _remaining;
+
+        private FileTransfer(FileChannel file, long position, long length, Callback callback)
+        {
+            _file = file;
+            _position = position;
+            _remaining = length;
+            _callback = callback;
+        }
+
+        private void transfer()
+        {
+            try
+            {
+                while (_remaining > 0)
+                {
+                    long transferred = _file.transferTo(_position, _remaining, _channel);
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("transferred {} {}", transferred, SocketChannelEndPoint.this);
+                    if (transferred > 0)
+                    {
+                        notIdle();
+                        _position += transferred;
+                        _remaining -= transferred;
+                    }
+                    else if (_position >= _file.size())
+                    {
+                        throw new EofException("File truncated");
+                    }
+                    else
+                    {
+                        // The socket send buffer is full, wait until it is writable.
+                        onIncompleteFlush();
+                        return;
+                    }
+                }
+            }
+            catch (Throwable x)
+            {
+                fail(x instanceof IOException && !(x instanceof EofException) ? new EofException(x) : x);
+                return;
+            }
+
+            if (_transfer.compareAndSet(this, null))
+                _callback.succeeded();
+        }
+
+        private void fail(Throwable failure)
+        {
+            if (_transfer.compareAndSet(this, null))
+                _callback.failed(failure);
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x{p=%d,r=%d}", getClass().getSimpleName(), hashCode(), _position, _remaining);
+        }
+    }
 }
@@ -18,15 +18,20 @@
 
 package org.eclipse.jetty.io;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.jetty.io.ByteBufferPool.Bucket;
 import org.eclipse.jetty.util.StringUtil;
 import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
@@ -227,4 +232,204 @@ public class ArrayByteBufferPoolTest
         assertNull(buckets[0]);
         assertNull(buckets[2]);
     }
+
+    @Test
+    public void testThreadCacheAcquireRelease()
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(-1, 1024, -1, -1, -1, -1, 4);
+        Bucket[] buckets = bufferPool.bucketsFor(true);
+
+        ByteBuffer buffer1 = bufferPool.acquire(1024, true);
+        assertEquals(0, bufferPool.getThreadCacheHits());
+        assertEquals(1, bufferPool.getThreadCacheMisses());
+
+        bufferPool.release(buffer1);
+        // The buffer is in the thread cache, not in the shared bucket.
+        assertNull(buckets[0]);
+        assertEquals(0, bufferPool.getDirectMemory());
+
+        ByteBuffer buffer2 = bufferPool.acquire(1024, true);
+        assertSame(buffer1, buffer2);
+        assertEquals(0, buffer2.remaining());
+        assertEquals(1, bufferPool.getThreadCacheHits());
+        assertEquals(1, bufferPool.getThreadCacheMisses());
+    }
+
+    @Test
+    public void testDumpThreadCacheCounters()
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(-1, 1024, -1, -1, -1, -1, 4);
+        bufferPool.release(bufferPool.acquire(1024, true));
+        bufferPool.release(bufferPool.acquire(1024, true));
+
+        String dump = bufferPool.dump();
+        assertThat(dump, containsString("threadCacheHits=1"));
+        assertThat(dump, containsString("threadCacheMisses=1"));
+    }
+
+    @Test
+    public void testThreadCacheOverflowToSharedBucket()
+    {
+        int threadCacheSize = 4;
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(-1, 1024, -1, -1, -1, -1, threadCacheSize);
+        Bucket[] buckets = bufferPool.bucketsFor(false);
+
+        ByteBuffer[] buffers = new ByteBuffer[threadCacheSize + 1];
+        for (int i = 0; i < buffers.length; ++i)
+        {
+            buffers[i] = bufferPool.acquire(2048, false);
+        }
+        for (ByteBuffer buffer : buffers)
+        {
+            bufferPool.release(buffer);
+        }
+
+        // Half of the thread cache has been returned to the shared bucket.
+        assertEquals(threadCacheSize / 2, buckets[1].size());
+        assertEquals(threadCacheSize / 2 * 2048, bufferPool.getHeapMemory());
+    }
+
+    @Test
+    public void testThreadCacheNotSharedAcrossThreads() throws Exception
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(-1, 1024, -1, -1, -1, -1, 4);
+
+        ByteBuffer buffer = bufferPool.acquire(1024, true);
+        bufferPool.release(buffer);
+
+        AtomicReference<ByteBuffer> result = new AtomicReference<>();
+        Thread thread = new Thread(() -> result.set(bufferPool.acquire(1024, true)));
+        thread.start();
+        thread.join();
+
+        assertNotSame(buffer, result.get());
+        assertEquals(0, bufferPool.getThreadCacheHits());
+        assertEquals(2, bufferPool.getThreadCacheMisses());
+    }
+
+    @Test
+    public void testClearDiscardsThreadCache()
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(-1, 1024, -1, -1, -1, -1, 4);
+
+        ByteBuffer buffer = bufferPool.acquire(1024, false);
+        bufferPool.release(buffer);
+        bufferPool.clear();
+
+        assertNotSame(buffer, bufferPool.acquire(1024, false));
+    }
+
+    @Test
+    public void testLowWatermark()
+    {
+        int factor = 1024;
+        int maxMemory = 10 * 1024;
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(-1, factor, -1, -1, -1, maxMemory);
+        bufferPool.setLowWatermarkPercent(50);
+
+        ByteBuffer[] buffers = new ByteBuffer[10];
+        for (int i = 0; i < buffers.length; ++i)
+        {
+            buffers[i] = bufferPool.acquire(factor, true);
+        }
+        for (int i = 0; i < buffers.length; ++i)
+        {
+            bufferPool.release(buffers[i]);
+        }
+        assertEquals(maxMemory, bufferPool.getDirectMemory());
+
+        // Exceeding the max memory releases down to the low watermark.
+        bufferPool.release(bufferPool.newByteBuffer(factor, true));
+        assertThat(bufferPool.getDirectMemory(), lessThanOrEqualTo((long)maxMemory / 2));
+    }
+
+    @Test
+    public void testBucketIdleTimeoutDecay() throws Exception
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(-1, 1024, -1);
+        bufferPool.setBucketIdleTimeout(100);
+        Bucket[] buckets = bufferPool.bucketsFor(false);
+
+        ByteBuffer[] buffers = new ByteBuffer[8];
+        for (int i = 0; i < buffers.length; ++i)
+        {
+            buffers[i] = bufferPool.acquire(4096, false);
+        }
+        for (ByteBuffer buffer : buffers)
+        {
+            bufferPool.release(buffer);
+        }
+        assertEquals(8, buckets[3].size());
+
+        Thread.sleep(250);
+
+        // Releasing to another bucket triggers the sweep, which halves the idle bucket.
+        bufferPool.release(bufferPool.acquire(1024, false));
+        assertEquals(4, buckets[3].size());
+        assertEquals(4 * 4096 + 1024, bufferPool.getHeapMemory());
+        assertEquals(1, buckets[0].size());
+    }
+
+    @Test
+    public void testMemoryPressureThreshold()
+    {
+        MemoryPoolMXBean heapPool = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported())
+            .filter(pool -> pool.getUsage().getMax() > 0 && pool.getCollectionUsageThreshold() == 0)
+            .findFirst()
+            .orElse(null);
+
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool();
+        ArrayByteBufferPool otherPool = new ArrayByteBufferPool();
+        assertEquals(0, bufferPool.getMemoryPressureThreshold());
+
+        bufferPool.setMemoryPressureThreshold(80);
+        otherPool.setMemoryPressureThreshold(95);
+        assertEquals(80, bufferPool.getMemoryPressureThreshold());
+        if (heapPool != null)
+            assertEquals(heapPool.getUsage().getMax() / 100 * 80, heapPool.getCollectionUsageThreshold());
+
+        bufferPool.release(bufferPool.acquire(1024, false));
+        otherPool.release(otherPool.acquire(1024, false));
+        assertEquals(1024, bufferPool.getHeapMemory());
+        assertEquals(1024, otherPool.getHeapMemory());
+
+        // Heap usage above the threshold of one pool only.
+        MemoryPressureMonitor.onHeapMemoryPressure(90);
+        assertEquals(0, bufferPool.getHeapMemory());
+        assertEquals(1024, otherPool.getHeapMemory());
+
+        // Stopping one pool does not disable the other.
+        bufferPool.setMemoryPressureThreshold(0);
+        assertEquals(0, bufferPool.getMemoryPressureThreshold());
+        if (heapPool != null)
+            assertEquals(heapPool.getUsage().getMax() / 100 * 95, heapPool.getCollectionUsageThreshold());
+        MemoryPressureMonitor.onHeapMemoryPressure(99);
+        assertEquals(0, otherPool.getHeapMemory());
+
+        // Stopping the last pool resets the threshold.
+        otherPool.setMemoryPressureThreshold(0);
+        if (heapPool != null)
+            assertEquals(0, heapPool.getCollectionUsageThreshold());
+    }
+
+    @Test
+    public void testMaxMemoryReleaseStopsWithoutProgress()
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(0, 1024, 8192, -1, 4096, -1);
+        // Account memory for a buffer that is not pooled,
+        // so that clearing the buckets cannot release it.
+        bufferPool.incrementMemory(ByteBuffer.allocate(8192));
+        bufferPool.release(bufferPool.acquire(1024, false));
+        assertEquals(8192, bufferPool.getHeapMemory());
+    }
+
+    @Test
+    public void testParseMaxDirectMemorySize()
+    {
+        assertEquals(1024, MemoryPressureMonitor.parseSize("1024"));
+        assertEquals(64 * 1024, MemoryPressureMonitor.parseSize("64k"));
+        assertEquals(512L * 1024 * 1024, MemoryPressureMonitor.parseSize("512M"));
+        assertEquals(2L * 1024 * 1024 * 1024, MemoryPressureMonitor.parseSize("2g"));
+    }
 }
@@ -176,4 +176,32 @@ public class MappedByteBufferPoolTest
         assertNull(buckets.get(1));
         assertNull(buckets.get(3));
     }
+
+    @Test
+    public void testLeaseCoalesce()
+    {
+        MappedByteBufferPool bufferPool = new MappedByteBufferPool();
+        ByteBufferPool.Lease lease = new ByteBufferPool.Lease(bufferPool);
+        ByteBuffer large = ByteBuffer.wrap(new byte[1024]);
+        lease.append(BufferUtil.toBuffer("A"), false);
+        lease.append(BufferUtil.toBuffer("BC"), false);
+        lease.append(large, false);
+        lease.append(BufferUtil.toBuffer("D"), false);
+        lease.append(BufferUtil.toBuffer("EF"), false);
+        lease.append(BufferUtil.toBuffer("GHIJKL"), false);
+        lease.append(BufferUtil.toBuffer("M"), false);
+        long length = lease.getTotalLength();
+
+        lease.coalesce(8);
+
+        // Runs of buffers of up to 4 bytes are coalesced,
+        // larger buffers and single buffers are not copied.
+        assertEquals(5, lease.getSize());
+        assertEquals(length, lease.getTotalLength());
+        assertEquals("ABC", BufferUtil.toString(lease.getByteBuffers().get(0)));
+        assertSame(large, lease.getByteBuffers().get(1));
+        assertEquals("DEF", BufferUtil.toString(lease.getByteBuffers().get(2)));
+        assertEquals("GHIJKL", BufferUtil.toString(lease.getByteBuffers().get(3)));
+        assertEquals("M", BufferUtil.toString(lease.getByteBuffers().get(4)));
+    }
 }
@@ -28,3 +28,15 @@ etc/jetty-bytebufferpool.xml
 
 ## Maximum direct memory retainable by the pool (-1 for unlimited)
 #jetty.byteBufferPool.maxDirectMemory=-1
+
+## Maximum number of ByteBuffers of each capacity cached per thread (0 to disable)
+#jetty.byteBufferPool.threadCacheSize=0
+
+## Percentage of the max heap/direct memory to release down to when it is exceeded
+#jetty.byteBufferPool.lowWatermarkPercent=100
+
+## Time in ms after which unused buffer buckets start to decay (0 to disable)
+#jetty.byteBufferPool.bucketIdleTimeout=0
+
+## JVM heap/direct memory usage percentage above which pooled buffers are released (0 to disable)
+#jetty.byteBufferPool.memoryPressureThreshold=0
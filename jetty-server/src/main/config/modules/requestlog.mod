@@ -37,3 +37,12 @@ logs/
 
 ## Timezone of the log file rollover
 # jetty.requestlog.timezone=GMT
+
+## Max number of log entries waiting to be written
+# jetty.requestlog.queueSize=1024
+
+## Whether to wait for the log entries to be written when the queue is full, rather than dropping them
+# jetty.requestlog.blockWhenFull=false
+
+## Max number of log entries written at once
+# jetty.requestlog.maxBatchSize=64
@@ -53,6 +53,13 @@ etc/jetty.xml
 ## Max per-connection header cache size (in nodes)
 # jetty.httpConfig.headerCacheSize=1024
 
+## Max size a per-connection header cache may grow to (in nodes),
+## the cache only grows when greater than headerCacheSize, which is the default
+# jetty.httpConfig.headerCacheMaxSize=1024
+
+## Size of the header cache shared across connections (in nodes), 0 to disable
+# jetty.httpConfig.sharedHeaderCacheSize=0
+
 ## Whether, for requests with content, delay dispatch until some content has arrived
 # jetty.httpConfig.delayDispatchUntilContent=true
 
@@ -71,6 +78,15 @@ etc/jetty.xml
 ## Relative Redirect Locations allowed
 # jetty.httpConfig.relativeRedirectAllowed=false
 
+## Whether static file content is transferred directly to the network (HTTP/1 over plain text only)
+# jetty.httpConfig.useSendFile=false
+
+## Number of buffers of static file content read ahead of the network writes, 0 to read synchronously
+# jetty.httpConfig.fileReadAhead=0
+
+## Max number of frequently emitted response fields kept pre-encoded, 0 to disable
+# jetty.httpConfig.preEncodedFieldCacheSize=0
+
 ### Server configuration
 ## Whether ctrl+c on the console gracefully stops the Jetty server
 # jetty.server.stopAtShutdown=true
@@ -88,3 +104,8 @@ etc/jetty.xml
 # jetty.scheduler.name=
 # jetty.scheduler.deamon=false
 # jetty.scheduler.threads=-1
+
+## File Read Executor Configuration
+# jetty.fileReadExecutor.name=
+# jetty.fileReadExecutor.threads=-1
+# jetty.fileReadExecutor.idleTimeout=60000
@@ -19,43 +19,170 @@
 package org.eclipse.jetty.server;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
-import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * An asynchronously writing RequestLogWriter
+ * <p>An asynchronously writing RequestLogWriter.</p>
+ * <p>Log entries are encoded by the logging thread directly into pooled
+ * buffers, which are then enqueued on a bounded lock-free ring.
+ * A single writer thread drains the ring and writes the buffers in batches
+ * of up to {@link #getMaxBatchSize()} entries, with a single gathering write
+ * when the log is written to a file.</p>
+ * <p>When the ring is full, entries are dropped, unless {@link #isBlockWhenFull()}
+ * is true, in which case the logging thread waits for the writer thread
+ * to make space in the ring.</p>
+ * <p>Subclasses that override {@link #write(String)} still receive the
+ * entries passed to {@link #write(CharSequence)}, converted to Strings.</p>
  */
+@ManagedObject("Asynchronous Request Log writer")
 public class AsyncRequestLogWriter extends RequestLogWriter
 {
     private static final Logger LOG = LoggerFactory.getLogger(AsyncRequestLogWriter.class);
-    private final BlockingQueue<String> _queue;
+    // Set on the tail once stopped, so that no entry can be enqueued after the final drain.
+    private static final long STOPPED = 1L << 62;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(Charset.defaultCharset());
+    private static final ThreadLocal<CharsetEncoder> _encoders = ThreadLocal.withInitial(() -> Charset.defaultCharset().newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE));
+
+    private final ByteBufferPool _bufferPool = new ArrayByteBufferPool();
+    private final AtomicReferenceArray<ByteBuffer> _ring;
+    private final int _mask;
+    private final boolean _writeStringOverridden;
+    private final AtomicLong _tail = new AtomicLong();
+    private final LongAdder _dropped = new LongAdder();
+    private volatile long _head;
+    private volatile boolean _idle;
+    private volatile boolean _blockWhenFull;
+    private int _maxBatchSize = 64;
     private transient AsyncRequestLogWriter.WriterThread _thread;
     private boolean _warnedFull;
 
     public AsyncRequestLogWriter()
     {
-        this(null, null);
+        this(null, 1024);
     }
 
     public AsyncRequestLogWriter(String filename)
     {
-        this(filename, null);
+        this(filename, 1024);
     }
 
+    /**
+     * @param filename the file name of the request log
+     * @param queue the queue whose remaining capacity is used as the capacity of the ring
+     * @deprecated use {@link #AsyncRequestLogWriter(String, int)} instead
+     */
+    @Deprecated
     public AsyncRequestLogWriter(String filename, BlockingQueue<String> queue)
+    {
+        this(filename, queue == null ? 1024 : Math.max(1, Math.min(queue.remainingCapacity(), 1 << 20)));
+    }
+
+    /**
+     * @param filename the file name of the request log
+     * @param capacity the max number of entries waiting to be written,
+     * rounded up to the next power of 2
+     */
+    public AsyncRequestLogWriter(String filename, int capacity)
     {
         super(filename);
-        if (queue == null)
-            queue = new BlockingArrayQueue<>(1024);
-        _queue = queue;
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+            size <<= 1;
+        _ring = new AtomicReferenceArray<>(size);
+        _mask = size - 1;
+        _writeStringOverridden = overridesWriteString(getClass());
+    }
+
+    private static boolean overridesWriteString(Class<?> type)
+    {
+        try
+        {
+            return type.getMethod("write", String.class).getDeclaringClass() != AsyncRequestLogWriter.class;
+        }
+        catch (NoSuchMethodException x)
+        {
+            return false;
+        }
+    }
+
+    @ManagedAttribute("The max number of entries waiting to be written")
+    public int getCapacity()
+    {
+        return _ring.length();
+    }
+
+    @ManagedAttribute("The number of entries waiting to be written")
+    public int getQueueSize()
+    {
+        return (int)Math.max(0, tail() - _head);
+    }
+
+    @ManagedAttribute("The number of entries dropped because the queue was full")
+    public long getDroppedEntries()
+    {
+        return _dropped.sum();
+    }
+
+    @ManagedAttribute("Whether logging threads wait when the queue is full, rather than dropping entries")
+    public boolean isBlockWhenFull()
+    {
+        return _blockWhenFull;
+    }
+
+    /**
+     * @param blockWhenFull whether logging threads wait for space in the queue
+     * when it is full, rather than dropping the log entry
+     */
+    public void setBlockWhenFull(boolean blockWhenFull)
+    {
+        _blockWhenFull = blockWhenFull;
+    }
+
+    @ManagedAttribute("The max number of entries written at once")
+    public int getMaxBatchSize()
+    {
+        return _maxBatchSize;
+    }
+
+    /**
+     * @param maxBatchSize the max number of entries written at once
+     */
+    public void setMaxBatchSize(int maxBatchSize)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        if (maxBatchSize <= 0)
+            throw new IllegalArgumentException("Invalid max batch size " + maxBatchSize);
+        _maxBatchSize = maxBatchSize;
     }
 
     private class WriterThread extends Thread
     {
+        private final ByteBuffer[] _batch = new ByteBuffer[getMaxBatchSize()];
+
         WriterThread()
         {
             setName("AsyncRequestLogWriter@" + Integer.toString(AsyncRequestLogWriter.this.hashCode(), 16));
@@ -66,26 +193,75 @@ public class AsyncRequestLogWriter extends RequestLogWriter
         {
             while (isRunning())
             {
-                try
+                if (!drain(_batch))
                 {
-                    String log = _queue.poll(10, TimeUnit.SECONDS);
-                    if (log != null)
-                        AsyncRequestLogWriter.super.write(log);
-
-                    while (!_queue.isEmpty())
-                    {
-                        log = _queue.poll();
-                        if (log != null)
-                            AsyncRequestLogWriter.super.write(log);
-                    }
+                    _idle = true;
+                    if (isEmpty() && isRunning())
+                        LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(10));
+                    _idle = false;
                 }
-                catch (InterruptedException e)
+            }
+        }
+    }
+
+    private long tail()
+    {
+        return _tail.get() & ~STOPPED;
+    }
+
+    private boolean isEmpty()
+    {
+        return tail() == _head;
+    }
+
+    /**
+     * <p>Writes the entries available in the ring, in batches.</p>
+     * <p>Only called by the writer thread, or after the writer thread has exited.</p>
+     *
+     * @param batch the array to gather the buffers to write
+     * @return whether any entry was written
+     */
+    private boolean drain(ByteBuffer[] batch)
+    {
+        boolean drained = false;
+        while (true)
+        {
+            int length = 0;
+            long head = _head;
+            while (length < batch.length && head != tail())
+            {
+                int index = (int)head & _mask;
+                ByteBuffer buffer = _ring.get(index);
+                if (buffer == null)
                 {
-                    LOG.trace("IGNORED", e);
+                    // The slot has been claimed, but the buffer is not yet published.
+                    if (length > 0)
+                        break;
+                    Thread.onSpinWait();
+                    continue;
                 }
-                catch (Throwable t)
+                _ring.lazySet(index, null);
+                batch[length++] = buffer;
+                _head = ++head;
+            }
+            if (length == 0)
+                return drained;
+            drained = true;
+
+            try
+            {
+                write(batch, 0, length);
+            }
+            catch (Throwable t)
+            {
+                LOG.warn("Failed to write log", t);
+            }
+            finally
+            {
+                for (int i = 0; i < length; ++i)
                 {
-                    LOG.warn("Failed to write log", t);
+                    _bufferPool.release(batch[i]);
+                    batch[i] = null;
                 }
             }
         }
@@ -95,6 +271,8 @@ public class AsyncRequestLogWriter extends RequestLogWriter
     protected void doStart() throws Exception
     {
         super.doStart();
+        _warnedFull = false;
+        _tail.getAndUpdate(tail -> tail & ~STOPPED);
         _thread = new AsyncRequestLogWriter.WriterThread();
         _thread.start();
     }
@@ -102,8 +280,13 @@ public class AsyncRequestLogWriter extends RequestLogWriter
     @Override
     protected void doStop() throws Exception
     {
-        _thread.interrupt();
+        // Do not interrupt the writer thread, as interrupting
+        // a FileChannel write would close the log file.
+        LockSupport.unpark(_thread);
         _thread.join();
+        // Reject further entries, then write those enqueued while stopping.
+        _tail.getAndUpdate(tail -> tail | STOPPED);
+        drain(new ByteBuffer[getMaxBatchSize()]);
         super.doStop();
         _thread = null;
     }
@@ -111,11 +294,86 @@ public class AsyncRequestLogWriter extends RequestLogWriter
     @Override
     public void write(String log) throws IOException
     {
-        if (!_queue.offer(log))
+        enqueue(log);
+    }
+
+    @Override
+    public void write(CharSequence log) throws IOException
+    {
+        if (_writeStringOverridden)
+            write(log.toString());
+        else
+            enqueue(log);
+    }
+
+    private void enqueue(CharSequence log)
+    {
+        ByteBuffer buffer = encode(log);
+        if (!offer(buffer))
         {
-            if (_warnedFull)
+            _bufferPool.release(buffer);
+            if ((_tail.get() & STOPPED) != 0)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Discarded log entry, {} is stopped", this);
+                return;
+            }
+            _dropped.increment();
+            if (!_warnedFull)
                 LOG.warn("Log Queue overflow");
             _warnedFull = true;
         }
     }
+
+    private ByteBuffer encode(CharSequence log)
+    {
+        CharsetEncoder encoder = _encoders.get();
+        encoder.reset();
+        CharBuffer chars = CharBuffer.wrap(log);
+        int size = (int)(chars.remaining() * encoder.maxBytesPerChar()) + LINE_SEPARATOR.length;
+        ByteBuffer buffer = _bufferPool.acquire(size, false);
+        BufferUtil.clearToFill(buffer);
+        CoderResult result = encoder.encode(chars, buffer, true);
+        if (!result.isUnderflow() || !encoder.flush(buffer).isUnderflow() || buffer.remaining() < LINE_SEPARATOR.length)
+        {
+            _bufferPool.release(buffer);
+            throw new IllegalStateException("Cannot encode log entry: " + result);
+        }
+        buffer.put(LINE_SEPARATOR);
+        buffer.flip();
+        return buffer;
+    }
+
+    private boolean offer(ByteBuffer buffer)
+    {
+        int capacity = _ring.length();
+        while (true)
+        {
+            long tail = _tail.get();
+            if ((tail & STOPPED) != 0)
+                return false;
+            if (tail - _head >= capacity)
+            {
+                if (!_blockWhenFull || !isRunning())
+                    return false;
+                // Wait for the writer thread to make space.
+                LockSupport.unpark(_thread);
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                continue;
+            }
+            if (_tail.compareAndSet(tail, tail + 1))
+            {
+                _ring.set((int)tail & _mask, buffer);
+                if (_idle)
+                    LockSupport.unpark(_thread);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,queue=%d/%d,dropped=%d}", getClass().getSimpleName(), hashCode(), getState(), getQueueSize(), getCapacity(), getDroppedEntries());
+    }
 }
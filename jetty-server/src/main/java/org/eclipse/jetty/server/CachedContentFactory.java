@@ -19,19 +19,28 @@
 package org.eclipse.jetty.server;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
 import org.eclipse.jetty.http.CompressedContentFormat;
 import org.eclipse.jetty.http.DateGenerator;
@@ -44,14 +53,38 @@ import org.eclipse.jetty.http.PreEncodedHttpField;
 import org.eclipse.jetty.http.PrecompressedHttpContent;
 import org.eclipse.jetty.http.ResourceHttpContent;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.IncludeExclude;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.resource.ResourceFactory;
+import org.eclipse.jetty.util.thread.AutoLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * <p>A {@link HttpContent.ContentFactory} that caches the content of resources.</p>
+ * <p>The cache is bounded by {@link #getMaxCachedFiles()} and {@link #getMaxCacheSize()}
+ * and uses a segmented LRU eviction policy: new entries enter a <em>probation</em>
+ * segment and are promoted to a <em>protected</em> segment when they are hit again,
+ * so that a scan of many resources accessed only once cannot flush the popular ones.
+ * Entries are evicted from the least recently used end of the probation segment first,
+ * then from the protected segment, in constant time.</p>
+ * <p>When the cache is full, a new entry is admitted only if its access frequency,
+ * estimated by a compact frequency sketch, is not lower than the one of the entry
+ * that would be evicted to make room for it.</p>
+ * <p>If a {@link Compressor} and an {@link Executor} are configured, the content of
+ * cached resources without a precompressed resource on the file system is compressed
+ * once in the background, and the compressed bytes are kept in the cache and served
+ * as a precompressed variant, with their own ETag.</p>
+ */
+@ManagedObject("Cache of static content")
 public class CachedContentFactory implements HttpContent.ContentFactory
 {
     private static final Logger LOG = LoggerFactory.getLogger(CachedContentFactory.class);
+    // The number of cache hits buffered before they are applied to the eviction policy.
+    private static final int READ_BUFFER_SIZE = 64;
     private static final Map<CompressedContentFormat, CachedPrecompressedHttpContent> NO_PRECOMPRESSED = Collections.unmodifiableMap(Collections.emptyMap());
 
     private final ConcurrentMap<String, CachedHttpContent> _cache;
@@ -63,6 +96,21 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     private final boolean _etags;
     private final CompressedContentFormat[] _precompressedFormats;
     private final boolean _useFileMappedBuffer;
+    private final AutoLock _lock = new AutoLock();
+    private final LinkedHashMap<String, CachedHttpContent> _probation = new LinkedHashMap<>(16, 0.75F, true);
+    private final LinkedHashMap<String, CachedHttpContent> _protected = new LinkedHashMap<>(16, 0.75F, true);
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+    private final LongAdder _rejections = new LongAdder();
+    private final AtomicReferenceArray<CachedHttpContent> _reads = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong _readCount = new AtomicLong();
+    private final AtomicBoolean _draining = new AtomicBoolean();
+    private final Map<CompressedContentFormat, Compressor> _compressors = new ConcurrentHashMap<>();
+    private final LongAdder _compressions = new LongAdder();
+    private final IncludeExclude<String> _compressMimeTypes = new IncludeExclude<>();
+    private FrequencySketch _sketch;
+    private Executor _executor;
 
     private int _maxCachedFileSize = 128 * 1024 * 1024;
     private int _maxCachedFiles = 2048;
@@ -89,18 +137,37 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         _useFileMappedBuffer = useFileMappedBuffer;
         _etags = etags;
         _precompressedFormats = precompressedFormats;
+        _sketch = new FrequencySketch(_maxCachedFiles);
+        // Do not compress content that is already compressed.
+        for (String type : MimeTypes.getKnownMimeTypes())
+        {
+            if (!"image/svg+xml".equals(type) && (type.startsWith("image/") || type.startsWith("audio/") || type.startsWith("video/")))
+                _compressMimeTypes.exclude(type);
+        }
+        _compressMimeTypes.exclude("application/compress");
+        _compressMimeTypes.exclude("application/zip");
+        _compressMimeTypes.exclude("application/gzip");
+        _compressMimeTypes.exclude("application/bzip2");
+        _compressMimeTypes.exclude("application/brotli");
+        _compressMimeTypes.exclude("application/x-xz");
+        _compressMimeTypes.exclude("application/x-rar-compressed");
+        _compressMimeTypes.exclude("application/font-woff");
+        _compressMimeTypes.exclude("font/woff2");
     }
 
+    @ManagedAttribute("The size in bytes of the cached content")
     public int getCachedSize()
     {
         return _cachedSize.get();
     }
 
+    @ManagedAttribute("The number of cached files")
     public int getCachedFiles()
     {
         return _cachedFiles.get();
     }
 
+    @ManagedAttribute("The max size in bytes of a cached file")
     public int getMaxCachedFileSize()
     {
         return _maxCachedFileSize;
@@ -112,6 +179,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         shrinkCache();
     }
 
+    @ManagedAttribute("The max size in bytes of the cached content")
     public int getMaxCacheSize()
     {
         return _maxCacheSize;
@@ -126,6 +194,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     /**
      * @return the max number of cached files.
      */
+    @ManagedAttribute("The max number of cached files")
     public int getMaxCachedFiles()
     {
         return _maxCachedFiles;
@@ -137,9 +206,114 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     public void setMaxCachedFiles(int maxCachedFiles)
     {
         _maxCachedFiles = maxCachedFiles;
+        try (AutoLock l = _lock.lock())
+        {
+            _sketch = new FrequencySketch(maxCachedFiles);
+        }
         shrinkCache();
     }
 
+    public Executor getExecutor()
+    {
+        return _executor;
+    }
+
+    /**
+     * @param executor the executor used to compress cached content in the background,
+     * or null to disable the compression of cached content
+     */
+    public void setExecutor(Executor executor)
+    {
+        _executor = executor;
+    }
+
+    /**
+     * @param format the precompressed format
+     * @return the compressor for the given format, or null if none is configured
+     */
+    public Compressor getCompressor(CompressedContentFormat format)
+    {
+        return _compressors.get(format);
+    }
+
+    /**
+     * <p>Sets the compressor used to generate the variant of cached content
+     * for the given precompressed format, when no such variant exists on the
+     * file system.</p>
+     * <p>The format must be one of the precompressed formats of this cache.</p>
+     *
+     * @param format the precompressed format
+     * @param compressor the compressor, or null to remove the compressor for the format
+     */
+    public void setCompressor(CompressedContentFormat format, Compressor compressor)
+    {
+        if (compressor == null)
+            _compressors.remove(format);
+        else
+            _compressors.put(format, compressor);
+    }
+
+    /**
+     * @return the mime types of the cached content that is not compressed by the compressors
+     */
+    @ManagedAttribute("The mime types of the cached content that is not compressed")
+    public String[] getExcludedCompressMimeTypes()
+    {
+        return _compressMimeTypes.getExcluded().toArray(new String[0]);
+    }
+
+    /**
+     * <p>Sets the mime types of the cached content that is not compressed by the compressors,
+     * replacing the defaults, which exclude the image, audio, video, archive and font mime
+     * types that are already compressed.</p>
+     *
+     * @param types the mime types to exclude
+     */
+    public void setExcludedCompressMimeTypes(String... types)
+    {
+        _compressMimeTypes.getExcluded().clear();
+        _compressMimeTypes.exclude(types);
+    }
+
+    @ManagedAttribute("The number of compressed variants generated for cached content")
+    public long getCompressions()
+    {
+        return _compressions.sum();
+    }
+
+    @ManagedAttribute("The number of requests served from the cache")
+    public long getCacheHits()
+    {
+        return _hits.sum();
+    }
+
+    @ManagedAttribute("The number of requests not served from the cache")
+    public long getCacheMisses()
+    {
+        return _misses.sum();
+    }
+
+    @ManagedAttribute("The number of entries evicted from the cache")
+    public long getCacheEvictions()
+    {
+        return _evictions.sum();
+    }
+
+    @ManagedAttribute("The number of entries not admitted into the cache because they were less frequently accessed than the eviction candidate")
+    public long getCacheRejections()
+    {
+        return _rejections.sum();
+    }
+
+    @ManagedOperation(value = "Resets the cache statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _hits.reset();
+        _misses.reset();
+        _evictions.reset();
+        _rejections.reset();
+    }
+
     public boolean isUseFileMappedBuffer()
     {
         return _useFileMappedBuffer;
@@ -156,6 +330,11 @@ public class CachedContentFactory implements HttpContent.ContentFactory
                     content.invalidate();
             }
         }
+        try (AutoLock l = _lock.lock())
+        {
+            _probation.clear();
+            _protected.clear();
+        }
     }
 
     /**
@@ -176,7 +355,12 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         // Is the content in this cache?
         CachedHttpContent content = _cache.get(pathInContext);
         if (content != null && (content).isValid())
+        {
+            _hits.increment();
+            accessed(content);
             return content;
+        }
+        _misses.increment();
 
         // try loading the content from our factory.
         Resource resource = _factory.getResource(pathInContext);
@@ -219,7 +403,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             return new ResourceHttpContent(resource, _mimeTypes.getMimeByExtension(resource.toString()), getMaxCachedFileSize());
 
         // Will it fit in the cache?
-        if (isCacheable(resource))
+        if (isCacheable(resource) && admit(pathInContext, resource.length()))
         {
             CachedHttpContent content;
 
@@ -245,6 +429,10 @@ public class CachedContentFactory implements HttpContent.ContentFactory
                                 compressedContent.invalidate();
                                 compressedContent = added;
                             }
+                            else
+                            {
+                                added(compressedContent);
+                            }
                         }
                     }
                     if (compressedContent != null)
@@ -262,6 +450,12 @@ public class CachedContentFactory implements HttpContent.ContentFactory
                 content.invalidate();
                 content = added;
             }
+            else
+            {
+                added(content);
+                shrinkCache();
+                compress(content);
+            }
 
             return content;
         }
@@ -293,35 +487,203 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         return new ResourceHttpContent(resource, mt, maxBufferSize);
     }
 
-    private void shrinkCache()
+    /**
+     * @param pathInContext the path of the content that would be added to the cache
+     * @param length the length of the content that would be added to the cache
+     * @return whether the content is admitted into the cache
+     */
+    private boolean admit(String pathInContext, long length)
     {
-        // While we need to shrink
-        while (_cache.size() > 0 && (_cachedFiles.get() > _maxCachedFiles || _cachedSize.get() > _maxCacheSize))
+        if (length > _maxCacheSize)
+        {
+            _rejections.increment();
+            return false;
+        }
+        try (AutoLock l = _lock.lock())
         {
-            // Scan the entire cache and generate an ordered list by last accessed time.
-            SortedSet<CachedHttpContent> sorted = new TreeSet<>((c1, c2) ->
+            drainReads();
+            _sketch.increment(pathInContext);
+            if (_cachedFiles.get() < _maxCachedFiles && _cachedSize.get() + length <= _maxCacheSize)
+                return true;
+            CachedHttpContent victim = eldest(_probation);
+            if (victim == null)
+                victim = eldest(_protected);
+            if (victim == null || _sketch.frequency(pathInContext) >= _sketch.frequency(victim.getKey()))
+                return true;
+            _rejections.increment();
+            return false;
+        }
+    }
+
+    private void added(CachedHttpContent content)
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            _probation.put(content.getKey(), content);
+        }
+    }
+
+    /**
+     * <p>Records a cache hit without locking, in a lossy buffer
+     * that is periodically applied to the eviction policy.</p>
+     *
+     * @param content the content that was hit
+     */
+    private void accessed(CachedHttpContent content)
+    {
+        long count = _readCount.getAndIncrement();
+        _reads.lazySet((int)(count & (READ_BUFFER_SIZE - 1)), content);
+        if ((count & (READ_BUFFER_SIZE - 1)) == READ_BUFFER_SIZE - 1 && _draining.compareAndSet(false, true))
+        {
+            try (AutoLock l = _lock.lock())
+            {
+                drainReads();
+            }
+            finally
             {
-                if (c1._lastAccessed < c2._lastAccessed)
-                    return -1;
+                _draining.set(false);
+            }
+        }
+    }
 
-                if (c1._lastAccessed > c2._lastAccessed)
-                    return 1;
+    /**
+     * <p>Applies the buffered cache hits to the eviction policy.</p>
+     * <p>Must be called with the lock held, before eviction or admission decisions.</p>
+     */
+    private void drainReads()
+    {
+        for (int i = 0; i < READ_BUFFER_SIZE; ++i)
+        {
+            CachedHttpContent content = _reads.getAndSet(i, null);
+            if (content != null)
+                record(content);
+        }
+    }
 
-                if (c1._contentLengthValue < c2._contentLengthValue)
-                    return -1;
+    private void record(CachedHttpContent content)
+    {
+        String key = content.getKey();
+        _sketch.increment(key);
+        if (_probation.remove(key, content))
+        {
+            _protected.put(key, content);
+            // The protected segment takes up to 80% of the entries,
+            // its least recently used entries are demoted to probation.
+            int maxProtected = _maxCachedFiles - _maxCachedFiles / 5;
+            while (_protected.size() > maxProtected)
+            {
+                CachedHttpContent demoted = eldest(_protected);
+                _protected.remove(demoted.getKey());
+                _probation.put(demoted.getKey(), demoted);
+            }
+        }
+        else
+        {
+            // Update the access order.
+            _protected.get(key);
+        }
+    }
 
-                return c1._key.compareTo(c2._key);
-            });
-            sorted.addAll(_cache.values());
+    private void removed(CachedHttpContent content)
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            if (!_probation.remove(content.getKey(), content))
+                _protected.remove(content.getKey(), content);
+        }
+    }
 
-            // Invalidate least recently used first
-            for (CachedHttpContent content : sorted)
+    private static CachedHttpContent eldest(LinkedHashMap<String, CachedHttpContent> segment)
+    {
+        Iterator<CachedHttpContent> iterator = segment.values().iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private void shrinkCache()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            drainReads();
+            // Evict the least recently used entries, probation first.
+            while (_cachedFiles.get() > _maxCachedFiles || _cachedSize.get() > _maxCacheSize)
             {
-                if (_cachedFiles.get() <= _maxCachedFiles && _cachedSize.get() <= _maxCacheSize)
+                CachedHttpContent victim = eldest(_probation);
+                if (victim == null)
+                    victim = eldest(_protected);
+                if (victim == null)
                     break;
-                if (content == _cache.remove(content.getKey()))
-                    content.invalidate();
+                removed(victim);
+                if (_cache.remove(victim.getKey(), victim))
+                {
+                    _evictions.increment();
+                    victim.invalidate();
+                }
+            }
+        }
+    }
+
+    private void compress(CachedHttpContent content)
+    {
+        Executor executor = getExecutor();
+        if (executor == null || _compressors.isEmpty())
+            return;
+        String mimeType = content.getContentTypeValue();
+        if (mimeType != null && !_compressMimeTypes.test(MimeTypes.getContentTypeWithoutCharset(mimeType)))
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Not compressing {}, excluded mime type {}", content, mimeType);
+            return;
+        }
+        for (CompressedContentFormat format : _precompressedFormats)
+        {
+            Compressor compressor = getCompressor(format);
+            if (compressor != null && !content._precompressed.containsKey(format))
+            {
+                try
+                {
+                    executor.execute(() -> compress(content, format, compressor));
+                }
+                catch (RejectedExecutionException x)
+                {
+                    // The compressed variant is an optimization, skip it.
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Not compressing {} with {}", content, format._encoding, x);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void compress(CachedHttpContent content, CompressedContentFormat format, Compressor compressor)
+    {
+        try
+        {
+            if (_cache.get(content.getKey()) != content || content.getContentLengthValue() > _maxCachedFileSize)
+                return;
+            ByteBuffer buffer = getIndirectBuffer(content.getResource());
+            if (buffer == null)
+                return;
+            int length = buffer.remaining();
+            ByteBuffer compressed = compressor.compress(buffer);
+            // Only keep the compressed bytes if they are worth it.
+            if (compressed == null || compressed.remaining() > length - length / 10)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Not worth compressing {} with {}", content, format._encoding);
+                return;
             }
+            if (content.addCompressed(format, compressed))
+            {
+                _compressions.increment();
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Compressed {} with {} {}->{} bytes", content, format._encoding, length, compressed.remaining());
+                if (_cachedSize.get() > _maxCacheSize)
+                    shrinkCache();
+            }
+        }
+        catch (Throwable x)
+        {
+            LOG.warn("Unable to compress {} with {}", content, format._encoding, x);
         }
     }
 
@@ -391,11 +753,10 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         private final HttpField _lastModified;
         private final long _lastModifiedValue;
         private final HttpField _etag;
-        private final Map<CompressedContentFormat, CachedPrecompressedHttpContent> _precompressed;
+        private volatile Map<CompressedContentFormat, CachedPrecompressedHttpContent> _precompressed;
         private final AtomicReference<ByteBuffer> _indirectBuffer = new AtomicReference<>();
         private final AtomicReference<ByteBuffer> _directBuffer = new AtomicReference<>();
         private final AtomicReference<ByteBuffer> _mappedBuffer = new AtomicReference<>();
-        private volatile long _lastAccessed;
 
         CachedHttpContent(String pathInContext, Resource resource, Map<CompressedContentFormat, CachedHttpContent> precompressedResources)
         {
@@ -415,10 +776,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             _contentLengthValue = exists ? resource.length() : 0;
             _contentLength = new PreEncodedHttpField(HttpHeader.CONTENT_LENGTH, Long.toString(_contentLengthValue));
 
-            if (_cachedFiles.incrementAndGet() > _maxCachedFiles)
-                shrinkCache();
-
-            _lastAccessed = System.currentTimeMillis();
+            _cachedFiles.incrementAndGet();
 
             _etag = CachedContentFactory.this._etags ? new PreEncodedHttpField(HttpHeader.ETAG, resource.getWeakETag()) : null;
 
@@ -467,10 +825,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         boolean isValid()
         {
             if (_lastModifiedValue == _resource.lastModified() && _contentLengthValue == _resource.length())
-            {
-                _lastAccessed = System.currentTimeMillis();
                 return true;
-            }
 
             if (this == _cache.remove(_key))
                 invalidate();
@@ -491,6 +846,32 @@ public class CachedContentFactory implements HttpContent.ContentFactory
 
             _cachedFiles.decrementAndGet();
             _resource.close();
+            try (AutoLock l = _lock.lock())
+            {
+                for (CachedPrecompressedHttpContent precompressed : _precompressed.values())
+                {
+                    if (precompressed instanceof CachedCompressedHttpContent)
+                        _cachedSize.addAndGet(-(int)precompressed.getContentLengthValue());
+                }
+                _precompressed = NO_PRECOMPRESSED;
+                removed(this);
+            }
+        }
+
+        private boolean addCompressed(CompressedContentFormat format, ByteBuffer compressed)
+        {
+            try (AutoLock l = _lock.lock())
+            {
+                // Once invalidated, the content is no longer in the cache
+                // and its cached size must not account for the new variant.
+                if (_cache.get(_key) != this || _precompressed.containsKey(format))
+                    return false;
+                Map<CompressedContentFormat, CachedPrecompressedHttpContent> precompressed = new HashMap<>(_precompressed);
+                precompressed.put(format, new CachedCompressedHttpContent(this, compressed, format));
+                _precompressed = precompressed;
+                _cachedSize.addAndGet(compressed.remaining());
+                return true;
+            }
         }
 
         @Override
@@ -659,15 +1040,16 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         @Override
         public Map<CompressedContentFormat, ? extends HttpContent> getPrecompressedContents()
         {
-            if (_precompressed.size() == 0)
+            Map<CompressedContentFormat, CachedPrecompressedHttpContent> precompressed = _precompressed;
+            if (precompressed.size() == 0)
                 return null;
-            Map<CompressedContentFormat, CachedPrecompressedHttpContent> ret = _precompressed;
-            for (Map.Entry<CompressedContentFormat, CachedPrecompressedHttpContent> entry : _precompressed.entrySet())
+            Map<CompressedContentFormat, CachedPrecompressedHttpContent> ret = precompressed;
+            for (Map.Entry<CompressedContentFormat, CachedPrecompressedHttpContent> entry : precompressed.entrySet())
             {
                 if (!entry.getValue().isValid())
                 {
-                    if (ret == _precompressed)
-                        ret = new HashMap<>(_precompressed);
+                    if (ret == precompressed)
+                        ret = new HashMap<>(precompressed);
                     ret.remove(entry.getKey());
                 }
             }
@@ -717,4 +1099,207 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             return "Cached" + super.toString();
         }
     }
+
+    /**
+     * A precompressed variant of cached content, generated by a {@link Compressor}.
+     */
+    public class CachedCompressedHttpContent extends CachedPrecompressedHttpContent
+    {
+        private final CachedHttpContent _content;
+        private final ByteBuffer _buffer;
+        private final HttpField _contentLength;
+
+        CachedCompressedHttpContent(CachedHttpContent content, ByteBuffer buffer, CompressedContentFormat format)
+        {
+            super(content, content, format);
+            _content = content;
+            _buffer = buffer;
+            _contentLength = new PreEncodedHttpField(HttpHeader.CONTENT_LENGTH, Long.toString(buffer.remaining()));
+        }
+
+        @Override
+        public boolean isValid()
+        {
+            return _content.isValid();
+        }
+
+        @Override
+        public ByteBuffer getIndirectBuffer()
+        {
+            return _buffer.asReadOnlyBuffer();
+        }
+
+        @Override
+        public ByteBuffer getDirectBuffer()
+        {
+            return null;
+        }
+
+        @Override
+        public HttpField getContentLength()
+        {
+            return _contentLength;
+        }
+
+        @Override
+        public long getContentLengthValue()
+        {
+            return _buffer.remaining();
+        }
+
+        @Override
+        public InputStream getInputStream()
+        {
+            return new ByteArrayInputStream(BufferUtil.toArray(_buffer));
+        }
+
+        @Override
+        public ReadableByteChannel getReadableByteChannel()
+        {
+            return null;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("CachedCompressedHttpContent@%x{e=%s,r=%s,l=%d}", hashCode(), getContentEncodingValue(), _content.getResource(), _buffer.remaining());
+        }
+    }
+
+    /**
+     * Compresses the content of cached resources.
+     *
+     * @see #setCompressor(CompressedContentFormat, Compressor)
+     */
+    @FunctionalInterface
+    public interface Compressor
+    {
+        /**
+         * @param content the content to compress
+         * @return the compressed content, in a heap ByteBuffer
+         * @throws IOException if the content cannot be compressed
+         */
+        ByteBuffer compress(ByteBuffer content) throws IOException;
+    }
+
+    /**
+     * A {@link Compressor} for the {@link CompressedContentFormat#GZIP gzip} format.
+     */
+    public static class GzipCompressor implements Compressor
+    {
+        private final int _level;
+
+        public GzipCompressor()
+        {
+            this(Deflater.BEST_COMPRESSION);
+        }
+
+        /**
+         * @param level the compression level, from 0 to 9
+         */
+        public GzipCompressor(int level)
+        {
+            _level = level;
+        }
+
+        @Override
+        public ByteBuffer compress(ByteBuffer content) throws IOException
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.remaining() / 2);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)
+            {
+                {
+                    def.setLevel(_level);
+                }
+            })
+            {
+                ByteBuffer buffer = content.slice();
+                if (buffer.hasArray())
+                    gzip.write(buffer.array(), buffer.arrayOffset(), buffer.remaining());
+                else
+                    gzip.write(BufferUtil.toArray(buffer));
+            }
+            return ByteBuffer.wrap(bytes.toByteArray());
+        }
+    }
+
+    /**
+     * <p>A count-min sketch of 4-bit counters that estimates the access frequency of keys.</p>
+     * <p>Counters are halved periodically so that the frequencies age and
+     * entries that were popular in the past do not stay in the cache forever.</p>
+     */
+    private static class FrequencySketch
+    {
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] _table;
+        private final int _sampleSize;
+        private int _size;
+
+        private FrequencySketch(int maxEntries)
+        {
+            // Each long holds 16 counters, 4 per hash function.
+            int entries = Math.min(Math.max(16, maxEntries), 1 << 24);
+            int length = Integer.highestOneBit(entries - 1) << 1;
+            _table = new long[length / 4];
+            _sampleSize = 10 * entries;
+        }
+
+        private int frequency(String key)
+        {
+            int hash = spread(key.hashCode());
+            int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; ++i)
+            {
+                int index = indexOf(hash, i);
+                int count = (int)((_table[index] >>> ((start + i) << 2)) & 0xF);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        private void increment(String key)
+        {
+            int hash = spread(key.hashCode());
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; ++i)
+            {
+                int index = indexOf(hash, i);
+                int offset = (start + i) << 2;
+                long mask = 0xFL << offset;
+                if ((_table[index] & mask) != mask)
+                {
+                    _table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++_size == _sampleSize)
+                reset();
+        }
+
+        private void reset()
+        {
+            for (int i = 0; i < _table.length; ++i)
+            {
+                _table[i] = (_table[i] >>> 1) & RESET_MASK;
+            }
+            _size /= 2;
+        }
+
+        private int indexOf(int hash, int i)
+        {
+            long h = (hash + 0x9E3779B97F4A7C15L * (i + 1)) * 0xBF58476D1CE4E5B9L;
+            h += h >>> 32;
+            return (int)(h & (_table.length - 1));
+        }
+
+        private static int spread(int hash)
+        {
+            hash = ((hash >>> 16) ^ hash) * 0x45D9F3B;
+            hash = ((hash >>> 16) ^ hash) * 0x45D9F3B;
+            return (hash >>> 16) ^ hash;
+        }
+    }
 }
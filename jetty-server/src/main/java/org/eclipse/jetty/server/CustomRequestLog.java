@@ -340,8 +340,7 @@ public class CustomRequestLog extends ContainerLifeCycle implements RequestLog
 
             _logHandle.invoke(sb, request, response);
 
-            String log = sb.toString();
-            _requestLogWriter.write(log);
+            _requestLogWriter.write(sb);
         }
         catch (Throwable e)
         {
@@ -0,0 +1,143 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.util.ProcessorUtils;
+import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.Name;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+
+/**
+ * <p>A bounded pool of threads dedicated to the blocking file reads of the
+ * {@link java.nio.channels.AsynchronousFileChannel}s used to read file content
+ * ahead of the network writes, so that these reads block neither the request
+ * threads nor the threads of the server thread pool.</p>
+ * <p>An instance must be added as a bean of the {@link Server} for the file content
+ * to be read ahead; the threads are created on demand and exit when idle.</p>
+ *
+ * @see HttpConfiguration#setFileReadAhead(int)
+ */
+@ManagedObject("Executor of the file reads ahead of the network writes")
+public class FileReadExecutor extends AbstractLifeCycle
+{
+    private final AtomicInteger _count = new AtomicInteger();
+    private final String _name;
+    private final int _threads;
+    private final long _idleTimeout;
+    private volatile ThreadPoolExecutor _executor;
+
+    public FileReadExecutor()
+    {
+        this(null, -1, 60000);
+    }
+
+    /**
+     * @param name the name of the threads, or null for an automatic name
+     * @param threads the max number of threads, or -1 for a heuristic
+     * based on the number of available processors
+     * @param idleTimeout the time in ms after which an idle thread exits
+     */
+    public FileReadExecutor(@Name("name") String name, @Name("threads") int threads, @Name("idleTimeout") long idleTimeout)
+    {
+        _name = StringUtil.isBlank(name) ? "FileRead-" + hashCode() : name;
+        _threads = threads > 0 ? threads : Math.max(2, ProcessorUtils.availableProcessors());
+        _idleTimeout = idleTimeout;
+    }
+
+    @ManagedAttribute("The name of the threads")
+    public String getName()
+    {
+        return _name;
+    }
+
+    @ManagedAttribute("The max number of threads")
+    public int getThreads()
+    {
+        return _threads;
+    }
+
+    @ManagedAttribute("The time in ms after which an idle thread exits")
+    public long getIdleTimeout()
+    {
+        return _idleTimeout;
+    }
+
+    @ManagedAttribute("The number of threads reading files")
+    public int getActiveThreads()
+    {
+        ThreadPoolExecutor executor = _executor;
+        return executor == null ? 0 : executor.getActiveCount();
+    }
+
+    @ManagedAttribute("The number of file reads waiting for a thread")
+    public int getQueueSize()
+    {
+        ThreadPoolExecutor executor = _executor;
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+
+    /**
+     * @return the executor to pass to {@link java.nio.channels.AsynchronousFileChannel#open(java.nio.file.Path, java.util.Set, ExecutorService, java.nio.file.attribute.FileAttribute[])},
+     * or null if this executor is not running
+     */
+    public ExecutorService getExecutorService()
+    {
+        return _executor;
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(_threads, _threads, _idleTimeout, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r ->
+        {
+            Thread thread = new Thread(r, _name + "-" + _count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(classLoader);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        _executor = executor;
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        ThreadPoolExecutor executor = _executor;
+        _executor = null;
+        // Let the pending reads complete, so that their buffers are released.
+        executor.shutdown();
+        super.doStop();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,%s,%d/%d,queue=%d}", getClass().getSimpleName(), hashCode(), getState(), _name, getActiveThreads(), _threads, getQueueSize());
+    }
+}
@@ -21,6 +21,7 @@ package org.eclipse.jetty.server;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.EventListener;
 import java.util.List;
@@ -167,6 +168,41 @@ public class HttpChannel implements Runnable, HttpOutput.Interceptor
         return _written;
     }
 
+    /**
+     * @return whether file content can be transferred directly to the transport
+     * @see #transferFile(FileChannel, long, long, Callback)
+     */
+    boolean isFileTransferSupported()
+    {
+        // Listeners are notified of the content buffers, which a file transfer does not have.
+        return _combinedListener == NOOP_LISTENER &&
+            _transientListeners.isEmpty() &&
+            _transport instanceof HttpConnection &&
+            ((HttpConnection)_transport).isFileTransferSupported();
+    }
+
+    /**
+     * <p>Non-blocking transfer of file content directly to the transport.</p>
+     * <p>The response must already be committed with a content length and not be complete.</p>
+     *
+     * @param file the file channel to transfer bytes from
+     * @param position the position in the file of the first byte to transfer
+     * @param length the number of bytes to transfer
+     * @param callback the callback notified when the bytes have been transferred
+     */
+    void transferFile(FileChannel file, long position, long length, Callback callback)
+    {
+        ((HttpConnection)_transport).transferFrom(file, position, length, new Callback.Nested(callback)
+        {
+            @Override
+            public void succeeded()
+            {
+                _written += length;
+                super.succeeded();
+            }
+        });
+    }
+
     /**
      * @return the number of requests handled by this connection
      */
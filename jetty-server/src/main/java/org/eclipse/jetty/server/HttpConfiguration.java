@@ -27,6 +27,7 @@ import org.eclipse.jetty.http.CookieCompliance;
 import org.eclipse.jetty.http.HttpCompliance;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpScheme;
+import org.eclipse.jetty.http.PreEncodedHttpFieldCache;
 import org.eclipse.jetty.util.Jetty;
 import org.eclipse.jetty.util.TreeTrie;
 import org.eclipse.jetty.util.Trie;
@@ -57,6 +58,8 @@ public class HttpConfiguration implements Dumpable
     private int _requestHeaderSize = 8 * 1024;
     private int _responseHeaderSize = 8 * 1024;
     private int _headerCacheSize = 1024;
+    private int _headerCacheMaxSize = -1;
+    private int _sharedHeaderCacheSize = 0;
     private boolean _headerCacheCaseSensitive = false;
     private int _securePort;
     private long _idleTimeout = -1;
@@ -69,6 +72,9 @@ public class HttpConfiguration implements Dumpable
     private int _maxErrorDispatches = 10;
     private boolean _useInputDirectByteBuffers = true;
     private boolean _useOutputDirectByteBuffers = true;
+    private boolean _useSendFile = false;
+    private int _fileReadAhead = 0;
+    private PreEncodedHttpFieldCache _preEncodedFieldCache;
     private long _minRequestDataRate;
     private long _minResponseDataRate;
     private HttpCompliance _httpCompliance = HttpCompliance.RFC7230;
@@ -126,6 +132,8 @@ public class HttpConfiguration implements Dumpable
         _requestHeaderSize = config._requestHeaderSize;
         _responseHeaderSize = config._responseHeaderSize;
         _headerCacheSize = config._headerCacheSize;
+        _headerCacheMaxSize = config._headerCacheMaxSize;
+        _sharedHeaderCacheSize = config._sharedHeaderCacheSize;
         _headerCacheCaseSensitive = config._headerCacheCaseSensitive;
         _secureScheme = config._secureScheme;
         _securePort = config._securePort;
@@ -138,6 +146,9 @@ public class HttpConfiguration implements Dumpable
         _maxErrorDispatches = config._maxErrorDispatches;
         _useInputDirectByteBuffers = config._useInputDirectByteBuffers;
         _useOutputDirectByteBuffers = config._useOutputDirectByteBuffers;
+        _useSendFile = config._useSendFile;
+        _fileReadAhead = config._fileReadAhead;
+        _preEncodedFieldCache = config._preEncodedFieldCache;
         _minRequestDataRate = config._minRequestDataRate;
         _minResponseDataRate = config._minResponseDataRate;
         _httpCompliance = config._httpCompliance;
@@ -199,12 +210,24 @@ public class HttpConfiguration implements Dumpable
         return _responseHeaderSize;
     }
 
-    @ManagedAttribute("The maximum allowed size in bytes for an HTTP header field cache")
+    @ManagedAttribute("The maximum allowed size in trie nodes for an HTTP header field cache")
     public int getHeaderCacheSize()
     {
         return _headerCacheSize;
     }
 
+    @ManagedAttribute("The maximum size in trie nodes a per-connection header field cache may grow to")
+    public int getHeaderCacheMaxSize()
+    {
+        return _headerCacheMaxSize < 0 ? _headerCacheSize : _headerCacheMaxSize;
+    }
+
+    @ManagedAttribute("The size in trie nodes of the header field cache shared across connections")
+    public int getSharedHeaderCacheSize()
+    {
+        return _sharedHeaderCacheSize;
+    }
+
     @ManagedAttribute("True if the header field cache is case sensitive")
     public boolean isHeaderCacheCaseSensitive()
     {
@@ -358,6 +381,82 @@ public class HttpConfiguration implements Dumpable
         return _useOutputDirectByteBuffers;
     }
 
+    /**
+     * <p>Sets whether file content sent with {@link HttpOutput#sendContent(org.eclipse.jetty.http.HttpContent, org.eclipse.jetty.util.Callback)}
+     * is transferred directly from the file to the network with {@link java.nio.channels.FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+     * so that the file bytes are not copied to user space.</p>
+     * <p>This only applies to HTTP/1 responses with a known content length over plain text
+     * connections; SSL, HTTP/2, responses with an {@link HttpOutput.Interceptor} (for example
+     * when gzipped) and {@link HttpChannel.Listener}s that need to see the content bytes use
+     * the normal write path.</p>
+     *
+     * @param useSendFile whether to transfer file content directly to the network
+     */
+    public void setUseSendFile(boolean useSendFile)
+    {
+        _useSendFile = useSendFile;
+    }
+
+    @ManagedAttribute("Whether to transfer file content directly to the network")
+    public boolean isUseSendFile()
+    {
+        return _useSendFile;
+    }
+
+    /**
+     * <p>Sets the number of buffers that are read ahead of the network writes when
+     * file content is sent with {@link HttpOutput#sendContent(org.eclipse.jetty.http.HttpContent, org.eclipse.jetty.util.Callback)}
+     * and cannot be transferred directly to the network.</p>
+     * <p>When greater than zero, the file is read with an {@link java.nio.channels.AsynchronousFileChannel},
+     * so that the reads do not block the request thread, and up to the given number of
+     * buffers are filled while the previous ones are written to the network.
+     * When zero (the default), the file is read by the thread that writes to the network.</p>
+     * <p>The file reads are performed by the {@link FileReadExecutor} bean of the server;
+     * without it, the file is read by the thread that writes to the network.</p>
+     *
+     * @param fileReadAhead the number of buffers read ahead, or zero to read the file synchronously
+     * @see #setUseSendFile(boolean)
+     */
+    public void setFileReadAhead(int fileReadAhead)
+    {
+        _fileReadAhead = fileReadAhead;
+    }
+
+    @ManagedAttribute("The number of buffers read ahead when sending file content asynchronously")
+    public int getFileReadAhead()
+    {
+        return _fileReadAhead;
+    }
+
+    /**
+     * <p>Sets the cache that replaces frequently emitted response fields with their
+     * pre-encoded form, or null to not pre-encode response fields.</p>
+     * <p>The cache is shared with the configurations copied from this configuration.</p>
+     *
+     * @param preEncodedFieldCache the pre-encoded response field cache
+     */
+    public void setPreEncodedFieldCache(PreEncodedHttpFieldCache preEncodedFieldCache)
+    {
+        _preEncodedFieldCache = preEncodedFieldCache;
+    }
+
+    @ManagedAttribute("The pre-encoded response field cache")
+    public PreEncodedHttpFieldCache getPreEncodedFieldCache()
+    {
+        return _preEncodedFieldCache;
+    }
+
+    /**
+     * <p>Sets a new pre-encoded response field cache of the given size.</p>
+     *
+     * @param preEncodedFieldCacheSize the max number of fields of the cache, or 0 to not pre-encode response fields
+     * @see #setPreEncodedFieldCache(PreEncodedHttpFieldCache)
+     */
+    public void setPreEncodedFieldCacheSize(int preEncodedFieldCacheSize)
+    {
+        setPreEncodedFieldCache(preEncodedFieldCacheSize > 0 ? new PreEncodedHttpFieldCache(preEncodedFieldCacheSize) : null);
+    }
+
     /**
      * <p>Sets the {@link Customizer}s that are invoked for every
      * request received.</p>
@@ -423,13 +522,39 @@ public class HttpConfiguration implements Dumpable
     }
 
     /**
-     * @param headerCacheSize The size in bytes of the header field cache.
+     * @param headerCacheSize The size in trie nodes of the header field cache.
      */
     public void setHeaderCacheSize(int headerCacheSize)
     {
         _headerCacheSize = headerCacheSize;
     }
 
+    /**
+     * <p>Sets the maximum size of the header field cache of a persistent connection.</p>
+     * <p>The cache is created with the {@link #setHeaderCacheSize(int) header cache size}
+     * and doubles when a repeated header field does not fit, up to this maximum size.</p>
+     * <p>By default, the maximum size is the header cache size, so the cache does not grow.</p>
+     *
+     * @param headerCacheMaxSize The maximum size in trie nodes of the header field cache,
+     * or a negative value to use the header cache size.
+     */
+    public void setHeaderCacheMaxSize(int headerCacheMaxSize)
+    {
+        _headerCacheMaxSize = headerCacheMaxSize;
+    }
+
+    /**
+     * <p>Sets the size of the header field cache shared across the connections
+     * of a connector, that contains the header fields most frequently seen
+     * on different connections, or 0 to disable the shared cache.</p>
+     *
+     * @param sharedHeaderCacheSize The size in trie nodes of the shared header field cache.
+     */
+    public void setSharedHeaderCacheSize(int sharedHeaderCacheSize)
+    {
+        _sharedHeaderCacheSize = sharedHeaderCacheSize;
+    }
+
     public void setHeaderCacheCaseSensitive(boolean headerCacheCaseSensitive)
     {
         this._headerCacheCaseSensitive = headerCacheCaseSensitive;
@@ -657,6 +782,8 @@ public class HttpConfiguration implements Dumpable
             "requestHeaderSize=" + _requestHeaderSize,
             "responseHeaderSize=" + _responseHeaderSize,
             "headerCacheSize=" + _headerCacheSize,
+            "headerCacheMaxSize=" + getHeaderCacheMaxSize(),
+            "sharedHeaderCacheSize=" + _sharedHeaderCacheSize,
             "secureScheme=" + _secureScheme,
             "securePort=" + _securePort,
             "idleTimeout=" + _idleTimeout,
@@ -671,7 +798,10 @@ public class HttpConfiguration implements Dumpable
             "requestCookieCompliance=" + _requestCookieCompliance,
             "responseCookieCompliance=" + _responseCookieCompliance,
             "notifyRemoteAsyncErrors=" + _notifyRemoteAsyncErrors,
-            "relativeRedirectAllowed=" + _relativeRedirectAllowed
+            "relativeRedirectAllowed=" + _relativeRedirectAllowed,
+            "useSendFile=" + _useSendFile,
+            "fileReadAhead=" + _fileReadAhead,
+            "preEncodedFieldCache=" + _preEncodedFieldCache
         );
     }
 
@@ -20,6 +20,7 @@ package org.eclipse.jetty.server;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.WritePendingException;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -41,6 +42,7 @@ import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.io.EofException;
+import org.eclipse.jetty.io.SocketChannelEndPoint;
 import org.eclipse.jetty.io.WriteFlusher;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
@@ -136,6 +138,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
     {
         HttpParser parser = new HttpParser(newRequestHandler(), getHttpConfiguration().getRequestHeaderSize(), compliance);
         parser.setHeaderCacheSize(getHttpConfiguration().getHeaderCacheSize());
+        parser.setHeaderCacheMaxSize(getHttpConfiguration().getHeaderCacheMaxSize());
         parser.setHeaderCacheCaseSensitive(getHttpConfiguration().isHeaderCacheCaseSensitive());
         return parser;
     }
@@ -633,6 +636,45 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         return bytesOut.longValue();
     }
 
+    /**
+     * @return whether response content can be transferred directly from a file to the endpoint
+     * @see #transferFrom(FileChannel, long, long, Callback)
+     */
+    public boolean isFileTransferSupported()
+    {
+        EndPoint endPoint = getEndPoint();
+        return endPoint instanceof SocketChannelEndPoint && ((SocketChannelEndPoint)endPoint).isFileTransferSupported();
+    }
+
+    /**
+     * <p>Transfers response content directly from a file to the endpoint, bypassing the
+     * generator, see {@link SocketChannelEndPoint#transferFrom(FileChannel, long, long, Callback)}.</p>
+     * <p>The response must have been committed, and the generator must not be chunking, so
+     * that the file bytes can be written as they are.</p>
+     *
+     * @param file the file channel to transfer bytes from
+     * @param position the position in the file of the first byte to transfer
+     * @param length the number of bytes to transfer
+     * @param callback the callback notified when the bytes have been transferred
+     */
+    public void transferFrom(FileChannel file, long position, long length, Callback callback)
+    {
+        if (!isFileTransferSupported() || !_generator.isCommitted() || _generator.isEnd() || _generator.isChunking())
+        {
+            callback.failed(new IllegalStateException("Cannot transfer file " + this));
+            return;
+        }
+        ((SocketChannelEndPoint)getEndPoint()).transferFrom(file, position, length, new Callback.Nested(callback)
+        {
+            @Override
+            public void succeeded()
+            {
+                bytesOut.add(length);
+                super.succeeded();
+            }
+        });
+    }
+
     @Override
     public String toConnectionString()
     {
@@ -20,6 +20,7 @@ package org.eclipse.jetty.server;
 
 import java.util.Objects;
 
+import org.eclipse.jetty.http.HttpFieldCache;
 import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EndPoint;
@@ -34,6 +35,7 @@ import org.eclipse.jetty.util.annotation.Name;
 public class HttpConnectionFactory extends AbstractConnectionFactory implements HttpConfiguration.ConnectionFactory
 {
     private final HttpConfiguration _config;
+    private HttpFieldCache _fieldCache;
     private boolean _recordHttpComplianceViolations;
     private boolean _useInputDirectByteBuffers;
     private boolean _useOutputDirectByteBuffers;
@@ -58,6 +60,15 @@ public class HttpConnectionFactory extends AbstractConnectionFactory implements
         return _config;
     }
 
+    /**
+     * @return the header field cache shared by the connections created by this factory,
+     * that also records the header field cache statistics, or null if this factory is not started
+     */
+    public HttpFieldCache getHttpFieldCache()
+    {
+        return _fieldCache;
+    }
+
     public boolean isRecordHttpComplianceViolations()
     {
         return _recordHttpComplianceViolations;
@@ -88,12 +99,29 @@ public class HttpConnectionFactory extends AbstractConnectionFactory implements
         _useOutputDirectByteBuffers = useOutputDirectByteBuffers;
     }
 
+    @Override
+    protected void doStart() throws Exception
+    {
+        _fieldCache = new HttpFieldCache(_config.getSharedHeaderCacheSize());
+        addBean(_fieldCache);
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        removeBean(_fieldCache);
+        _fieldCache = null;
+    }
+
     @Override
     public Connection newConnection(Connector connector, EndPoint endPoint)
     {
         HttpConnection connection = new HttpConnection(_config, connector, endPoint, isRecordHttpComplianceViolations());
         connection.setUseInputDirectByteBuffers(isUseInputDirectByteBuffers());
         connection.setUseOutputDirectByteBuffers(isUseOutputDirectByteBuffers());
+        connection.getParser().setSharedFieldCache(_fieldCache);
         return configure(connection, connector, endPoint);
     }
 }
@@ -22,12 +22,23 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritePendingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletOutputStream;
@@ -36,6 +47,9 @@ import javax.servlet.ServletResponse;
 import javax.servlet.WriteListener;
 
 import org.eclipse.jetty.http.HttpContent;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.EofException;
 import org.eclipse.jetty.util.BufferUtil;
@@ -195,6 +209,7 @@ public class HttpOutput extends ServletOutputStream implements Runnable
     private WriteListener _writeListener;
     private volatile Throwable _onError;
     private Callback _closedCallback;
+    private FileReadExecutor _fileReadExecutor;
 
     public HttpOutput(HttpChannel channel)
     {
@@ -1281,6 +1296,34 @@ public class HttpOutput extends ServletOutputStream implements Runnable
             if (LOG.isDebugEnabled())
                 LOG.debug("Unable to access ReadableByteChannel for content {}", httpContent, x);
         }
+        if (rbc instanceof FileChannel)
+        {
+            FileChannel file = (FileChannel)rbc;
+            long length = getFileTransferLength(file);
+            if (length > 0)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("sendContent(file={},{}) transfer {}", file, callback, length);
+                if (prepareSendContent(0, callback))
+                    new FileChannelTransferCB(file, length, callback).iterate();
+                else
+                    IO.close(file);
+                return;
+            }
+
+            AsynchronousFileChannel asyncFile = openAsynchronousFileChannel(httpContent);
+            if (asyncFile != null)
+            {
+                IO.close(file);
+                if (LOG.isDebugEnabled())
+                    LOG.debug("sendContent(file={},{}) read ahead", asyncFile, callback);
+                if (prepareSendContent(0, callback))
+                    new AsynchronousFileReadingCB(asyncFile, _channel.getHttpConfiguration().getFileReadAhead(), callback).iterate();
+                else
+                    IO.close(asyncFile);
+                return;
+            }
+        }
         if (rbc != null)
         {
             // Close of the rbc is done by the async sendContent
@@ -1309,6 +1352,75 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         callback.failed(cause);
     }
 
+    /**
+     * @param httpContent the content to send
+     * @return an asynchronous channel to read the file of the content,
+     * or null if the content must be read synchronously
+     * @see HttpConfiguration#setFileReadAhead(int)
+     * @see FileReadExecutor
+     */
+    private AsynchronousFileChannel openAsynchronousFileChannel(HttpContent httpContent)
+    {
+        if (_channel.getHttpConfiguration().getFileReadAhead() <= 0)
+            return null;
+        try
+        {
+            if (_fileReadExecutor == null)
+            {
+                _fileReadExecutor = _channel.getServer().getBean(FileReadExecutor.class);
+                if (_fileReadExecutor == null)
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("No {} bean, reading content synchronously {}", FileReadExecutor.class.getSimpleName(), httpContent);
+                    return null;
+                }
+            }
+            ExecutorService executor = _fileReadExecutor.getExecutorService();
+            if (executor == null)
+                return null;
+            Path path = httpContent.getResource().getFile().toPath();
+            return AsynchronousFileChannel.open(path, Set.of(StandardOpenOption.READ), executor);
+        }
+        catch (Throwable x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Unable to open AsynchronousFileChannel for content {}", httpContent, x);
+            return null;
+        }
+    }
+
+    /**
+     * @param file the file channel of the content to send
+     * @return the number of bytes of the file to transfer directly to the network,
+     * or -1 if the content must be written through the normal write path
+     * @see HttpConfiguration#setUseSendFile(boolean)
+     */
+    private long getFileTransferLength(FileChannel file)
+    {
+        // Interceptors (for example gzip) must see the content.
+        if (!_channel.getHttpConfiguration().isUseSendFile() || _interceptor != _channel || !_channel.isFileTransferSupported())
+            return -1;
+
+        Response response = _channel.getResponse();
+        if (HttpMethod.HEAD.is(_channel.getRequest().getMethod()) ||
+            response.getStatus() != HttpStatus.OK_200 ||
+            response.getHttpFields().contains(HttpHeader.TRANSFER_ENCODING))
+            return -1;
+
+        try
+        {
+            // The file bytes are sent as they are, so their number must be the content length.
+            long length = response.getLongContentLength();
+            if (length > 0 && length == file.size() - file.position())
+                return length;
+        }
+        catch (IOException x)
+        {
+            LOG.trace("IGNORED", x);
+        }
+        return -1;
+    }
+
     public int getBufferSize()
     {
         return _bufferSize;
@@ -1820,6 +1932,287 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         }
     }
 
+    /**
+     * <p>An iterating callback that reads the content of a file with an
+     * {@link AsynchronousFileChannel} and writes it to the {@link HttpChannel}.</p>
+     * <p>Up to {@code depth} buffers of size {@link HttpOutput#getBufferSize()} are read
+     * ahead of the writes, so that reading the file does not block the calling thread
+     * and the disk and the network are used concurrently.
+     * The buffers are written in order, and the reads of a buffer that has been written
+     * are resumed at the next position of the file, until the whole file has been read.</p>
+     */
+    private class AsynchronousFileReadingCB extends NestedChannelWriteCB implements CompletionHandler<Integer, AsynchronousFileReadingCB.Chunk>
+    {
+        private final AutoLock _lock = new AutoLock();
+        private final Queue<Chunk> _chunks = new ArrayDeque<>();
+        private final AsynchronousFileChannel _file;
+        private final int _depth;
+        private long _length;
+        private long _position;
+        private Chunk _writing;
+        private boolean _waiting;
+        private boolean _started;
+        private boolean _completed;
+        private boolean _failed;
+
+        AsynchronousFileReadingCB(AsynchronousFileChannel file, int depth, Callback callback)
+        {
+            super(callback, true);
+            _file = file;
+            _depth = depth;
+        }
+
+        @Override
+        protected Action process() throws Exception
+        {
+            if (!_started)
+            {
+                _started = true;
+                _length = _file.size();
+                for (int i = 0; i < _depth && _position < _length; i++)
+                {
+                    read(new Chunk(_channel.getByteBufferPool().acquire(getBufferSize(), _channel.isUseOutputDirectByteBuffers())));
+                }
+            }
+
+            Chunk written = _writing;
+            _writing = null;
+            if (written != null)
+            {
+                // The buffer has been written, reuse it to read ahead.
+                if (_position < _length)
+                    read(written);
+                else
+                    _channel.getByteBufferPool().release(written._buffer);
+            }
+
+            Chunk chunk;
+            try (AutoLock l = _lock.lock())
+            {
+                chunk = _chunks.peek();
+                if (chunk != null && !chunk._complete)
+                {
+                    // Wait for the read to complete.
+                    _waiting = true;
+                    return Action.SCHEDULED;
+                }
+                _chunks.poll();
+            }
+
+            if (chunk == null)
+            {
+                if (_completed)
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("EOF of {}", this);
+                    IO.close(_file);
+                    return Action.SUCCEEDED;
+                }
+                // Empty file.
+                _completed = true;
+                channelWrite(BufferUtil.EMPTY_BUFFER, true, this);
+                return Action.SCHEDULED;
+            }
+
+            if (chunk._failure != null)
+            {
+                _channel.getByteBufferPool().release(chunk._buffer);
+                throw new IOException(chunk._failure);
+            }
+
+            _writing = chunk;
+            boolean last = chunk._position + chunk._buffer.remaining() >= _length;
+            _completed = last;
+            _written += chunk._buffer.remaining();
+            channelWrite(chunk._buffer, last, this);
+            return Action.SCHEDULED;
+        }
+
+        private void read(Chunk chunk)
+        {
+            chunk._position = _position;
+            int length = (int)Math.min(chunk._buffer.capacity(), _length - _position);
+            _position += length;
+            BufferUtil.clearToFill(chunk._buffer);
+            chunk._buffer.limit(length);
+            chunk._complete = false;
+            try (AutoLock l = _lock.lock())
+            {
+                _chunks.offer(chunk);
+            }
+            read(chunk, chunk._position);
+        }
+
+        private void read(Chunk chunk, long position)
+        {
+            try
+            {
+                _file.read(chunk._buffer, position, chunk, this);
+            }
+            catch (Throwable x)
+            {
+                // For example, the FileReadExecutor has been stopped.
+                failed(x, chunk);
+            }
+        }
+
+        @Override
+        public void completed(Integer read, Chunk chunk)
+        {
+            if (read < 0)
+            {
+                failed(new EofException("Unexpected end of file"), chunk);
+                return;
+            }
+            if (chunk._buffer.hasRemaining())
+            {
+                // Short read, read the rest of the chunk.
+                read(chunk, chunk._position + chunk._buffer.position());
+                return;
+            }
+            chunk._buffer.flip();
+            onRead(chunk, null);
+        }
+
+        @Override
+        public void failed(Throwable x, Chunk chunk)
+        {
+            onRead(chunk, x);
+        }
+
+        private void onRead(Chunk chunk, Throwable failure)
+        {
+            boolean resume;
+            boolean release = false;
+            try (AutoLock l = _lock.lock())
+            {
+                chunk._failure = failure;
+                chunk._complete = true;
+                if (_failed)
+                {
+                    // The read completed after the failure, release its buffer.
+                    release = _chunks.remove(chunk);
+                    resume = false;
+                }
+                else
+                {
+                    resume = _waiting && _chunks.peek() == chunk;
+                    if (resume)
+                        _waiting = false;
+                }
+            }
+            if (release)
+                _channel.getByteBufferPool().release(chunk._buffer);
+            if (resume)
+                succeeded();
+        }
+
+        @Override
+        public void onCompleteFailure(Throwable x)
+        {
+            IO.close(_file);
+
+            // Release the buffers of the completed reads; the buffers
+            // of the pending reads may still be filled, so they are
+            // released by onRead() when their reads complete.
+            List<Chunk> completed = new ArrayList<>();
+            try (AutoLock l = _lock.lock())
+            {
+                _failed = true;
+                _chunks.removeIf(chunk ->
+                {
+                    if (!chunk._complete)
+                        return false;
+                    completed.add(chunk);
+                    return true;
+                });
+            }
+            if (_writing != null)
+            {
+                completed.add(_writing);
+                _writing = null;
+            }
+            ByteBufferPool bufferPool = _channel.getByteBufferPool();
+            completed.forEach(chunk -> bufferPool.release(chunk._buffer));
+
+            super.onCompleteFailure(x);
+        }
+
+        private class Chunk
+        {
+            private final ByteBuffer _buffer;
+            private long _position;
+            private boolean _complete;
+            private Throwable _failure;
+
+            private Chunk(ByteBuffer buffer)
+            {
+                _buffer = buffer;
+            }
+        }
+    }
+
+    /**
+     * An iterating callback that commits the response, transfers the content
+     * of a {@link FileChannel} directly to the network with
+     * {@link HttpChannel#transferFile(FileChannel, long, long, Callback)} and
+     * then completes the response.
+     */
+    private class FileChannelTransferCB extends NestedChannelWriteCB
+    {
+        private final FileChannel _file;
+        private final long _length;
+        private boolean _committed;
+        private boolean _transferred;
+        private boolean _completed;
+
+        FileChannelTransferCB(FileChannel file, long length, Callback callback)
+        {
+            super(callback, true);
+            _file = file;
+            _length = length;
+        }
+
+        @Override
+        protected Action process() throws Exception
+        {
+            if (!_committed)
+            {
+                // Write the response headers, which must be flushed before the file bytes.
+                _committed = true;
+                channelWrite(BufferUtil.EMPTY_BUFFER, false, this);
+                return Action.SCHEDULED;
+            }
+
+            if (!_transferred)
+            {
+                _transferred = true;
+                _written += _length;
+                _channel.transferFile(_file, _file.position(), _length, this);
+                return Action.SCHEDULED;
+            }
+
+            if (!_completed)
+            {
+                _completed = true;
+                channelWrite(BufferUtil.EMPTY_BUFFER, true, this);
+                return Action.SCHEDULED;
+            }
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("EOF of {}", this);
+            IO.close(_file);
+            return Action.SUCCEEDED;
+        }
+
+        @Override
+        public void onCompleteFailure(Throwable x)
+        {
+            IO.close(_file);
+            super.onCompleteFailure(x);
+        }
+    }
+
     private static class WriteBlocker extends SharedBlockingCallback
     {
         private final HttpChannel _channel;
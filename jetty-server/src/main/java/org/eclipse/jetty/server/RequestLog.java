@@ -47,6 +47,20 @@ public interface RequestLog
     interface Writer
     {
         void write(String requestEntry) throws IOException;
+
+        /**
+         * <p>Writes the given log entry, which may be a reused buffer
+         * whose content is only valid for the duration of the call.</p>
+         * <p>The default implementation converts the entry to a String,
+         * writers may override it to avoid the String allocation.</p>
+         *
+         * @param requestEntry the log entry to write
+         * @throws IOException if the entry cannot be written
+         */
+        default void write(CharSequence requestEntry) throws IOException
+        {
+            write(requestEntry.toString());
+        }
     }
 
     class Collection implements RequestLog
@@ -22,8 +22,10 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.TimeZone;
 
+import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.RolloverFileOutputStream;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
@@ -187,6 +189,38 @@ public class RequestLogWriter extends AbstractLifeCycle implements RequestLog.Wr
         }
     }
 
+    /**
+     * <p>Writes the given buffers, each containing one or more already
+     * encoded log entries terminated by a line separator.</p>
+     * <p>When writing to a {@link RolloverFileOutputStream}, the buffers
+     * are written with a single gathering write.</p>
+     *
+     * @param buffers the buffers to write
+     * @param offset the index of the first buffer to write
+     * @param length the number of buffers to write
+     * @throws IOException if the buffers cannot be written
+     */
+    public void write(ByteBuffer[] buffers, int offset, int length) throws IOException
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            if (_out == null)
+                return;
+            if (_out instanceof RolloverFileOutputStream)
+            {
+                ((RolloverFileOutputStream)_out).write(buffers, offset, length);
+            }
+            else
+            {
+                for (int i = offset; i < offset + length; ++i)
+                {
+                    BufferUtil.writeTo(buffers[i], _out);
+                }
+                _out.flush();
+            }
+        }
+    }
+
     @Override
     protected void doStart() throws Exception
     {
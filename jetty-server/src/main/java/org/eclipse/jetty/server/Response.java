@@ -55,6 +55,7 @@ import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.http.MimeTypes;
 import org.eclipse.jetty.http.PreEncodedHttpField;
+import org.eclipse.jetty.http.PreEncodedHttpFieldCache;
 import org.eclipse.jetty.io.RuntimeIOException;
 import org.eclipse.jetty.server.handler.ContextHandler.Context;
 import org.eclipse.jetty.server.session.SessionHandler;
@@ -486,6 +487,26 @@ public class Response implements HttpServletResponse
         }
     }
 
+    /**
+     * Sends a 103-Early Hints response with the given fields, typically
+     * {@code Link} headers that allow the client to preload resources
+     * while the real response is being prepared.
+     * The response is not sent if the response is committed or if the
+     * request is HTTP/1.0, which does not support interim responses.
+     *
+     * @param fields the fields of the 103 response
+     * @throws IOException if unable to send the 103 response
+     */
+    public void sendEarlyHints(HttpFields fields) throws IOException
+    {
+        HttpVersion version = _channel.getRequest().getHttpVersion();
+        if (version != null && version.getVersion() >= HttpVersion.HTTP_1_1.getVersion() && !isCommitted())
+        {
+            MetaData.Response info = new MetaData.Response(HttpVersion.HTTP_1_1, HttpStatus.EARLY_HINTS_103, null, fields, -1);
+            _channel.sendResponse(info, null, true);
+        }
+    }
+
     /**
      * Sends a response with one of the 300 series redirection codes.
      *
@@ -1248,6 +1269,9 @@ public class Response implements HttpServletResponse
 
     protected MetaData.Response newResponseMetaData()
     {
+        PreEncodedHttpFieldCache preEncodedFieldCache = _channel.getHttpConfiguration().getPreEncodedFieldCache();
+        if (preEncodedFieldCache != null)
+            preEncodedFieldCache.preEncode(_fields);
         MetaData.Response info = new MetaData.Response(_channel.getRequest().getHttpVersion(), getStatus(), getReason(), _fields, getLongContentLength(), getTrailers());
         return info;
     }
@@ -0,0 +1,226 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.handler.gzip;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import java.util.zip.Deflater;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.compression.DeflaterPool;
+
+/**
+ * <p>A pool of {@link Deflater}s with one {@link DeflaterPool} per compression level,
+ * used by {@link GzipHandler} when the compression level adapts to the load.</p>
+ * <p>For each compression level, it reports the number of compressed responses,
+ * the number of bytes before and after compression, and the time spent compressing.</p>
+ *
+ * @see GzipHandler#setAdaptiveCompression(boolean)
+ */
+@ManagedObject("Pool of Deflaters by compression level")
+public class AdaptiveDeflaterPool extends ContainerLifeCycle
+{
+    private final LevelPool[] _pools = new LevelPool[Deflater.BEST_COMPRESSION + 1];
+    private final int _minLevel;
+    private final int _maxLevel;
+
+    /**
+     * @param capacity the capacity of the pool of each compression level
+     * @param minLevel the min compression level
+     * @param maxLevel the max compression level
+     */
+    public AdaptiveDeflaterPool(int capacity, int minLevel, int maxLevel)
+    {
+        if (minLevel < Deflater.NO_COMPRESSION || maxLevel > Deflater.BEST_COMPRESSION || minLevel > maxLevel)
+            throw new IllegalArgumentException("Invalid compression levels " + minLevel + "-" + maxLevel);
+        _minLevel = minLevel;
+        _maxLevel = maxLevel;
+        for (int level = minLevel; level <= maxLevel; ++level)
+        {
+            _pools[level] = new LevelPool(capacity, level);
+            addBean(_pools[level]);
+        }
+    }
+
+    public int getMinCompressionLevel()
+    {
+        return _minLevel;
+    }
+
+    public int getMaxCompressionLevel()
+    {
+        return _maxLevel;
+    }
+
+    /**
+     * @param level the compression level, clamped to the range of this pool
+     * @return a Deflater with the given compression level
+     */
+    public Deflater acquire(int level)
+    {
+        level = Math.max(_minLevel, Math.min(_maxLevel, level));
+        return _pools[level].acquire();
+    }
+
+    /**
+     * @param deflater the Deflater to release
+     * @return whether the Deflater was acquired from this pool and has been released
+     */
+    public boolean release(Deflater deflater)
+    {
+        if (!(deflater instanceof LevelDeflater))
+            return false;
+        LevelDeflater levelDeflater = (LevelDeflater)deflater;
+        LevelPool pool = levelDeflater._pool;
+        if (pool != _pools[pool._level])
+            return false;
+        pool._responses.increment();
+        pool._bytesIn.add(levelDeflater.getBytesRead());
+        pool._bytesOut.add(levelDeflater.getBytesWritten());
+        pool._deflateTime.add(levelDeflater._deflateTime);
+        levelDeflater._deflateTime = 0;
+        pool.release(levelDeflater);
+        return true;
+    }
+
+    /**
+     * @param deflater the Deflater to test
+     * @return whether the Deflater was acquired from an AdaptiveDeflaterPool,
+     * not necessarily this one
+     */
+    static boolean isAdaptive(Deflater deflater)
+    {
+        return deflater instanceof LevelDeflater;
+    }
+
+    @ManagedAttribute("The number of compressed responses by compression level")
+    public Map<String, Long> getResponses()
+    {
+        return toMap(pool -> pool._responses.sum());
+    }
+
+    @ManagedAttribute("The number of bytes before compression by compression level")
+    public Map<String, Long> getBytesIn()
+    {
+        return toMap(pool -> pool._bytesIn.sum());
+    }
+
+    @ManagedAttribute("The number of bytes after compression by compression level")
+    public Map<String, Long> getBytesOut()
+    {
+        return toMap(pool -> pool._bytesOut.sum());
+    }
+
+    @ManagedAttribute("The time spent compressing in ms by compression level")
+    public Map<String, Long> getDeflateTime()
+    {
+        return toMap(pool -> TimeUnit.NANOSECONDS.toMillis(pool._deflateTime.sum()));
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        for (int level = _minLevel; level <= _maxLevel; ++level)
+        {
+            LevelPool pool = _pools[level];
+            pool._responses.reset();
+            pool._bytesIn.reset();
+            pool._bytesOut.reset();
+            pool._deflateTime.reset();
+        }
+    }
+
+    private Map<String, Long> toMap(ToLongFunction<LevelPool> value)
+    {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int level = _minLevel; level <= _maxLevel; ++level)
+        {
+            result.put(String.valueOf(level), value.applyAsLong(_pools[level]));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,levels=%d-%d}", getClass().getSimpleName(), hashCode(), getState(), _minLevel, _maxLevel);
+    }
+
+    private static class LevelPool extends DeflaterPool
+    {
+        private final LongAdder _responses = new LongAdder();
+        private final LongAdder _bytesIn = new LongAdder();
+        private final LongAdder _bytesOut = new LongAdder();
+        private final LongAdder _deflateTime = new LongAdder();
+        private final int _level;
+
+        private LevelPool(int capacity, int level)
+        {
+            super(capacity, level, true);
+            _level = level;
+        }
+
+        @Override
+        protected Deflater newObject()
+        {
+            return new LevelDeflater(this);
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s{level=%d}", super.toString(), _level);
+        }
+    }
+
+    /**
+     * A Deflater that records the time spent compressing, reset when released to its pool.
+     */
+    private static class LevelDeflater extends Deflater
+    {
+        private final LevelPool _pool;
+        private long _deflateTime;
+
+        private LevelDeflater(LevelPool pool)
+        {
+            super(pool._level, true);
+            _pool = pool;
+        }
+
+        @Override
+        public int deflate(byte[] b, int off, int len, int flush)
+        {
+            long begin = System.nanoTime();
+            try
+            {
+                return super.deflate(b, off, len, flush);
+            }
+            finally
+            {
+                _deflateTime += System.nanoTime() - begin;
+            }
+        }
+    }
+}
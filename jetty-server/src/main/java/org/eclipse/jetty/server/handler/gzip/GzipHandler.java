@@ -42,7 +42,9 @@ import org.eclipse.jetty.http.MimeTypes;
 import org.eclipse.jetty.http.PreEncodedHttpField;
 import org.eclipse.jetty.http.pathmap.PathSpecSet;
 import org.eclipse.jetty.server.HttpOutput;
+import org.eclipse.jetty.server.LowResourceMonitor;
 import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.HandlerWrapper;
 import org.eclipse.jetty.util.AsciiLowerCaseSet;
 import org.eclipse.jetty.util.IncludeExclude;
@@ -50,6 +52,8 @@ import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.compression.CompressionPool;
 import org.eclipse.jetty.util.compression.DeflaterPool;
 import org.eclipse.jetty.util.compression.InflaterPool;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -175,6 +179,14 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     private final IncludeExclude<String> _paths = new IncludeExclude<>(PathSpecSet.class);
     private final IncludeExclude<String> _mimeTypes = new IncludeExclude<>(AsciiLowerCaseSet.class);
     private HttpField _vary = GzipHttpOutputInterceptor.VARY_ACCEPT_ENCODING;
+    private boolean _adaptiveCompression;
+    private int _minCompressionLevel = Deflater.BEST_SPEED;
+    private int _maxCompressionLevel = 6;
+    private double _lowLoadThreshold = 0.5;
+    private double _highLoadThreshold = 0.9;
+    private int _highLoadMinGzipSize = 1024;
+    private AdaptiveDeflaterPool _adaptiveDeflaterPool;
+    private LowResourceMonitor _lowResourceMonitor;
 
     /**
      * Instantiates a new GzipHandler.
@@ -209,6 +221,186 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
         addBean(_inflaterPool);
     }
 
+    @Override
+    protected void doStart() throws Exception
+    {
+        if (isAdaptiveCompression())
+        {
+            _adaptiveDeflaterPool = new AdaptiveDeflaterPool(getDeflaterPoolCapacity(), getMinCompressionLevel(), getMaxCompressionLevel());
+            addBean(_adaptiveDeflaterPool);
+            Server server = getServer();
+            _lowResourceMonitor = server == null ? null : server.getBean(LowResourceMonitor.class);
+        }
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        if (_adaptiveDeflaterPool != null)
+            removeBean(_adaptiveDeflaterPool);
+        _adaptiveDeflaterPool = null;
+        _lowResourceMonitor = null;
+    }
+
+    /**
+     * @return whether the compression level adapts to the load
+     * @see #setAdaptiveCompression(boolean)
+     */
+    public boolean isAdaptiveCompression()
+    {
+        return _adaptiveCompression;
+    }
+
+    /**
+     * <p>Sets whether the compression level adapts to the load of the server.</p>
+     * <p>When the load, as reported by {@link #getLoad()}, is below the
+     * {@link #getLowLoadThreshold() low load threshold}, responses are compressed with
+     * the {@link #getMaxCompressionLevel() max compression level}; as the load grows to
+     * the {@link #getHighLoadThreshold() high load threshold}, the compression level
+     * decreases to the {@link #getMinCompressionLevel() min compression level}, trading
+     * compression ratio for CPU time. Above the high load threshold, responses smaller
+     * than {@link #getHighLoadMinGzipSize()} are not compressed.</p>
+     * <p>The Deflaters of each compression level are pooled separately, and the statistics
+     * of each compression level are reported by the {@link AdaptiveDeflaterPool} bean.</p>
+     *
+     * @param adaptiveCompression whether the compression level adapts to the load
+     */
+    public void setAdaptiveCompression(boolean adaptiveCompression)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _adaptiveCompression = adaptiveCompression;
+    }
+
+    /**
+     * @return the compression level used under high load, when the compression is adaptive
+     */
+    public int getMinCompressionLevel()
+    {
+        return _minCompressionLevel;
+    }
+
+    /**
+     * @param level the compression level used under high load, when the compression is adaptive
+     */
+    public void setMinCompressionLevel(int level)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _minCompressionLevel = level;
+    }
+
+    /**
+     * @return the compression level used under low load, when the compression is adaptive
+     */
+    public int getMaxCompressionLevel()
+    {
+        return _maxCompressionLevel;
+    }
+
+    /**
+     * @param level the compression level used under low load, when the compression is adaptive
+     */
+    public void setMaxCompressionLevel(int level)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _maxCompressionLevel = level;
+    }
+
+    /**
+     * @return the load below which the max compression level is used
+     */
+    public double getLowLoadThreshold()
+    {
+        return _lowLoadThreshold;
+    }
+
+    /**
+     * @param threshold the load, between 0 and 1, below which the max compression level is used
+     */
+    public void setLowLoadThreshold(double threshold)
+    {
+        _lowLoadThreshold = threshold;
+    }
+
+    /**
+     * @return the load above which the min compression level is used
+     */
+    public double getHighLoadThreshold()
+    {
+        return _highLoadThreshold;
+    }
+
+    /**
+     * @param threshold the load, between 0 and 1, above which the min compression level is used
+     */
+    public void setHighLoadThreshold(double threshold)
+    {
+        _highLoadThreshold = threshold;
+    }
+
+    /**
+     * @return the min size of the responses compressed when the load is above the high load threshold
+     */
+    public int getHighLoadMinGzipSize()
+    {
+        return _highLoadMinGzipSize;
+    }
+
+    /**
+     * @param size the min size of the responses compressed when the load is above the high load threshold
+     */
+    public void setHighLoadMinGzipSize(int size)
+    {
+        _highLoadMinGzipSize = size;
+    }
+
+    /**
+     * <p>Returns the load of the server, used to select the compression level when
+     * the compression is adaptive.</p>
+     * <p>The load is 1 when a {@link LowResourceMonitor} reports low resources or when
+     * jobs are queued in the {@link QueuedThreadPool}; otherwise it is the ratio of
+     * busy threads over the max number of threads.</p>
+     *
+     * @return the load of the server, between 0 and 1
+     */
+    protected double getLoad()
+    {
+        LowResourceMonitor monitor = _lowResourceMonitor;
+        if (monitor != null && monitor.isLowOnResources())
+            return 1.0;
+        Server server = getServer();
+        ThreadPool threadPool = server == null ? null : server.getThreadPool();
+        if (threadPool instanceof QueuedThreadPool)
+        {
+            QueuedThreadPool qtp = (QueuedThreadPool)threadPool;
+            if (qtp.getQueueSize() > 0)
+                return 1.0;
+            return Math.min(1.0, (double)qtp.getBusyThreads() / qtp.getMaxThreads());
+        }
+        return threadPool != null && threadPool.isLowOnThreads() ? 1.0 : 0.0;
+    }
+
+    /**
+     * @param load the load of the server
+     * @return the compression level for the given load
+     */
+    protected int getCompressionLevel(double load)
+    {
+        int min = getMinCompressionLevel();
+        int max = getMaxCompressionLevel();
+        double low = getLowLoadThreshold();
+        double high = getHighLoadThreshold();
+        if (load <= low)
+            return max;
+        if (load >= high)
+            return min;
+        return max - (int)Math.round((max - min) * (load - low) / (high - low));
+    }
+
     /**
      * @return The VARY field to use.
      */
@@ -433,6 +625,21 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
             return null;
         }
 
+        AdaptiveDeflaterPool adaptiveDeflaterPool = _adaptiveDeflaterPool;
+        if (adaptiveDeflaterPool != null)
+        {
+            double load = getLoad();
+            if (load >= getHighLoadThreshold() && contentLength >= 0 && contentLength < getHighLoadMinGzipSize())
+            {
+                LOG.debug("{} excluded highLoadMinGzipSize {}", this, request);
+                return null;
+            }
+            int level = getCompressionLevel(load);
+            if (LOG.isDebugEnabled())
+                LOG.debug("{} compression level {} for load {} {}", this, level, load, request);
+            return adaptiveDeflaterPool.acquire(level);
+        }
+
         return _deflaterPool.acquire();
     }
 
@@ -733,7 +940,15 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     @Override
     public void recycle(Deflater deflater)
     {
-        _deflaterPool.release(deflater);
+        AdaptiveDeflaterPool adaptiveDeflaterPool = _adaptiveDeflaterPool;
+        if (adaptiveDeflaterPool != null && adaptiveDeflaterPool.release(deflater))
+            return;
+        // A Deflater acquired before a stop or restart belongs to a discarded pool,
+        // and must not end up in the default pool with the wrong compression level.
+        if (AdaptiveDeflaterPool.isAdaptive(deflater))
+            deflater.end();
+        else
+            _deflaterPool.release(deflater);
     }
 
     /**
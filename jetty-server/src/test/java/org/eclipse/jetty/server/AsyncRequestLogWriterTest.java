@@ -0,0 +1,152 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDir;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDirExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(WorkDirExtension.class)
+public class AsyncRequestLogWriterTest
+{
+    public WorkDir workDir;
+
+    @Test
+    public void testConcurrentWritesBlockWhenFull() throws Exception
+    {
+        Path file = workDir.getEmptyPathDir().resolve("request.log");
+        AsyncRequestLogWriter writer = new AsyncRequestLogWriter(file.toString(), 16);
+        writer.setBlockWhenFull(true);
+        writer.setMaxBatchSize(8);
+        writer.start();
+
+        int threads = 8;
+        int entries = 1000;
+        writeConcurrently(writer, threads, entries);
+        writer.stop();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(threads * entries, lines.size());
+        assertEquals(threads * entries, new HashSet<>(lines).size());
+        assertEquals(0, writer.getDroppedEntries());
+    }
+
+    @Test
+    public void testConcurrentWritesDropWhenFull() throws Exception
+    {
+        Path file = workDir.getEmptyPathDir().resolve("request.log");
+        AsyncRequestLogWriter writer = new AsyncRequestLogWriter(file.toString(), 4);
+        writer.start();
+
+        int threads = 8;
+        int entries = 1000;
+        writeConcurrently(writer, threads, entries);
+        writer.stop();
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines.size(), greaterThan(0));
+        assertEquals(threads * entries, lines.size() + writer.getDroppedEntries());
+        for (String line : lines)
+        {
+            assertTrue(line.matches("thread=\\d+ entry=\\d+"), line);
+        }
+    }
+
+    @Test
+    public void testWriteStringOverride() throws Exception
+    {
+        Path file = workDir.getEmptyPathDir().resolve("request.log");
+        List<String> entries = new CopyOnWriteArrayList<>();
+        AsyncRequestLogWriter writer = new AsyncRequestLogWriter(file.toString(), 16)
+        {
+            @Override
+            public void write(String log) throws IOException
+            {
+                entries.add(log);
+                super.write(log);
+            }
+        };
+        writer.start();
+        writer.write(new StringBuilder("entry"));
+        writer.stop();
+
+        assertEquals(List.of("entry"), entries);
+        assertEquals(List.of("entry"), Files.readAllLines(file));
+    }
+
+    @Test
+    public void testWriteAfterStop() throws Exception
+    {
+        Path file = workDir.getEmptyPathDir().resolve("request.log");
+        AsyncRequestLogWriter writer = new AsyncRequestLogWriter(file.toString(), 16);
+        writer.start();
+        writer.write("before");
+        writer.stop();
+        writer.write("after");
+
+        assertEquals(0, writer.getQueueSize());
+        assertEquals(0, writer.getDroppedEntries());
+        assertEquals(List.of("before"), Files.readAllLines(file));
+    }
+
+    private void writeConcurrently(AsyncRequestLogWriter writer, int threads, int entries) throws Exception
+    {
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; ++t)
+        {
+            int thread = t;
+            writers.add(new Thread(() ->
+            {
+                StringBuilder builder = new StringBuilder();
+                for (int i = 0; i < entries; ++i)
+                {
+                    builder.setLength(0);
+                    builder.append("thread=").append(thread).append(" entry=").append(i);
+                    try
+                    {
+                        writer.write(builder);
+                    }
+                    catch (Exception x)
+                    {
+                        throw new RuntimeException(x);
+                    }
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        for (Thread thread : writers)
+        {
+            thread.join();
+        }
+    }
+}
@@ -19,14 +19,19 @@
 package org.eclipse.jetty.server;
 
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
 
 import org.eclipse.jetty.http.CompressedContentFormat;
 import org.eclipse.jetty.http.HttpContent;
@@ -36,6 +41,7 @@ import org.eclipse.jetty.toolchain.test.FS;
 import org.eclipse.jetty.toolchain.test.jupiter.WorkDir;
 import org.eclipse.jetty.toolchain.test.jupiter.WorkDirExtension;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.IO;
 import org.eclipse.jetty.util.resource.PathResource;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.resource.ResourceCollection;
@@ -43,6 +49,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
@@ -347,6 +355,173 @@ public class ResourceCacheTest
         cache.flushCache();
     }
 
+    @Test
+    public void testScanDoesNotEvictFrequentlyUsedContent() throws Exception
+    {
+        Path basePath = workDir.getEmptyPathDir();
+        for (int i = 0; i < 10; i++)
+        {
+            Files.write(basePath.resolve("S-" + i + ".txt"), ("content " + i).getBytes(UTF_8));
+        }
+
+        CachedContentFactory cache = new CachedContentFactory(null, new PathResource(basePath), new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        cache.setMaxCachedFiles(4);
+
+        // Hit two files a few times, so that they are promoted.
+        for (int i = 0; i < 3; i++)
+        {
+            assertEquals("content 0", getContent(cache, "S-0.txt"));
+            assertEquals("content 1", getContent(cache, "S-1.txt"));
+        }
+        assertEquals(2, cache.getCacheMisses());
+        assertEquals(4, cache.getCacheHits());
+
+        // Scan the other files once.
+        for (int i = 2; i < 10; i++)
+        {
+            assertEquals("content " + i, getContent(cache, "S-" + i + ".txt"));
+        }
+        assertEquals(4, cache.getCachedFiles());
+        assertThat(cache.getCacheEvictions(), is(6L));
+
+        // The frequently used files are still cached.
+        assertThat(cache.getContent("S-0.txt", 4096), instanceOf(CachedContentFactory.CachedHttpContent.class));
+        assertThat(cache.getContent("S-1.txt", 4096), instanceOf(CachedContentFactory.CachedHttpContent.class));
+        assertEquals(6, cache.getCacheHits());
+
+        cache.flushCache();
+        assertEquals(0, cache.getCachedFiles());
+    }
+
+    @Test
+    public void testInfrequentContentNotAdmitted() throws Exception
+    {
+        Path basePath = workDir.getEmptyPathDir();
+        for (int i = 0; i < 3; i++)
+        {
+            Files.write(basePath.resolve("A-" + i + ".txt"), ("content " + i).getBytes(UTF_8));
+        }
+
+        CachedContentFactory cache = new CachedContentFactory(null, new PathResource(basePath), new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        cache.setMaxCachedFiles(2);
+
+        for (int i = 0; i < 3; i++)
+        {
+            assertEquals("content 0", getContent(cache, "A-0.txt"));
+            assertEquals("content 1", getContent(cache, "A-1.txt"));
+        }
+
+        // The cache is full of more frequently used content.
+        HttpContent content = cache.getContent("A-2.txt", 4096);
+        assertThat(content, not(instanceOf(CachedContentFactory.CachedHttpContent.class)));
+        assertEquals("content 2", BufferUtil.toString(content.getIndirectBuffer()));
+        assertEquals(1, cache.getCacheRejections());
+        assertEquals(2, cache.getCachedFiles());
+        assertEquals(0, cache.getCacheEvictions());
+
+        cache.resetStatistics();
+        assertEquals(0, cache.getCacheRejections());
+    }
+
+    @Test
+    public void testInfrequentContentNotAdmittedWhenCacheSizeExceeded() throws Exception
+    {
+        Path basePath = workDir.getEmptyPathDir();
+        for (int i = 0; i < 4; i++)
+        {
+            Files.write(basePath.resolve("A-" + i + ".txt"), ("content " + i).getBytes(UTF_8));
+        }
+
+        CachedContentFactory cache = new CachedContentFactory(null, new PathResource(basePath), new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        cache.setMaxCachedFiles(10);
+        cache.setMaxCacheSize(30);
+
+        for (int i = 0; i < 3; i++)
+        {
+            assertEquals("content 0", getContent(cache, "A-0.txt"));
+            assertEquals("content 1", getContent(cache, "A-1.txt"));
+            assertEquals("content 2", getContent(cache, "A-2.txt"));
+        }
+        assertEquals(27, cache.getCachedSize());
+
+        // There is room for more files, but not for more bytes.
+        HttpContent content = cache.getContent("A-3.txt", 4096);
+        assertThat(content, not(instanceOf(CachedContentFactory.CachedHttpContent.class)));
+        assertEquals("content 3", BufferUtil.toString(content.getIndirectBuffer()));
+        assertEquals(1, cache.getCacheRejections());
+        assertEquals(3, cache.getCachedFiles());
+        assertEquals(0, cache.getCacheEvictions());
+    }
+
+    @Test
+    public void testCompressCachedContent() throws Exception
+    {
+        Path basePath = workDir.getEmptyPathDir();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100; i++)
+        {
+            builder.append("var line").append(i).append(" = 'compressible';\n");
+        }
+        String text = builder.toString();
+        Files.write(basePath.resolve("script.js"), text.getBytes(UTF_8));
+
+        CompressedContentFormat[] formats = {CompressedContentFormat.GZIP};
+        CachedContentFactory cache = new CachedContentFactory(null, new PathResource(basePath), new MimeTypes(), false, true, formats);
+        cache.setCompressor(CompressedContentFormat.GZIP, new CachedContentFactory.GzipCompressor());
+        cache.setExecutor(Runnable::run);
+
+        HttpContent content = cache.getContent("script.js", 4096);
+        assertThat(content, instanceOf(CachedContentFactory.CachedHttpContent.class));
+        assertEquals(1, cache.getCompressions());
+
+        HttpContent compressed = content.getPrecompressedContents().get(CompressedContentFormat.GZIP);
+        assertThat(compressed, is(not(nullValue())));
+        assertEquals("gzip", compressed.getContentEncodingValue());
+        assertThat(compressed.getETagValue(), containsString("--gzip"));
+        assertTrue(compressed.getContentLengthValue() < text.length());
+        assertEquals(compressed.getContentLengthValue(), cache.getCachedSize());
+
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(BufferUtil.toArray(compressed.getIndirectBuffer()))))
+        {
+            assertEquals(text, IO.toString(input, UTF_8));
+        }
+
+        cache.flushCache();
+        assertEquals(0, cache.getCachedSize());
+        assertEquals(0, cache.getCachedFiles());
+    }
+
+    @Test
+    public void testCompressCachedContentSkipped() throws Exception
+    {
+        Path basePath = workDir.getEmptyPathDir();
+        byte[] bytes = new byte[1024];
+        Files.write(basePath.resolve("image.png"), bytes);
+        Files.write(basePath.resolve("script.js"), bytes);
+
+        CompressedContentFormat[] formats = {CompressedContentFormat.GZIP};
+        CachedContentFactory cache = new CachedContentFactory(null, new PathResource(basePath), new MimeTypes(), false, true, formats);
+        cache.setCompressor(CompressedContentFormat.GZIP, new CachedContentFactory.GzipCompressor());
+        AtomicInteger executions = new AtomicInteger();
+        cache.setExecutor(task ->
+        {
+            executions.incrementAndGet();
+            throw new RejectedExecutionException();
+        });
+
+        // Already compressed content types are not compressed.
+        HttpContent content = cache.getContent("image.png", 4096);
+        assertThat(content, instanceOf(CachedContentFactory.CachedHttpContent.class));
+        assertEquals(0, executions.get());
+
+        // A rejected compression does not fail the request.
+        content = cache.getContent("script.js", 4096);
+        assertThat(content, instanceOf(CachedContentFactory.CachedHttpContent.class));
+        assertEquals(1, executions.get());
+        assertEquals(0, cache.getCompressions());
+        assertThat(content.getPrecompressedContents(), is(nullValue()));
+    }
+
     @Test
     public void testNoextension() throws Exception
     {
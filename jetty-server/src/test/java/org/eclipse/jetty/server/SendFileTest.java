@@ -0,0 +1,231 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.tools.HttpTester;
+import org.eclipse.jetty.io.ManagedSelector;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.io.SocketChannelEndPoint;
+import org.eclipse.jetty.server.handler.ResourceHandler;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDir;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDirExtension;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.resource.PathResource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(WorkDirExtension.class)
+public class SendFileTest
+{
+    public WorkDir workDir;
+    private final AtomicInteger _transfers = new AtomicInteger();
+    private final AtomicInteger _acquiredOutputBuffers = new AtomicInteger();
+    private final AtomicInteger _releasedOutputBuffers = new AtomicInteger();
+    private Server _server;
+    private ServerConnector _connector;
+    private HttpConfiguration _httpConfig;
+    private byte[] _content;
+
+    @BeforeEach
+    public void init() throws Exception
+    {
+        Path dir = workDir.getEmptyPathDir();
+        _content = new byte[4 * 1024 * 1024];
+        new Random().nextBytes(_content);
+        Files.write(dir.resolve("big.bin"), _content);
+
+        _server = new Server();
+        _httpConfig = new HttpConfiguration();
+        _httpConfig.setUseSendFile(true);
+        // Count the output buffers, to verify how the file content is read.
+        MappedByteBufferPool bufferPool = new MappedByteBufferPool()
+        {
+            @Override
+            public ByteBuffer acquire(int size, boolean direct)
+            {
+                if (size == _httpConfig.getOutputBufferSize())
+                    _acquiredOutputBuffers.incrementAndGet();
+                return super.acquire(size, direct);
+            }
+
+            @Override
+            public void release(ByteBuffer buffer)
+            {
+                if (buffer.capacity() == _httpConfig.getOutputBufferSize())
+                    _releasedOutputBuffers.incrementAndGet();
+                super.release(buffer);
+            }
+        };
+        _connector = new ServerConnector(_server, null, null, bufferPool, -1, -1, new HttpConnectionFactory(_httpConfig))
+        {
+            @Override
+            protected SocketChannelEndPoint newEndPoint(SocketChannel channel, ManagedSelector selectSet, SelectionKey key)
+            {
+                SocketChannelEndPoint endPoint = new SocketChannelEndPoint(channel, selectSet, key, getScheduler())
+                {
+                    @Override
+                    public void transferFrom(FileChannel file, long position, long length, Callback callback)
+                    {
+                        _transfers.incrementAndGet();
+                        super.transferFrom(file, position, length, callback);
+                    }
+                };
+                endPoint.setIdleTimeout(getIdleTimeout());
+                return endPoint;
+            }
+        };
+        _server.addConnector(_connector);
+        _server.addBean(new FileReadExecutor("fileread", 2, 60000));
+        ResourceHandler handler = new ResourceHandler();
+        handler.setBaseResource(new PathResource(dir));
+        _server.setHandler(handler);
+        _server.start();
+    }
+
+    @AfterEach
+    public void destroy() throws Exception
+    {
+        _server.stop();
+    }
+
+    private static void send(OutputStream output, String method, boolean close) throws IOException
+    {
+        String request = method + " /big.bin HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            (close ? "Connection: close\r\n" : "") +
+            "\r\n";
+        output.write(request.getBytes(StandardCharsets.ISO_8859_1));
+        output.flush();
+    }
+
+    private static HttpTester.Response get(InputStream input, OutputStream output, boolean close) throws IOException
+    {
+        send(output, "GET", close);
+        return HttpTester.parseResponse(HttpTester.from(input));
+    }
+
+    @Test
+    public void testSendFilePersistent() throws Exception
+    {
+        try (Socket socket = new Socket("localhost", _connector.getLocalPort()))
+        {
+            HttpTester.Response response = get(socket.getInputStream(), socket.getOutputStream(), false);
+            assertNotNull(response);
+            assertThat(response.getStatus(), is(HttpStatus.OK_200));
+            assertArrayEquals(_content, response.getContentBytes());
+
+            // The connection is still usable after the file transfer.
+            response = get(socket.getInputStream(), socket.getOutputStream(), true);
+            assertNotNull(response);
+            assertThat(response.getStatus(), is(HttpStatus.OK_200));
+            assertArrayEquals(_content, response.getContentBytes());
+        }
+        assertThat(_transfers.get(), is(2));
+    }
+
+    @Test
+    public void testSendFileDisabled() throws Exception
+    {
+        _httpConfig.setUseSendFile(false);
+        try (Socket socket = new Socket("localhost", _connector.getLocalPort()))
+        {
+            HttpTester.Response response = get(socket.getInputStream(), socket.getOutputStream(), true);
+            assertNotNull(response);
+            assertThat(response.getStatus(), is(HttpStatus.OK_200));
+            assertArrayEquals(_content, response.getContentBytes());
+        }
+        assertThat(_transfers.get(), is(0));
+    }
+
+    @Test
+    public void testFileReadAhead() throws Exception
+    {
+        int readAhead = 4;
+        _httpConfig.setUseSendFile(false);
+        _httpConfig.setFileReadAhead(readAhead);
+        try (Socket socket = new Socket("localhost", _connector.getLocalPort()))
+        {
+            HttpTester.Response response = get(socket.getInputStream(), socket.getOutputStream(), false);
+            assertNotNull(response);
+            assertThat(response.getStatus(), is(HttpStatus.OK_200));
+            assertArrayEquals(_content, response.getContentBytes());
+
+            // The connection is still usable after the file has been read ahead.
+            response = get(socket.getInputStream(), socket.getOutputStream(), true);
+            assertNotNull(response);
+            assertThat(response.getStatus(), is(HttpStatus.OK_200));
+            assertArrayEquals(_content, response.getContentBytes());
+        }
+        assertThat(_transfers.get(), is(0));
+        // The file has been read by the dedicated threads, not by the server thread pool.
+        assertTrue(Thread.getAllStackTraces().keySet().stream().anyMatch(thread -> thread.getName().startsWith("fileread-")));
+        // The file has been read ahead in multiple buffers for each response,
+        // while the synchronous read uses a single buffer for each response.
+        assertThat(_acquiredOutputBuffers.get(), greaterThanOrEqualTo(2 * readAhead));
+        // All the read ahead buffers have been released.
+        int loops = 0;
+        while (_releasedOutputBuffers.get() != _acquiredOutputBuffers.get() && ++loops < 50)
+        {
+            Thread.sleep(100);
+        }
+        assertThat(_releasedOutputBuffers.get(), is(_acquiredOutputBuffers.get()));
+    }
+
+    @Test
+    public void testHeadNotTransferred() throws Exception
+    {
+        try (Socket socket = new Socket("localhost", _connector.getLocalPort()))
+        {
+            send(socket.getOutputStream(), "HEAD", true);
+            String response = IO.toString(socket.getInputStream());
+            assertThat(response, startsWith("HTTP/1.1 200 OK\r\n"));
+            assertThat(response, containsString("Content-Length: " + _content.length + "\r\n"));
+            assertThat(response, endsWith("\r\n\r\n"));
+        }
+        assertThat(_transfers.get(), is(0));
+    }
+}
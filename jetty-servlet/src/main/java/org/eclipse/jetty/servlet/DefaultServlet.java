@@ -21,6 +21,7 @@ package org.eclipse.jetty.servlet;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.StringTokenizer;
 import javax.servlet.ServletContext;
@@ -86,6 +87,13 @@ import org.slf4j.LoggerFactory;
  *                    If set to a boolean True, then a default set of compressed formats
  *                    will be used, otherwise no precompressed formats.
  *
+ *  compressCachedContent
+ *                    If set to true, cached content for which no precompressed gzip
+ *                    resource exists is compressed once in the background, kept in
+ *                    the cache and served as a precompressed gzip variant (default false).
+ *                    Requires the cache to be enabled, and enables the gzip precompressed
+ *                    format if it is not already configured.
+ *
  *  resourceBase      Set to replace the context resource base
  *
  *  resourceCache     If set, this is a context attribute name, which the servlet
@@ -177,6 +185,13 @@ public class DefaultServlet extends HttpServlet implements ResourceFactory, Welc
         _resourceService.setDirAllowed(getInitBoolean("dirAllowed", _resourceService.isDirAllowed()));
         _resourceService.setRedirectWelcome(getInitBoolean("redirectWelcome", _resourceService.isRedirectWelcome()));
         _resourceService.setPrecompressedFormats(parsePrecompressedFormats(getInitParameter("precompressed"), getInitBoolean("gzip", false)));
+        boolean compressCachedContent = getInitBoolean("compressCachedContent", false);
+        if (compressCachedContent && getGzipFormat(_resourceService.getPrecompressedFormats()) == null)
+        {
+            List<CompressedContentFormat> formats = new ArrayList<>(Arrays.asList(_resourceService.getPrecompressedFormats()));
+            formats.add(CompressedContentFormat.GZIP);
+            _resourceService.setPrecompressedFormats(formats.toArray(new CompressedContentFormat[0]));
+        }
         _resourceService.setPathInfoOnly(getInitBoolean("pathInfoOnly", _resourceService.isPathInfoOnly()));
         _resourceService.setEtags(getInitBoolean("etags", _resourceService.isEtags()));
 
@@ -265,6 +280,11 @@ public class DefaultServlet extends HttpServlet implements ResourceFactory, Welc
                     _cache.setMaxCachedFileSize(maxCachedFileSize);
                 if (maxCachedFiles >= -1)
                     _cache.setMaxCachedFiles(maxCachedFiles);
+                if (compressCachedContent && _contextHandler.getServer() != null)
+                {
+                    _cache.setCompressor(getGzipFormat(_resourceService.getPrecompressedFormats()), new CachedContentFactory.GzipCompressor());
+                    _cache.setExecutor(_contextHandler.getServer().getThreadPool());
+                }
                 _servletContext.setAttribute(resourceCache == null ? "resourceCache" : resourceCache, _cache);
             }
         }
@@ -314,6 +334,16 @@ public class DefaultServlet extends HttpServlet implements ResourceFactory, Welc
             LOG.debug("resource base = {}", _resourceBase);
     }
 
+    private static CompressedContentFormat getGzipFormat(CompressedContentFormat[] formats)
+    {
+        for (CompressedContentFormat format : formats)
+        {
+            if (CompressedContentFormat.GZIP._encoding.equalsIgnoreCase(format._encoding))
+                return format;
+        }
+        return null;
+    }
+
     private CompressedContentFormat[] parsePrecompressedFormats(String precompressed, boolean gzip)
     {
         List<CompressedContentFormat> ret = new ArrayList<>();
@@ -28,6 +28,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Enumeration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import javax.servlet.AsyncContext;
@@ -48,6 +50,7 @@ import org.eclipse.jetty.http.tools.HttpTester;
 import org.eclipse.jetty.server.HttpOutput;
 import org.eclipse.jetty.server.LocalConnector;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.gzip.AdaptiveDeflaterPool;
 import org.eclipse.jetty.server.handler.gzip.GzipHandler;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.IO;
@@ -64,6 +67,7 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SuppressWarnings("serial")
 public class GzipHandlerTest
@@ -320,6 +324,84 @@ public class GzipHandlerTest
         assertEquals(__content, testOut.toString("UTF8"));
     }
 
+    @Test
+    public void testAdaptiveCompression() throws Exception
+    {
+        _server.stop();
+
+        AtomicReference<Double> load = new AtomicReference<>(0.0);
+        GzipHandler gzipHandler = new GzipHandler()
+        {
+            @Override
+            protected double getLoad()
+            {
+                return load.get();
+            }
+        };
+        gzipHandler.setMinGzipSize(16);
+        gzipHandler.setAdaptiveCompression(true);
+        ServletContextHandler context = new ServletContextHandler(gzipHandler, "/ctx");
+        context.getServletHandler().addServletWithMapping(TestServlet.class, "/content");
+        _server.setHandler(gzipHandler);
+        _server.start();
+
+        HttpTester.Request request = HttpTester.newRequest();
+        request.setMethod("GET");
+        request.setURI("/ctx/content");
+        request.setVersion("HTTP/1.0");
+        request.setHeader("Host", "tester");
+        request.setHeader("accept-encoding", "gzip");
+
+        // Low load, max compression level.
+        HttpTester.Response response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.get("Content-Encoding"), Matchers.equalToIgnoringCase("gzip"));
+        assertEquals(__content, IO.toString(new GZIPInputStream(new ByteArrayInputStream(response.getContentBytes())), StandardCharsets.UTF_8));
+
+        // Higher load, lower compression level.
+        load.set(0.8);
+        response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.get("Content-Encoding"), Matchers.equalToIgnoringCase("gzip"));
+        assertEquals(__content, IO.toString(new GZIPInputStream(new ByteArrayInputStream(response.getContentBytes())), StandardCharsets.UTF_8));
+
+        // Max load, small responses are not compressed.
+        load.set(1.0);
+        response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.get("Content-Encoding"), nullValue());
+        assertEquals(__content, response.getContent());
+
+        AdaptiveDeflaterPool pool = gzipHandler.getBean(AdaptiveDeflaterPool.class);
+        assertEquals(1L, pool.getResponses().get("6"));
+        assertEquals(1L, pool.getResponses().get("2"));
+        assertEquals(0L, pool.getResponses().get("1"));
+        assertEquals(__bytes.length, pool.getBytesIn().get("6"));
+        assertThat(pool.getBytesOut().get("6"), Matchers.lessThan((long)__bytes.length));
+    }
+
+    @Test
+    public void testAdaptiveDeflaterRecycledAfterRestart() throws Exception
+    {
+        GzipHandler gzipHandler = new GzipHandler();
+        gzipHandler.setAdaptiveCompression(true);
+        gzipHandler.start();
+        Deflater beforeStop = gzipHandler.getBean(AdaptiveDeflaterPool.class).acquire(Deflater.BEST_COMPRESSION);
+        Deflater beforeRestart = gzipHandler.getBean(AdaptiveDeflaterPool.class).acquire(Deflater.BEST_COMPRESSION);
+
+        // Recycled while stopped, the Deflater is ended rather than pooled.
+        gzipHandler.stop();
+        gzipHandler.recycle(beforeStop);
+        assertThrows(NullPointerException.class, beforeStop::getBytesRead);
+
+        // Recycled after a restart, the Deflater does not belong to the new pool.
+        gzipHandler.start();
+        gzipHandler.recycle(beforeRestart);
+        assertThrows(NullPointerException.class, beforeRestart::getBytesRead);
+        assertEquals(0L, gzipHandler.getBean(AdaptiveDeflaterPool.class).getResponses().get("9"));
+        gzipHandler.stop();
+    }
+
     @Test
     public void testBlockingResponse() throws Exception
     {
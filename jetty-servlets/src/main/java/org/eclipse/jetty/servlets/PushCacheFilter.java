@@ -19,18 +19,25 @@
 package org.eclipse.jetty.servlets;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -38,14 +45,18 @@ import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.PushBuilder;
 
+import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpScheme;
 import org.eclipse.jetty.http.HttpURI;
 import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
@@ -69,6 +80,17 @@ import org.slf4j.LoggerFactory;
  * secondary resources are pushed to the client, unless the request carries
  * {@code If-xxx} header that hint that the client has the resources in its
  * cache.</p>
+ * <p>The cache is bounded: at most {@code maxPrimaryResources} primary resources
+ * are cached, and the least recently requested are evicted; at most
+ * {@code maxAssociations} secondary resources are associated to each primary
+ * resource, and the least frequently requested are replaced.</p>
+ * <p>If the init param {@code digestCookie} is set, a cookie with that name
+ * holds a compact digest of the resources already pushed to the client,
+ * so that they are not pushed again while the client likely has them in
+ * its cache.</p>
+ * <p>If the init param {@code earlyHints} is set, clients that do not support
+ * push, such as HTTP/1.1 clients, receive a {@code 103 Early Hints} response
+ * with {@code Link} headers to preload the associated resources instead.</p>
  * <p>If the init param useQueryInKey is set, then the query string is used as
  * as part of the key to identify a resource</p>
  */
@@ -80,10 +102,15 @@ public class PushCacheFilter implements Filter
     private final Set<Integer> _ports = new HashSet<>();
     private final Set<String> _hosts = new HashSet<>();
     private final ConcurrentMap<String, PrimaryResource> _cache = new ConcurrentHashMap<>();
+    private final AtomicBoolean _evicting = new AtomicBoolean();
     private long _associatePeriod = 4000L;
     private int _maxAssociations = 16;
+    private int _maxPrimaryResources = 4096;
     private long _renew = System.nanoTime();
     private boolean _useQueryInKey;
+    private boolean _earlyHints;
+    private String _digestCookie;
+    private int _digestCookieMaxAge = 3600;
 
     @Override
     public void init(FilterConfig config) throws ServletException
@@ -96,6 +123,10 @@ public class PushCacheFilter implements Filter
         if (maxAssociations != null)
             _maxAssociations = Integer.parseInt(maxAssociations);
 
+        String maxPrimaryResources = config.getInitParameter("maxPrimaryResources");
+        if (maxPrimaryResources != null)
+            _maxPrimaryResources = Integer.parseInt(maxPrimaryResources);
+
         String hosts = config.getInitParameter("hosts");
         if (hosts != null)
             Collections.addAll(_hosts, StringUtil.csvSplit(hosts));
@@ -109,11 +140,19 @@ public class PushCacheFilter implements Filter
 
         _useQueryInKey = Boolean.parseBoolean(config.getInitParameter("useQueryInKey"));
 
+        _earlyHints = Boolean.parseBoolean(config.getInitParameter("earlyHints"));
+
+        _digestCookie = config.getInitParameter("digestCookie");
+        String digestCookieMaxAge = config.getInitParameter("digestCookieMaxAge");
+        if (digestCookieMaxAge != null)
+            _digestCookieMaxAge = Integer.parseInt(digestCookieMaxAge);
+
         // Expose for JMX.
         config.getServletContext().setAttribute(config.getFilterName(), this);
 
         if (LOG.isDebugEnabled())
-            LOG.debug("period={} max={} hosts={} ports={}", _associatePeriod, _maxAssociations, _hosts, _ports);
+            LOG.debug("period={} max={} maxPrimary={} hosts={} ports={} earlyHints={} digestCookie={}",
+                _associatePeriod, _maxAssociations, _maxPrimaryResources, _hosts, _ports, _earlyHints, _digestCookie);
     }
 
     @Override
@@ -121,10 +160,16 @@ public class PushCacheFilter implements Filter
     {
         HttpServletRequest request = (HttpServletRequest)req;
 
+        if (!HttpMethod.GET.is(request.getMethod()))
+        {
+            chain.doFilter(req, resp);
+            return;
+        }
+
         PushBuilder pushBuilder = request.newPushBuilder();
-        if (HttpVersion.fromString(request.getProtocol()).getVersion() < 20 ||
-            !HttpMethod.GET.is(request.getMethod()) ||
-            pushBuilder == null)
+        boolean earlyHints = pushBuilder == null && _earlyHints &&
+            HttpVersion.fromString(request.getProtocol()).getVersion() >= HttpVersion.HTTP_1_1.getVersion();
+        if (pushBuilder == null && !earlyHints)
         {
             chain.doFilter(req, resp);
             return;
@@ -177,59 +222,51 @@ public class PushCacheFilter implements Filter
 
             if (referredFromHere)
             {
-                if (HttpMethod.GET.is(request.getMethod()))
+                String referrerPath = _useQueryInKey ? referrerURI.getPathQuery() : referrerURI.getPath();
+                if (referrerPath == null)
+                    referrerPath = "/";
+                if (referrerPath.startsWith(request.getContextPath() + "/"))
                 {
-                    String referrerPath = _useQueryInKey ? referrerURI.getPathQuery() : referrerURI.getPath();
-                    if (referrerPath == null)
-                        referrerPath = "/";
-                    if (referrerPath.startsWith(request.getContextPath() + "/"))
+                    if (!referrerPath.equals(path))
                     {
-                        if (!referrerPath.equals(path))
+                        PrimaryResource primaryResource = _cache.get(referrerPath);
+                        if (primaryResource != null)
                         {
-                            PrimaryResource primaryResource = _cache.get(referrerPath);
-                            if (primaryResource != null)
+                            long primaryTimestamp = primaryResource._timestamp.get();
+                            if (primaryTimestamp != 0)
                             {
-                                long primaryTimestamp = primaryResource._timestamp.get();
-                                if (primaryTimestamp != 0)
+                                if (now - primaryTimestamp < TimeUnit.MILLISECONDS.toNanos(_associatePeriod))
                                 {
-                                    if (now - primaryTimestamp < TimeUnit.MILLISECONDS.toNanos(_associatePeriod))
+                                    if (primaryResource.associate(path, _maxAssociations))
                                     {
-                                        Set<String> associated = primaryResource._associated;
-                                        // Not strictly concurrent-safe, just best effort to limit associations.
-                                        if (associated.size() <= _maxAssociations)
-                                        {
-                                            if (associated.add(path))
-                                            {
-                                                if (LOG.isDebugEnabled())
-                                                    LOG.debug("Associated {} to {}", path, referrerPath);
-                                            }
-                                        }
-                                        else
-                                        {
-                                            if (LOG.isDebugEnabled())
-                                                LOG.debug("Not associated {} to {}, exceeded max associations of {}", path, referrerPath, _maxAssociations);
-                                        }
+                                        if (LOG.isDebugEnabled())
+                                            LOG.debug("Associated {} to {}", path, referrerPath);
                                     }
                                     else
                                     {
                                         if (LOG.isDebugEnabled())
-                                            LOG.debug("Not associated {} to {}, outside associate period of {}ms", path, referrerPath, _associatePeriod);
+                                            LOG.debug("Not associated {} to {}, exceeded max associations of {}", path, referrerPath, _maxAssociations);
                                     }
                                 }
+                                else
+                                {
+                                    if (LOG.isDebugEnabled())
+                                        LOG.debug("Not associated {} to {}, outside associate period of {}ms", path, referrerPath, _associatePeriod);
+                                }
                             }
                         }
-                        else
-                        {
-                            if (LOG.isDebugEnabled())
-                                LOG.debug("Not associated {} to {}, referring to self", path, referrerPath);
-                        }
                     }
                     else
                     {
                         if (LOG.isDebugEnabled())
-                            LOG.debug("Not associated {} to {}, different context", path, referrerPath);
+                            LOG.debug("Not associated {} to {}, referring to self", path, referrerPath);
                     }
                 }
+                else
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Not associated {} to {}, different context", path, referrerPath);
+                }
             }
             else
             {
@@ -242,8 +279,15 @@ public class PushCacheFilter implements Filter
         if (primaryResource == null)
         {
             PrimaryResource r = new PrimaryResource();
+            // Mark the new resource as recently used before
+            // eviction, otherwise it would be evicted first.
+            r._lastAccess = now;
             primaryResource = _cache.putIfAbsent(path, r);
-            primaryResource = primaryResource == null ? r : primaryResource;
+            if (primaryResource == null)
+            {
+                primaryResource = r;
+                evict();
+            }
             primaryResource._timestamp.compareAndSet(0, now);
             if (LOG.isDebugEnabled())
                 LOG.debug("Cached primary resource {}", path);
@@ -258,25 +302,38 @@ public class PushCacheFilter implements Filter
                     LOG.debug("Clear associated resources for {}", path);
             }
         }
+        primaryResource._lastAccess = now;
 
         // Push associated resources.
         if (!conditional && !primaryResource._associated.isEmpty())
         {
-            // Breadth-first push of associated resources.
-            Queue<PrimaryResource> queue = new ArrayDeque<>();
-            queue.offer(primaryResource);
-            while (!queue.isEmpty())
+            PushDigest digest = _digestCookie == null ? null : PushDigest.from(request, _digestCookie);
+            List<String> resources = associatedResources(path, primaryResource, digest);
+            if (!resources.isEmpty())
             {
-                PrimaryResource parent = queue.poll();
-                for (String childPath : parent._associated)
+                if (pushBuilder != null)
                 {
-                    PrimaryResource child = _cache.get(childPath);
-                    if (child != null)
-                        queue.offer(child);
+                    for (String resource : resources)
+                    {
+                        if (LOG.isDebugEnabled())
+                            LOG.debug("Pushing {} for {}", resource, path);
+                        pushBuilder.path(resource).push();
+                    }
+                }
+                else
+                {
+                    sendEarlyHints(request, path, resources);
+                }
 
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("Pushing {} for {}", childPath, path);
-                    pushBuilder.path(childPath).push();
+                if (digest != null)
+                {
+                    resources.forEach(digest::add);
+                    Cookie cookie = new Cookie(_digestCookie, digest.toString());
+                    String contextPath = request.getContextPath();
+                    cookie.setPath(contextPath.isEmpty() ? "/" : contextPath);
+                    cookie.setMaxAge(_digestCookieMaxAge);
+                    cookie.setHttpOnly(true);
+                    ((HttpServletResponse)resp).addCookie(cookie);
                 }
             }
         }
@@ -284,6 +341,87 @@ public class PushCacheFilter implements Filter
         chain.doFilter(request, resp);
     }
 
+    private List<String> associatedResources(String path, PrimaryResource primaryResource, PushDigest digest)
+    {
+        // Breadth-first traversal of associated resources, most frequently
+        // requested first, that tolerates cycles in the associations.
+        List<String> result = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        visited.add(path);
+        Queue<PrimaryResource> queue = new ArrayDeque<>();
+        queue.offer(primaryResource);
+        while (!queue.isEmpty())
+        {
+            PrimaryResource parent = queue.poll();
+            for (String childPath : parent.associated())
+            {
+                if (!visited.add(childPath))
+                    continue;
+
+                PrimaryResource child = _cache.get(childPath);
+                if (child != null)
+                    queue.offer(child);
+
+                if (digest != null && digest.contains(childPath))
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Not pushing {} for {}, likely cached by client", childPath, path);
+                    continue;
+                }
+                result.add(childPath);
+            }
+        }
+        return result;
+    }
+
+    private void sendEarlyHints(HttpServletRequest request, String path, List<String> resources) throws IOException
+    {
+        Request baseRequest = Request.getBaseRequest(request);
+        if (baseRequest == null)
+            return;
+        HttpFields.Mutable fields = HttpFields.build();
+        for (String resource : resources)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Early hinting {} for {}", resource, path);
+            fields.add("Link", "<" + resource + ">; rel=preload");
+        }
+        baseRequest.getResponse().sendEarlyHints(fields);
+    }
+
+    private void evict()
+    {
+        int excess = _cache.size() - _maxPrimaryResources;
+        if (excess <= 0 || !_evicting.compareAndSet(false, true))
+            return;
+        try
+        {
+            // Evict in batches, so that the scan of the
+            // cache is amortized over many insertions.
+            int count = excess + _maxPrimaryResources / 8;
+            PriorityQueue<Map.Entry<String, PrimaryResource>> leastRecent = new PriorityQueue<>(count + 1,
+                (e1, e2) -> Long.signum(e2.getValue()._lastAccess - e1.getValue()._lastAccess));
+            for (Map.Entry<String, PrimaryResource> entry : _cache.entrySet())
+            {
+                leastRecent.offer(entry);
+                if (leastRecent.size() > count)
+                    leastRecent.poll();
+            }
+            for (Map.Entry<String, PrimaryResource> entry : leastRecent)
+            {
+                if (_cache.remove(entry.getKey(), entry.getValue()))
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Evicted primary resource {}", entry.getKey());
+                }
+            }
+        }
+        finally
+        {
+            _evicting.set(false);
+        }
+    }
+
     @Override
     public void destroy()
     {
@@ -297,12 +435,24 @@ public class PushCacheFilter implements Filter
         for (Map.Entry<String, PrimaryResource> entry : _cache.entrySet())
         {
             PrimaryResource resource = entry.getValue();
-            String value = String.format("size=%d: %s", resource._associated.size(), new TreeSet<>(resource._associated));
+            String value = String.format("size=%d: %s", resource._associated.size(), new TreeMap<>(resource._associated));
             result.put(entry.getKey(), value);
         }
         return result;
     }
 
+    @ManagedAttribute("The number of primary resources in the push cache")
+    public int getPrimaryResourceCount()
+    {
+        return _cache.size();
+    }
+
+    @ManagedAttribute("The max number of primary resources in the push cache")
+    public int getMaxPrimaryResources()
+    {
+        return _maxPrimaryResources;
+    }
+
     @ManagedOperation(value = "Renews the push cache contents", impact = "ACTION")
     public void renewPushCache()
     {
@@ -317,7 +467,139 @@ public class PushCacheFilter implements Filter
 
     private static class PrimaryResource
     {
-        private final Set<String> _associated = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        private final ConcurrentMap<String, AtomicInteger> _associated = new ConcurrentHashMap<>();
         private final AtomicLong _timestamp = new AtomicLong();
+        private volatile long _lastAccess;
+
+        private boolean associate(String path, int maxAssociations)
+        {
+            AtomicInteger hits = _associated.get(path);
+            if (hits != null)
+            {
+                hits.updateAndGet(h -> h == Integer.MAX_VALUE ? h : h + 1);
+                return true;
+            }
+
+            // Not strictly concurrent-safe, just best effort to limit associations.
+            if (_associated.size() < maxAssociations)
+            {
+                _associated.putIfAbsent(path, new AtomicInteger(1));
+                return true;
+            }
+
+            // Age the least frequently requested association, and
+            // replace it when it has been aged out, so that occasional
+            // requests do not evict frequently requested resources.
+            Map.Entry<String, AtomicInteger> least = null;
+            for (Map.Entry<String, AtomicInteger> entry : _associated.entrySet())
+            {
+                if (least == null || entry.getValue().get() < least.getValue().get())
+                    least = entry;
+            }
+            if (least != null && least.getValue().decrementAndGet() <= 0 && _associated.remove(least.getKey(), least.getValue()))
+            {
+                _associated.putIfAbsent(path, new AtomicInteger(1));
+                return true;
+            }
+            return false;
+        }
+
+        private List<String> associated()
+        {
+            List<Map.Entry<String, AtomicInteger>> entries = new ArrayList<>(_associated.entrySet());
+            entries.sort((e1, e2) -> Integer.compare(e2.getValue().get(), e1.getValue().get()));
+            List<String> result = new ArrayList<>(entries.size());
+            for (Map.Entry<String, AtomicInteger> entry : entries)
+            {
+                result.add(entry.getKey());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * <p>A Bloom filter of the resources pushed to a client, stored in a cookie.</p>
+     * <p>False positives only cause a resource not to be pushed; the filter is
+     * reset when half of its bits are set, to bound the false positive rate.</p>
+     */
+    private static class PushDigest
+    {
+        private static final int BITS = 256;
+        private static final int HASHES = 3;
+
+        private final long[] _bits = new long[BITS / Long.SIZE];
+
+        private static PushDigest from(HttpServletRequest request, String cookieName)
+        {
+            PushDigest digest = new PushDigest();
+            Cookie[] cookies = request.getCookies();
+            if (cookies != null)
+            {
+                for (Cookie cookie : cookies)
+                {
+                    if (cookieName.equals(cookie.getName()))
+                    {
+                        digest.decode(cookie.getValue());
+                        break;
+                    }
+                }
+            }
+            return digest;
+        }
+
+        private void decode(String value)
+        {
+            try
+            {
+                byte[] bytes = Base64.getUrlDecoder().decode(value);
+                if (bytes.length == BITS / Byte.SIZE)
+                    ByteBuffer.wrap(bytes).asLongBuffer().get(_bits);
+            }
+            catch (IllegalArgumentException x)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Invalid push digest {}", value, x);
+            }
+        }
+
+        private boolean contains(String path)
+        {
+            int hash = path.hashCode();
+            int step = Integer.rotateLeft(hash * 0x9E3779B9, 16) | 1;
+            for (int i = 0; i < HASHES; ++i)
+            {
+                int bit = (hash + i * step) & (BITS - 1);
+                if ((_bits[bit >>> 6] & (1L << bit)) == 0)
+                    return false;
+            }
+            return true;
+        }
+
+        private void add(String path)
+        {
+            int count = 0;
+            for (long bits : _bits)
+            {
+                count += Long.bitCount(bits);
+            }
+            if (count > BITS / 2)
+                Arrays.fill(_bits, 0);
+
+            int hash = path.hashCode();
+            int step = Integer.rotateLeft(hash * 0x9E3779B9, 16) | 1;
+            for (int i = 0; i < HASHES; ++i)
+            {
+                int bit = (hash + i * step) & (BITS - 1);
+                _bits[bit >>> 6] |= 1L << bit;
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            ByteBuffer buffer = ByteBuffer.allocate(BITS / Byte.SIZE);
+            buffer.asLongBuffer().put(_bits);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+        }
     }
 }
@@ -0,0 +1,200 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.servlets;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.FilterHolder;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.util.BufferUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+
+public class PushCacheFilterTest
+{
+    private Server server;
+    private LocalConnector connector;
+    private ServletContextHandler context;
+
+    private void start(FilterHolder holder) throws Exception
+    {
+        server = new Server();
+        connector = new LocalConnector(server);
+        server.addConnector(connector);
+
+        context = new ServletContextHandler(server, "/ctx");
+        holder.setName("push");
+        context.addFilter(holder, "/*", EnumSet.of(DispatcherType.REQUEST));
+        context.addServlet(ContentServlet.class, "/*");
+
+        server.start();
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        if (server != null)
+            server.stop();
+    }
+
+    @Test
+    public void testEarlyHintsForHTTP11() throws Exception
+    {
+        FilterHolder holder = new FilterHolder(PushCacheFilter.class);
+        holder.setInitParameter("earlyHints", "true");
+        start(holder);
+
+        warmup();
+
+        LocalConnector.LocalEndPoint endPoint = connector.executeRequest(request("/ctx/primary.html", null));
+        String hints = BufferUtil.toString(endPoint.waitForResponse(false, 5, TimeUnit.SECONDS), StandardCharsets.ISO_8859_1);
+        assertThat(hints, startsWith("HTTP/1.1 103 "));
+        assertThat(hints, containsString("Link: </ctx/secondary.css>; rel=preload"));
+
+        String response = BufferUtil.toString(endPoint.waitForResponse(false, 5, TimeUnit.SECONDS), StandardCharsets.ISO_8859_1);
+        assertThat(response, startsWith("HTTP/1.1 200 "));
+        assertThat(response, containsString("primary"));
+    }
+
+    @Test
+    public void testNoEarlyHintsByDefault() throws Exception
+    {
+        start(new FilterHolder(PushCacheFilter.class));
+
+        warmup();
+
+        String response = connector.getResponse(request("/ctx/primary.html", null));
+        assertThat(response, startsWith("HTTP/1.1 200 "));
+    }
+
+    @Test
+    public void testDigestCookieSkipsCachedResources() throws Exception
+    {
+        FilterHolder holder = new FilterHolder(PushCacheFilter.class);
+        holder.setInitParameter("earlyHints", "true");
+        holder.setInitParameter("digestCookie", "push");
+        start(holder);
+
+        warmup();
+
+        LocalConnector.LocalEndPoint endPoint = connector.executeRequest(request("/ctx/primary.html", null));
+        String hints = BufferUtil.toString(endPoint.waitForResponse(false, 5, TimeUnit.SECONDS), StandardCharsets.ISO_8859_1);
+        assertThat(hints, startsWith("HTTP/1.1 103 "));
+        String response = BufferUtil.toString(endPoint.waitForResponse(false, 5, TimeUnit.SECONDS), StandardCharsets.ISO_8859_1);
+        assertThat(response, startsWith("HTTP/1.1 200 "));
+        assertThat(response, containsString("Set-Cookie: push="));
+
+        int start = response.indexOf("push=");
+        int end = response.indexOf(';', start);
+        String cookie = response.substring(start, end);
+
+        // The client has the secondary resource, it is not hinted again.
+        response = connector.getResponse(request("/ctx/primary.html", "Cookie: " + cookie + "\r\n"));
+        assertThat(response, startsWith("HTTP/1.1 200 "));
+        assertThat(response, not(containsString("Set-Cookie")));
+    }
+
+    @Test
+    public void testMaxPrimaryResources() throws Exception
+    {
+        FilterHolder holder = new FilterHolder(PushCacheFilter.class);
+        holder.setInitParameter("earlyHints", "true");
+        holder.setInitParameter("maxPrimaryResources", "8");
+        start(holder);
+
+        for (int i = 0; i < 64; ++i)
+        {
+            String response = connector.getResponse(request("/ctx/primary" + i + ".html", null));
+            assertThat(response, startsWith("HTTP/1.1 200 "));
+        }
+
+        PushCacheFilter filter = (PushCacheFilter)context.getServletContext().getAttribute("push");
+        assertThat(filter.getPrimaryResourceCount(), lessThanOrEqualTo(8));
+    }
+
+    @Test
+    public void testMostRecentPrimaryResourceSurvivesEviction() throws Exception
+    {
+        FilterHolder holder = new FilterHolder(PushCacheFilter.class);
+        holder.setInitParameter("earlyHints", "true");
+        holder.setInitParameter("maxPrimaryResources", "8");
+        start(holder);
+
+        // Fill the cache, so that new primary resources trigger eviction.
+        for (int i = 0; i < 16; ++i)
+        {
+            String response = connector.getResponse(request("/ctx/primary" + i + ".html", null));
+            assertThat(response, startsWith("HTTP/1.1 200 "));
+        }
+
+        warmup();
+
+        PushCacheFilter filter = (PushCacheFilter)context.getServletContext().getAttribute("push");
+        assertThat(filter.getPrimaryResourceCount(), lessThanOrEqualTo(8));
+
+        // The most recent primary resource must have
+        // survived the eviction and learnt its association.
+        LocalConnector.LocalEndPoint endPoint = connector.executeRequest(request("/ctx/primary.html", null));
+        String hints = BufferUtil.toString(endPoint.waitForResponse(false, 5, TimeUnit.SECONDS), StandardCharsets.ISO_8859_1);
+        assertThat(hints, startsWith("HTTP/1.1 103 "));
+        assertThat(hints, containsString("Link: </ctx/secondary.css>; rel=preload"));
+    }
+
+    private void warmup() throws Exception
+    {
+        String response = connector.getResponse(request("/ctx/primary.html", null));
+        assertThat(response, startsWith("HTTP/1.1 200 "));
+        response = connector.getResponse(request("/ctx/secondary.css", "Referer: http://localhost/ctx/primary.html\r\n"));
+        assertThat(response, startsWith("HTTP/1.1 200 "));
+    }
+
+    private static String request(String uri, String headers)
+    {
+        return "GET " + uri + " HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            (headers == null ? "" : headers) +
+            "\r\n";
+    }
+
+    public static class ContentServlet extends HttpServlet
+    {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException
+        {
+            String uri = request.getRequestURI();
+            response.setContentType("text/plain");
+            response.getWriter().print(uri.contains("primary") ? "primary" : "secondary");
+        }
+    }
+}
@@ -105,6 +105,14 @@ public class Pool<T> implements AutoCloseable, Dumpable
          * No entries are favoured and contention is reduced.
          */
         ROUND_ROBIN,
+
+        /**
+         * A strategy that looks for the entry with the lowest multiplex count,
+         * so that concurrent acquisitions are spread evenly across the entries.
+         * It is most useful with a {@link #getMaxMultiplex() max multiplex}
+         * greater than one, but it must scan all the entries on every acquire.
+         */
+        LEAST_MULTIPLEXED,
     }
 
     /**
@@ -166,6 +174,20 @@ public class Pool<T> implements AutoCloseable, Dumpable
         this.maxMultiplex = maxMultiplex;
     }
 
+    /**
+     * <p>Returns the max multiplex of the given pooled object.</p>
+     * <p>Subclasses may override this method when the max multiplex
+     * is a property of each pooled object rather than of the pool,
+     * and may change over time.</p>
+     *
+     * @param pooled the pooled object
+     * @return the max multiplex of the pooled object
+     */
+    protected int getMaxMultiplex(T pooled)
+    {
+        return getMaxMultiplex();
+    }
+
     public int getMaxUsageCount()
     {
         return maxUsageCount;
@@ -228,6 +250,9 @@ public class Pool<T> implements AutoCloseable, Dumpable
         if (size == 0)
             return null;
 
+        if (strategyType == StrategyType.LEAST_MULTIPLEXED)
+            return acquireLeastMultiplexed();
+
         if (cache != null)
         {
             Pool<T>.Entry entry = cache.get();
@@ -255,6 +280,30 @@ public class Pool<T> implements AutoCloseable, Dumpable
         return null;
     }
 
+    private Entry acquireLeastMultiplexed()
+    {
+        while (true)
+        {
+            Entry least = null;
+            int leastCount = Integer.MAX_VALUE;
+            for (Entry entry : entries)
+            {
+                int count = entry.getAcquirableMultiplexCount();
+                if (count >= 0 && count < leastCount)
+                {
+                    least = entry;
+                    leastCount = count;
+                }
+            }
+            if (least == null)
+                return null;
+            // Another thread may have acquired or removed
+            // the entry concurrently, if so look again.
+            if (least.tryAcquire())
+                return least;
+        }
+    }
+
     private int startIndex(int size)
     {
         switch (strategyType)
@@ -499,7 +548,7 @@ public class Pool<T> implements AutoCloseable, Dumpable
                 boolean closed = usageCount < 0;
                 int multiplexingCount = AtomicBiInteger.getLo(encoded);
                 int currentMaxUsageCount = maxUsageCount;
-                if (closed || multiplexingCount >= maxMultiplex || (currentMaxUsageCount > 0 && usageCount >= currentMaxUsageCount))
+                if (closed || multiplexingCount >= getMaxMultiplex(pooled) || (currentMaxUsageCount > 0 && usageCount >= currentMaxUsageCount))
                     return false;
 
                 if (state.compareAndSet(encoded, usageCount + 1, multiplexingCount + 1))
@@ -507,6 +556,22 @@ public class Pool<T> implements AutoCloseable, Dumpable
             }
         }
 
+        /**
+         * @return the multiplex count if the entry can be acquired, or -1 if it cannot be acquired
+         */
+        private int getAcquirableMultiplexCount()
+        {
+            long encoded = state.get();
+            int usageCount = AtomicBiInteger.getHi(encoded);
+            if (usageCount < 0)
+                return -1;
+            int multiplexingCount = AtomicBiInteger.getLo(encoded);
+            int currentMaxUsageCount = maxUsageCount;
+            if (multiplexingCount >= getMaxMultiplex(pooled) || (currentMaxUsageCount > 0 && usageCount >= currentMaxUsageCount))
+                return -1;
+            return multiplexingCount;
+        }
+
         /**
          * Try to release the entry if possible by decrementing the multiplexing
          * count unless the entity is closed.
@@ -585,6 +650,14 @@ public class Pool<T> implements AutoCloseable, Dumpable
             return AtomicBiInteger.getHi(encoded) >= 0 && AtomicBiInteger.getLo(encoded) > 0;
         }
 
+        /**
+         * @return the number of times this entry is currently acquired
+         */
+        public int getMultiplexCount()
+        {
+            return Math.max(state.getLo(), 0);
+        }
+
         public int getUsageCount()
         {
             return Math.max(state.getHi(), 0);
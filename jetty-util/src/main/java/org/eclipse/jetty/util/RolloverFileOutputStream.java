@@ -22,6 +22,8 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.text.SimpleDateFormat;
 import java.time.ZonedDateTime;
@@ -372,6 +374,32 @@ public class RolloverFileOutputStream extends OutputStream
         }
     }
 
+    /**
+     * <p>Writes the given buffers to the current file with a gathering write,
+     * so that many small buffers are written with a single system call.</p>
+     *
+     * @param buffers the buffers to write
+     * @param offset the index of the first buffer to write
+     * @param length the number of buffers to write
+     * @throws IOException if the write fails
+     */
+    public void write(ByteBuffer[] buffers, int offset, int length) throws IOException
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            FileChannel channel = ((FileOutputStream)_out).getChannel();
+            int last = offset + length - 1;
+            while (offset <= last)
+            {
+                channel.write(buffers, offset, last - offset + 1);
+                while (offset <= last && !buffers[offset].hasRemaining())
+                {
+                    ++offset;
+                }
+            }
+        }
+    }
+
     @Override
     public void flush() throws IOException
     {
@@ -0,0 +1,445 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.util.thread.AutoLock;
+
+/**
+ * <p>A bounded {@link BlockingQueue} made of several lock-free stripes, with work stealing.</p>
+ * <p>Elements are offered to and polled from the stripe associated with the calling thread,
+ * so that threads producing and consuming elements mostly operate on different stripes;
+ * when the stripe of the calling thread is empty, elements are stolen from the other stripes.
+ * The order of the elements is therefore only FIFO within a stripe.</p>
+ * <p>Locks are only taken to block and wake up threads that are waiting for the queue to become
+ * not empty (or not full), so that under load, when there are queued elements, offering and polling
+ * elements are lock-free. This makes this queue suitable as the job queue of a
+ * {@link org.eclipse.jetty.util.thread.QueuedThreadPool} under high job rates, where the head
+ * and tail locks of {@link BlockingArrayQueue} may become contended.</p>
+ * <p>The max capacity is enforced, so that a full queue rejects offered elements.</p>
+ * <p>Capacity is reserved before an element is enqueued, while an element is counted as
+ * available only after it has been enqueued; consumers claim an available element before
+ * dequeuing it, so that they never spin waiting for an element that is still being enqueued.</p>
+ *
+ * @param <E> The element type
+ */
+public class StripedBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E>
+{
+    // The number of elements for which capacity is reserved.
+    private final AtomicInteger _size = new AtomicInteger();
+    // The number of enqueued elements that are not yet claimed by a consumer.
+    private final AtomicInteger _count = new AtomicInteger();
+    private final AtomicInteger _takers = new AtomicInteger();
+    private final AtomicInteger _putters = new AtomicInteger();
+    private final AutoLock.WithCondition _notEmpty = new AutoLock.WithCondition();
+    private final AutoLock.WithCondition _notFull = new AutoLock.WithCondition();
+    private final ConcurrentLinkedQueue<E>[] _stripes;
+    private final int _maxCapacity;
+
+    /**
+     * Creates an unbounded queue with one stripe per available processor.
+     */
+    public StripedBlockingQueue()
+    {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a bounded queue with one stripe per available processor.
+     *
+     * @param maxCapacity the maximum number of elements in the queue
+     */
+    public StripedBlockingQueue(int maxCapacity)
+    {
+        this(ProcessorUtils.availableProcessors(), maxCapacity);
+    }
+
+    /**
+     * @param stripes the number of stripes
+     * @param maxCapacity the maximum number of elements in the queue
+     */
+    public StripedBlockingQueue(int stripes, int maxCapacity)
+    {
+        if (stripes <= 0)
+            throw new IllegalArgumentException("stripes must be positive: " + stripes);
+        if (maxCapacity <= 0)
+            throw new IllegalArgumentException("maxCapacity must be positive: " + maxCapacity);
+        @SuppressWarnings("unchecked")
+        ConcurrentLinkedQueue<E>[] queues = (ConcurrentLinkedQueue<E>[])new ConcurrentLinkedQueue<?>[stripes];
+        for (int i = 0; i < stripes; ++i)
+        {
+            queues[i] = new ConcurrentLinkedQueue<>();
+        }
+        _stripes = queues;
+        _maxCapacity = maxCapacity;
+    }
+
+    /**
+     * @return the number of stripes
+     */
+    public int getStripes()
+    {
+        return _stripes.length;
+    }
+
+    /**
+     * @return the maximum number of elements in the queue
+     */
+    public int getMaxCapacity()
+    {
+        return _maxCapacity;
+    }
+
+    private int stripe()
+    {
+        return (int)(Thread.currentThread().getId() % _stripes.length);
+    }
+
+    @Override
+    public boolean offer(E e)
+    {
+        Objects.requireNonNull(e);
+        while (true)
+        {
+            int size = _size.get();
+            if (size >= _maxCapacity)
+                return false;
+            if (_size.compareAndSet(size, size + 1))
+                break;
+        }
+        _stripes[stripe()].offer(e);
+        // Only now the element is available to consumers.
+        _count.incrementAndGet();
+        signalNotEmpty();
+        return true;
+    }
+
+    @Override
+    public E poll()
+    {
+        if (!claim())
+            return null;
+        E e = dequeue();
+        _size.decrementAndGet();
+        signalNotFull();
+        return e;
+    }
+
+    private boolean claim()
+    {
+        while (true)
+        {
+            int count = _count.get();
+            if (count == 0)
+                return false;
+            if (_count.compareAndSet(count, count - 1))
+                return true;
+        }
+    }
+
+    private E dequeue()
+    {
+        // A claimed element is guaranteed to be in one of the stripes,
+        // but it may be missed by a scan while other consumers steal
+        // concurrently, in which case the stripes are scanned again.
+        int length = _stripes.length;
+        int stripe = stripe();
+        while (true)
+        {
+            for (int i = 0; i < length; ++i)
+            {
+                E e = _stripes[(stripe + i) % length].poll();
+                if (e != null)
+                    return e;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private void signalNotEmpty()
+    {
+        if (_takers.get() > 0)
+        {
+            try (AutoLock.WithCondition l = _notEmpty.lock())
+            {
+                l.signal();
+            }
+        }
+    }
+
+    private void signalNotFull()
+    {
+        if (_putters.get() > 0)
+        {
+            try (AutoLock.WithCondition l = _notFull.lock())
+            {
+                l.signal();
+            }
+        }
+    }
+
+    @Override
+    public E peek()
+    {
+        if (_count.get() == 0)
+            return null;
+        int length = _stripes.length;
+        int stripe = stripe();
+        for (int i = 0; i < length; ++i)
+        {
+            E e = _stripes[(stripe + i) % length].peek();
+            if (e != null)
+                return e;
+        }
+        return null;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException
+    {
+        while (!offer(e))
+        {
+            try (AutoLock.WithCondition l = _notFull.lock())
+            {
+                // Registering as putter before checking the size guarantees
+                // that a concurrent poll() either makes room or signals us.
+                _putters.incrementAndGet();
+                try
+                {
+                    if (_size.get() >= _maxCapacity)
+                        l.await();
+                }
+                catch (InterruptedException x)
+                {
+                    // Pass a possibly consumed signal to another putter.
+                    l.signal();
+                    throw x;
+                }
+                finally
+                {
+                    _putters.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!offer(e))
+        {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+                return false;
+            try (AutoLock.WithCondition l = _notFull.lock())
+            {
+                _putters.incrementAndGet();
+                try
+                {
+                    if (_size.get() >= _maxCapacity)
+                        l.await(remaining, TimeUnit.NANOSECONDS);
+                }
+                catch (InterruptedException x)
+                {
+                    l.signal();
+                    throw x;
+                }
+                finally
+                {
+                    _putters.decrementAndGet();
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public E take() throws InterruptedException
+    {
+        while (true)
+        {
+            E e = poll();
+            if (e != null)
+                return e;
+            try (AutoLock.WithCondition l = _notEmpty.lock())
+            {
+                // Registering as taker before checking the count guarantees
+                // that a concurrent offer() either adds an element or signals us.
+                _takers.incrementAndGet();
+                try
+                {
+                    if (_count.get() == 0)
+                        l.await();
+                }
+                catch (InterruptedException x)
+                {
+                    // Pass a possibly consumed signal to another taker.
+                    l.signal();
+                    throw x;
+                }
+                finally
+                {
+                    _takers.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true)
+        {
+            E e = poll();
+            if (e != null)
+                return e;
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+                return null;
+            try (AutoLock.WithCondition l = _notEmpty.lock())
+            {
+                _takers.incrementAndGet();
+                try
+                {
+                    if (_count.get() == 0)
+                        l.await(remaining, TimeUnit.NANOSECONDS);
+                }
+                catch (InterruptedException x)
+                {
+                    l.signal();
+                    throw x;
+                }
+                finally
+                {
+                    _takers.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    @Override
+    public int remainingCapacity()
+    {
+        return Math.max(0, _maxCapacity - _size.get());
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c)
+    {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements)
+    {
+        if (c == this)
+            throw new IllegalArgumentException();
+        int drained = 0;
+        while (drained < maxElements)
+        {
+            E e = poll();
+            if (e == null)
+                break;
+            c.add(e);
+            ++drained;
+        }
+        return drained;
+    }
+
+    @Override
+    public int size()
+    {
+        return _count.get();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        return new Iterator<>()
+        {
+            private int _stripe;
+            private Iterator<E> _iterator = _stripes[0].iterator();
+            private int _lastStripe = -1;
+            private E _last;
+
+            @Override
+            public boolean hasNext()
+            {
+                while (!_iterator.hasNext())
+                {
+                    if (++_stripe == _stripes.length)
+                        return false;
+                    _iterator = _stripes[_stripe].iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public E next()
+            {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                _last = _iterator.next();
+                _lastStripe = _stripe;
+                return _last;
+            }
+
+            @Override
+            public void remove()
+            {
+                if (_last == null)
+                    throw new IllegalStateException();
+                // Claim the element like poll() does, as it may also
+                // have been concurrently claimed by a consumer.
+                if (claim())
+                {
+                    if (_stripes[_lastStripe].remove(_last))
+                    {
+                        _size.decrementAndGet();
+                        signalNotFull();
+                    }
+                    else
+                    {
+                        // The element was polled, give back the claim.
+                        _count.incrementAndGet();
+                        signalNotEmpty();
+                    }
+                }
+                _last = null;
+            }
+        };
+    }
+}
@@ -62,6 +62,7 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
 
     private final Executor _executor;
     private final int _capacity;
+    private volatile int _limit;
     private final ConcurrentLinkedDeque<ReservedThread> _stack;
     private final AtomicInteger _size = new AtomicInteger();
     private final AtomicInteger _pending = new AtomicInteger();
@@ -80,6 +81,7 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
     {
         _executor = executor;
         _capacity = reservedThreads(executor, capacity);
+        _limit = _capacity;
         _stack = new ConcurrentLinkedDeque<>();
         if (LOG.isDebugEnabled())
             LOG.debug("{}", this);
@@ -117,6 +119,30 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
         return _capacity;
     }
 
+    /**
+     * @return the number of reserved threads currently allowed, at most the capacity
+     * @see #setLimit(int)
+     */
+    @ManagedAttribute("number of reserved threads currently allowed")
+    public int getLimit()
+    {
+        return _limit;
+    }
+
+    /**
+     * <p>Sets the number of reserved threads currently allowed, which may be adjusted
+     * at runtime between 0 and the {@link #getCapacity() capacity}, for example by an
+     * adaptive execution strategy.</p>
+     * <p>Reserved threads in excess of the limit are not replaced once they are used
+     * and are released when they idle timeout.</p>
+     *
+     * @param limit the number of reserved threads currently allowed
+     */
+    public void setLimit(int limit)
+    {
+        _limit = Math.max(0, Math.min(_capacity, limit));
+    }
+
     @ManagedAttribute(value = "available reserved threads", readonly = true)
     public int getAvailable()
     {
@@ -235,7 +261,7 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
                 // Not atomic, but there is a re-check in ReservedThread.run().
                 int pending = _pending.get();
                 int size = _size.get();
-                if (pending + size >= _capacity)
+                if (pending + size >= _limit)
                     return;
                 if (_pending.compareAndSet(pending, pending + 1))
                 {
@@ -255,10 +281,11 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
     @Override
     public String toString()
     {
-        return String.format("%s@%x{s=%d/%d,p=%d}",
+        return String.format("%s@%x{s=%d/%d/%d,p=%d}",
             getClass().getSimpleName(),
             hashCode(),
             _size.get(),
+            _limit,
             _capacity,
             _pending.get());
     }
@@ -336,10 +363,10 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
                     return;
 
                 // Are we surplus to capacity?
-                if (size >= _capacity)
+                if (size >= _limit)
                 {
                     if (LOG.isDebugEnabled())
-                        LOG.debug("{} size {} > capacity {}", this, size, _capacity);
+                        LOG.debug("{} size {} > limit {}/{}", this, size, _limit, _capacity);
                     if (_starting)
                         _pending.decrementAndGet();
                     return;
@@ -0,0 +1,264 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.Name;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A {@link ThreadPool} that runs blocking tasks on virtual threads, when supported
+ * by the runtime, and all other tasks on a platform {@link QueuedThreadPool}.</p>
+ * <p>Tasks submitted via {@link #execute(Runnable)} and {@link #tryExecute(Runnable)} are
+ * always run by the platform thread pool, so that selectors, acceptors, reserved threads
+ * and non-blocking {@link Invocable} tasks keep running on platform threads.
+ * Components that know that a task is blocking, such as
+ * {@link org.eclipse.jetty.util.thread.strategy.EatWhatYouKill} for tasks with
+ * {@link Invocable.InvocationType#BLOCKING} invocation type, may obtain the
+ * {@link #getVirtualThreadsExecutor(Executor) virtual threads executor} and
+ * run those tasks on virtual threads instead.</p>
+ * <p>The {@link ThreadPoolBudget}, the max threads and the reserved threads are those of the
+ * platform thread pool, since only platform threads may be leased; the platform thread pool
+ * can therefore be sized for the selectors, acceptors and non-blocking tasks only, while
+ * the number of concurrent blocking tasks is only bounded by the number of virtual threads.</p>
+ * <p>Virtual threads are looked up reflectively; if they are not supported by the runtime,
+ * {@link #getVirtualThreadsExecutor()} returns {@code null} and all the tasks are run by
+ * the platform thread pool.</p>
+ */
+@ManagedObject("A thread pool using virtual threads for blocking tasks")
+public class VirtualThreadPool extends ContainerLifeCycle implements ThreadPool.SizedThreadPool, TryExecutor
+{
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadPool.class);
+
+    private final AtomicInteger _virtualThreads = new AtomicInteger();
+    private final LongAdder _virtualTasks = new LongAdder();
+    private final QueuedThreadPool _platformThreadPool;
+    private final ThreadFactory _virtualThreadFactory;
+    private final Executor _virtualExecutor;
+
+    public VirtualThreadPool()
+    {
+        this(new QueuedThreadPool());
+    }
+
+    public VirtualThreadPool(@Name("platformThreadPool") QueuedThreadPool platformThreadPool)
+    {
+        _platformThreadPool = platformThreadPool;
+        _virtualThreadFactory = newVirtualThreadFactory(platformThreadPool.getName() + "-virtual-");
+        _virtualExecutor = _virtualThreadFactory == null ? null : this::executeVirtual;
+        addBean(_platformThreadPool);
+    }
+
+    /**
+     * @return whether the runtime supports virtual threads
+     */
+    public static boolean areVirtualThreadsSupported()
+    {
+        return newVirtualThreadFactory("probe-") != null;
+    }
+
+    /**
+     * @param executor the executor to get the virtual threads executor from
+     * @return the virtual threads executor of the given executor,
+     * or null if the executor does not run tasks on virtual threads
+     */
+    public static Executor getVirtualThreadsExecutor(Executor executor)
+    {
+        if (executor instanceof VirtualThreadPool)
+            return ((VirtualThreadPool)executor).getVirtualThreadsExecutor();
+        return null;
+    }
+
+    private static ThreadFactory newVirtualThreadFactory(String prefix)
+    {
+        try
+        {
+            // Thread.ofVirtual().name(prefix, 0).factory()
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory)builderClass.getMethod("factory").invoke(builder);
+        }
+        catch (Throwable x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Virtual threads not supported", x);
+            return null;
+        }
+    }
+
+    /**
+     * @return the platform thread pool
+     */
+    public QueuedThreadPool getPlatformThreadPool()
+    {
+        return _platformThreadPool;
+    }
+
+    /**
+     * @return an executor that runs tasks on virtual threads, or null if virtual threads are not supported
+     */
+    public Executor getVirtualThreadsExecutor()
+    {
+        return _virtualExecutor;
+    }
+
+    private void executeVirtual(Runnable task)
+    {
+        if (!isRunning())
+            throw new RejectedExecutionException(toString());
+        _virtualThreads.incrementAndGet();
+        _virtualTasks.increment();
+        try
+        {
+            _virtualThreadFactory.newThread(() ->
+            {
+                try
+                {
+                    task.run();
+                }
+                finally
+                {
+                    _virtualThreads.decrementAndGet();
+                }
+            }).start();
+        }
+        catch (Throwable x)
+        {
+            _virtualThreads.decrementAndGet();
+            throw x;
+        }
+    }
+
+    @ManagedAttribute("whether blocking tasks are run on virtual threads")
+    public boolean isUseVirtualThreads()
+    {
+        return _virtualExecutor != null;
+    }
+
+    @ManagedAttribute("number of virtual threads running tasks")
+    public int getVirtualThreads()
+    {
+        return _virtualThreads.get();
+    }
+
+    @ManagedAttribute("number of tasks run on virtual threads")
+    public long getVirtualTasks()
+    {
+        return _virtualTasks.longValue();
+    }
+
+    @Override
+    @ManagedAttribute("minimum number of platform threads in the pool")
+    public int getMinThreads()
+    {
+        return _platformThreadPool.getMinThreads();
+    }
+
+    @Override
+    public void setMinThreads(int threads)
+    {
+        _platformThreadPool.setMinThreads(threads);
+    }
+
+    @Override
+    @ManagedAttribute("maximum number of platform threads in the pool")
+    public int getMaxThreads()
+    {
+        return _platformThreadPool.getMaxThreads();
+    }
+
+    @Override
+    public void setMaxThreads(int threads)
+    {
+        _platformThreadPool.setMaxThreads(threads);
+    }
+
+    /**
+     * @return the budget of the platform thread pool
+     */
+    @Override
+    public ThreadPoolBudget getThreadPoolBudget()
+    {
+        return _platformThreadPool.getThreadPoolBudget();
+    }
+
+    /**
+     * @return the number of platform threads plus the number of virtual threads
+     */
+    @Override
+    @ManagedAttribute("number of platform and virtual threads in the pool")
+    public int getThreads()
+    {
+        return _platformThreadPool.getThreads() + getVirtualThreads();
+    }
+
+    @Override
+    @ManagedAttribute("number of idle platform threads in the pool")
+    public int getIdleThreads()
+    {
+        return _platformThreadPool.getIdleThreads();
+    }
+
+    @Override
+    @ManagedAttribute("indicates the platform thread pool is low on available threads")
+    public boolean isLowOnThreads()
+    {
+        return _platformThreadPool.isLowOnThreads();
+    }
+
+    @Override
+    public void execute(Runnable task)
+    {
+        _platformThreadPool.execute(task);
+    }
+
+    @Override
+    public boolean tryExecute(Runnable task)
+    {
+        return _platformThreadPool.tryExecute(task);
+    }
+
+    @Override
+    public void join() throws InterruptedException
+    {
+        _platformThreadPool.join();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,virtual=%b,vt=%d,%s}",
+            getClass().getSimpleName(),
+            hashCode(),
+            getState(),
+            isUseVirtualThreads(),
+            getVirtualThreads(),
+            _platformThreadPool);
+    }
+}
@@ -19,20 +19,30 @@
 package org.eclipse.jetty.util.thread.strategy;
 
 import java.io.Closeable;
+import java.io.IOException;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.component.DumpableCollection;
 import org.eclipse.jetty.util.thread.AutoLock;
 import org.eclipse.jetty.util.thread.ExecutionStrategy;
 import org.eclipse.jetty.util.thread.Invocable;
+import org.eclipse.jetty.util.thread.ReservedThreadExecutor;
 import org.eclipse.jetty.util.thread.TryExecutor;
+import org.eclipse.jetty.util.thread.VirtualThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,6 +63,19 @@ import org.slf4j.LoggerFactory;
  * indicated it is non-blocking, then this strategy will dispatch the execution of
  * the task and immediately continue production. When operating in this pattern, the
  * sub-strategy is called ProduceExecuteConsume (PEC).</p>
+ * <p>If the executor is a {@link VirtualThreadPool} that supports virtual threads,
+ * then blocking tasks are always executed with PEC on a virtual thread, since it is
+ * cheaper than handing over production to a pending producer thread.</p>
+ * <p>The number of tasks run in each mode and the number of transitions between modes
+ * are available via JMX and in the {@link #dump() dump}: frequent transitions to PEC
+ * indicate that no reserved thread was available when one was wanted.</p>
+ * <p>If {@link #setAdaptive(boolean) adaptive}, the strategy periodically adjusts the
+ * {@link ReservedThreadExecutor#setLimit(int) limit} of the {@link ReservedThreadExecutor}
+ * of the executor: the limit is increased when reserved threads are frequently missed and
+ * executed tasks are dispatched promptly (so the thread pool has spare threads to reserve),
+ * and it is decreased when reserved threads are rarely missed or when executed tasks wait
+ * too long to be dispatched (so the thread pool is short of threads and reserving them only
+ * makes it worse).</p>
  */
 @ManagedObject("eat what you kill execution strategy")
 public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrategy, Runnable
@@ -73,22 +96,42 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         EXECUTE_PRODUCE_CONSUME // Eat What You Kill!
     }
 
+    private static final Mode[] MODES = Mode.values();
+    private static final int ADAPT_PERIOD = 256;
+
     private final AutoLock _lock = new AutoLock();
     private final LongAdder _pcMode = new LongAdder();
     private final LongAdder _picMode = new LongAdder();
     private final LongAdder _pecMode = new LongAdder();
     private final LongAdder _epcMode = new LongAdder();
+    private final LongAdder[] _transitions = new LongAdder[MODES.length * MODES.length];
+    private final LongAdder _reservedHits = new LongAdder();
+    private final LongAdder _reservedMisses = new LongAdder();
+    private final LongAdder _dispatches = new LongAdder();
+    private final LongAdder _dispatchNanos = new LongAdder();
+    private final AtomicLong _decisions = new AtomicLong();
     private final Producer _producer;
     private final Executor _executor;
     private final TryExecutor _tryExecutor;
+    private final Executor _virtualExecutor;
     private State _state = State.IDLE;
     private boolean _pending;
+    private volatile Mode _lastMode;
+    private volatile boolean _adaptive;
+    private volatile long _maxDispatchLatency = TimeUnit.MILLISECONDS.toNanos(1);
+    private volatile double _lastMissRatio;
+    private volatile long _lastDispatchLatency;
 
     public EatWhatYouKill(Producer producer, Executor executor)
     {
         _producer = producer;
         _executor = executor;
         _tryExecutor = TryExecutor.asTryExecutor(executor);
+        _virtualExecutor = VirtualThreadPool.getVirtualThreadsExecutor(executor);
+        for (int i = 0; i < _transitions.length; ++i)
+        {
+            _transitions[i] = new LongAdder();
+        }
         addBean(_producer);
         addBean(_tryExecutor);
         if (LOG.isDebugEnabled())
@@ -237,8 +280,14 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
                     break;
 
                 case BLOCKING:
-                    // The task is blocking, so PC is not an option. Thus we choose
+                    // The task is blocking, so PC is not an option. If it can be executed
+                    // by a virtual thread, PEC is the cheapest mode. Otherwise we choose
                     // between EPC and PEC based on the availability of a reserved thread.
+                    if (_virtualExecutor != null)
+                    {
+                        mode = Mode.PRODUCE_EXECUTE_CONSUME;
+                        break;
+                    }
                     try (AutoLock l = _lock.lock())
                     {
                         if (_pending)
@@ -292,6 +341,30 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         if (LOG.isDebugEnabled())
             LOG.debug("{} m={} t={}/{}", this, mode, task, Invocable.getInvocationType(task));
 
+        Mode lastMode = _lastMode;
+        if (lastMode != mode)
+        {
+            _lastMode = mode;
+            if (lastMode != null)
+                _transitions[lastMode.ordinal() * MODES.length + mode.ordinal()].increment();
+        }
+
+        if (_adaptive)
+        {
+            if (!nonBlocking && _virtualExecutor == null && Invocable.getInvocationType(task) != Invocable.InvocationType.NON_BLOCKING)
+            {
+                // A reserved thread was wanted for this task.
+                if (mode == Mode.EXECUTE_PRODUCE_CONSUME)
+                    _reservedHits.increment();
+                else
+                    _reservedMisses.increment();
+            }
+            if (mode == Mode.PRODUCE_EXECUTE_CONSUME)
+                task = new DispatchTimedTask(task);
+            if (_decisions.incrementAndGet() % ADAPT_PERIOD == 0)
+                adapt();
+        }
+
         // Consume or execute task
         switch (mode)
         {
@@ -372,7 +445,10 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
     {
         try
         {
-            _executor.execute(task);
+            if (_virtualExecutor != null && Invocable.getInvocationType(task) == Invocable.InvocationType.BLOCKING)
+                _virtualExecutor.execute(task);
+            else
+                _executor.execute(task);
         }
         catch (RejectedExecutionException e)
         {
@@ -395,6 +471,127 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         }
     }
 
+    private void adapt()
+    {
+        long hits = _reservedHits.sumThenReset();
+        long misses = _reservedMisses.sumThenReset();
+        long dispatches = _dispatches.sumThenReset();
+        long dispatchNanos = _dispatchNanos.sumThenReset();
+
+        double missRatio = hits + misses == 0 ? 0.0D : (double)misses / (hits + misses);
+        long dispatchLatency = dispatches == 0 ? 0 : dispatchNanos / dispatches;
+        _lastMissRatio = missRatio;
+        _lastDispatchLatency = dispatchLatency;
+
+        ReservedThreadExecutor reserved = findReservedThreadExecutor();
+        if (reserved == null)
+            return;
+
+        int limit = reserved.getLimit();
+        if (dispatchLatency > _maxDispatchLatency || missRatio < 0.01D)
+            reserved.setLimit(Math.max(1, limit - 1));
+        else if (missRatio > 0.1D)
+            reserved.setLimit(limit + 1);
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("{} adapted miss={} latency={}ns limit={}->{}", this, missRatio, dispatchLatency, limit, reserved.getLimit());
+    }
+
+    private ReservedThreadExecutor findReservedThreadExecutor()
+    {
+        if (_tryExecutor instanceof ReservedThreadExecutor)
+            return (ReservedThreadExecutor)_tryExecutor;
+        if (_executor instanceof ContainerLifeCycle)
+            return ((ContainerLifeCycle)_executor).getBean(ReservedThreadExecutor.class);
+        return null;
+    }
+
+    /**
+     * @return whether the reserved threads limit is adapted to the observed modes and dispatch latency
+     */
+    @ManagedAttribute("whether the reserved threads limit is adapted to the observed modes and dispatch latency")
+    public boolean isAdaptive()
+    {
+        return _adaptive;
+    }
+
+    /**
+     * <p>Sets whether this strategy adapts the {@link ReservedThreadExecutor#setLimit(int) limit}
+     * of the {@link ReservedThreadExecutor} used by the executor every {@value #ADAPT_PERIOD} tasks.</p>
+     * <p>The {@link ReservedThreadExecutor} may be shared by several strategies, for example
+     * those of the selectors of a connector, which then all contribute to its limit.</p>
+     *
+     * @param adaptive whether the reserved threads limit is adapted
+     */
+    public void setAdaptive(boolean adaptive)
+    {
+        _adaptive = adaptive;
+    }
+
+    /**
+     * @return the max average time in ms that executed tasks may wait to be dispatched before the reserved threads limit is decreased
+     */
+    @ManagedAttribute("max average time in ms that executed tasks may wait to be dispatched before the reserved threads limit is decreased")
+    public long getMaxDispatchLatency()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(_maxDispatchLatency);
+    }
+
+    /**
+     * @param maxDispatchLatency the max average time in ms that executed tasks may wait to be dispatched before the reserved threads limit is decreased
+     */
+    public void setMaxDispatchLatency(long maxDispatchLatency)
+    {
+        _maxDispatchLatency = TimeUnit.MILLISECONDS.toNanos(maxDispatchLatency);
+    }
+
+    @ManagedAttribute(value = "ratio of tasks that missed a reserved thread in the last adaptive period", readonly = true)
+    public double getReservedMissRatio()
+    {
+        return _lastMissRatio;
+    }
+
+    @ManagedAttribute(value = "average time in ns executed tasks waited to be dispatched in the last adaptive period", readonly = true)
+    public long getDispatchLatency()
+    {
+        return _lastDispatchLatency;
+    }
+
+    /**
+     * @return the number of transitions between different modes, keyed by {@code "FROM->TO"}
+     */
+    @ManagedAttribute(value = "number of transitions between modes", readonly = true)
+    public Map<String, Long> getModeTransitions()
+    {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Mode from : MODES)
+        {
+            for (Mode to : MODES)
+            {
+                if (from != to)
+                    result.put(abbreviate(from) + "->" + abbreviate(to), _transitions[from.ordinal() * MODES.length + to.ordinal()].longValue());
+            }
+        }
+        return result;
+    }
+
+    private static String abbreviate(Mode mode)
+    {
+        switch (mode)
+        {
+            case PRODUCE_CONSUME:
+                return "PC";
+            case PRODUCE_INVOKE_CONSUME:
+                return "PIC";
+            case PRODUCE_EXECUTE_CONSUME:
+                return "PEC";
+            case EXECUTE_PRODUCE_CONSUME:
+                return "EPC";
+            default:
+                throw new IllegalStateException(mode.toString());
+        }
+    }
+
     @ManagedAttribute(value = "number of tasks consumed with PC mode", readonly = true)
     public long getPCTasksConsumed()
     {
@@ -435,6 +632,22 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         _epcMode.reset();
         _pecMode.reset();
         _picMode.reset();
+        for (LongAdder transition : _transitions)
+        {
+            transition.reset();
+        }
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        List<String> transitions = new ArrayList<>();
+        getModeTransitions().forEach((k, v) ->
+        {
+            if (v > 0)
+                transitions.add(k + "=" + v);
+        });
+        dumpObjects(out, indent, new DumpableCollection("transitions", transitions));
     }
 
     @Override
@@ -479,8 +692,51 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         builder.append(getPECTasksExecuted());
         builder.append(",epc=");
         builder.append(getEPCTasksConsumed());
+        if (_adaptive)
+        {
+            builder.append(",miss=");
+            builder.append(String.format("%.3f", _lastMissRatio));
+        }
         builder.append("]");
         builder.append("@");
         builder.append(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(ZonedDateTime.now()));
     }
+
+    private class DispatchTimedTask implements Runnable, Closeable, Invocable
+    {
+        private final long _created = System.nanoTime();
+        private final Runnable _task;
+
+        private DispatchTimedTask(Runnable task)
+        {
+            _task = task;
+        }
+
+        @Override
+        public void run()
+        {
+            _dispatches.increment();
+            _dispatchNanos.add(System.nanoTime() - _created);
+            _task.run();
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (_task instanceof Closeable)
+                ((Closeable)_task).close();
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return Invocable.getInvocationType(_task);
+        }
+
+        @Override
+        public String toString()
+        {
+            return _task.toString();
+        }
+    }
 }
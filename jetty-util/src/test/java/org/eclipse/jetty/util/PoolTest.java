@@ -34,6 +34,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import static java.util.stream.Collectors.toList;
 import static org.eclipse.jetty.util.Pool.StrategyType.FIRST;
+import static org.eclipse.jetty.util.Pool.StrategyType.LEAST_MULTIPLEXED;
 import static org.eclipse.jetty.util.Pool.StrategyType.RANDOM;
 import static org.eclipse.jetty.util.Pool.StrategyType.ROUND_ROBIN;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -668,4 +669,54 @@ public class PoolTest
         assertThat(e3.getPooled().get(), greaterThan(10));
         assertThat(e4.getPooled().get(), greaterThan(10));
     }
+
+    @Test
+    public void testLeastMultiplexedStrategy()
+    {
+        Pool<String> pool = new Pool<>(LEAST_MULTIPLEXED, 3);
+        pool.setMaxMultiplex(2);
+        pool.reserve(-1).enable("aaa", false);
+        pool.reserve(-1).enable("bbb", false);
+        pool.reserve(-1).enable("ccc", false);
+
+        Pool<String>.Entry e1 = pool.acquire();
+        Pool<String>.Entry e2 = pool.acquire();
+        Pool<String>.Entry e3 = pool.acquire();
+        assertThat(e1, not(sameInstance(e2)));
+        assertThat(e2, not(sameInstance(e3)));
+        assertThat(e3, not(sameInstance(e1)));
+
+        pool.release(e2);
+        assertThat(pool.acquire(), sameInstance(e2));
+
+        assertThat(pool.acquire().getMultiplexCount(), is(2));
+        assertThat(pool.acquire().getMultiplexCount(), is(2));
+        assertThat(pool.acquire().getMultiplexCount(), is(2));
+        assertNull(pool.acquire());
+    }
+
+    @Test
+    public void testMaxMultiplexPerEntry()
+    {
+        Pool<AtomicInteger> pool = new Pool<>(FIRST, 2)
+        {
+            @Override
+            protected int getMaxMultiplex(AtomicInteger pooled)
+            {
+                return pooled.get();
+            }
+        };
+        AtomicInteger maxMultiplex = new AtomicInteger(1);
+        pool.reserve(-1).enable(maxMultiplex, false);
+
+        Pool<AtomicInteger>.Entry e1 = pool.acquire();
+        assertThat(e1, notNullValue());
+        assertNull(pool.acquire());
+
+        // The max multiplex may change during the entry lifetime.
+        maxMultiplex.set(2);
+        assertThat(pool.acquire(), sameInstance(e1));
+        assertThat(e1.getMultiplexCount(), is(2));
+        assertNull(pool.acquire());
+    }
 }
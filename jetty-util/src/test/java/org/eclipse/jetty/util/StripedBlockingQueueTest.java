@@ -0,0 +1,239 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StripedBlockingQueueTest
+{
+    @Test
+    public void testOfferPollSameThread()
+    {
+        StripedBlockingQueue<String> queue = new StripedBlockingQueue<>(4, 3);
+
+        assertTrue(queue.offer("one"));
+        assertTrue(queue.offer("two"));
+        assertTrue(queue.offer("three"));
+        assertFalse(queue.offer("four"));
+        assertEquals(3, queue.size());
+        assertEquals(0, queue.remainingCapacity());
+
+        assertEquals("one", queue.peek());
+        assertEquals("one", queue.poll());
+        assertEquals("two", queue.poll());
+        assertEquals("three", queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testSteal() throws Exception
+    {
+        StripedBlockingQueue<String> queue = new StripedBlockingQueue<>(4, 16);
+
+        Thread thread = new Thread(() ->
+        {
+            for (int i = 0; i < 8; ++i)
+            {
+                queue.offer("job" + i);
+            }
+        });
+        thread.start();
+        thread.join();
+
+        // Whatever our stripe, we steal the jobs of the other thread.
+        for (int i = 0; i < 8; ++i)
+        {
+            assertEquals("job" + i, queue.poll());
+        }
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testTakeWaitsForOffer() throws Exception
+    {
+        StripedBlockingQueue<String> queue = new StripedBlockingQueue<>(4, 16);
+        AtomicReference<String> taken = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        Thread thread = new Thread(() ->
+        {
+            try
+            {
+                taken.set(queue.take());
+                latch.countDown();
+            }
+            catch (InterruptedException x)
+            {
+                x.printStackTrace();
+            }
+        });
+        thread.start();
+
+        assertFalse(latch.await(100, TimeUnit.MILLISECONDS));
+        queue.offer("job");
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("job", taken.get());
+    }
+
+    @Test
+    public void testPollTimeout() throws Exception
+    {
+        StripedBlockingQueue<String> queue = new StripedBlockingQueue<>(4, 16);
+        long start = System.nanoTime();
+        assertNull(queue.poll(100, TimeUnit.MILLISECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+    }
+
+    @Test
+    public void testPutWaitsForPoll() throws Exception
+    {
+        StripedBlockingQueue<String> queue = new StripedBlockingQueue<>(2, 1);
+        queue.put("one");
+        assertFalse(queue.offer("two", 50, TimeUnit.MILLISECONDS));
+
+        CountDownLatch latch = new CountDownLatch(1);
+        Thread thread = new Thread(() ->
+        {
+            try
+            {
+                queue.put("two");
+                latch.countDown();
+            }
+            catch (InterruptedException x)
+            {
+                x.printStackTrace();
+            }
+        });
+        thread.start();
+
+        assertFalse(latch.await(100, TimeUnit.MILLISECONDS));
+        assertEquals("one", queue.poll());
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("two", queue.poll());
+    }
+
+    @Test
+    public void testIteratorRemove()
+    {
+        StripedBlockingQueue<String> queue = new StripedBlockingQueue<>(4, 16);
+        queue.offer("one");
+        queue.offer("two");
+        queue.offer("three");
+
+        Iterator<String> iterator = queue.iterator();
+        while (iterator.hasNext())
+        {
+            if ("two".equals(iterator.next()))
+                iterator.remove();
+        }
+        assertEquals(2, queue.size());
+        assertFalse(queue.contains("two"));
+        assertTrue(queue.remove("one"));
+        assertEquals(1, queue.size());
+        assertEquals("three", queue.poll());
+    }
+
+    @Test
+    public void testConcurrentProducersConsumers() throws Exception
+    {
+        int threads = 4;
+        int jobs = 10000;
+        StripedBlockingQueue<Integer> queue = new StripedBlockingQueue<>(threads, 64);
+        AtomicInteger consumed = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(threads * jobs);
+
+        for (int t = 0; t < threads; ++t)
+        {
+            Thread consumer = new Thread(() ->
+            {
+                try
+                {
+                    while (true)
+                    {
+                        queue.take();
+                        consumed.incrementAndGet();
+                        latch.countDown();
+                    }
+                }
+                catch (InterruptedException x)
+                {
+                    // Test is finished.
+                }
+            });
+            consumer.setDaemon(true);
+            consumer.start();
+
+            Thread producer = new Thread(() ->
+            {
+                try
+                {
+                    for (int i = 0; i < jobs; ++i)
+                    {
+                        queue.put(i);
+                    }
+                }
+                catch (InterruptedException x)
+                {
+                    x.printStackTrace();
+                }
+            });
+            producer.setDaemon(true);
+            producer.start();
+        }
+
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertThat(consumed.get(), is(threads * jobs));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testQueuedThreadPool() throws Exception
+    {
+        QueuedThreadPool pool = new QueuedThreadPool(8, 2, new StripedBlockingQueue<>(1024));
+        pool.start();
+        try
+        {
+            int jobs = 1000;
+            CountDownLatch latch = new CountDownLatch(jobs);
+            for (int i = 0; i < jobs; ++i)
+            {
+                pool.execute(latch::countDown);
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            pool.stop();
+        }
+    }
+}
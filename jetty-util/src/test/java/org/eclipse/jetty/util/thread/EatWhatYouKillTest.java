@@ -18,6 +18,10 @@
 
 package org.eclipse.jetty.util.thread;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -29,10 +33,16 @@ import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 public class EatWhatYouKillTest
 {
+    private static final Runnable NOOP = () ->
+    {
+    };
+
     private EatWhatYouKill ewyk;
 
     private void startEWYK(ExecutionStrategy.Producer producer) throws Exception
@@ -123,6 +133,58 @@ public class EatWhatYouKillTest
         }
     }
 
+    @Test
+    public void testModeTransitions() throws Exception
+    {
+        Queue<Task> tasks = new ArrayDeque<>(Arrays.asList(
+            new Task(NOOP, Invocable.InvocationType.NON_BLOCKING),
+            new Task(NOOP, Invocable.InvocationType.NON_BLOCKING),
+            new Task(NOOP, Invocable.InvocationType.EITHER),
+            new Task(NOOP, Invocable.InvocationType.BLOCKING),
+            new Task(NOOP, Invocable.InvocationType.NON_BLOCKING)
+        ));
+        // A plain executor never provides a reserved thread, so EPC mode is never used.
+        ewyk = new EatWhatYouKill(tasks::poll, Runnable::run);
+        ewyk.start();
+        ewyk.produce();
+
+        assertThat(ewyk.getPCTasksConsumed(), is(3L));
+        Map<String, Long> transitions = ewyk.getModeTransitions();
+        assertThat(transitions.get("PC->PIC"), is(1L));
+        assertThat(transitions.get("PIC->PEC"), is(1L));
+        assertThat(transitions.get("PEC->PC"), is(1L));
+        assertThat(transitions.get("PC->PEC"), is(0L));
+        assertThat(transitions.get("PC->EPC"), is(0L));
+
+        ewyk.reset();
+        assertThat(ewyk.getModeTransitions().get("PC->PIC"), is(0L));
+    }
+
+    @Test
+    public void testAdaptiveIncreasesReservedLimit() throws Exception
+    {
+        // Tasks are queued but never run, so reserved threads are never available.
+        Queue<Runnable> queued = new ArrayDeque<>();
+        ReservedThreadExecutor reserved = new ReservedThreadExecutor(queued::offer, 4);
+        reserved.start();
+        reserved.setLimit(1);
+
+        Queue<Task> tasks = new ArrayDeque<>();
+        for (int i = 0; i < 256; i++)
+        {
+            tasks.offer(new Task(NOOP, Invocable.InvocationType.BLOCKING));
+        }
+        ewyk = new EatWhatYouKill(tasks::poll, reserved);
+        ewyk.setAdaptive(true);
+        ewyk.start();
+        ewyk.produce();
+
+        assertThat(ewyk.getPECTasksExecuted(), is(256L));
+        assertThat(ewyk.getReservedMissRatio(), is(1.0D));
+        assertThat(reserved.getLimit(), is(2));
+        reserved.stop();
+    }
+
     private static class Task implements Runnable, Invocable
     {
         private final Runnable task;
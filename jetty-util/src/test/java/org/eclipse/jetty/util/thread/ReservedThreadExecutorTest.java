@@ -161,6 +161,29 @@ public class ReservedThreadExecutorTest
         waitForAllAvailable();
     }
 
+    @Test
+    public void testLimit() throws Exception
+    {
+        _reservedExecutor.setLimit(SIZE + 1);
+        assertThat(_reservedExecutor.getLimit(), is(SIZE));
+
+        _reservedExecutor.setLimit(1);
+        assertThat(_reservedExecutor.getLimit(), is(1));
+
+        for (int i = 0; i < SIZE; i++)
+        {
+            assertThat(_reservedExecutor.tryExecute(NOOP), is(false));
+        }
+        // Only one reserved thread is started.
+        assertThat(_executor._queue.size(), is(1));
+        _executor.startThread();
+        waitForAvailable(1);
+
+        assertThat(_reservedExecutor.tryExecute(NOOP), is(true));
+        assertThat(_executor._queue.size(), is(0));
+        waitForAvailable(1);
+    }
+
     @Test
     public void testShrink() throws Exception
     {
@@ -0,0 +1,110 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jetty.util.thread.ThreadPool.SizedThreadPool;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class VirtualThreadPoolTest extends AbstractThreadPoolTest
+{
+    @Override
+    protected SizedThreadPool newPool(int max)
+    {
+        return new VirtualThreadPool(new QueuedThreadPool(max));
+    }
+
+    @Test
+    public void testBudgetIsPlatformBudget()
+    {
+        QueuedThreadPool platform = new QueuedThreadPool(8);
+        VirtualThreadPool pool = new VirtualThreadPool(platform);
+        assertSame(platform.getThreadPoolBudget(), pool.getThreadPoolBudget());
+        assertEquals(8, pool.getMaxThreads());
+    }
+
+    @Test
+    public void testExecuteRunsOnPlatformThread() throws Exception
+    {
+        VirtualThreadPool pool = new VirtualThreadPool(new QueuedThreadPool(8));
+        pool.start();
+        try
+        {
+            AtomicReference<Thread> thread = new AtomicReference<>();
+            CountDownLatch latch = new CountDownLatch(1);
+            pool.execute(() ->
+            {
+                thread.set(Thread.currentThread());
+                latch.countDown();
+            });
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertTrue(thread.get().getName().startsWith(pool.getPlatformThreadPool().getName()));
+        }
+        finally
+        {
+            pool.stop();
+        }
+    }
+
+    @Test
+    public void testVirtualThreadsExecutor() throws Exception
+    {
+        VirtualThreadPool pool = new VirtualThreadPool(new QueuedThreadPool(8));
+        Executor virtual = VirtualThreadPool.getVirtualThreadsExecutor(pool);
+        assertNull(VirtualThreadPool.getVirtualThreadsExecutor(pool.getPlatformThreadPool()));
+        if (!VirtualThreadPool.areVirtualThreadsSupported())
+        {
+            assertNull(virtual);
+            assertFalse(pool.isUseVirtualThreads());
+        }
+        assumeTrue(VirtualThreadPool.areVirtualThreadsSupported());
+
+        assertNotNull(virtual);
+        pool.start();
+        try
+        {
+            AtomicReference<Thread> thread = new AtomicReference<>();
+            CountDownLatch latch = new CountDownLatch(1);
+            virtual.execute(() ->
+            {
+                thread.set(Thread.currentThread());
+                latch.countDown();
+            });
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertTrue(thread.get().getName().startsWith(pool.getPlatformThreadPool().getName() + "-virtual-"));
+            assertEquals(1, pool.getVirtualTasks());
+        }
+        finally
+        {
+            pool.stop();
+        }
+    }
+}
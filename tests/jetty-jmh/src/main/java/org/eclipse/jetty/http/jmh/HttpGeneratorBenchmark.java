@@ -0,0 +1,171 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpGenerator;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpHeaderValue;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@Threads(1)
+@Warmup(iterations = 7, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 7, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class HttpGeneratorBenchmark
+{
+    @Param({"SMALL", "HEADERS", "CHUNKED"})
+    public String responseType;
+
+    private final HttpGenerator generator = new HttpGenerator();
+    private final ByteBuffer header = BufferUtil.allocate(8192);
+    private final ByteBuffer chunk = BufferUtil.allocate(HttpGenerator.CHUNK_SIZE);
+    private final ByteBuffer trailer = BufferUtil.allocate(1024);
+    private byte[] body;
+    private MetaData.Response response;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        HttpFields.Mutable fields = HttpFields.build();
+        long contentLength;
+        switch (responseType)
+        {
+            case "SMALL":
+                body = "0123456789".getBytes();
+                contentLength = body.length;
+                break;
+
+            case "HEADERS":
+                body = "0123456789".getBytes();
+                contentLength = body.length;
+                fields.put(HttpHeader.DATE, "Thu, 01 Oct 2020 10:20:30 GMT");
+                fields.put(HttpHeader.CONTENT_TYPE, "text/html;charset=utf-8");
+                fields.put(HttpHeader.LAST_MODIFIED, "Thu, 01 Oct 2020 10:20:30 GMT");
+                fields.put(HttpHeader.ETAG, "\"5f75b2e6-3c4\"");
+                fields.put(HttpHeader.CACHE_CONTROL, "public, max-age=3600");
+                fields.put(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING.asString());
+                fields.put(HttpHeader.ACCEPT_RANGES, HttpHeaderValue.BYTES.asString());
+                fields.put(HttpHeader.SET_COOKIE, "JSESSIONID=node01k3v9x1ab2cd3ef4gh5ij6kl7mn8.node0; Path=/; HttpOnly");
+                fields.put("X-Content-Type-Options", "nosniff");
+                fields.put("Strict-Transport-Security", "max-age=31536000; includeSubDomains");
+                break;
+
+            case "CHUNKED":
+                body = new byte[4096];
+                contentLength = -1;
+                fields.put(HttpHeader.CONTENT_TYPE, "application/octet-stream");
+                break;
+
+            default:
+                throw new IllegalStateException("Unknown responseType Parameter");
+        }
+        response = new MetaData.Response(HttpVersion.HTTP_1_1, 200, null, fields.asImmutable(), contentLength);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public long testGenerateResponse() throws IOException
+    {
+        generator.reset();
+        long generated = 0;
+        ByteBuffer content = ByteBuffer.wrap(body);
+        MetaData.Response info = response;
+        ByteBuffer headerBuffer = null;
+        ByteBuffer chunkBuffer = null;
+        while (true)
+        {
+            HttpGenerator.Result result = generator.generateResponse(info, false, headerBuffer, chunkBuffer, content, true);
+            switch (result)
+            {
+                case NEED_HEADER:
+                    headerBuffer = header;
+                    break;
+
+                case NEED_CHUNK:
+                    chunkBuffer = chunk;
+                    break;
+
+                case NEED_CHUNK_TRAILER:
+                    chunkBuffer = trailer;
+                    break;
+
+                case FLUSH:
+                    generated += flush(headerBuffer) + flush(chunkBuffer) + flush(content);
+                    info = null;
+                    break;
+
+                case CONTINUE:
+                    break;
+
+                case DONE:
+                case SHUTDOWN_OUT:
+                    return generated;
+
+                default:
+                    throw new IllegalStateException("Unexpected result " + result);
+            }
+        }
+    }
+
+    private static int flush(ByteBuffer buffer)
+    {
+        if (buffer == null)
+            return 0;
+        int remaining = buffer.remaining();
+        BufferUtil.clear(buffer);
+        return remaining;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HttpGeneratorBenchmark.class.getSimpleName())
+            .warmupIterations(20)
+            .measurementIterations(10)
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .threads(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,280 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpParser;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@Threads(1)
+@Warmup(iterations = 7, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 7, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class HttpParserBenchmark
+{
+    private static final String SMALL_REQUEST =
+        "GET /index.html HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "\r\n";
+
+    private static final String HEADERS_REQUEST =
+        "GET /context/path/resource.html?query=value&other=thing HTTP/1.1\r\n" +
+            "Host: www.example.com:8080\r\n" +
+            "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:81.0) Gecko/20100101 Firefox/81.0\r\n" +
+            "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8\r\n" +
+            "Accept-Language: en-US,en;q=0.5\r\n" +
+            "Accept-Encoding: gzip, deflate, br\r\n" +
+            "Referer: https://www.example.com/context/path/index.html\r\n" +
+            "Connection: keep-alive\r\n" +
+            "Cookie: JSESSIONID=node01k3v9x1ab2cd3ef4gh5ij6kl7mn8.node0; theme=dark; tracking=abcdef0123456789\r\n" +
+            "Upgrade-Insecure-Requests: 1\r\n" +
+            "Cache-Control: max-age=0\r\n" +
+            "If-Modified-Since: Thu, 01 Oct 2020 10:20:30 GMT\r\n" +
+            "If-None-Match: \"5f75b2e6-3c4\"\r\n" +
+            "X-Forwarded-For: 192.168.0.1, 10.0.0.1\r\n" +
+            "X-Forwarded-Proto: https\r\n" +
+            "X-Request-Id: 6d3c8a52-1d7e-4b6f-9a0c-2f1e3d4c5b6a\r\n" +
+            "\r\n";
+
+    private static final String CHUNKED_REQUEST =
+        "POST /upload HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "Content-Type: application/octet-stream\r\n" +
+            "Transfer-Encoding: chunked\r\n" +
+            "\r\n" +
+            "10\r\n" +
+            "0123456789ABCDEF\r\n" +
+            "1a\r\n" +
+            "abcdefghijklmnopqrstuvwxyz\r\n" +
+            "8\r\n" +
+            "01234567\r\n" +
+            "0\r\n" +
+            "\r\n";
+
+    private static final String SMALL_RESPONSE =
+        "HTTP/1.1 200 OK\r\n" +
+            "Content-Length: 10\r\n" +
+            "\r\n" +
+            "0123456789";
+
+    private static final String HEADERS_RESPONSE =
+        "HTTP/1.1 200 OK\r\n" +
+            "Date: Thu, 01 Oct 2020 10:20:30 GMT\r\n" +
+            "Server: Jetty(10.0.0)\r\n" +
+            "Content-Type: text/html;charset=utf-8\r\n" +
+            "Content-Length: 10\r\n" +
+            "Last-Modified: Thu, 01 Oct 2020 10:20:30 GMT\r\n" +
+            "ETag: \"5f75b2e6-3c4\"\r\n" +
+            "Cache-Control: public, max-age=3600\r\n" +
+            "Vary: Accept-Encoding\r\n" +
+            "Accept-Ranges: bytes\r\n" +
+            "Set-Cookie: JSESSIONID=node01k3v9x1ab2cd3ef4gh5ij6kl7mn8.node0; Path=/; HttpOnly\r\n" +
+            "X-Content-Type-Options: nosniff\r\n" +
+            "Strict-Transport-Security: max-age=31536000; includeSubDomains\r\n" +
+            "\r\n" +
+            "0123456789";
+
+    private static final String CHUNKED_RESPONSE =
+        "HTTP/1.1 200 OK\r\n" +
+            "Content-Type: text/plain\r\n" +
+            "Transfer-Encoding: chunked\r\n" +
+            "\r\n" +
+            "10\r\n" +
+            "0123456789ABCDEF\r\n" +
+            "1a\r\n" +
+            "abcdefghijklmnopqrstuvwxyz\r\n" +
+            "0\r\n" +
+            "\r\n";
+
+    @Param({"SMALL", "HEADERS", "CHUNKED", "PIPELINED"})
+    public String messageType;
+
+    private ByteBuffer request;
+    private ByteBuffer response;
+    private int messages;
+    private RequestHandler requestHandler;
+    private ResponseHandler responseHandler;
+    private HttpParser requestParser;
+    private HttpParser responseParser;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        switch (messageType)
+        {
+            case "SMALL":
+                request = BufferUtil.toBuffer(SMALL_REQUEST);
+                response = BufferUtil.toBuffer(SMALL_RESPONSE);
+                messages = 1;
+                break;
+
+            case "HEADERS":
+                request = BufferUtil.toBuffer(HEADERS_REQUEST);
+                response = BufferUtil.toBuffer(HEADERS_RESPONSE);
+                messages = 1;
+                break;
+
+            case "CHUNKED":
+                request = BufferUtil.toBuffer(CHUNKED_REQUEST);
+                response = BufferUtil.toBuffer(CHUNKED_RESPONSE);
+                messages = 1;
+                break;
+
+            case "PIPELINED":
+                request = BufferUtil.toBuffer(SMALL_REQUEST + HEADERS_REQUEST + CHUNKED_REQUEST + SMALL_REQUEST);
+                response = BufferUtil.toBuffer(SMALL_RESPONSE + HEADERS_RESPONSE + CHUNKED_RESPONSE + SMALL_RESPONSE);
+                messages = 4;
+                break;
+
+            default:
+                throw new IllegalStateException("Unknown messageType Parameter");
+        }
+
+        requestHandler = new RequestHandler();
+        responseHandler = new ResponseHandler();
+        requestParser = new HttpParser(requestHandler);
+        responseParser = new HttpParser(responseHandler);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public void testParseRequest(Blackhole blackhole)
+    {
+        parse(requestParser, requestHandler, request.slice(), blackhole);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public void testParseResponse(Blackhole blackhole)
+    {
+        parse(responseParser, responseHandler, response.slice(), blackhole);
+    }
+
+    private void parse(HttpParser parser, Handler handler, ByteBuffer buffer, Blackhole blackhole)
+    {
+        handler.blackhole = blackhole;
+        for (int i = 0; i < messages; i++)
+        {
+            parser.reset();
+            handler.complete = false;
+            while (!handler.complete)
+            {
+                if (!parser.parseNext(buffer) && !buffer.hasRemaining() && !handler.complete)
+                    throw new IllegalStateException("Incomplete message " + parser);
+            }
+        }
+    }
+
+    private abstract static class Handler implements HttpParser.HttpHandler
+    {
+        private Blackhole blackhole;
+        private boolean complete;
+
+        @Override
+        public boolean content(ByteBuffer item)
+        {
+            blackhole.consume(item.remaining());
+            return false;
+        }
+
+        @Override
+        public boolean headerComplete()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean contentComplete()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean messageComplete()
+        {
+            complete = true;
+            return true;
+        }
+
+        @Override
+        public void parsedHeader(HttpField field)
+        {
+            blackhole.consume(field);
+        }
+
+        @Override
+        public void earlyEOF()
+        {
+            throw new IllegalStateException("Early EOF");
+        }
+    }
+
+    private static class RequestHandler extends Handler implements HttpParser.RequestHandler
+    {
+        @Override
+        public void startRequest(String method, String uri, HttpVersion version)
+        {
+            super.blackhole.consume(uri);
+        }
+    }
+
+    private static class ResponseHandler extends Handler implements HttpParser.ResponseHandler
+    {
+        @Override
+        public void startResponse(HttpVersion version, int status, String reason)
+        {
+            super.blackhole.consume(status);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HttpParserBenchmark.class.getSimpleName())
+            .warmupIterations(20)
+            .measurementIterations(10)
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .threads(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
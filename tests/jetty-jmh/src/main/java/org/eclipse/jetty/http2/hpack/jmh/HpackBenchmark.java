@@ -0,0 +1,180 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HostPortHttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpScheme;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.hpack.HpackDecoder;
+import org.eclipse.jetty.http2.hpack.HpackEncoder;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures HPACK encoding and decoding of realistic browser request and server response header sets.</p>
+ * <p>The {@code COLD} table state encodes/decodes with an empty dynamic table, as for the first
+ * request on a connection; the {@code WARM} table state reuses a dynamic table already populated
+ * by a previous identical header set, as for subsequent requests on the same connection.</p>
+ */
+@State(Scope.Thread)
+@Threads(1)
+@Warmup(iterations = 7, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 7, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class HpackBenchmark
+{
+    private static final int TABLE_SIZE = 4096;
+    private static final int MAX_HEADER_SIZE = 8192;
+
+    @Param({"REQUEST", "RESPONSE"})
+    public String headerSet;
+
+    @Param({"COLD", "WARM"})
+    public String tableState;
+
+    private MetaData metaData;
+    private final ByteBuffer buffer = BufferUtil.allocate(MAX_HEADER_SIZE);
+    private HpackEncoder warmEncoder;
+    private HpackDecoder warmDecoder;
+    private ByteBuffer coldBlock;
+    private ByteBuffer warmBlock;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception
+    {
+        switch (headerSet)
+        {
+            case "REQUEST":
+                metaData = newRequest();
+                break;
+
+            case "RESPONSE":
+                metaData = newResponse();
+                break;
+
+            default:
+                throw new IllegalStateException("Unknown headerSet Parameter");
+        }
+
+        HpackEncoder encoder = new HpackEncoder(TABLE_SIZE, TABLE_SIZE);
+        coldBlock = encode(encoder, metaData);
+        // The second encoding of the same header set uses the dynamic table.
+        warmBlock = encode(encoder, metaData);
+
+        warmEncoder = new HpackEncoder(TABLE_SIZE, TABLE_SIZE);
+        encode(warmEncoder, metaData);
+        warmDecoder = new HpackDecoder(TABLE_SIZE, MAX_HEADER_SIZE);
+        warmDecoder.decode(coldBlock.slice());
+    }
+
+    private static ByteBuffer encode(HpackEncoder encoder, MetaData metaData) throws Exception
+    {
+        ByteBuffer buffer = BufferUtil.allocate(MAX_HEADER_SIZE);
+        BufferUtil.clearToFill(buffer);
+        encoder.encode(buffer, metaData);
+        BufferUtil.flipToFlush(buffer, 0);
+        return buffer;
+    }
+
+    private static MetaData newRequest()
+    {
+        HttpFields.Mutable fields = HttpFields.build();
+        fields.put(HttpHeader.USER_AGENT, "Mozilla/5.0 (X11; Linux x86_64; rv:81.0) Gecko/20100101 Firefox/81.0");
+        fields.put(HttpHeader.ACCEPT, "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8");
+        fields.put(HttpHeader.ACCEPT_LANGUAGE, "en-US,en;q=0.5");
+        fields.put(HttpHeader.ACCEPT_ENCODING, "gzip, deflate, br");
+        fields.put(HttpHeader.REFERER, "https://www.example.com/context/path/index.html");
+        fields.put(HttpHeader.COOKIE, "JSESSIONID=node01k3v9x1ab2cd3ef4gh5ij6kl7mn8.node0; theme=dark; tracking=abcdef0123456789");
+        fields.put(HttpHeader.CACHE_CONTROL, "max-age=0");
+        fields.put(HttpHeader.IF_MODIFIED_SINCE, "Thu, 01 Oct 2020 10:20:30 GMT");
+        fields.put(HttpHeader.IF_NONE_MATCH, "\"5f75b2e6-3c4\"");
+        fields.put("X-Request-Id", "6d3c8a52-1d7e-4b6f-9a0c-2f1e3d4c5b6a");
+        return new MetaData.Request("GET", HttpScheme.HTTPS.asString(), new HostPortHttpField("www.example.com:8443"),
+            "/context/path/resource.html?query=value&other=thing", HttpVersion.HTTP_2, fields.asImmutable(), -1);
+    }
+
+    private static MetaData newResponse()
+    {
+        HttpFields.Mutable fields = HttpFields.build();
+        fields.put(HttpHeader.DATE, "Thu, 01 Oct 2020 10:20:30 GMT");
+        fields.put(HttpHeader.SERVER, "Jetty(10.0.0)");
+        fields.put(HttpHeader.CONTENT_TYPE, "text/html;charset=utf-8");
+        fields.put(HttpHeader.LAST_MODIFIED, "Thu, 01 Oct 2020 10:20:30 GMT");
+        fields.put(HttpHeader.ETAG, "\"5f75b2e6-3c4\"");
+        fields.put(HttpHeader.CACHE_CONTROL, "public, max-age=3600");
+        fields.put(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING.asString());
+        fields.put(HttpHeader.SET_COOKIE, "JSESSIONID=node01k3v9x1ab2cd3ef4gh5ij6kl7mn8.node0; Path=/; HttpOnly");
+        fields.put("X-Content-Type-Options", "nosniff");
+        fields.put("Strict-Transport-Security", "max-age=31536000; includeSubDomains");
+        return new MetaData.Response(HttpVersion.HTTP_2, 200, fields.asImmutable(), 964);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public int testEncode() throws Exception
+    {
+        HpackEncoder encoder = "COLD".equals(tableState) ? new HpackEncoder(TABLE_SIZE, TABLE_SIZE) : warmEncoder;
+        BufferUtil.clearToFill(buffer);
+        encoder.encode(buffer, metaData);
+        return buffer.position();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public MetaData testDecode() throws Exception
+    {
+        if ("COLD".equals(tableState))
+            return new HpackDecoder(TABLE_SIZE, MAX_HEADER_SIZE).decode(coldBlock.slice());
+        return warmDecoder.decode(warmBlock.slice());
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HpackBenchmark.class.getSimpleName())
+            .warmupIterations(20)
+            .measurementIterations(10)
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .threads(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
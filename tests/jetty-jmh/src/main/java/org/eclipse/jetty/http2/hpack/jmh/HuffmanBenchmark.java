@@ -0,0 +1,117 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http2.hpack.Huffman;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures Huffman encoding and decoding of header values typical of
+ * browser requests, such as long cookies and user agents.</p>
+ */
+@State(Scope.Thread)
+@Threads(1)
+@Warmup(iterations = 7, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 7, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class HuffmanBenchmark
+{
+    @Param({"COOKIE", "USER_AGENT", "DATE"})
+    public String value;
+
+    private String string;
+    private ByteBuffer encoded;
+    private final ByteBuffer buffer = BufferUtil.allocate(4096);
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        switch (value)
+        {
+            case "COOKIE":
+                string = "JSESSIONID=node01k3v9x1ab2cd3ef4gh5ij6kl7mn8.node0; theme=dark; tracking=abcdef0123456789; " +
+                    "_ga=GA1.2.1234567890.1601234567; _gid=GA1.2.987654321.1601234567; consent=yes%3Aall%3A2020-10-01";
+                break;
+
+            case "USER_AGENT":
+                string = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/86.0.4240.75 Safari/537.36";
+                break;
+
+            case "DATE":
+                string = "Thu, 01 Oct 2020 10:20:30 GMT";
+                break;
+
+            default:
+                throw new IllegalStateException("Unknown value Parameter");
+        }
+
+        encoded = BufferUtil.allocate(Huffman.octetsNeeded(string));
+        BufferUtil.clearToFill(encoded);
+        Huffman.encode(encoded, string);
+        BufferUtil.flipToFlush(encoded, 0);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public int testEncode()
+    {
+        BufferUtil.clearToFill(buffer);
+        Huffman.encode(buffer, string);
+        return buffer.position();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public String testDecode() throws Exception
+    {
+        return Huffman.decode(encoded.slice());
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HuffmanBenchmark.class.getSimpleName())
+            .warmupIterations(20)
+            .measurementIterations(10)
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .threads(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,120 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.websocket.core.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.websocket.core.Frame;
+import org.eclipse.jetty.websocket.core.OpCode;
+import org.eclipse.jetty.websocket.core.internal.Generator;
+import org.eclipse.jetty.websocket.core.internal.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@Threads(1)
+@Warmup(iterations = 7, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 7, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class WebSocketFrameBenchmark
+{
+    @Param({"10", "1024", "16384"})
+    public int payloadSize;
+
+    @Param({"true", "false"})
+    public boolean masked;
+
+    private final Generator generator = new Generator();
+    private Parser parser;
+    private Frame frame;
+    private ByteBuffer generated;
+    private ByteBuffer output;
+    private ByteBuffer input;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        byte[] payload = new byte[payloadSize];
+        ThreadLocalRandom.current().nextBytes(payload);
+        frame = new Frame(OpCode.BINARY, true, ByteBuffer.wrap(payload));
+        if (masked)
+            frame.setMask(new byte[]{0x11, 0x22, 0x33, 0x44});
+
+        output = BufferUtil.allocate(Generator.MAX_HEADER_LENGTH + payloadSize);
+        generator.generateWholeFrame(frame, output);
+        generated = BufferUtil.copy(output);
+        input = BufferUtil.allocate(generated.remaining());
+        parser = new Parser(new MappedByteBufferPool());
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public int testGenerate()
+    {
+        BufferUtil.clear(output);
+        generator.generateWholeFrame(frame, output);
+        return output.remaining();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public int testParse()
+    {
+        // Parsing demasks the payload in place, so parse a fresh copy of the generated bytes.
+        BufferUtil.clear(input);
+        BufferUtil.append(input, generated.slice());
+        try (Parser.ParsedFrame parsed = parser.parse(input))
+        {
+            if (parsed == null)
+                throw new IllegalStateException("Incomplete frame " + parser);
+            return parsed.getPayloadLength();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(WebSocketFrameBenchmark.class.getSimpleName())
+            .warmupIterations(20)
+            .measurementIterations(10)
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .threads(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}